@@ -0,0 +1,283 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.adt;
+
+import java.util.NoSuchElementException;
+
+import root.lang.Extractable;
+import root.lang.Itemizer;
+import root.lang.StringExtractor;
+import root.util.Root;
+
+/**
+ * This {@link Collector} simply collects objects, including <code>null</code>, in the order they are added.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <T>
+ *            The type of element collected by this {@link Collector}
+ */
+public final class CollectorArray<T> implements Collector<T>, Extractable {
+
+	// <><><><><><><><><><><><><><>< Private Classes <><><><><><><><><><><><><>
+
+	/**
+	 * An {@link Itemizer} for the {@code CollectorArray}.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private final class Iterator implements Itemizer<T> {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private int index;
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final int getIndex() {
+			return this.index - 1;
+		}
+
+		@Override
+		public final int getSize() {
+			return CollectorArray.this.size;
+		}
+
+		@Override
+		public final boolean hasNext() {
+			return this.index < CollectorArray.this.size;
+		}
+
+		@Override
+		public final Itemizer<T> iterator() {
+			return this;
+		}
+
+		@Override
+		public final T next() {
+			if (this.index == CollectorArray.this.size) {
+				throw new NoSuchElementException();
+			}
+
+			return CollectorArray.this.values[this.index++];
+		}
+
+		@Override
+		public final void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public final void reset() {
+			this.index = 0;
+		}
+
+	} // End Iterator
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	int size;
+	T[] values;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	/**
+	 * Default constructor. Uses a default size of 8 for the internal {@code values} array.
+	 */
+	@SuppressWarnings("unchecked")
+	public CollectorArray() {
+		this.values = (T[]) new Object[8];
+	}
+
+	/**
+	 * A constructor that accepts a predetermined capacity. Uses a default size of 8 for the internal {@code values} array if the specified capacity
+	 * is less than 8.
+	 *
+	 * @param capacity
+	 *            the predetermined capacity
+	 */
+	@SuppressWarnings("unchecked")
+	public CollectorArray(final int capacity) {
+		this.values = (T[]) new Object[Root.max(8, capacity)];
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * Adds an object to the collector.
+	 *
+	 * @param obj
+	 *            the object to add, which may be <code>null</code>
+	 */
+	@Override
+	public final void add(final T obj) {
+		if (this.size == this.values.length) {
+			this.resize();
+		}
+
+		this.values[this.size++] = obj;
+	}
+
+	/**
+	 * Clears the collector.
+	 */
+	@Override
+	public final void clear() {
+		for (int i = 0; i < this.size; i++) {
+			this.values[i] = null;
+		}
+
+		this.size = 0;
+	}
+
+	/**
+	 * Returns {@code true} if the specified {@link Object} is equal to {@code this} object. The specified {@link Object} is equal to {@code this}
+	 * object if:
+	 * <ul>
+	 * <li>The {@link Class} of the specified {@link Object} is equal to {@link CollectorArray}</li>
+	 * <li>The {@code size} of the specified {@link CollectorArray} and {@code this} object are equal</li>
+	 * <li>All objects in both the specified {@link CollectorArray} and {@code this} object are equal to each other</li>
+	 * </ul>
+	 *
+	 * @param obj
+	 *            the specified {@link Object} to compare for equality to {@code this} object
+	 * @return {@code true} if the specified {@link Object} is equal to {@code this} object, false otherwise
+	 */
+	@Override
+	public final boolean equals(final Object obj) {
+		if (Root.equalToClass(obj, CollectorArray.class)) {
+			final CollectorArray<?> collector = (CollectorArray<?>) obj;
+
+			if (this.size == collector.size) {
+				for (int i = 0; i < this.size; i++) {
+					if (Root.notEqual(this.values[i], collector.values[i])) {
+						return false;
+					}
+				}
+
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Extracts a {@link String} representation of the collector.
+	 *
+	 * @param extractor
+	 *            the {@link StringExtractor} to populate
+	 */
+	@Override
+	public final void extract(final StringExtractor extractor) {
+		extractor.append(this.values, 0, this.size);
+	}
+
+	/**
+	 * Returns the object located at the specified index.
+	 *
+	 * @param index
+	 *            the index of the item in the collector to return
+	 * @return the object located at the specified index
+	 */
+	@Override
+	public final T get(final int index) {
+		return this.values[index];
+	}
+
+	/**
+	 * Returns the size of the collector, which is how many elements are actually in the collector.
+	 *
+	 * @return the size of the collector
+	 */
+	@Override
+	public final int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the hash code of the collector.
+	 *
+	 * @return the hash code of the collector
+	 */
+	@Override
+	public final int hashCode() {
+		return Root.hashCode(this.values, this.size);
+	}
+
+	/**
+	 * Returns {@code true} if the collector is empty, which means its size is equal to zero.
+	 *
+	 * @return {@code true} if the collector is empty
+	 */
+	@Override
+	public final boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Returns an {@link Itemizer} for the collector.
+	 *
+	 * @return an {@link Itemizer} for the collector
+	 */
+	@Override
+	public final Itemizer<T> iterator() {
+		return new Iterator();
+	}
+
+	/**
+	 * Returns a {@code T[]} array representation of the collector.
+	 *
+	 * @return a {@code T[]} array representation of the collector
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public final T[] toArray() {
+		final T[] array = (T[]) new Object[this.size];
+		System.arraycopy(this.values, 0, array, 0, this.size);
+		return array;
+	}
+
+	/**
+	 * Returns a {@link String} representation of the collector.
+	 *
+	 * @return a {@link String} representation of the collector
+	 */
+	@Override
+	public final String toString() {
+		final StringExtractor extractor = new StringExtractor(this.size << 4);
+		this.extract(extractor);
+		return extractor.toString();
+	}
+
+	// <><><><><><><><><><><><><><> Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Resizes the internal values array
+	 */
+	@SuppressWarnings("unchecked")
+	private void resize() {
+		final T[] array = (T[]) new Object[this.size << 1];
+		System.arraycopy(this.values, 0, array, 0, this.size);
+		this.values = array;
+	}
+
+} // End CollectorArray
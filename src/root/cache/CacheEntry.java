@@ -48,6 +48,9 @@ final class CacheEntry<K, V> {
 	CacheEntry<K, V> mapNext;
 	CacheEntry<K, V> mapPrev;
 
+	/** The weight of the entry as measured by a {@link CacheWeigher}, or zero when the cache is not weighted */
+	int weight;
+
 	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
 
 	CacheEntry(final K key, final V value, final int index, final CacheEntry<K, V> mapHead) {
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+/**
+ * Package class used to manage a single cache entry within {@link CacheLRUBuffered}.
+ * <p>
+ * Unlike {@link CacheEntry}, the key is final and the value and hash chain are volatile so that a reader can safely walk the hash chain without
+ * holding the cache lock. For the same reason an entry is never recycled: once evicted, a reader still holding a reference to it must never observe
+ * a different key.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <K>
+ *            The key type of the cache entry
+ * @param <V>
+ *            The value type of the cache entry
+ */
+final class CacheEntryBuffered<K, V> {
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	final K key;
+	final int index;
+	volatile V value;
+	volatile CacheEntryBuffered<K, V> mapNext;
+
+	/** Guarded by the cache lock */
+	boolean evicted;
+
+	/** Guarded by the cache lock */
+	CacheEntryBuffered<K, V> listNext;
+
+	/** Guarded by the cache lock */
+	CacheEntryBuffered<K, V> listPrev;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	CacheEntryBuffered(final K key, final V value, final int index, final CacheEntryBuffered<K, V> mapHead) {
+		this.key = key;
+		this.value = value;
+		this.index = index;
+		this.mapNext = mapHead;
+	}
+
+} // End CacheEntryBuffered
@@ -49,6 +49,13 @@ final class CacheEntryTimed<K, V> {
 	CacheEntryTimed<K, V> mapNext;
 	CacheEntryTimed<K, V> mapPrev;
 
+	/** The weight of the entry as measured by a {@link CacheWeigher}, or zero when the cache is not weighted */
+	int weight;
+
+	/** Links into a {@link TimerWheel} bucket, or <code>null</code> when the entry is not scheduled to expire */
+	CacheEntryTimed<K, V> wheelNext;
+	CacheEntryTimed<K, V> wheelPrev;
+
 	final Timer itemTimer;
 
 	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
@@ -93,4 +100,23 @@ final class CacheEntryTimed<K, V> {
 		return this;
 	}
 
+	/**
+	 * Recycles the entry the same as {@link #recycle(Object, Object, int, long, CacheEntryTimed)} while also replacing its expiration.
+	 *
+	 * @param key
+	 * @param value
+	 * @param index
+	 * @param currentTime
+	 * @param expiry
+	 *            the number of milliseconds before the entry expires
+	 * @param mapHead
+	 * @return <code>this</code> {@link CacheEntryTimed} reference with the updated attributes
+	 */
+	final CacheEntryTimed<K, V> recycle(final K key, final V value, final int index, final long currentTime, final long expiry,
+			final CacheEntryTimed<K, V> mapHead) {
+		this.itemTimer.setExpiration(expiry);
+
+		return this.recycle(key, value, index, currentTime, mapHead);
+	}
+
 } // End CacheEntryTimed
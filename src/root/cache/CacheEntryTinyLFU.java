@@ -0,0 +1,74 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import root.util.Root;
+
+/**
+ * Package class used to manage a single cache entry within {@link CacheTinyLFU}. Along with the usual list and hash chain links, each entry records
+ * which region of the cache it currently belongs to.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <K>
+ *            The key type of the cache entry
+ * @param <V>
+ *            The value type of the cache entry
+ */
+final class CacheEntryTinyLFU<K, V> {
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	static final byte WINDOW = 0;
+	static final byte PROBATION = 1;
+	static final byte PROTECTED = 2;
+
+	// <><><><><><><><><><><><><><> Static Methods <><><><><><><><><><><><><><>
+
+	@SuppressWarnings("unchecked")
+	static final <K, V> CacheEntryTinyLFU<K, V>[] newArray(final int capacity) {
+		return new CacheEntryTinyLFU[Root.calculateHashTableSize(capacity)];
+	}
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	K key;
+	V value;
+	int index;
+	byte region;
+	CacheEntryTinyLFU<K, V> listNext;
+	CacheEntryTinyLFU<K, V> listPrev;
+	CacheEntryTinyLFU<K, V> mapNext;
+	CacheEntryTinyLFU<K, V> mapPrev;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	CacheEntryTinyLFU(final K key, final V value, final int index, final CacheEntryTinyLFU<K, V> mapHead) {
+		this.key = key;
+		this.value = value;
+		this.index = index;
+		this.region = WINDOW;
+		this.mapNext = mapHead;
+		this.mapPrev = null;
+
+		if (mapHead != null) {
+			mapHead.mapPrev = this;
+		}
+	}
+
+} // End CacheEntryTinyLFU
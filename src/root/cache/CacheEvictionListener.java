@@ -0,0 +1,46 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+/**
+ * Receives the entries a {@link RootCache} evicts to make room for new entries. Entries that are removed explicitly, cleared, or that expire are not
+ * reported.
+ * <p>
+ * The listener is called on the thread that triggered the eviction while a thread-safe cache still holds its lock, so it must be quick and must not
+ * call back into the cache that is evicting.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <K>
+ *            The key type of the cache entry
+ * @param <V>
+ *            The value type of the cache entry
+ */
+public interface CacheEvictionListener<K, V> {
+
+	/**
+	 * Called when the entry is evicted from the cache.
+	 *
+	 * @param key
+	 *            the key of the evicted entry
+	 * @param value
+	 *            the value of the evicted entry
+	 */
+	void onEviction(K key, V value);
+
+} // End CacheEvictionListener
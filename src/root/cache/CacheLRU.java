@@ -15,10 +15,14 @@
  */
 package root.cache;
 
+import java.util.Map;
 import java.util.NoSuchElementException;
 
+import root.adt.Collector;
+import root.adt.ListArray;
 import root.lang.Itemizer;
 import root.util.Root;
+import root.validation.InvalidParameterException;
 
 /**
  * TODO: How should a cache entry be invalidated, or marked dirty, when an update is performed?<br>
@@ -136,11 +140,43 @@ public final class CacheLRU<K, V> implements RootCache<K, V> {
 
 	private final CacheEntry<K, V>[] cache;
 
+	private long weightedSize;
+	private final long maxWeight;
+	private final CacheWeigher<K, V> weigher;
+
+	private CacheStatistics statistics;
+	private CacheEvictionListener<K, V> evictionListener;
+
 	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
 
 	public CacheLRU(final int capacity) {
 		this.capacity = Root.calculateHashTableCapacity(capacity);
 		this.cache = CacheEntry.newArray(this.capacity);
+		this.maxWeight = Long.MAX_VALUE;
+		this.weigher = null;
+	}
+
+	/**
+	 * Creates a cache that is bounded by the total weight of its entries, as measured by the {@link CacheWeigher}, as well as by the number of its
+	 * entries. Each put evicts the least recently used entries until the total weight is no more than the maximum weight, so an entry that is heavier
+	 * than the maximum weight on its own is evicted as soon as it is put.
+	 *
+	 * @param capacity
+	 *            the maximum number of entries
+	 * @param maxWeight
+	 *            the maximum total weight of the entries
+	 * @param weigher
+	 *            the {@link CacheWeigher} that weighs each entry
+	 */
+	public CacheLRU(final int capacity, final long maxWeight, final CacheWeigher<K, V> weigher) {
+		if (maxWeight <= 0) {
+			throw new InvalidParameterException(this.getClass().getName(), long.class, "maxWeight", "Invalid maximum weight: {P}", maxWeight);
+		}
+
+		this.capacity = Root.calculateHashTableCapacity(capacity);
+		this.cache = CacheEntry.newArray(this.capacity);
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
 	}
 
 	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
@@ -174,8 +210,9 @@ public final class CacheLRU<K, V> implements RootCache<K, V> {
 			this.listHead = null;
 			this.listTail = null;
 
-			// 3. Reset the size to zero
+			// 3. Reset the size and weighted size to zero
 			this.size = 0;
+			this.weightedSize = 0;
 		}
 	}
 
@@ -209,14 +246,42 @@ public final class CacheLRU<K, V> implements RootCache<K, V> {
 					this.listTail = e;
 				}
 
-				// 2. Return cached value
+				// 2. Record the hit and return cached value
+				if (this.statistics != null) {
+					this.statistics.recordHit();
+				}
+
 				return e.value;
 			}
 		}
 
+		if (this.statistics != null) {
+			this.statistics.recordMiss();
+		}
+
 		return null;
 	}
 
+	/**
+	 * @see root.cache.RootCache#getAll(Iterable, Collector)
+	 */
+	@Override
+	public final int getAll(final Iterable<? extends K> keys, final Collector<? super V> values) {
+		int numFound = 0;
+
+		for (final K key : keys) {
+			final V value = this.get(key);
+
+			if (value != null) {
+				numFound++;
+			}
+
+			values.add(value);
+		}
+
+		return numFound;
+	}
+
 	/**
 	 *
 	 *
@@ -229,11 +294,52 @@ public final class CacheLRU<K, V> implements RootCache<K, V> {
 		return this.capacity;
 	}
 
+	/**
+	 * @see root.cache.RootCache#getKeys()
+	 */
+	@Override
+	public final ListArray<K> getKeys() {
+		final ListArray<K> keys = new ListArray<>(this.size);
+
+		for (CacheEntry<K, V> e = this.listHead; e != null; e = e.listNext) {
+			keys.add(e.key);
+		}
+
+		return keys;
+	}
+
+	/**
+	 * Returns the maximum total weight of the entries, which is {@link Long#MAX_VALUE} when the cache is not weighted.
+	 *
+	 * @return the maximum total weight of the entries
+	 */
+	public final long getMaxWeight() {
+		return this.maxWeight;
+	}
+
 	@Override
 	public final int getSize() {
 		return this.size;
 	}
 
+	/**
+	 * Returns the {@link CacheStatistics} recorded by this cache.
+	 *
+	 * @return the {@link CacheStatistics} of this cache, or <code>null</code> if statistics are disabled
+	 */
+	public final CacheStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	/**
+	 * Returns the total weight of the entries in the cache as measured by its {@link CacheWeigher}, or zero when the cache is not weighted.
+	 *
+	 * @return the total weight of the entries in the cache
+	 */
+	public final long getWeightedSize() {
+		return this.weightedSize;
+	}
+
 	@Override
 	public final boolean isEmpty() {
 		return this.size == 0;
@@ -263,6 +369,7 @@ public final class CacheLRU<K, V> implements RootCache<K, V> {
 	@Override
 	public final V put(final K key, final V value) {
 		final int i = Root.hashCode(key) % this.cache.length;
+		final int weight = this.weigh(key, value);
 		CacheEntry<K, V> e = this.cache[i];
 
 		// 1. Check to see if the key is already mapped to the cache
@@ -270,12 +377,27 @@ public final class CacheLRU<K, V> implements RootCache<K, V> {
 			if (Root.equals(e.key, key)) {
 				final V oldValue = e.value;
 				e.value = value;
+				this.weightedSize += weight - e.weight;
+				e.weight = weight;
+
+				if (this.weightedSize > this.maxWeight) {
+					this.evictOverweight();
+				}
+
 				return oldValue;
 			}
 		}
 
 		// 2. Recycle oldest cached item object if cache is full
 		if (this.size == this.capacity) {
+			if (this.statistics != null) {
+				this.statistics.recordEviction();
+			}
+
+			if (this.evictionListener != null) {
+				this.evictionListener.onEviction(this.listHead.key, this.listHead.value);
+			}
+
 			// a) Remove the oldest CachedItem from both the list and the cache
 			final CacheEntry<K, V> oldestItem = this.listHead;
 			this.listHead = this.listHead.listNext;
@@ -297,6 +419,8 @@ public final class CacheLRU<K, V> implements RootCache<K, V> {
 			final V oldValue = oldestItem.value;
 
 			this.cache[i] = oldestItem.recycle(key, value, i, this.cache[i]);
+			this.weightedSize += weight - oldestItem.weight;
+			oldestItem.weight = weight;
 
 			// c) Attach recycled item to the tail of the list
 			this.listTail.listNext = oldestItem;
@@ -304,12 +428,18 @@ public final class CacheLRU<K, V> implements RootCache<K, V> {
 			oldestItem.listNext = null;
 			this.listTail = oldestItem;
 
-			// d) Return old cached value
+			// d) Evict the least recently used entries while the cache is overweight
+			if (this.weightedSize > this.maxWeight) {
+				this.evictOverweight();
+			}
+
+			// e) Return old cached value
 			return oldValue;
 		}
 
 		// 3. Otherwise create new cache item and append it to the list tail
 		e = this.cache[i] = new CacheEntry<K, V>(key, value, i, this.cache[i]);
+		e.weight = weight;
 
 		if (this.listTail == null) {
 			this.listHead = e;
@@ -320,10 +450,26 @@ public final class CacheLRU<K, V> implements RootCache<K, V> {
 
 		this.listTail = e;
 		this.size++;
+		this.weightedSize += weight;
+
+		// 4. Evict the least recently used entries while the cache is overweight
+		if (this.weightedSize > this.maxWeight) {
+			this.evictOverweight();
+		}
 
 		return null;
 	}
 
+	/**
+	 * @see root.cache.RootCache#putAll(Map)
+	 */
+	@Override
+	public final void putAll(final Map<? extends K, ? extends V> map) {
+		for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			this.put(entry.getKey(), entry.getValue());
+		}
+	}
+
 	/**
 	 *
 	 *
@@ -381,8 +527,9 @@ public final class CacheLRU<K, V> implements RootCache<K, V> {
 					foundItem.mapNext = null;
 					foundItem.mapPrev = null;
 
-					// 4. Decrement the size by one
+					// 4. Decrement the size by one and the weighted size by its weight
 					this.size--;
+					this.weightedSize -= foundItem.weight;
 
 					// 5. Return old cached value
 					return oldValue;
@@ -437,8 +584,9 @@ public final class CacheLRU<K, V> implements RootCache<K, V> {
 			oldestItem.mapNext = null;
 			oldestItem.mapPrev = null;
 
-			// 3. Decrement the size by one
+			// 3. Decrement the size by one and the weighted size by its weight
 			this.size--;
+			this.weightedSize -= oldestItem.weight;
 
 			// 4. Return old cached value
 			return oldValue;
@@ -447,4 +595,48 @@ public final class CacheLRU<K, V> implements RootCache<K, V> {
 		return null;
 	}
 
+	/**
+	 * @see root.cache.RootCache#setEvictionListener(CacheEvictionListener)
+	 */
+	@Override
+	public final void setEvictionListener(final CacheEvictionListener<K, V> listener) {
+		this.evictionListener = listener;
+	}
+
+	/**
+	 * Enables statistics on this cache by recording them into the {@link CacheStatistics}, or disables them when <code>null</code>.
+	 *
+	 * @param statistics
+	 *            the {@link CacheStatistics} to record into, or <code>null</code> to disable statistics
+	 */
+	public final void setStatistics(final CacheStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Evicts the least recently used entries until the total weight of the cache is no more than its maximum weight.
+	 */
+	private void evictOverweight() {
+		while (this.weightedSize > this.maxWeight) {
+			if (this.statistics != null) {
+				this.statistics.recordEviction();
+			}
+
+			if (this.evictionListener != null) {
+				this.evictionListener.onEviction(this.listHead.key, this.listHead.value);
+			}
+
+			this.removeNext();
+		}
+	}
+
+	/**
+	 * Returns the weight of the entry, or zero when the cache is not weighted.
+	 */
+	private int weigh(final K key, final V value) {
+		return (this.weigher == null) ? 0 : this.weigher.weigh(key, value);
+	}
+
 } // End CacheLRU
@@ -0,0 +1,623 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import root.adt.Collector;
+import root.adt.ListArray;
+import root.lang.ConcurrentItemizer;
+import root.util.Root;
+
+/**
+ * A thread-safe LRU cache whose {@link #get(Object)} never blocks.
+ * <p>
+ * {@link CacheLRUConcurrent} has to take its lock on every read because a cache hit moves the entry to the tail of the LRU list. This cache instead
+ * splits a read into two parts:
+ * <ul>
+ * <li>The hash chain is walked without any lock. Chain links and values are volatile and entries are never recycled, so a reader always sees a
+ * consistent key/value pair</li>
+ * <li>The fact that the entry was accessed is recorded in one of several striped ring buffers, selected by the id of the reading {@link Thread}. When
+ * a buffer fills up, the reader makes a single {@link ReentrantLock#tryLock()} attempt and, if successful, replays every buffered access against the
+ * LRU list in one batch. If the lock is busy, the reader simply moves on</li>
+ * </ul>
+ * The buffers are lossy: when a buffer is full or contended, the access is dropped. Recency is therefore approximate, which is an acceptable trade
+ * for a hit path that never waits on the lock. Writes ({@link #put(Object, Object)}, {@link #remove(Object)}, etc.) still take the lock and drain the
+ * buffers first so evictions see the most recent access order.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <K>
+ *            The key type of the cache entry
+ * @param <V>
+ *            The value type of the cache entry
+ */
+public final class CacheLRUBuffered<K, V> implements RootCache<K, V> {
+
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 * @param <V>
+	 *            The value type of the cache entry
+	 */
+	private final class Ascend implements ConcurrentItemizer<V> {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private int index;
+		private CacheEntryBuffered<K, V> cursor;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Ascend() {
+			this.reset();
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final int getIndex() {
+			return this.index;
+		}
+
+		@Override
+		public final int getSize() {
+			return CacheLRUBuffered.this.size;
+		}
+
+		@Override
+		public final boolean hasNext() {
+			return this.cursor != null;
+		}
+
+		@Override
+		public final ConcurrentItemizer<V> iterator() {
+			return this;
+		}
+
+		@Override
+		public final void lock() {
+			CacheLRUBuffered.this.cacheLock.lock();
+			CacheLRUBuffered.this.drainReadBuffers();
+			this.cursor = CacheLRUBuffered.this.listHead;
+		}
+
+		@Override
+		public final V next() {
+			if (this.cursor == null) {
+				throw new NoSuchElementException();
+			}
+
+			final V v = this.cursor.value;
+			this.cursor = this.cursor.listNext;
+			this.index++;
+
+			return v;
+		}
+
+		/**
+		 * @throws UnsupportedOperationException
+		 */
+		@Override
+		public final void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public final void reset() {
+			this.index = -1;
+			this.cursor = null;
+		}
+
+		@Override
+		public final void unlock() {
+			CacheLRUBuffered.this.cacheLock.unlock();
+		}
+
+	} // End Ascend
+
+	/**
+	 * A bounded multiple-producer ring buffer of accessed entries. Producers claim a slot with a CAS on {@link #writeCounter}; the single consumer
+	 * drains it while holding the cache lock.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 * @param <K>
+	 *            The key type of the cache entry
+	 * @param <V>
+	 *            The value type of the cache entry
+	 */
+	private static final class ReadBuffer<K, V> {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		/** Only written while holding the cache lock */
+		private volatile long readCounter;
+		private final AtomicLong writeCounter;
+		private final AtomicReferenceArray<CacheEntryBuffered<K, V>> slots;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private ReadBuffer() {
+			this.writeCounter = new AtomicLong();
+			this.slots = new AtomicReferenceArray<>(readBufferSize);
+		}
+
+		// <><><><><><><><><><><><><> Private Methods <><><><><><><><><><><><><>
+
+		/**
+		 * Records the access of the entry. Returns <code>true</code> if the buffer is full and should be drained, <code>false</code> otherwise.
+		 */
+		private boolean offer(final CacheEntryBuffered<K, V> e) {
+			final long w = this.writeCounter.get();
+			final long pending = w - this.readCounter;
+
+			if (pending >= readBufferSize) {
+				return true;
+			}
+
+			if (this.writeCounter.compareAndSet(w, w + 1)) {
+				this.slots.lazySet((int) w & readBufferMask, e);
+				return pending + 1 >= readBufferSize;
+			}
+
+			// Lost the race to another reader so drop this access
+			return false;
+		}
+
+	} // End ReadBuffer
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final int readBufferSize = 16;
+	private static final int readBufferMask = readBufferSize - 1;
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	/** Guarded by cacheLock */
+	private CacheEntryBuffered<K, V> listHead;
+
+	/** Guarded by cacheLock */
+	private CacheEntryBuffered<K, V> listTail;
+
+	private volatile int size;
+	private final int capacity;
+	private final AtomicReferenceArray<CacheEntryBuffered<K, V>> cache;
+
+	private final int readBufferStripeMask;
+	private final ReadBuffer<K, V>[] readBuffers;
+
+	private final ReentrantLock cacheLock;
+
+	/** Guarded by cacheLock */
+	private CacheEvictionListener<K, V> evictionListener;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	/**
+	 * Creates a buffered LRU cache with one read buffer for every available processor, rounded up to the next power of two.
+	 *
+	 * @param capacity
+	 *            the capacity of the cache
+	 */
+	@SuppressWarnings("unchecked")
+	public CacheLRUBuffered(final int capacity) {
+		final int numProcessors = Runtime.getRuntime().availableProcessors();
+		final int numStripes = numProcessors <= 1 ? 1 : Integer.highestOneBit(numProcessors - 1) << 1;
+
+		this.capacity = Root.calculateHashTableCapacity(capacity);
+		this.cache = new AtomicReferenceArray<>(Root.calculateHashTableSize(this.capacity));
+		this.readBufferStripeMask = numStripes - 1;
+		this.readBuffers = new ReadBuffer[numStripes];
+		this.cacheLock = new ReentrantLock();
+
+		for (int i = 0; i < numStripes; i++) {
+			this.readBuffers[i] = new ReadBuffer<>();
+		}
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * @see root.cache.RootCache#clear()
+	 */
+	@Override
+	public final void clear() {
+		this.cacheLock.lock();
+
+		try {
+			this.drainReadBuffers();
+
+			if (this.size != 0) {
+				// 1. Mark every entry as evicted so any buffered access to it is ignored
+				for (CacheEntryBuffered<K, V> e = this.listHead; e != null; e = e.listNext) {
+					e.evicted = true;
+					e.value = null;
+				}
+
+				// 2. Clear all hash chains
+				for (int i = 0; i < this.cache.length(); i++) {
+					this.cache.set(i, null);
+				}
+
+				// 3. Reset the listHead, listTail, and size
+				this.listHead = null;
+				this.listTail = null;
+				this.size = 0;
+			}
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the value associated with the key without acquiring the cache lock. The access is recorded in a read buffer and replayed against the
+	 * LRU list later.
+	 *
+	 * @see root.cache.RootCache#get(K)
+	 */
+	@Override
+	public final V get(final K key) {
+		final int i = Root.hashCode(key) % this.cache.length();
+
+		for (CacheEntryBuffered<K, V> e = this.cache.get(i); e != null; e = e.mapNext) {
+			if (Root.equals(e.key, key)) {
+				final V value = e.value;
+
+				if (value != null) {
+					this.recordRead(e);
+				}
+
+				return value;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Looks up every key without taking the cache lock, since reads are already lock-free and only record their accesses in the read buffers.
+	 *
+	 * @see root.cache.RootCache#getAll(Iterable, Collector)
+	 */
+	@Override
+	public final int getAll(final Iterable<? extends K> keys, final Collector<? super V> values) {
+		int numFound = 0;
+
+		for (final K key : keys) {
+			final V value = this.get(key);
+
+			if (value != null) {
+				numFound++;
+			}
+
+			values.add(value);
+		}
+
+		return numFound;
+	}
+
+	/**
+	 * @see root.cache.RootCache#getCapacity()
+	 */
+	@Override
+	public final int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Returns the keys from the least to the most recently used after replaying the buffered reads.
+	 *
+	 * @see root.cache.RootCache#getKeys()
+	 */
+	@Override
+	public final ListArray<K> getKeys() {
+		final ListArray<K> keys = new ListArray<>(this.size);
+
+		this.cacheLock.lock();
+		try {
+			this.drainReadBuffers();
+
+			for (CacheEntryBuffered<K, V> e = this.listHead; e != null; e = e.listNext) {
+				keys.add(e.key);
+			}
+		} finally {
+			this.cacheLock.unlock();
+		}
+
+		return keys;
+	}
+
+	@Override
+	public final int getSize() {
+		return this.size;
+	}
+
+	@Override
+	public final boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * @see root.cache.RootCache#iterator()
+	 */
+	@Override
+	public final ConcurrentItemizer<V> iterator() {
+		return new Ascend();
+	}
+
+	/**
+	 * Associates the specified value with the specified key in this cache.
+	 *
+	 * @param key
+	 *            the key with which the value will be associated
+	 * @param value
+	 *            the value associated with the specified key
+	 * @return the previous value associated with key, or <code>null</code> if there was no mapping for key
+	 *
+	 * @see root.cache.RootCache#put(K, V)
+	 */
+	@Override
+	public final V put(final K key, final V value) {
+		this.cacheLock.lock();
+		try {
+			this.drainReadBuffers();
+
+			return this.putValue(key, value);
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
+
+	/**
+	 * Puts every entry while holding the cache lock once and draining the read buffers once for the whole batch.
+	 *
+	 * @see root.cache.RootCache#putAll(Map)
+	 */
+	@Override
+	public final void putAll(final Map<? extends K, ? extends V> map) {
+		this.cacheLock.lock();
+		try {
+			this.drainReadBuffers();
+
+			for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+				this.putValue(entry.getKey(), entry.getValue());
+			}
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
+
+	/**
+	 * @see root.cache.RootCache#remove(Object)
+	 */
+	@Override
+	public final V remove(final K key) {
+		if (this.size != 0) {
+			final int i = Root.hashCode(key) % this.cache.length();
+
+			this.cacheLock.lock();
+
+			try {
+				this.drainReadBuffers();
+
+				for (CacheEntryBuffered<K, V> e = this.cache.get(i); e != null; e = e.mapNext) {
+					if (Root.equals(e.key, key)) {
+						final V oldValue = e.value;
+						this.unlink(e);
+						return oldValue;
+					}
+				}
+			} finally {
+				this.cacheLock.unlock();
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @see root.cache.RootCache#removeNext()
+	 */
+	@Override
+	public final V removeNext() {
+		this.cacheLock.lock();
+
+		try {
+			this.drainReadBuffers();
+
+			if (this.size != 0) {
+				final CacheEntryBuffered<K, V> oldestItem = this.listHead;
+				final V oldValue = oldestItem.value;
+
+				this.unlink(oldestItem);
+
+				return oldValue;
+			}
+		} finally {
+			this.cacheLock.unlock();
+		}
+
+		return null;
+	}
+
+	/**
+	 * @see root.cache.RootCache#setEvictionListener(CacheEvictionListener)
+	 */
+	@Override
+	public final void setEvictionListener(final CacheEvictionListener<K, V> listener) {
+		this.cacheLock.lock();
+		try {
+			this.evictionListener = listener;
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Replays every buffered access against the LRU list. Must be called while holding the cache lock.
+	 */
+	private void drainReadBuffers() {
+		CacheEntryBuffered<K, V> e;
+		int slot;
+		long r, w;
+
+		for (final ReadBuffer<K, V> buffer : this.readBuffers) {
+			r = buffer.readCounter;
+			w = buffer.writeCounter.get();
+
+			for (; r < w; r++) {
+				slot = (int) r & readBufferMask;
+				e = buffer.slots.get(slot);
+
+				if (e == null) {
+					// The producer claimed the slot but has not published the entry yet
+					break;
+				}
+
+				buffer.slots.lazySet(slot, null);
+
+				if (!e.evicted && e != this.listTail) {
+					// Move the accessed entry to the tail of the list
+					if (this.listHead == e) {
+						this.listHead = e.listNext;
+						this.listHead.listPrev = null;
+					} else {
+						e.listPrev.listNext = e.listNext;
+						e.listNext.listPrev = e.listPrev;
+					}
+
+					this.listTail.listNext = e;
+					e.listPrev = this.listTail;
+					e.listNext = null;
+					this.listTail = e;
+				}
+			}
+
+			buffer.readCounter = r;
+		}
+	}
+
+	private V putValue(final K key, final V value) {
+		final int i = Root.hashCode(key) % this.cache.length();
+
+		// 1. Check to see if the key is already mapped to the cache
+		for (CacheEntryBuffered<K, V> e = this.cache.get(i); e != null; e = e.mapNext) {
+			if (Root.equals(e.key, key)) {
+				final V oldValue = e.value;
+				e.value = value;
+				return oldValue;
+			}
+		}
+
+		// 2. Evict the oldest entry if the cache is full
+		V oldValue = null;
+		if (this.size == this.capacity) {
+			final CacheEntryBuffered<K, V> oldestItem = this.listHead;
+
+			if (this.evictionListener != null) {
+				this.evictionListener.onEviction(oldestItem.key, oldestItem.value);
+			}
+
+			oldValue = oldestItem.value;
+			this.unlink(oldestItem);
+		}
+
+		// 3. Publish the new entry at the head of its hash chain and append it to the list tail
+		final CacheEntryBuffered<K, V> e = new CacheEntryBuffered<>(key, value, i, this.cache.get(i));
+
+		if (this.listTail == null) {
+			this.listHead = e;
+		} else {
+			this.listTail.listNext = e;
+			e.listPrev = this.listTail;
+		}
+
+		this.listTail = e;
+		this.cache.set(i, e);
+		this.size++;
+
+		return oldValue;
+	}
+
+	private void recordRead(final CacheEntryBuffered<K, V> e) {
+		final ReadBuffer<K, V> buffer = this.readBuffers[(int) Thread.currentThread().getId() & this.readBufferStripeMask];
+
+		if (buffer.offer(e) && this.cacheLock.tryLock()) {
+			try {
+				this.drainReadBuffers();
+			} finally {
+				this.cacheLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Removes the entry from both its hash chain and the LRU list. The entry's own <code>mapNext</code> link is left intact so that a reader currently
+	 * positioned on it can continue walking the chain. Must be called while holding the cache lock.
+	 */
+	private void unlink(final CacheEntryBuffered<K, V> e) {
+		// 1. Remove the entry from its hash chain
+		CacheEntryBuffered<K, V> prev = this.cache.get(e.index);
+
+		if (prev == e) {
+			this.cache.set(e.index, e.mapNext);
+		} else {
+			while (prev.mapNext != e) {
+				prev = prev.mapNext;
+			}
+
+			prev.mapNext = e.mapNext;
+		}
+
+		// 2. Remove the entry from the list
+		if (this.listHead == e) {
+			this.listHead = e.listNext;
+		} else {
+			e.listPrev.listNext = e.listNext;
+		}
+
+		if (this.listTail == e) {
+			this.listTail = e.listPrev;
+		} else {
+			e.listNext.listPrev = e.listPrev;
+		}
+
+		// 3. Mark the entry as evicted so that readers and buffered accesses ignore it
+		e.evicted = true;
+		e.value = null;
+		e.listNext = null;
+		e.listPrev = null;
+
+		this.size--;
+	}
+
+} // End CacheLRUBuffered
@@ -15,11 +15,15 @@
  */
 package root.cache;
 
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.locks.ReentrantLock;
 
+import root.adt.Collector;
+import root.adt.ListArray;
 import root.lang.ConcurrentItemizer;
 import root.util.Root;
+import root.validation.InvalidParameterException;
 
 /**
  * TODO: How should a cache entry be invalidated, or marked dirty, when an update is performed?<br>
@@ -126,6 +130,20 @@ public final class CacheLRUConcurrent<K, V> implements RootCache<K, V> {
 
 	} // End Ascend
 
+	// <><><><><><><><><><><><><><> Static Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * Creates a cache that holds up to exactly <code>capacity</code> entries, instead of rounding the capacity up to a multiple of 16 the way the
+	 * public constructors do, so that {@link CacheLRUSegmented} can split its capacity across its segments without inflating it.
+	 *
+	 * @param capacity
+	 *            the exact maximum number of entries, which must be at least one
+	 * @return a cache bounded by exactly <code>capacity</code> entries
+	 */
+	static final <K, V> CacheLRUConcurrent<K, V> exact(final int capacity) {
+		return new CacheLRUConcurrent<K, V>(capacity, CacheEntry.<K, V> newArray(capacity), Long.MAX_VALUE, null);
+	}
+
 	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
 
 	private CacheEntry<K, V> listHead;
@@ -135,13 +153,54 @@ public final class CacheLRUConcurrent<K, V> implements RootCache<K, V> {
 	private final int capacity;
 	private final CacheEntry<K, V>[] cache;
 
+	private long weightedSize;
+	private final long maxWeight;
+	private final CacheWeigher<K, V> weigher;
+
 	private final ReentrantLock cacheLock;
 
+	private CacheStatistics statistics;
+	private CacheEvictionListener<K, V> evictionListener;
+
 	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
 
 	public CacheLRUConcurrent(final int capacity) {
 		this.capacity = Root.calculateHashTableCapacity(capacity);
 		this.cache = CacheEntry.newArray(this.capacity);
+		this.maxWeight = Long.MAX_VALUE;
+		this.weigher = null;
+		this.cacheLock = new ReentrantLock();
+	}
+
+	/**
+	 * Creates a cache that is bounded by the total weight of its entries, as measured by the {@link CacheWeigher}, as well as by the number of its
+	 * entries. Each put evicts the least recently used entries until the total weight is no more than the maximum weight, so an entry that is heavier
+	 * than the maximum weight on its own is evicted as soon as it is put.
+	 *
+	 * @param capacity
+	 *            the maximum number of entries
+	 * @param maxWeight
+	 *            the maximum total weight of the entries
+	 * @param weigher
+	 *            the {@link CacheWeigher} that weighs each entry
+	 */
+	public CacheLRUConcurrent(final int capacity, final long maxWeight, final CacheWeigher<K, V> weigher) {
+		if (maxWeight <= 0) {
+			throw new InvalidParameterException(this.getClass().getName(), long.class, "maxWeight", "Invalid maximum weight: {P}", maxWeight);
+		}
+
+		this.capacity = Root.calculateHashTableCapacity(capacity);
+		this.cache = CacheEntry.newArray(this.capacity);
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+		this.cacheLock = new ReentrantLock();
+	}
+
+	private CacheLRUConcurrent(final int capacity, final CacheEntry<K, V>[] cache, final long maxWeight, final CacheWeigher<K, V> weigher) {
+		this.capacity = capacity;
+		this.cache = cache;
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
 		this.cacheLock = new ReentrantLock();
 	}
 
@@ -179,8 +238,9 @@ public final class CacheLRUConcurrent<K, V> implements RootCache<K, V> {
 				this.listHead = null;
 				this.listTail = null;
 
-				// 3. Reset the size to zero
+				// 3. Reset the size and weighted size to zero
 				this.size = 0;
+				this.weightedSize = 0;
 			}
 		} finally {
 			this.cacheLock.unlock();
@@ -197,37 +257,39 @@ public final class CacheLRUConcurrent<K, V> implements RootCache<K, V> {
 	 */
 	@Override
 	public final V get(final K key) {
-		final int i = Root.hashCode(key) % this.cache.length;
-
 		this.cacheLock.lock();
 		try {
-			for (CacheEntry<K, V> e = this.cache[i]; e != null; e = e.mapNext) {
-				if (Root.equals(e.key, key)) {
-					// 1. Move the cached item to the tail of the list
-					if (this.listTail != e) {
-						if (this.listHead == e) {
-							this.listHead = this.listHead.listNext;
-							this.listHead.listPrev = null;
-						} else {
-							e.listPrev.listNext = e.listNext;
-							e.listNext.listPrev = e.listPrev;
-						}
+			return this.getValue(key);
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
 
-						this.listTail.listNext = e;
-						e.listPrev = this.listTail;
-						e.listNext = null;
-						this.listTail = e;
-					}
+	/**
+	 * Looks up every key while holding the cache lock once for the whole batch.
+	 *
+	 * @see root.cache.RootCache#getAll(Iterable, Collector)
+	 */
+	@Override
+	public final int getAll(final Iterable<? extends K> keys, final Collector<? super V> values) {
+		int numFound = 0;
+
+		this.cacheLock.lock();
+		try {
+			for (final K key : keys) {
+				final V value = this.getValue(key);
 
-					// 2. Return cached value
-					return e.value;
+				if (value != null) {
+					numFound++;
 				}
+
+				values.add(value);
 			}
 		} finally {
 			this.cacheLock.unlock();
 		}
 
-		return null;
+		return numFound;
 	}
 
 	/**
@@ -242,11 +304,57 @@ public final class CacheLRUConcurrent<K, V> implements RootCache<K, V> {
 		return this.capacity;
 	}
 
+	/**
+	 * @see root.cache.RootCache#getKeys()
+	 */
+	@Override
+	public final ListArray<K> getKeys() {
+		final ListArray<K> keys = new ListArray<>(this.size);
+
+		this.cacheLock.lock();
+		try {
+			for (CacheEntry<K, V> e = this.listHead; e != null; e = e.listNext) {
+				keys.add(e.key);
+			}
+		} finally {
+			this.cacheLock.unlock();
+		}
+
+		return keys;
+	}
+
+	/**
+	 * Returns the maximum total weight of the entries, which is {@link Long#MAX_VALUE} when the cache is not weighted.
+	 *
+	 * @return the maximum total weight of the entries
+	 */
+	public final long getMaxWeight() {
+		return this.maxWeight;
+	}
+
 	@Override
 	public final int getSize() {
 		return this.size;
 	}
 
+	/**
+	 * Returns the {@link CacheStatistics} recorded by this cache.
+	 *
+	 * @return the {@link CacheStatistics} of this cache, or <code>null</code> if statistics are disabled
+	 */
+	public final CacheStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	/**
+	 * Returns the total weight of the entries in the cache as measured by its {@link CacheWeigher}, or zero when the cache is not weighted.
+	 *
+	 * @return the total weight of the entries in the cache
+	 */
+	public final long getWeightedSize() {
+		return this.weightedSize;
+	}
+
 	@Override
 	public final boolean isEmpty() {
 		return this.size == 0;
@@ -273,75 +381,29 @@ public final class CacheLRUConcurrent<K, V> implements RootCache<K, V> {
 	 */
 	@Override
 	public final V put(final K key, final V value) {
-		final int i = Root.hashCode(key) % this.cache.length;
-
 		this.cacheLock.lock();
-
 		try {
-			CacheEntry<K, V> e = this.cache[i];
-
-			// 1. Check to see if the key is already mapped to the cache
-			for (; e != null; e = e.mapNext) {
-				if (Root.equals(e.key, key)) {
-					final V oldValue = e.value;
-					e.value = value;
-					return oldValue;
-				}
-			}
-
-			// 2. Recycle oldest cached item object if cache is full
-			if (this.size == this.capacity) {
-				// a) Remove the oldest CacheEntry from both the list and the cache
-				final CacheEntry<K, V> oldestItem = this.listHead;
-				this.listHead = this.listHead.listNext;
-				this.listHead.listPrev = null;
-
-				// TODO: Not sure if this logic is correct so test with JUnit (also test remove(key)
-				// and removeNext()
-				if (oldestItem == this.cache[oldestItem.index]) {
-					this.cache[oldestItem.index] = oldestItem.mapNext;
-					if (oldestItem.mapNext != null) {
-						oldestItem.mapNext.mapPrev = null;
-					}
-				} else {
-					oldestItem.mapPrev.mapNext = oldestItem.mapNext;
-					if (oldestItem.mapNext != null) {
-						oldestItem.mapNext.mapPrev = oldestItem.mapPrev;
-					}
-				}
-
-				// b) Reuse the oldest CacheEntry for the new cache entry
-				final V oldValue = oldestItem.value;
-
-				this.cache[i] = oldestItem.recycle(key, value, i, this.cache[i]);
-
-				// c) Attach recycled item to the tail of the list
-				this.listTail.listNext = oldestItem;
-				oldestItem.listPrev = this.listTail;
-				oldestItem.listNext = null;
-				this.listTail = oldestItem;
-
-				// d) Return old cached value
-				return oldValue;
-			}
-
-			// 3. Otherwise create new cache item and append it to the list tail
-			e = this.cache[i] = new CacheEntry<K, V>(key, value, i, this.cache[i]);
+			return this.putValue(key, value);
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
 
-			if (this.listTail == null) {
-				this.listHead = e;
-			} else {
-				this.listTail.listNext = e;
-				e.listPrev = this.listTail;
+	/**
+	 * Puts every entry while holding the cache lock once for the whole batch.
+	 *
+	 * @see root.cache.RootCache#putAll(Map)
+	 */
+	@Override
+	public final void putAll(final Map<? extends K, ? extends V> map) {
+		this.cacheLock.lock();
+		try {
+			for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+				this.putValue(entry.getKey(), entry.getValue());
 			}
-
-			this.listTail = e;
-			this.size++;
 		} finally {
 			this.cacheLock.unlock();
 		}
-
-		return null;
 	}
 
 	/**
@@ -406,8 +468,9 @@ public final class CacheLRUConcurrent<K, V> implements RootCache<K, V> {
 						foundItem.mapNext = null;
 						foundItem.mapPrev = null;
 
-						// 4. Decrement the size by one
+						// 4. Decrement the size by one and the weighted size by its weight
 						this.size--;
+						this.weightedSize -= foundItem.weight;
 
 						// 5. Return old cached value
 						return oldValue;
@@ -465,8 +528,9 @@ public final class CacheLRUConcurrent<K, V> implements RootCache<K, V> {
 				oldestItem.mapNext = null;
 				oldestItem.mapPrev = null;
 
-				// 3. Decrement the size by one
+				// 3. Decrement the size by one and the weighted size by its weight
 				this.size--;
+				this.weightedSize -= oldestItem.weight;
 
 				// 4. Return old cached value
 				return oldValue;
@@ -478,4 +542,200 @@ public final class CacheLRUConcurrent<K, V> implements RootCache<K, V> {
 		return null;
 	}
 
+	/**
+	 * @see root.cache.RootCache#setEvictionListener(CacheEvictionListener)
+	 */
+	@Override
+	public final void setEvictionListener(final CacheEvictionListener<K, V> listener) {
+		this.cacheLock.lock();
+		try {
+			this.evictionListener = listener;
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
+
+	/**
+	 * Enables statistics on this cache by recording them into the {@link CacheStatistics}, or disables them when <code>null</code>.
+	 *
+	 * @param statistics
+	 *            the {@link CacheStatistics} to record into, or <code>null</code> to disable statistics
+	 */
+	public final void setStatistics(final CacheStatistics statistics) {
+		this.cacheLock.lock();
+		try {
+			this.statistics = statistics;
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Evicts the least recently used entries until the total weight of the cache is no more than its maximum weight. The cache lock must be held.
+	 */
+	private void evictOverweight() {
+		while (this.weightedSize > this.maxWeight) {
+			if (this.statistics != null) {
+				this.statistics.recordEviction();
+			}
+
+			if (this.evictionListener != null) {
+				this.evictionListener.onEviction(this.listHead.key, this.listHead.value);
+			}
+
+			this.removeNext();
+		}
+	}
+
+	private V getValue(final K key) {
+		final int i = Root.hashCode(key) % this.cache.length;
+
+		for (CacheEntry<K, V> e = this.cache[i]; e != null; e = e.mapNext) {
+			if (Root.equals(e.key, key)) {
+				// 1. Move the cached item to the tail of the list
+				if (this.listTail != e) {
+					if (this.listHead == e) {
+						this.listHead = this.listHead.listNext;
+						this.listHead.listPrev = null;
+					} else {
+						e.listPrev.listNext = e.listNext;
+						e.listNext.listPrev = e.listPrev;
+					}
+
+					this.listTail.listNext = e;
+					e.listPrev = this.listTail;
+					e.listNext = null;
+					this.listTail = e;
+				}
+
+				// 2. Record the hit and return cached value
+				if (this.statistics != null) {
+					this.statistics.recordHit();
+				}
+
+				return e.value;
+			}
+		}
+
+		if (this.statistics != null) {
+			this.statistics.recordMiss();
+		}
+
+		return null;
+	}
+
+	private V putValue(final K key, final V value) {
+		final int i = Root.hashCode(key) % this.cache.length;
+		final int weight = this.weigh(key, value);
+		CacheEntry<K, V> e = this.cache[i];
+
+		// 1. Check to see if the key is already mapped to the cache
+		for (; e != null; e = e.mapNext) {
+			if (Root.equals(e.key, key)) {
+				final V oldValue = e.value;
+				e.value = value;
+				this.weightedSize += weight - e.weight;
+				e.weight = weight;
+
+				if (this.weightedSize > this.maxWeight) {
+					this.evictOverweight();
+				}
+
+				return oldValue;
+			}
+		}
+
+		// 2. Recycle oldest cached item object if cache is full
+		if (this.size == this.capacity) {
+			if (this.statistics != null) {
+				this.statistics.recordEviction();
+			}
+
+			if (this.evictionListener != null) {
+				this.evictionListener.onEviction(this.listHead.key, this.listHead.value);
+			}
+
+			// a) Remove the oldest CacheEntry from both the list and the cache
+			final CacheEntry<K, V> oldestItem = this.listHead;
+			this.listHead = this.listHead.listNext;
+
+			if (this.listHead == null) {
+				this.listTail = null;
+			} else {
+				this.listHead.listPrev = null;
+			}
+
+			// TODO: Not sure if this logic is correct so test with JUnit (also test remove(key)
+			// and removeNext()
+			if (oldestItem == this.cache[oldestItem.index]) {
+				this.cache[oldestItem.index] = oldestItem.mapNext;
+				if (oldestItem.mapNext != null) {
+					oldestItem.mapNext.mapPrev = null;
+				}
+			} else {
+				oldestItem.mapPrev.mapNext = oldestItem.mapNext;
+				if (oldestItem.mapNext != null) {
+					oldestItem.mapNext.mapPrev = oldestItem.mapPrev;
+				}
+			}
+
+			// b) Reuse the oldest CacheEntry for the new cache entry
+			final V oldValue = oldestItem.value;
+
+			this.cache[i] = oldestItem.recycle(key, value, i, this.cache[i]);
+			this.weightedSize += weight - oldestItem.weight;
+			oldestItem.weight = weight;
+
+			// c) Attach recycled item to the tail of the list
+			if (this.listTail == null) {
+				this.listHead = oldestItem;
+			} else {
+				this.listTail.listNext = oldestItem;
+			}
+
+			oldestItem.listPrev = this.listTail;
+			oldestItem.listNext = null;
+			this.listTail = oldestItem;
+
+			// d) Evict the least recently used entries while the cache is overweight
+			if (this.weightedSize > this.maxWeight) {
+				this.evictOverweight();
+			}
+
+			// e) Return old cached value
+			return oldValue;
+		}
+
+		// 3. Otherwise create new cache item and append it to the list tail
+		e = this.cache[i] = new CacheEntry<K, V>(key, value, i, this.cache[i]);
+		e.weight = weight;
+
+		if (this.listTail == null) {
+			this.listHead = e;
+		} else {
+			this.listTail.listNext = e;
+			e.listPrev = this.listTail;
+		}
+
+		this.listTail = e;
+		this.size++;
+		this.weightedSize += weight;
+
+		// 4. Evict the least recently used entries while the cache is overweight
+		if (this.weightedSize > this.maxWeight) {
+			this.evictOverweight();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the weight of the entry, or zero when the cache is not weighted.
+	 */
+	private int weigh(final K key, final V value) {
+		return (this.weigher == null) ? 0 : this.weigher.weigh(key, value);
+	}
+
 } // End CacheLRUConcurrent
@@ -0,0 +1,439 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.NoSuchElementException;
+
+import root.lang.Itemizer;
+import root.util.Root;
+
+/**
+ * A least recently used cache keyed by a primitive <code>long</code>, such as a database ID, that never boxes its keys.
+ * <p>
+ * The keys are stored in a <code>long[]</code> that runs parallel to an open-addressed table of {@link CacheEntry} objects. The table is probed
+ * linearly from a Fibonacci hash of the key and is kept at most three quarters full, and a removed slot is filled by shifting the rest of its probe
+ * sequence backwards so the table never fills with tombstones. The {@link CacheEntry} objects themselves only carry the value, the slot index, and
+ * the links of the recency list, which works the same as in {@link CacheLRU}.
+ * <p>
+ * A {@link #get(long)} allocates nothing, and once the cache is full every {@link #put(long, Object)} reuses the evicted {@link CacheEntry}. Like
+ * {@link CacheFixed}, this cache does not implement {@link RootCache} since its keys are not objects.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <V>
+ *            The value type of the cache entry
+ */
+public final class CacheLRULong<V> {
+
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private final class Ascend implements Itemizer<V> {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private int index;
+		private CacheEntry<Object, V> cursor;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Ascend() {
+			this.reset();
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		/**
+		 * @see root.lang.Itemizer#getIndex()
+		 */
+		@Override
+		public final int getIndex() {
+			return this.index;
+		}
+
+		/**
+		 * @see root.lang.Itemizer#getSize()
+		 */
+		@Override
+		public final int getSize() {
+			return CacheLRULong.this.size;
+		}
+
+		/**
+		 * @see root.lang.Itemizer#hasNext()
+		 */
+		@Override
+		public final boolean hasNext() {
+			return this.cursor != null;
+		}
+
+		/**
+		 * @see root.lang.Itemizer#iterator()
+		 */
+		@Override
+		public final Itemizer<V> iterator() {
+			return this;
+		}
+
+		@Override
+		public final V next() {
+			if (this.cursor == null) {
+				throw new NoSuchElementException();
+			}
+
+			final V v = this.cursor.value;
+			this.cursor = this.cursor.listNext;
+			this.index++;
+
+			return v;
+		}
+
+		/**
+		 * @throws UnsupportedOperationException
+		 */
+		@Override
+		public final void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public final void reset() {
+			this.index = -1;
+			this.cursor = CacheLRULong.this.listHead;
+		}
+
+	} // End Ascend
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	/** 2^64 divided by the golden ratio, which spreads sequential keys evenly across the table */
+	private static final long goldenRatio = 0x9E3779B97F4A7C15L;
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private CacheEntry<Object, V> listHead;
+	private CacheEntry<Object, V> listTail;
+
+	private int size;
+	private final int capacity;
+
+	private final int shift;
+	private final long[] keys;
+	private final CacheEntry<Object, V>[] table;
+
+	private CacheStatistics statistics;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	@SuppressWarnings("unchecked")
+	public CacheLRULong(final int capacity) {
+		this.capacity = Root.calculateHashTableCapacity(capacity);
+
+		final int tableSize = Integer.highestOneBit(this.capacity + this.capacity / 3) << 1;
+
+		this.shift = 64 - Integer.numberOfTrailingZeros(tableSize);
+		this.keys = new long[tableSize];
+		this.table = new CacheEntry[tableSize];
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	public final void clear() {
+		if (this.size != 0) {
+			CacheEntry<Object, V> e, next;
+
+			// 1. Clean up every CacheEntry for GC
+			for (e = this.listHead; e != null; e = next) {
+				next = e.listNext;
+				e.value = null;
+				e.listNext = null;
+				e.listPrev = null;
+				this.table[e.index] = null;
+			}
+
+			// 2. Reset the listHead and listTail
+			this.listHead = null;
+			this.listTail = null;
+
+			// 3. Reset the size to zero
+			this.size = 0;
+		}
+	}
+
+	/**
+	 * Returns the value associated with the key, or <code>null</code> if no association exists.
+	 *
+	 * @param key
+	 *            the key to lookup the value in the cache
+	 * @return the value associated with the key, or <code>null</code> if no association exists
+	 */
+	public final V get(final long key) {
+		final int i = this.find(key);
+
+		if (i >= 0) {
+			final CacheEntry<Object, V> e = this.table[i];
+
+			// 1. Move the cached item to the tail of the list
+			this.moveToTail(e);
+
+			// 2. Record the hit and return cached value
+			if (this.statistics != null) {
+				this.statistics.recordHit();
+			}
+
+			return e.value;
+		}
+
+		if (this.statistics != null) {
+			this.statistics.recordMiss();
+		}
+
+		return null;
+	}
+
+	public final int getCapacity() {
+		return this.capacity;
+	}
+
+	public final int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the {@link CacheStatistics} recorded by this cache.
+	 *
+	 * @return the {@link CacheStatistics} of this cache, or <code>null</code> if statistics are disabled
+	 */
+	public final CacheStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	public final boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public final Itemizer<V> iterator() {
+		return new Ascend();
+	}
+
+	/**
+	 * Puts the value in the cache associated with the key, evicting the least recently used entry if the cache is full.
+	 *
+	 * @param key
+	 *            the key associated with the value
+	 * @param value
+	 *            the value to store in the cache
+	 * @return the previous value associated with the key, or the value of the evicted entry, or <code>null</code> if neither exists
+	 */
+	public final V put(final long key, final V value) {
+		int i = this.find(key);
+
+		// 1. Check to see if the key is already mapped to the cache
+		if (i >= 0) {
+			final V oldValue = this.table[i].value;
+			this.table[i].value = value;
+			return oldValue;
+		}
+
+		// 2. Recycle oldest cached item object if cache is full
+		if (this.size == this.capacity) {
+			if (this.statistics != null) {
+				this.statistics.recordEviction();
+			}
+
+			// a) Remove the oldest CacheEntry from both the list and the table
+			final CacheEntry<Object, V> oldestItem = this.listHead;
+			this.listHead = this.listHead.listNext;
+			this.listHead.listPrev = null;
+			this.deleteSlot(oldestItem.index);
+
+			// b) Reuse the oldest CacheEntry for the new cache entry, whose slot may have moved
+			final V oldValue = oldestItem.value;
+			i = ~this.find(key);
+
+			this.keys[i] = key;
+			this.table[i] = oldestItem.recycle(null, value, i, null);
+
+			// c) Attach recycled item to the tail of the list
+			this.listTail.listNext = oldestItem;
+			oldestItem.listPrev = this.listTail;
+			oldestItem.listNext = null;
+			this.listTail = oldestItem;
+
+			// d) Return old cached value
+			return oldValue;
+		}
+
+		// 3. Otherwise create new cache item in the empty slot and append it to the list tail
+		i = ~i;
+		final CacheEntry<Object, V> e = new CacheEntry<>(null, value, i, null);
+
+		this.keys[i] = key;
+		this.table[i] = e;
+
+		if (this.listTail == null) {
+			this.listHead = e;
+		} else {
+			this.listTail.listNext = e;
+			e.listPrev = this.listTail;
+		}
+
+		this.listTail = e;
+		this.size++;
+
+		return null;
+	}
+
+	/**
+	 * Removes and returns the value associated with the key, if present in the cache, <code>null</code> otherwise.
+	 *
+	 * @param key
+	 *            the key to look up the value in the cache
+	 * @return the value associated with the key, if present in the cache, <code>null</code> otherwise
+	 */
+	public final V remove(final long key) {
+		if (this.size != 0) {
+			final int i = this.find(key);
+
+			if (i >= 0) {
+				return this.removeEntry(this.table[i]);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Removes and returns the least recently used value in the cache.
+	 *
+	 * @return the least recently used value in the cache, or <code>null</code> if the cache is empty
+	 */
+	public final V removeNext() {
+		if (this.size != 0) {
+			return this.removeEntry(this.listHead);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Enables statistics on this cache by recording them into the {@link CacheStatistics}, or disables them when <code>null</code>.
+	 *
+	 * @param statistics
+	 *            the {@link CacheStatistics} to record into, or <code>null</code> to disable statistics
+	 */
+	public final void setStatistics(final CacheStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Empties the slot and shifts each following entry of the probe sequence back into the hole if the hole lies between the entry and its home slot,
+	 * updating the index of every moved {@link CacheEntry}.
+	 */
+	private void deleteSlot(int hole) {
+		final int mask = this.table.length - 1;
+
+		for (int i = (hole + 1) & mask; this.table[i] != null; i = (i + 1) & mask) {
+			final int home = this.slotOf(this.keys[i]);
+
+			if (((i - home) & mask) >= ((i - hole) & mask)) {
+				this.keys[hole] = this.keys[i];
+				this.table[hole] = this.table[i];
+				this.table[hole].index = hole;
+				hole = i;
+			}
+		}
+
+		this.table[hole] = null;
+	}
+
+	/**
+	 * Returns the slot of the key, or the one's complement of the empty slot where the key would be inserted if it is not in the table.
+	 */
+	private int find(final long key) {
+		final int mask = this.table.length - 1;
+		int i = this.slotOf(key);
+
+		for (; this.table[i] != null; i = (i + 1) & mask) {
+			if (this.keys[i] == key) {
+				return i;
+			}
+		}
+
+		return ~i;
+	}
+
+	private void moveToTail(final CacheEntry<Object, V> e) {
+		if (this.listTail != e) {
+			if (this.listHead == e) {
+				this.listHead = this.listHead.listNext;
+				this.listHead.listPrev = null;
+			} else {
+				e.listPrev.listNext = e.listNext;
+				e.listNext.listPrev = e.listPrev;
+			}
+
+			this.listTail.listNext = e;
+			e.listPrev = this.listTail;
+			e.listNext = null;
+			this.listTail = e;
+		}
+	}
+
+	private V removeEntry(final CacheEntry<Object, V> e) {
+		// 1. Remove the entry from the list
+		if (this.listHead == e) {
+			this.listHead = e.listNext;
+		} else {
+			e.listPrev.listNext = e.listNext;
+		}
+
+		if (this.listTail == e) {
+			this.listTail = e.listPrev;
+		} else {
+			e.listNext.listPrev = e.listPrev;
+		}
+
+		// 2. Remove the entry from the table
+		this.deleteSlot(e.index);
+
+		// 3. Clean up the entry for garbage collection purposes
+		final V oldValue = e.value;
+
+		e.value = null;
+		e.listNext = null;
+		e.listPrev = null;
+
+		// 4. Decrement the size by one
+		this.size--;
+
+		return oldValue;
+	}
+
+	private int slotOf(final long key) {
+		return (int) ((key * goldenRatio) >>> this.shift);
+	}
+
+} // End CacheLRULong
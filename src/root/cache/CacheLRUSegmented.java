@@ -0,0 +1,481 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import root.adt.Collector;
+import root.adt.CollectorArray;
+import root.adt.ListArray;
+import root.adt.MapHashed;
+import root.lang.ConcurrentItemizer;
+import root.lang.FastInteger;
+import root.lang.Itemizer;
+import root.util.Root;
+import root.validation.InvalidParameterException;
+
+/**
+ * A lock-striped LRU cache that hashes each key into one of N independently locked {@link CacheLRUConcurrent} segments. Threads that access keys in
+ * different segments never contend for the same lock, which lets the cache scale with the number of cores serving requests.
+ * <p>
+ * Each segment keeps its own {@link CacheEntry} list and hash chains, so LRU ordering is maintained per segment rather than across the whole cache.
+ * The oldest entry of the cache as a whole is therefore not necessarily the first one evicted, but the oldest entry of the segment that overflows
+ * always is.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <K>
+ *            The key type of the cache entry
+ * @param <V>
+ *            The value type of the cache entry
+ */
+public final class CacheLRUSegmented<K, V> implements RootCache<K, V> {
+
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 * @param <V>
+	 *            The value type of the cache entry
+	 */
+	private final class Ascend implements ConcurrentItemizer<V> {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private int index;
+		private int segment;
+		private final ConcurrentItemizer<V>[] itemizers;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		@SuppressWarnings("unchecked")
+		private Ascend() {
+			this.itemizers = new ConcurrentItemizer[CacheLRUSegmented.this.segments.length];
+
+			for (int i = 0; i < this.itemizers.length; i++) {
+				this.itemizers[i] = CacheLRUSegmented.this.segments[i].iterator();
+			}
+
+			this.reset();
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final int getIndex() {
+			return this.index;
+		}
+
+		@Override
+		public final int getSize() {
+			return CacheLRUSegmented.this.getSize();
+		}
+
+		@Override
+		public final boolean hasNext() {
+			for (; this.segment < this.itemizers.length; this.segment++) {
+				if (this.itemizers[this.segment].hasNext()) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public final Itemizer<V> iterator() {
+			return this;
+		}
+
+		/**
+		 * Locks every segment in ascending order so that concurrent iterators can never deadlock one another.
+		 */
+		@Override
+		public final void lock() {
+			for (final ConcurrentItemizer<V> itemizer : this.itemizers) {
+				itemizer.lock();
+			}
+
+			this.segment = 0;
+		}
+
+		@Override
+		public final V next() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			this.index++;
+
+			return this.itemizers[this.segment].next();
+		}
+
+		/**
+		 * @throws UnsupportedOperationException
+		 */
+		@Override
+		public final void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public final void reset() {
+			this.index = -1;
+			this.segment = 0;
+
+			for (final ConcurrentItemizer<V> itemizer : this.itemizers) {
+				itemizer.reset();
+			}
+		}
+
+		/**
+		 * Unlocks every segment in the reverse order they were locked.
+		 */
+		@Override
+		public final void unlock() {
+			for (int i = this.itemizers.length - 1; i >= 0; i--) {
+				this.itemizers[i].unlock();
+			}
+		}
+
+	} // End Ascend
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	/** Rotates {@link #removeNext()} across the segments so that one segment is not drained before the others */
+	private int nextSegment;
+
+	private final int segmentMask;
+	private final CacheLRUConcurrent<K, V>[] segments;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	/**
+	 * Creates a segmented LRU cache with one segment for every available processor, rounded up to the next power of two.
+	 *
+	 * @param capacity
+	 *            the total capacity of the cache
+	 */
+	public CacheLRUSegmented(final int capacity) {
+		this(capacity, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a segmented LRU cache with the requested number of segments, rounded up to the next power of two but never more than the capacity.
+	 * The capacity is divided as evenly as possible across the segments, with the first segments holding one more entry each when it does not divide
+	 * evenly, so that the segments add up to exactly the capacity.
+	 *
+	 * @param capacity
+	 *            the total capacity of the cache
+	 * @param numSegments
+	 *            the number of independently locked segments
+	 */
+	@SuppressWarnings("unchecked")
+	public CacheLRUSegmented(final int capacity, final int numSegments) {
+		if (capacity < 1) {
+			throw new InvalidParameterException(this.getClass().getName(), int.class, "capacity", "Invalid capacity: {P}", FastInteger.valueOf(capacity));
+		}
+
+		final int n = Math.min(numSegments <= 1 ? 1 : Integer.highestOneBit(numSegments - 1) << 1, Integer.highestOneBit(capacity));
+		final int segmentCapacity = capacity / n;
+		final int remainder = capacity % n;
+
+		this.segmentMask = n - 1;
+		this.segments = new CacheLRUConcurrent[n];
+
+		for (int i = 0; i < n; i++) {
+			this.segments[i] = CacheLRUConcurrent.exact(i < remainder ? segmentCapacity + 1 : segmentCapacity);
+		}
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * @see root.cache.RootCache#clear()
+	 */
+	@Override
+	public final void clear() {
+		for (final CacheLRUConcurrent<K, V> segment : this.segments) {
+			segment.clear();
+		}
+	}
+
+	/**
+	 * @see root.cache.RootCache#get(K)
+	 */
+	@Override
+	public final V get(final K key) {
+		return this.segmentFor(key).get(key);
+	}
+
+	/**
+	 * Groups the keys by segment and looks up each group with a single batch lookup on its segment, so that every segment lock is acquired once per
+	 * batch and a batch never holds more than one segment lock at a time. The keys are only iterated once, so any {@link Iterable} will do.
+	 *
+	 * @see root.cache.RootCache#getAll(Iterable, Collector)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public final int getAll(final Iterable<? extends K> keys, final Collector<? super V> values) {
+		final ListArray<K> keyList = new ListArray<>();
+
+		for (final K key : keys) {
+			keyList.add(key);
+		}
+
+		// 1. Sort the positions of the keys by segment, keeping the order of the keys within each segment
+		final int n = keyList.getSize();
+		final int[] segmentOf = new int[n];
+		final int[] start = new int[this.segments.length + 1];
+
+		for (int i = 0; i < n; i++) {
+			segmentOf[i] = this.segmentIndex(keyList.get(i));
+			start[segmentOf[i] + 1]++;
+		}
+
+		for (int s = 0; s < this.segments.length; s++) {
+			start[s + 1] += start[s];
+		}
+
+		final int[] order = new int[n];
+		final int[] next = start.clone();
+
+		for (int i = 0; i < n; i++) {
+			order[next[segmentOf[i]]++] = i;
+		}
+
+		// 2. Look up the keys of each segment as a single batch and put each value back in the position of its key
+		final Object[] found = new Object[n];
+		int numFound = 0;
+
+		for (int s = 0; s < this.segments.length; s++) {
+			final int numKeys = start[s + 1] - start[s];
+
+			if (numKeys == 0) {
+				continue;
+			}
+
+			final ListArray<K> segmentKeys = new ListArray<>(numKeys);
+			final CollectorArray<V> segmentValues = new CollectorArray<>(numKeys);
+
+			for (int p = start[s]; p < start[s + 1]; p++) {
+				segmentKeys.add(keyList.get(order[p]));
+			}
+
+			numFound += this.segments[s].getAll(segmentKeys, segmentValues);
+
+			for (int p = start[s]; p < start[s + 1]; p++) {
+				found[order[p]] = segmentValues.get(p - start[s]);
+			}
+		}
+
+		for (int i = 0; i < n; i++) {
+			values.add((V) found[i]);
+		}
+
+		return numFound;
+	}
+
+	/**
+	 * @see root.cache.RootCache#getCapacity()
+	 */
+	@Override
+	public final int getCapacity() {
+		int capacity = 0;
+
+		for (final CacheLRUConcurrent<K, V> segment : this.segments) {
+			capacity += segment.getCapacity();
+		}
+
+		return capacity;
+	}
+
+	/**
+	 * Returns the keys of each segment in turn, each from its least to its most recently used. The segments do not share a recency order.
+	 *
+	 * @see root.cache.RootCache#getKeys()
+	 */
+	@Override
+	public final ListArray<K> getKeys() {
+		final ListArray<K> keys = new ListArray<>(this.getSize());
+
+		for (final CacheLRUConcurrent<K, V> segment : this.segments) {
+			keys.addAll(segment.getKeys());
+		}
+
+		return keys;
+	}
+
+	/**
+	 * Returns the number of segments in this cache.
+	 *
+	 * @return the number of segments in this cache
+	 */
+	public final int getSegmentCount() {
+		return this.segments.length;
+	}
+
+	/**
+	 * Returns the sum of all segment sizes. Because each segment is sized under its own lock, the value returned is only a snapshot when other
+	 * threads are modifying the cache.
+	 *
+	 * @see root.cache.RootCache#getSize()
+	 */
+	@Override
+	public final int getSize() {
+		int size = 0;
+
+		for (final CacheLRUConcurrent<K, V> segment : this.segments) {
+			size += segment.getSize();
+		}
+
+		return size;
+	}
+
+	@Override
+	public final boolean isEmpty() {
+		for (final CacheLRUConcurrent<K, V> segment : this.segments) {
+			if (!segment.isEmpty()) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @see root.cache.RootCache#iterator()
+	 */
+	@Override
+	public final ConcurrentItemizer<V> iterator() {
+		return new Ascend();
+	}
+
+	/**
+	 * @see root.cache.RootCache#put(K, V)
+	 */
+	@Override
+	public final V put(final K key, final V value) {
+		return this.segmentFor(key).put(key, value);
+	}
+
+	/**
+	 * Groups the entries by segment and puts each group with a single batch put on its segment, so that every segment lock is acquired once per batch
+	 * and a batch never holds more than one segment lock at a time.
+	 *
+	 * @see root.cache.RootCache#putAll(Map)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public final void putAll(final Map<? extends K, ? extends V> map) {
+		final MapHashed<K, V>[] groups = new MapHashed[this.segments.length];
+
+		for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			final int s = this.segmentIndex(entry.getKey());
+
+			if (groups[s] == null) {
+				groups[s] = new MapHashed<>();
+			}
+
+			groups[s].put(entry.getKey(), entry.getValue());
+		}
+
+		for (int s = 0; s < this.segments.length; s++) {
+			if (groups[s] != null) {
+				this.segments[s].putAll(groups[s]);
+			}
+		}
+	}
+
+	/**
+	 * @see root.cache.RootCache#remove(Object)
+	 */
+	@Override
+	public final V remove(final K key) {
+		return this.segmentFor(key).remove(key);
+	}
+
+	/**
+	 * Removes and returns the oldest element of the next non-empty segment. Segments are visited in round-robin order across successive calls.
+	 *
+	 * @see root.cache.RootCache#removeNext()
+	 */
+	@Override
+	public final V removeNext() {
+		final int start = this.nextSegment++;
+		V value;
+
+		for (int i = 0; i < this.segments.length; i++) {
+			value = this.segments[(start + i) & this.segmentMask].removeNext();
+
+			if (value != null) {
+				return value;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Sets the same {@link CacheEvictionListener} on every segment, which each evict independently of one another.
+	 *
+	 * @see root.cache.RootCache#setEvictionListener(CacheEvictionListener)
+	 */
+	@Override
+	public final void setEvictionListener(final CacheEvictionListener<K, V> listener) {
+		for (final CacheLRUConcurrent<K, V> segment : this.segments) {
+			segment.setEvictionListener(listener);
+		}
+	}
+
+	/**
+	 * Enables statistics on every segment by recording them into the same {@link CacheStatistics}, or disables them when <code>null</code>.
+	 *
+	 * @param statistics
+	 *            the {@link CacheStatistics} to record into, or <code>null</code> to disable statistics
+	 */
+	public final void setStatistics(final CacheStatistics statistics) {
+		for (final CacheLRUConcurrent<K, V> segment : this.segments) {
+			segment.setStatistics(statistics);
+		}
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Returns the segment of the key.
+	 */
+	private CacheLRUConcurrent<K, V> segmentFor(final K key) {
+		return this.segments[this.segmentIndex(key)];
+	}
+
+	/**
+	 * Selects the index of the segment from the high bits of the hash code since the segment itself uses the hash code modulo a prime table size.
+	 */
+	private int segmentIndex(final K key) {
+		final int h = Root.hashCode(key);
+
+		return (h ^ (h >>> 16)) & this.segmentMask;
+	}
+
+} // End CacheLRUSegmented
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import root.lang.ParamString;
+
+/**
+ * A {@link RuntimeException} that is thrown when a {@link CacheLoader} fails to load the value for a key. Every caller waiting on the same load
+ * receives its own {@link CacheLoadException} with the same cause.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public class CacheLoadException extends RuntimeException {
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final long serialVersionUID = 3264701183597440518L;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	public CacheLoadException(final Object key, final Throwable cause) {
+		super(ParamString.formatMsg("Unable to load the cache value for key {P}", key), cause);
+	}
+
+} // End CacheLoadException
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+/**
+ * Loads the value for a key that is missing from a {@link CacheLoading} cache.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <K>
+ *            The key type of the cache entry
+ * @param <V>
+ *            The value type of the cache entry
+ */
+public interface CacheLoader<K, V> {
+
+	/**
+	 * Returns the value associated with the key, or <code>null</code> if no value exists. A <code>null</code> value is not cached.
+	 *
+	 * @param key
+	 *            the key to load the value for
+	 * @return the value associated with the key, or <code>null</code> if no value exists
+	 * @throws Exception
+	 *             if the value could not be loaded
+	 */
+	V load(K key) throws Exception;
+
+} // End CacheLoader
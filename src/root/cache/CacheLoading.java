@@ -0,0 +1,485 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.ReentrantLock;
+
+import root.adt.Collector;
+import root.adt.CollectorArray;
+import root.adt.ListArray;
+import root.adt.MapHashed;
+import root.lang.Itemizer;
+import root.log.Log;
+import root.thread.ThreadPool;
+
+/**
+ * A decorator that turns any thread-safe {@link RootCache} into a read-through cache. On a miss, {@link #get(Object)} loads the value with a
+ * {@link CacheLoader} and puts it into the cache before returning it.
+ * <p>
+ * Only one load is ever in flight for a given key. Every other caller that misses on the same key while it is loading waits for that load to finish
+ * and receives its result, so a cold cache never stampedes the underlying data source. If the load fails, each waiting caller receives a
+ * {@link CacheLoadException}. A {@link CacheLoader} that asks for the key it is loading on the loading thread would wait on itself forever, so it
+ * receives a {@link CacheLoadException} instead.
+ * <p>
+ * When wrapping a {@link CacheTimedConcurrent}, an optional refresh-ahead window may be given. A hit on an entry that expires within that window
+ * returns the current value immediately and reloads the entry asynchronously on a {@link ThreadPool}, so that frequently read entries never expire
+ * out from under their readers. A refreshed entry is put back with the expire duration of the cache. A read never waits for a refresh thread, so when
+ * every thread of the {@link ThreadPool} is busy the refresh is skipped and a later read within the window tries again.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <K>
+ *            The key type of the cache entry
+ * @param <V>
+ *            The value type of the cache entry
+ */
+public final class CacheLoading<K, V> implements RootCache<K, V> {
+
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 * Loads the value for a key and puts it into the cache before the key is removed from the set of in-flight loads, so that a caller arriving
+	 * afterwards always finds the value in the cache. The load runs through its {@link FutureTask}, and remembers the thread running it.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private final class Load implements Callable<V> {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private final K key;
+		private final FutureTask<V> task;
+
+		/** The thread running the load, or <code>null</code> while it is not running */
+		private volatile Thread thread;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Load(final K key) {
+			this.key = key;
+			this.task = new FutureTask<>(this);
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final V call() throws Exception {
+			final CacheStatistics statistics = CacheLoading.this.statistics;
+			final long start = (statistics == null) ? 0 : System.nanoTime();
+
+			this.thread = Thread.currentThread();
+			try {
+				final V value = CacheLoading.this.loader.load(this.key);
+
+				if (statistics != null) {
+					statistics.recordLoad(System.nanoTime() - start);
+				}
+
+				if (value != null) {
+					CacheLoading.this.cache.put(this.key, value);
+				}
+
+				return value;
+			} catch (final Exception e) {
+				if (statistics != null) {
+					statistics.recordLoadFailure();
+				}
+
+				throw e;
+			} finally {
+				this.thread = null;
+				CacheLoading.this.loadLock.lock();
+				try {
+					CacheLoading.this.loads.remove(this.key);
+				} finally {
+					CacheLoading.this.loadLock.unlock();
+				}
+			}
+		}
+
+	} // End Load
+
+	/**
+	 * Runs a refresh-ahead load on a pooled thread and logs its failure, leaving the current value in the cache until it expires.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private final class Refresh implements Runnable {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private final K key;
+		private final FutureTask<V> task;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Refresh(final K key, final FutureTask<V> task) {
+			this.key = key;
+			this.task = task;
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final void run() {
+			this.task.run();
+
+			try {
+				this.task.get();
+			} catch (final ExecutionException e) {
+				log.error("Unable to refresh the cache value for key {P}", e.getCause(), this.key);
+			} catch (final InterruptedException e) {
+				// Nothing to do, the task has already completed
+			}
+		}
+
+	} // End Refresh
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final Log log = new Log(CacheLoading.class);
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final RootCache<K, V> cache;
+	private final CacheLoader<K, V> loader;
+
+	private final ReentrantLock loadLock;
+	private final MapHashed<K, Load> loads;
+
+	private final long refreshAhead;
+	private final ThreadPool refreshPool;
+	private final CacheTimedConcurrent<K, V> timedCache;
+
+	private volatile CacheStatistics statistics;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	/**
+	 * Creates a loading cache around the thread-safe cache.
+	 *
+	 * @param cache
+	 *            the thread-safe cache to decorate
+	 * @param loader
+	 *            the {@link CacheLoader} used to load missing values
+	 */
+	public CacheLoading(final RootCache<K, V> cache, final CacheLoader<K, V> loader) {
+		this.cache = cache;
+		this.loader = loader;
+		this.loadLock = new ReentrantLock();
+		this.loads = new MapHashed<>();
+		this.refreshAhead = 0;
+		this.refreshPool = null;
+		this.timedCache = null;
+	}
+
+	/**
+	 * Creates a loading cache around the timed cache that refreshes an entry in the background once it is read within <code>refreshAhead</code>
+	 * milliseconds of expiring.
+	 *
+	 * @param cache
+	 *            the timed cache to decorate
+	 * @param loader
+	 *            the {@link CacheLoader} used to load missing and refreshed values
+	 * @param refreshAhead
+	 *            the number of milliseconds before expiration within which a read triggers a refresh
+	 * @param refreshPool
+	 *            the {@link ThreadPool} that runs the refresh loads
+	 */
+	public CacheLoading(final CacheTimedConcurrent<K, V> cache, final CacheLoader<K, V> loader, final long refreshAhead,
+			final ThreadPool refreshPool) {
+		this.cache = cache;
+		this.loader = loader;
+		this.loadLock = new ReentrantLock();
+		this.loads = new MapHashed<>();
+		this.refreshAhead = refreshAhead;
+		this.refreshPool = refreshPool;
+		this.timedCache = cache;
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * @see root.cache.RootCache#clear()
+	 */
+	@Override
+	public final void clear() {
+		this.cache.clear();
+	}
+
+	/**
+	 * Returns the value associated with the key, loading it with the {@link CacheLoader} if it is not in the cache.
+	 *
+	 * @throws CacheLoadException
+	 *             if the {@link CacheLoader} fails to load the value
+	 *
+	 * @see root.cache.RootCache#get(K)
+	 */
+	@Override
+	public final V get(final K key) {
+		if (this.timedCache == null) {
+			final V value = this.cache.get(key);
+
+			return (value == null) ? this.load(key) : value;
+		}
+
+		// A timed cache hands back the time remaining along with the value so the refresh check does not take its lock again
+		final long[] timeRemaining = new long[1];
+		final V value = this.timedCache.get(key, timeRemaining);
+
+		if (value == null) {
+			return this.load(key);
+		}
+
+		if (timeRemaining[0] <= this.refreshAhead) {
+			this.refresh(key);
+		}
+
+		return value;
+	}
+
+	/**
+	 * Looks up every key with a single batch lookup on the decorated cache, then loads each missing value with the {@link CacheLoader}. The keys are
+	 * only iterated once, so any {@link Iterable} will do. The returned count only includes the keys that were already in the cache.
+	 *
+	 * @throws CacheLoadException
+	 *             if the {@link CacheLoader} fails to load a value
+	 *
+	 * @see root.cache.RootCache#getAll(Iterable, Collector)
+	 */
+	@Override
+	public final int getAll(final Iterable<? extends K> keys, final Collector<? super V> values) {
+		final ListArray<K> keyList = new ListArray<>();
+
+		for (final K key : keys) {
+			keyList.add(key);
+		}
+
+		final CollectorArray<V> cachedValues = new CollectorArray<>(keyList.getSize());
+		final long[] timeRemaining;
+		final int numFound;
+
+		if (this.timedCache == null) {
+			timeRemaining = null;
+			numFound = this.cache.getAll(keyList, cachedValues);
+		} else {
+			timeRemaining = new long[keyList.getSize()];
+			numFound = this.timedCache.getAll(keyList, cachedValues, timeRemaining);
+		}
+
+		for (int i = 0; i < keyList.getSize(); i++) {
+			final K key = keyList.get(i);
+			V value = cachedValues.get(i);
+
+			if (value == null) {
+				value = this.load(key);
+			} else if (timeRemaining != null && timeRemaining[i] <= this.refreshAhead) {
+				this.refresh(key);
+			}
+
+			values.add(value);
+		}
+
+		return numFound;
+	}
+
+	/**
+	 * @see root.cache.RootCache#getCapacity()
+	 */
+	@Override
+	public final int getCapacity() {
+		return this.cache.getCapacity();
+	}
+
+	/**
+	 * @see root.cache.RootCache#getKeys()
+	 */
+	@Override
+	public final ListArray<K> getKeys() {
+		return this.cache.getKeys();
+	}
+
+	@Override
+	public final int getSize() {
+		return this.cache.getSize();
+	}
+
+	/**
+	 * Returns the {@link CacheStatistics} that load times are recorded into.
+	 *
+	 * @return the {@link CacheStatistics} of this cache, or <code>null</code> if statistics are disabled
+	 */
+	public final CacheStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	@Override
+	public final boolean isEmpty() {
+		return this.cache.isEmpty();
+	}
+
+	/**
+	 * @see root.cache.RootCache#iterator()
+	 */
+	@Override
+	public final Itemizer<V> iterator() {
+		return this.cache.iterator();
+	}
+
+	/**
+	 * @see root.cache.RootCache#put(K, V)
+	 */
+	@Override
+	public final V put(final K key, final V value) {
+		return this.cache.put(key, value);
+	}
+
+	/**
+	 * @see root.cache.RootCache#putAll(Map)
+	 */
+	@Override
+	public final void putAll(final Map<? extends K, ? extends V> map) {
+		this.cache.putAll(map);
+	}
+
+	/**
+	 * @see root.cache.RootCache#remove(Object)
+	 */
+	@Override
+	public final V remove(final K key) {
+		return this.cache.remove(key);
+	}
+
+	/**
+	 * @see root.cache.RootCache#removeNext()
+	 */
+	@Override
+	public final V removeNext() {
+		return this.cache.removeNext();
+	}
+
+	/**
+	 * @see root.cache.RootCache#setEvictionListener(CacheEvictionListener)
+	 */
+	@Override
+	public final void setEvictionListener(final CacheEvictionListener<K, V> listener) {
+		this.cache.setEvictionListener(listener);
+	}
+
+	/**
+	 * Enables recording of load times and failures into the {@link CacheStatistics}, or disables it when <code>null</code>. Pass the same instance
+	 * to the decorated cache to record its hits and misses alongside the loads.
+	 *
+	 * @param statistics
+	 *            the {@link CacheStatistics} to record into, or <code>null</code> to disable statistics
+	 */
+	public final void setStatistics(final CacheStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	private V load(final K key) {
+		final Load load;
+		boolean owner = false;
+
+		// 1. Join the load already in flight for the key or start a new one
+		this.loadLock.lock();
+		try {
+			Load inFlight = this.loads.get(key);
+
+			if (inFlight == null) {
+				// a) Another load may have completed since the cache was last checked
+				final V value = this.cache.get(key);
+
+				if (value != null) {
+					return value;
+				}
+
+				inFlight = new Load(key);
+				this.loads.put(key, inFlight);
+				owner = true;
+			}
+
+			load = inFlight;
+		} finally {
+			this.loadLock.unlock();
+		}
+
+		// 2. The first caller runs the load on its own thread, and a loader asking for its own key would wait on itself
+		if (owner) {
+			load.task.run();
+		} else if (load.thread == Thread.currentThread()) {
+			throw new CacheLoadException(key, new IllegalStateException("The CacheLoader asked for the key it is loading"));
+		}
+
+		// 3. Every caller waits for the result of the load
+		try {
+			return load.task.get();
+		} catch (final ExecutionException e) {
+			throw new CacheLoadException(key, e.getCause());
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CacheLoadException(key, e);
+		}
+	}
+
+	private void refresh(final K key) {
+		final Load load;
+
+		// 1. Only start a refresh if no load is already in flight for the key
+		this.loadLock.lock();
+		try {
+			if (this.loads.containsKey(key)) {
+				return;
+			}
+
+			load = new Load(key);
+			this.loads.put(key, load);
+		} finally {
+			this.loadLock.unlock();
+		}
+
+		// 2. Run the refresh in the background without waiting for a free thread, releasing the key if it cannot be scheduled
+		try {
+			if (this.refreshPool.tryExecute(new Refresh(key, load.task))) {
+				return;
+			}
+
+			log.debug("Skipping the refresh of the cache value for key {P}, every refresh thread is busy", key);
+		} catch (final RuntimeException e) {
+			log.error("Unable to schedule a refresh of the cache value for key {P}", e, key);
+		}
+
+		this.loadLock.lock();
+		try {
+			this.loads.remove(key);
+		} finally {
+			this.loadLock.unlock();
+		}
+	}
+
+} // End CacheLoading
@@ -0,0 +1,950 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import root.adt.Collector;
+import root.adt.ListArray;
+import root.lang.ConcurrentItemizer;
+import root.lang.FastInteger;
+import root.lang.Itemizer;
+import root.util.Root;
+import root.validation.InvalidParameterException;
+
+/**
+ * A thread-safe LRU cache that stores its keys and values as bytes in direct {@link ByteBuffer} slabs outside of the Java heap. The only objects
+ * the garbage collector ever sees are a handful of primitive arrays that index the entries, no matter how many entries or bytes the cache holds.
+ * <p>
+ * Memory is managed the same way as a slab allocator:
+ * <ul>
+ * <li>Memory is divided into slabs of the same size which are allocated on demand until the byte capacity of the cache is reached</li>
+ * <li>Each entry is stored in a chunk whose size is the smallest power of two that fits its serialized key and value</li>
+ * <li>A slab is carved into chunks of a single size class the first time that size class needs memory</li>
+ * <li>Once every slab is allocated, the least recently used entry of the same size class is evicted to make room for a new entry</li>
+ * <li>A size class without any entries to evict takes over the slab holding the least recently used entry of the cache, evicting every entry
+ * stored in that slab</li>
+ * </ul>
+ * Since keys are compared by their serialized form, the key {@link CacheSerializer} must always produce the same bytes for equal keys. Putting a
+ * new value for a key only replaces the old value once there is a chunk for the new one.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <K>
+ *            The key type of the cache entry
+ * @param <V>
+ *            The value type of the cache entry
+ */
+public final class CacheOffHeap<K, V> implements RootCache<K, V> {
+
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 * @param <V>
+	 *            The value type of the cache entry
+	 */
+	private final class Ascend implements ConcurrentItemizer<V> {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private int index;
+		private int cursor;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Ascend() {
+			this.reset();
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final int getIndex() {
+			return this.index;
+		}
+
+		@Override
+		public final int getSize() {
+			return CacheOffHeap.this.size;
+		}
+
+		@Override
+		public final boolean hasNext() {
+			return this.cursor != nil;
+		}
+
+		@Override
+		public final Itemizer<V> iterator() {
+			return this;
+		}
+
+		@Override
+		public final void lock() {
+			CacheOffHeap.this.cacheLock.lock();
+			this.cursor = CacheOffHeap.this.listHead;
+		}
+
+		@Override
+		public final V next() {
+			if (this.cursor == nil) {
+				throw new NoSuchElementException();
+			}
+
+			final V v = CacheOffHeap.this.readValue(this.cursor);
+			this.cursor = CacheOffHeap.this.listNext[this.cursor];
+			this.index++;
+
+			return v;
+		}
+
+		/**
+		 * @throws UnsupportedOperationException
+		 */
+		@Override
+		public final void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public final void reset() {
+			this.index = -1;
+			this.cursor = CacheOffHeap.this.listHead;
+		}
+
+		@Override
+		public final void unlock() {
+			CacheOffHeap.this.cacheLock.unlock();
+		}
+
+	} // End Ascend
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	/** Marks the end of an index linked list */
+	private static final int nil = -1;
+
+	/** The smallest chunk is 64 bytes */
+	private static final int minChunkShift = 6;
+
+	/** Each chunk starts with the key length and value length */
+	private static final int headerSize = 8;
+
+	/** The default slab size of 1 MB */
+	private static final int defaultSlabSize = 1 << 20;
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private int size;
+	private int capacity;
+	private int listHead;
+	private int listTail;
+	private int freeEntry;
+
+	/** The hash table of entry indexes, chained through {@link #mapNext} */
+	private int[] table;
+
+	// Entry index: one slot per entry, a free slot has an address of nil
+	private int[] hashes;
+	private long[] addresses;
+	private byte[] sizeClasses;
+	private int[] mapNext;
+	private int[] listPrev;
+	private int[] listNext;
+	private int[] classPrev;
+	private int[] classNext;
+
+	// Slab memory
+	private int maxSlabs;
+	private int numSlabs;
+	private ByteBuffer[] slabs;
+	private byte[] slabClasses;
+	private final int slabSize;
+
+	// Size classes: a free chunk list and an LRU list per class
+	private final long[] freeChunks;
+	private final int[] classHead;
+	private final int[] classTail;
+
+	private final CacheSerializer<K> keySerializer;
+	private final CacheSerializer<V> valueSerializer;
+	private final ReentrantLock cacheLock;
+
+	/** Guarded by cacheLock */
+	private CacheEvictionListener<K, V> evictionListener;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	/**
+	 * Creates an off-heap cache with 1 MB slabs.
+	 *
+	 * @param capacity
+	 *            the maximum number of entries in the cache
+	 * @param maxBytes
+	 *            the maximum number of bytes of off-heap memory used by the cache
+	 * @param keySerializer
+	 *            the {@link CacheSerializer} of the keys
+	 * @param valueSerializer
+	 *            the {@link CacheSerializer} of the values
+	 */
+	public CacheOffHeap(final int capacity, final long maxBytes, final CacheSerializer<K> keySerializer, final CacheSerializer<V> valueSerializer) {
+		this(capacity, maxBytes, defaultSlabSize, keySerializer, valueSerializer);
+	}
+
+	/**
+	 * Creates an off-heap cache. The slab size is rounded up to the next power of two and is also the largest entry the cache can hold.
+	 *
+	 * @param capacity
+	 *            the maximum number of entries in the cache
+	 * @param maxBytes
+	 *            the maximum number of bytes of off-heap memory used by the cache, at least one slab
+	 * @param slabSize
+	 *            the number of bytes allocated at a time
+	 * @param keySerializer
+	 *            the {@link CacheSerializer} of the keys
+	 * @param valueSerializer
+	 *            the {@link CacheSerializer} of the values
+	 */
+	public CacheOffHeap(final int capacity, final long maxBytes, final int slabSize, final CacheSerializer<K> keySerializer,
+			final CacheSerializer<V> valueSerializer) {
+		if (slabSize < (1 << minChunkShift) || slabSize > (1 << 30)) {
+			throw new InvalidParameterException(this.getClass().getName(), int.class, "slabSize", "Invalid slab size: {P}",
+					FastInteger.valueOf(slabSize));
+		}
+
+		this.slabSize = Integer.highestOneBit(slabSize - 1) << 1;
+
+		if (maxBytes < this.slabSize) {
+			throw new InvalidParameterException(this.getClass().getName(), long.class, "maxBytes", "Maximum bytes less than one slab: {P}", maxBytes);
+		}
+
+		this.maxSlabs = (int) Math.min(Integer.MAX_VALUE, maxBytes / this.slabSize);
+		this.slabs = new ByteBuffer[Math.min(this.maxSlabs, 16)];
+		this.slabClasses = new byte[this.slabs.length];
+
+		final int numClasses = Integer.numberOfTrailingZeros(this.slabSize) - minChunkShift + 1;
+		this.freeChunks = new long[numClasses];
+		this.classHead = new int[numClasses];
+		this.classTail = new int[numClasses];
+
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+		this.cacheLock = new ReentrantLock();
+
+		this.capacity = 0;
+		this.table = new int[0];
+		this.hashes = new int[0];
+		this.addresses = new long[0];
+		this.sizeClasses = new byte[0];
+		this.mapNext = new int[0];
+		this.listPrev = new int[0];
+		this.listNext = new int[0];
+		this.classPrev = new int[0];
+		this.classNext = new int[0];
+
+		this.resetIndex();
+		this.growIndex(Root.calculateHashTableCapacity(capacity));
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * Grows the cache by the number of entries and the number of bytes given, rounded down to a whole number of slabs.
+	 *
+	 * @param numEntries
+	 *            the number of entries to add to the capacity
+	 * @param numBytes
+	 *            the number of bytes of off-heap memory to add to the capacity
+	 */
+	public final void addCapacity(final int numEntries, final long numBytes) {
+		this.cacheLock.lock();
+		try {
+			this.maxSlabs = (int) Math.min(Integer.MAX_VALUE, this.maxSlabs + numBytes / this.slabSize);
+
+			if (numEntries > 0) {
+				this.growIndex(this.capacity + numEntries);
+			}
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes every entry from the cache. The slabs already allocated are kept and reused.
+	 *
+	 * @see root.cache.RootCache#clear()
+	 */
+	@Override
+	public final void clear() {
+		this.cacheLock.lock();
+		try {
+			if (this.size != 0 || this.numSlabs != 0) {
+				this.resetIndex();
+			}
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
+
+	/**
+	 * @see root.cache.RootCache#get(K)
+	 */
+	@Override
+	public final V get(final K key) {
+		final byte[] keyBytes = this.keySerializer.serialize(key);
+		final int hash = Root.hashCode(key);
+
+		this.cacheLock.lock();
+		try {
+			return this.getValue(hash, keyBytes);
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
+
+	/**
+	 * Serializes every key before acquiring the cache lock, then looks up the whole batch under a single lock acquisition.
+	 *
+	 * @see root.cache.RootCache#getAll(Iterable, Collector)
+	 */
+	@Override
+	public final int getAll(final Iterable<? extends K> keys, final Collector<? super V> values) {
+		final ListArray<K> keyList = new ListArray<>();
+		final ListArray<byte[]> keyBytes = new ListArray<>();
+		int numFound = 0;
+
+		// 1. Serialize the keys outside of the lock
+		for (final K key : keys) {
+			keyList.add(key);
+			keyBytes.add(this.keySerializer.serialize(key));
+		}
+
+		// 2. Look up every key under a single lock acquisition
+		this.cacheLock.lock();
+		try {
+			for (int i = 0; i < keyBytes.getSize(); i++) {
+				final V value = this.getValue(Root.hashCode(keyList.get(i)), keyBytes.get(i));
+
+				if (value != null) {
+					numFound++;
+				}
+
+				values.add(value);
+			}
+		} finally {
+			this.cacheLock.unlock();
+		}
+
+		return numFound;
+	}
+
+	/**
+	 * Returns the number of bytes of off-heap memory allocated to slabs so far.
+	 *
+	 * @return the number of bytes of off-heap memory allocated
+	 */
+	public final long getAllocatedBytes() {
+		return (long) this.numSlabs * this.slabSize;
+	}
+
+	/**
+	 * @see root.cache.RootCache#getCapacity()
+	 */
+	@Override
+	public final int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Returns the keys from the least to the most recently used, deserializing each one out of off-heap memory.
+	 *
+	 * @see root.cache.RootCache#getKeys()
+	 */
+	@Override
+	public final ListArray<K> getKeys() {
+		final ListArray<K> keys = new ListArray<>(this.size);
+
+		this.cacheLock.lock();
+		try {
+			for (int e = this.listHead; e != nil; e = this.listNext[e]) {
+				keys.add(this.readKey(e));
+			}
+		} finally {
+			this.cacheLock.unlock();
+		}
+
+		return keys;
+	}
+
+	/**
+	 * Returns the maximum number of bytes of off-heap memory the cache may allocate.
+	 *
+	 * @return the maximum number of bytes of off-heap memory
+	 */
+	public final long getMaxBytes() {
+		return (long) this.maxSlabs * this.slabSize;
+	}
+
+	@Override
+	public final int getSize() {
+		return this.size;
+	}
+
+	@Override
+	public final boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * @see root.cache.RootCache#iterator()
+	 */
+	@Override
+	public final ConcurrentItemizer<V> iterator() {
+		return new Ascend();
+	}
+
+	/**
+	 * Serializes the entry into off-heap memory. If the entry does not fit into the memory available to its size class, even after evicting every
+	 * entry of that class, it is not cached.
+	 *
+	 * @throws InvalidParameterException
+	 *             if the serialized entry is larger than a slab
+	 *
+	 * @see root.cache.RootCache#put(K, V)
+	 */
+	@Override
+	public final V put(final K key, final V value) {
+		final byte[] keyBytes = this.keySerializer.serialize(key);
+		final byte[] valueBytes = this.valueSerializer.serialize(value);
+		final int hash = Root.hashCode(key);
+		final int sizeClass = this.sizeClassOf(headerSize + keyBytes.length + valueBytes.length);
+
+		this.cacheLock.lock();
+		try {
+			return this.putValue(hash, keyBytes, valueBytes, sizeClass);
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
+
+	/**
+	 * Serializes every entry before acquiring the cache lock, then stores the whole batch under a single lock acquisition.
+	 *
+	 * @throws InvalidParameterException
+	 *             if a serialized entry is larger than a slab
+	 *
+	 * @see root.cache.RootCache#putAll(Map)
+	 */
+	@Override
+	public final void putAll(final Map<? extends K, ? extends V> map) {
+		final int numEntries = map.size();
+		final int[] hashes = new int[numEntries];
+		final int[] sizeClasses = new int[numEntries];
+		final byte[][] keyBytes = new byte[numEntries][];
+		final byte[][] valueBytes = new byte[numEntries][];
+		int i = 0;
+
+		// 1. Serialize the entries outside of the lock
+		for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			keyBytes[i] = this.keySerializer.serialize(entry.getKey());
+			valueBytes[i] = this.valueSerializer.serialize(entry.getValue());
+			hashes[i] = Root.hashCode(entry.getKey());
+			sizeClasses[i] = this.sizeClassOf(headerSize + keyBytes[i].length + valueBytes[i].length);
+			i++;
+		}
+
+		// 2. Store every entry under a single lock acquisition
+		this.cacheLock.lock();
+		try {
+			for (i = 0; i < numEntries; i++) {
+				this.putValue(hashes[i], keyBytes[i], valueBytes[i], sizeClasses[i]);
+			}
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
+
+	/**
+	 * @see root.cache.RootCache#remove(Object)
+	 */
+	@Override
+	public final V remove(final K key) {
+		if (this.size != 0) {
+			final byte[] keyBytes = this.keySerializer.serialize(key);
+			final int hash = Root.hashCode(key);
+
+			this.cacheLock.lock();
+			try {
+				final int e = this.find(hash, keyBytes);
+
+				if (e != nil) {
+					final V oldValue = this.readValue(e);
+					this.removeEntry(e);
+
+					return oldValue;
+				}
+			} finally {
+				this.cacheLock.unlock();
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Removes and returns the least recently used entry of the cache.
+	 *
+	 * @see root.cache.RootCache#removeNext()
+	 */
+	@Override
+	public final V removeNext() {
+		this.cacheLock.lock();
+		try {
+			if (this.size != 0) {
+				final V oldValue = this.readValue(this.listHead);
+				this.removeEntry(this.listHead);
+
+				return oldValue;
+			}
+		} finally {
+			this.cacheLock.unlock();
+		}
+
+		return null;
+	}
+
+	/**
+	 * @see root.cache.RootCache#setEvictionListener(CacheEvictionListener)
+	 */
+	@Override
+	public final void setEvictionListener(final CacheEvictionListener<K, V> listener) {
+		this.cacheLock.lock();
+		try {
+			this.evictionListener = listener;
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Returns the address of a free chunk of the size class when none is free by carving a new slab, evicting the least recently used entry of the
+	 * size class, or taking over a slab from another size class. Returns <code>nil</code> only when the cache has no slabs at all.
+	 */
+	private long allocateChunk(final int sizeClass) {
+		while (this.freeChunks[sizeClass] == nil) {
+			if (this.numSlabs < this.maxSlabs) {
+				this.carveSlab(this.numSlabs++, sizeClass);
+			} else if (this.classHead[sizeClass] != nil) {
+				this.evictEntry(this.classHead[sizeClass]);
+			} else if (this.numSlabs > 0) {
+				// The size class owns no slab, so take the one holding the least recently used entry of the cache
+				final int slab = (this.listHead == nil) ? 0 : (int) (this.addresses[this.listHead] >>> 32);
+				this.reclaimSlab(slab);
+				this.carveSlab(slab, sizeClass);
+			} else {
+				return nil;
+			}
+		}
+
+		final long address = this.freeChunks[sizeClass];
+		this.freeChunks[sizeClass] = this.slabs[(int) (address >>> 32)].getLong((int) address);
+
+		return address;
+	}
+
+	/**
+	 * Allocates the slab if needed and pushes each of its chunks onto the free chunk list of the size class.
+	 */
+	private void carveSlab(final int slab, final int sizeClass) {
+		if (slab == this.slabs.length) {
+			this.slabs = Arrays.copyOf(this.slabs, (int) Math.min(this.maxSlabs, Math.max(16L, (long) slab << 1)));
+			this.slabClasses = Arrays.copyOf(this.slabClasses, this.slabs.length);
+		}
+
+		if (this.slabs[slab] == null) {
+			this.slabs[slab] = ByteBuffer.allocateDirect(this.slabSize);
+		}
+
+		final ByteBuffer buffer = this.slabs[slab];
+		final int chunkSize = 1 << (minChunkShift + sizeClass);
+		this.slabClasses[slab] = (byte) sizeClass;
+
+		for (int offset = this.slabSize - chunkSize; offset >= 0; offset -= chunkSize) {
+			buffer.putLong(offset, this.freeChunks[sizeClass]);
+			this.freeChunks[sizeClass] = ((long) slab << 32) | offset;
+		}
+	}
+
+	private int find(final int hash, final byte[] keyBytes) {
+		for (int e = this.table[hash % this.table.length]; e != nil; e = this.mapNext[e]) {
+			if (this.hashes[e] == hash && this.keyEquals(e, keyBytes)) {
+				return e;
+			}
+		}
+
+		return nil;
+	}
+
+	/**
+	 * Removes the entry to make room for another, first handing it to the {@link CacheEvictionListener} if there is one.
+	 */
+	private void evictEntry(final int e) {
+		if (this.evictionListener != null) {
+			this.evictionListener.onEviction(this.readKey(e), this.readValue(e));
+		}
+
+		this.removeEntry(e);
+	}
+
+	/**
+	 * Returns the value of the key and moves its entry to the tail of both the cache list and its size class list. The cache lock must be held.
+	 */
+	private V getValue(final int hash, final byte[] keyBytes) {
+		final int e = this.find(hash, keyBytes);
+
+		if (e != nil) {
+			// 1. Move the entry to the tail of both the cache list and its size class list
+			this.unlinkList(e);
+			this.linkList(e);
+			this.unlinkClass(e);
+			this.linkClass(e);
+
+			// 2. Return cached value
+			return this.readValue(e);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Grows the entry index to the new capacity and rehashes every entry into a larger hash table.
+	 */
+	private void growIndex(final int newCapacity) {
+		final int oldCapacity = this.capacity;
+
+		// 1. Grow each of the entry arrays
+		this.hashes = Arrays.copyOf(this.hashes, newCapacity);
+		this.addresses = Arrays.copyOf(this.addresses, newCapacity);
+		this.sizeClasses = Arrays.copyOf(this.sizeClasses, newCapacity);
+		this.mapNext = Arrays.copyOf(this.mapNext, newCapacity);
+		this.listPrev = Arrays.copyOf(this.listPrev, newCapacity);
+		this.listNext = Arrays.copyOf(this.listNext, newCapacity);
+		this.classPrev = Arrays.copyOf(this.classPrev, newCapacity);
+		this.classNext = Arrays.copyOf(this.classNext, newCapacity);
+
+		// 2. Add the new entry slots to the free entry list
+		for (int e = newCapacity - 1; e >= oldCapacity; e--) {
+			this.addresses[e] = nil;
+			this.mapNext[e] = this.freeEntry;
+			this.freeEntry = e;
+		}
+
+		// 3. Rehash the entries in use into the new hash table
+		this.table = new int[Root.calculateHashTableSize(newCapacity)];
+		Arrays.fill(this.table, nil);
+
+		for (int e = 0; e < oldCapacity; e++) {
+			if (this.addresses[e] != nil) {
+				final int i = this.hashes[e] % this.table.length;
+				this.mapNext[e] = this.table[i];
+				this.table[i] = e;
+			}
+		}
+
+		this.capacity = newCapacity;
+	}
+
+	private boolean keyEquals(final int e, final byte[] keyBytes) {
+		final ByteBuffer slab = this.slabs[(int) (this.addresses[e] >>> 32)];
+		final int offset = (int) this.addresses[e];
+
+		if (slab.getInt(offset) != keyBytes.length) {
+			return false;
+		}
+
+		for (int i = 0, j = offset + headerSize; i < keyBytes.length; i++, j++) {
+			if (slab.get(j) != keyBytes[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private void linkClass(final int e) {
+		final int c = this.sizeClasses[e];
+
+		this.classPrev[e] = this.classTail[c];
+		this.classNext[e] = nil;
+
+		if (this.classTail[c] == nil) {
+			this.classHead[c] = e;
+		} else {
+			this.classNext[this.classTail[c]] = e;
+		}
+
+		this.classTail[c] = e;
+	}
+
+	private void linkList(final int e) {
+		this.listPrev[e] = this.listTail;
+		this.listNext[e] = nil;
+
+		if (this.listTail == nil) {
+			this.listHead = e;
+		} else {
+			this.listNext[this.listTail] = e;
+		}
+
+		this.listTail = e;
+	}
+
+	/**
+	 * Writes the serialized entry into a chunk of its size class and indexes it. The cache lock must be held.
+	 */
+	private V putValue(final int hash, final byte[] keyBytes, final byte[] valueBytes, final int sizeClass) {
+		V oldValue = null;
+		int e = this.find(hash, keyBytes);
+
+		if (e != nil) {
+			oldValue = this.readValue(e);
+
+			// 1. Overwrite the existing entry in place when the new value fits the same size class
+			if (this.sizeClasses[e] == sizeClass) {
+				this.writeChunk(this.addresses[e], keyBytes, valueBytes);
+				this.unlinkList(e);
+				this.linkList(e);
+				this.unlinkClass(e);
+				this.linkClass(e);
+
+				return oldValue;
+			}
+		} else if (this.size == this.capacity) {
+			// 2. Evict the oldest entry if the cache is full
+			oldValue = this.readValue(this.listHead);
+			this.evictEntry(this.listHead);
+		}
+
+		// 3. Find a chunk for the entry before removing the existing entry, which making room may have evicted already
+		final long address = this.allocateChunk(sizeClass);
+
+		if (e != nil && (e = this.find(hash, keyBytes)) != nil) {
+			this.removeEntry(e);
+		}
+
+		if (address == nil) {
+			return oldValue;
+		}
+
+		// 4. Write the entry into the chunk
+		this.writeChunk(address, keyBytes, valueBytes);
+
+		// 5. Index the entry
+		e = this.freeEntry;
+		this.freeEntry = this.mapNext[e];
+
+		final int i = hash % this.table.length;
+		this.hashes[e] = hash;
+		this.addresses[e] = address;
+		this.sizeClasses[e] = (byte) sizeClass;
+		this.mapNext[e] = this.table[i];
+		this.table[i] = e;
+
+		this.linkList(e);
+		this.linkClass(e);
+		this.size++;
+
+		return oldValue;
+	}
+
+	private K readKey(final int e) {
+		final ByteBuffer slab = this.slabs[(int) (this.addresses[e] >>> 32)];
+		final int offset = (int) this.addresses[e];
+		final byte[] keyBytes = new byte[slab.getInt(offset)];
+
+		slab.position(offset + headerSize);
+		slab.get(keyBytes);
+
+		return this.keySerializer.deserialize(keyBytes);
+	}
+
+	private V readValue(final int e) {
+		final ByteBuffer slab = this.slabs[(int) (this.addresses[e] >>> 32)];
+		final int offset = (int) this.addresses[e];
+		final byte[] valueBytes = new byte[slab.getInt(offset + 4)];
+
+		slab.position(offset + headerSize + slab.getInt(offset));
+		slab.get(valueBytes);
+
+		return this.valueSerializer.deserialize(valueBytes);
+	}
+
+	/**
+	 * Evicts every entry stored in the slab and drops its free chunks from the free chunk list of its size class, so the slab can be carved for
+	 * another size class.
+	 */
+	private void reclaimSlab(final int slab) {
+		// 1. Evict every entry stored in the slab
+		for (int e = 0; e < this.capacity; e++) {
+			if (this.addresses[e] != nil && (int) (this.addresses[e] >>> 32) == slab) {
+				this.evictEntry(e);
+			}
+		}
+
+		// 2. Unlink the chunks of the slab from the free chunk list of its size class
+		final int c = this.slabClasses[slab];
+		long prev = nil;
+
+		for (long address = this.freeChunks[c]; address != nil;) {
+			final long next = this.slabs[(int) (address >>> 32)].getLong((int) address);
+
+			if ((int) (address >>> 32) != slab) {
+				prev = address;
+			} else if (prev == nil) {
+				this.freeChunks[c] = next;
+			} else {
+				this.slabs[(int) (prev >>> 32)].putLong((int) prev, next);
+			}
+
+			address = next;
+		}
+	}
+
+	/**
+	 * Removes the entry from the hash table and both lists, then returns its chunk and entry slot to their free lists.
+	 */
+	private void removeEntry(final int e) {
+		// 1. Remove the entry from its hash chain
+		final int i = this.hashes[e] % this.table.length;
+
+		if (this.table[i] == e) {
+			this.table[i] = this.mapNext[e];
+		} else {
+			int prev = this.table[i];
+
+			while (this.mapNext[prev] != e) {
+				prev = this.mapNext[prev];
+			}
+
+			this.mapNext[prev] = this.mapNext[e];
+		}
+
+		// 2. Remove the entry from the cache list and its size class list
+		this.unlinkList(e);
+		this.unlinkClass(e);
+
+		// 3. Return the chunk to the free chunk list of its size class
+		final int c = this.sizeClasses[e];
+		final long address = this.addresses[e];
+
+		this.slabs[(int) (address >>> 32)].putLong((int) address, this.freeChunks[c]);
+		this.freeChunks[c] = address;
+
+		// 4. Return the entry slot to the free entry list
+		this.addresses[e] = nil;
+		this.mapNext[e] = this.freeEntry;
+		this.freeEntry = e;
+
+		// 5. Decrement the size by one
+		this.size--;
+	}
+
+	/**
+	 * Empties the index and every list, returning all of the slabs to the pool of uncarved slabs.
+	 */
+	private void resetIndex() {
+		Arrays.fill(this.table, nil);
+		Arrays.fill(this.freeChunks, nil);
+		Arrays.fill(this.classHead, nil);
+		Arrays.fill(this.classTail, nil);
+
+		this.freeEntry = nil;
+
+		for (int e = this.capacity - 1; e >= 0; e--) {
+			this.addresses[e] = nil;
+			this.mapNext[e] = this.freeEntry;
+			this.freeEntry = e;
+		}
+
+		this.listHead = nil;
+		this.listTail = nil;
+		this.numSlabs = 0;
+		this.size = 0;
+	}
+
+	private int sizeClassOf(final int numBytes) {
+		if (numBytes > this.slabSize) {
+			throw new InvalidParameterException(this.getClass().getName(), int.class, "numBytes", "Cache entry of {P} bytes is larger than the slab size",
+					FastInteger.valueOf(numBytes));
+		}
+
+		return Math.max(0, Integer.SIZE - Integer.numberOfLeadingZeros(numBytes - 1) - minChunkShift);
+	}
+
+	private void unlinkClass(final int e) {
+		final int c = this.sizeClasses[e];
+
+		if (this.classPrev[e] == nil) {
+			this.classHead[c] = this.classNext[e];
+		} else {
+			this.classNext[this.classPrev[e]] = this.classNext[e];
+		}
+
+		if (this.classNext[e] == nil) {
+			this.classTail[c] = this.classPrev[e];
+		} else {
+			this.classPrev[this.classNext[e]] = this.classPrev[e];
+		}
+	}
+
+	private void unlinkList(final int e) {
+		if (this.listPrev[e] == nil) {
+			this.listHead = this.listNext[e];
+		} else {
+			this.listNext[this.listPrev[e]] = this.listNext[e];
+		}
+
+		if (this.listNext[e] == nil) {
+			this.listTail = this.listPrev[e];
+		} else {
+			this.listPrev[this.listNext[e]] = this.listPrev[e];
+		}
+	}
+
+	private void writeChunk(final long address, final byte[] keyBytes, final byte[] valueBytes) {
+		final ByteBuffer slab = this.slabs[(int) (address >>> 32)];
+		final int offset = (int) address;
+
+		slab.putInt(offset, keyBytes.length);
+		slab.putInt(offset + 4, valueBytes.length);
+		slab.position(offset + headerSize);
+		slab.put(keyBytes);
+		slab.put(valueBytes);
+	}
+
+} // End CacheOffHeap
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+/**
+ * Converts the keys and values of a {@link CacheOffHeap} to and from the bytes stored outside of the Java heap.
+ * <p>
+ * Two equal objects must always serialize to the same bytes since {@link CacheOffHeap} compares keys by their serialized form.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <T>
+ *            The type of object to serialize
+ */
+public interface CacheSerializer<T> {
+
+	/**
+	 * Returns the object represented by the bytes.
+	 *
+	 * @param bytes
+	 *            the bytes produced by {@link #serialize(Object)}
+	 * @return the object represented by the bytes
+	 */
+	T deserialize(byte[] bytes);
+
+	/**
+	 * Returns the bytes that represent the object.
+	 *
+	 * @param obj
+	 *            the object to serialize
+	 * @return the bytes that represent the object
+	 */
+	byte[] serialize(T obj);
+
+} // End CacheSerializer
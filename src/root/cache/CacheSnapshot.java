@@ -0,0 +1,285 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import root.adt.ListArray;
+import root.lang.FastInteger;
+import root.log.Log;
+import root.thread.ThreadPool;
+import root.validation.InvalidParameterException;
+
+/**
+ * Persists the keys of a {@link RootCache} to a compact binary file so that a restarted process can warm its cache back up before it takes traffic.
+ * <p>
+ * {@link #save(RootCache, File)} writes the keys in the order of {@link RootCache#getKeys()}, from the coldest to the hottest entry. Each key is
+ * written as its length followed by the bytes of its {@link CacheSerializer}, after a short header holding a magic number and the key count. The file
+ * is written beside its destination and then moved into place, so a crash while saving never leaves a truncated snapshot behind.
+ * <p>
+ * {@link #restore(RootCache, File, CacheLoader, ThreadPool, int)} reads the hottest keys that fit into the cache back out of the file, splits them
+ * into batches, and loads each batch on a {@link ThreadPool} with a {@link CacheLoader}. It returns once every batch has finished. A key that fails
+ * to load is logged and skipped.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <K>
+ *            The key type of the cache entry
+ */
+public final class CacheSnapshot<K> {
+
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 * Loads a batch of keys into the cache one after the other.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 * @param <V>
+	 *            The value type of the cache entry
+	 */
+	private final class Batch<V> implements Runnable {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private final ListArray<K> keys;
+		private final int fromIndex;
+		private final int toIndex;
+
+		private final RootCache<K, V> cache;
+		private final CacheLoader<K, V> loader;
+		private final AtomicInteger numLoaded;
+		private final CountDownLatch done;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Batch(final ListArray<K> keys, final int fromIndex, final int toIndex, final RootCache<K, V> cache, final CacheLoader<K, V> loader,
+				final AtomicInteger numLoaded, final CountDownLatch done) {
+			this.keys = keys;
+			this.fromIndex = fromIndex;
+			this.toIndex = toIndex;
+			this.cache = cache;
+			this.loader = loader;
+			this.numLoaded = numLoaded;
+			this.done = done;
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final void run() {
+			try {
+				for (int i = this.fromIndex; i < this.toIndex; i++) {
+					final K key = this.keys.get(i);
+
+					try {
+						final V value = this.loader.load(key);
+
+						if (value != null) {
+							this.cache.put(key, value);
+							this.numLoaded.incrementAndGet();
+						}
+					} catch (final Exception e) {
+						log.error("Unable to restore the cache value for key {P}", e, key);
+					}
+				}
+			} finally {
+				this.done.countDown();
+			}
+		}
+
+	} // End Batch
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final Log log = new Log(CacheSnapshot.class);
+
+	/** Identifies a cache snapshot file and the version of its format */
+	private static final int magic = 0x524B5301;
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final CacheSerializer<K> keySerializer;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	/**
+	 * Creates a snapshot facility that writes and reads the keys with the {@link CacheSerializer}.
+	 *
+	 * @param keySerializer
+	 *            the {@link CacheSerializer} used to convert the keys to and from bytes
+	 */
+	public CacheSnapshot(final CacheSerializer<K> keySerializer) {
+		this.keySerializer = keySerializer;
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * Reads every key in the snapshot file, from the coldest to the hottest.
+	 *
+	 * @param file
+	 *            the snapshot file to read
+	 * @return the keys in the snapshot file
+	 * @throws IOException
+	 *             if the file cannot be read, is not a cache snapshot, or is corrupt
+	 */
+	public final ListArray<K> read(final File file) throws IOException {
+		try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != magic) {
+				throw new IOException("Not a cache snapshot file: " + file);
+			}
+
+			// Every count and length is checked against what is left of the file so a corrupt snapshot never allocates more than the file holds
+			final int numKeys = in.readInt();
+			long remaining = file.length() - 8;
+
+			if (numKeys < 0 || numKeys > remaining / 4) {
+				throw new IOException("Corrupt cache snapshot file " + file + ": invalid key count " + numKeys);
+			}
+
+			final ListArray<K> keys = new ListArray<>(numKeys);
+
+			for (int i = 0; i < numKeys; i++) {
+				final int keyLength = in.readInt();
+				remaining -= 4;
+
+				if (keyLength < 0 || keyLength > remaining) {
+					throw new IOException("Corrupt cache snapshot file " + file + ": invalid length " + keyLength + " of key " + i);
+				}
+
+				final byte[] keyBytes = new byte[keyLength];
+				remaining -= keyLength;
+
+				in.readFully(keyBytes);
+				keys.add(this.keySerializer.deserialize(keyBytes));
+			}
+
+			return keys;
+		}
+	}
+
+	/**
+	 * Loads the hottest keys of the snapshot file that fit into the cache in parallel batches, returning once every batch has finished. A missing
+	 * snapshot file restores nothing.
+	 *
+	 * @param cache
+	 *            the thread-safe cache to warm up
+	 * @param file
+	 *            the snapshot file to restore from
+	 * @param loader
+	 *            the {@link CacheLoader} that loads the value of each key
+	 * @param threadPool
+	 *            the {@link ThreadPool} that runs the batches
+	 * @param batchSize
+	 *            the number of keys each batch loads
+	 * @return the number of values put into the cache
+	 * @throws IOException
+	 *             if the file cannot be read or is not a cache snapshot
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting for the batches to finish
+	 */
+	public final <V> int restore(final RootCache<K, V> cache, final File file, final CacheLoader<K, V> loader, final ThreadPool threadPool,
+			final int batchSize) throws IOException, InterruptedException {
+		if (batchSize <= 0) {
+			throw new InvalidParameterException(this.getClass().getName(), int.class, "batchSize", "Invalid batch size: {P}",
+					FastInteger.valueOf(batchSize));
+		}
+
+		if (!file.exists()) {
+			return 0;
+		}
+
+		// 1. Keep only the hottest keys that fit into the cache
+		final ListArray<K> keys = this.read(file);
+		final int fromIndex = Math.max(0, keys.getSize() - cache.getCapacity());
+		final int numBatches = (keys.getSize() - fromIndex + batchSize - 1) / batchSize;
+
+		final AtomicInteger numLoaded = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(numBatches);
+
+		// 2. Hand out the batches from the coldest to the hottest so the hottest keys are put into the cache last
+		for (int i = fromIndex; i < keys.getSize(); i += batchSize) {
+			final Batch<V> batch = new Batch<>(keys, i, Math.min(i + batchSize, keys.getSize()), cache, loader, numLoaded, done);
+
+			try {
+				threadPool.execute(batch);
+			} catch (final IllegalStateException e) {
+				batch.run();
+			}
+		}
+
+		// 3. Wait for every batch to finish
+		done.await();
+
+		return numLoaded.get();
+	}
+
+	/**
+	 * Writes the keys of the cache to the snapshot file, replacing any previous snapshot.
+	 *
+	 * @param cache
+	 *            the cache whose keys to save
+	 * @param file
+	 *            the snapshot file to write
+	 * @return the number of keys written
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public final int save(final RootCache<K, ?> cache, final File file) throws IOException {
+		final ListArray<K> keys = cache.getKeys();
+		final File tempFile = new File(file.getPath() + ".tmp");
+
+		// 1. Write the snapshot beside the file
+		try (final FileOutputStream fileOut = new FileOutputStream(tempFile);
+				final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+			out.writeInt(magic);
+			out.writeInt(keys.getSize());
+
+			for (final K key : keys) {
+				final byte[] keyBytes = this.keySerializer.serialize(key);
+
+				out.writeInt(keyBytes.length);
+				out.write(keyBytes);
+			}
+
+			// Force the snapshot to disk so that a crash after the move cannot leave an empty or partial file in its place
+			out.flush();
+			fileOut.getFD().sync();
+		}
+
+		// 2. Move the finished snapshot into place
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		return keys.getSize();
+	}
+
+} // End CacheSnapshot
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import root.metrics.Counter;
+import root.metrics.Histogram;
+
+/**
+ * Opt-in statistics recorded by a cache. Statistics are disabled until an instance is handed to a cache through its <code>setStatistics()</code>
+ * method, and a cache without statistics pays nothing more than a <code>null</code> check to skip recording them.
+ * <p>
+ * Every counter is a striped {@link Counter} so that recording from many threads does not add contention of its own. The same instance may be
+ * shared by several caches, such as the segments of a {@link CacheLRUSegmented} or a {@link CacheLoading} and the cache it decorates, to aggregate
+ * their statistics.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheStatistics {
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final Counter hits;
+	private final Counter misses;
+	private final Counter evictions;
+	private final Counter expirations;
+	private final Counter loadFailures;
+	private final Histogram loadTime;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	public CacheStatistics() {
+		this.hits = new Counter();
+		this.misses = new Counter();
+		this.evictions = new Counter();
+		this.expirations = new Counter();
+		this.loadFailures = new Counter();
+		this.loadTime = new Histogram();
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * Resets every statistic back to zero.
+	 */
+	public final void reset() {
+		this.hits.reset();
+		this.misses.reset();
+		this.evictions.reset();
+		this.expirations.reset();
+		this.loadFailures.reset();
+		this.loadTime.reset();
+	}
+
+	/**
+	 * Returns a point in time copy of the statistics.
+	 *
+	 * @return a {@link CacheStatisticsSnapshot} of the statistics
+	 */
+	public final CacheStatisticsSnapshot snapshot() {
+		return new CacheStatisticsSnapshot(this.hits.sum(), this.misses.sum(), this.evictions.sum(), this.expirations.sum(), this.loadFailures.sum(),
+				this.loadTime.snapshot());
+	}
+
+	@Override
+	public final String toString() {
+		return this.snapshot().toString();
+	}
+
+	// <><><><><><><><><><><><><><> Package Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Records an entry removed to make room for a new entry.
+	 */
+	final void recordEviction() {
+		this.evictions.increment();
+	}
+
+	/**
+	 * Records an entry removed because it expired.
+	 */
+	final void recordExpiration() {
+		this.expirations.increment();
+	}
+
+	/**
+	 * Records several entries removed at once because they expired.
+	 *
+	 * @param count
+	 *            the number of expired entries
+	 */
+	final void recordExpirations(final int count) {
+		this.expirations.add(count);
+	}
+
+	/**
+	 * Records a lookup that found its key.
+	 */
+	final void recordHit() {
+		this.hits.increment();
+	}
+
+	/**
+	 * Records a successful load.
+	 *
+	 * @param nanos
+	 *            how long the load took in nanoseconds
+	 */
+	final void recordLoad(final long nanos) {
+		this.loadTime.record(nanos);
+	}
+
+	/**
+	 * Records a failed load.
+	 */
+	final void recordLoadFailure() {
+		this.loadFailures.increment();
+	}
+
+	/**
+	 * Records a lookup that did not find its key.
+	 */
+	final void recordMiss() {
+		this.misses.increment();
+	}
+
+} // End CacheStatistics
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import root.lang.Extractable;
+import root.lang.StringExtractor;
+import root.metrics.HistogramSnapshot;
+
+/**
+ * An immutable, point in time copy of a {@link CacheStatistics}.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheStatisticsSnapshot implements Extractable {
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final long hitCount;
+	private final long missCount;
+	private final long evictionCount;
+	private final long expirationCount;
+	private final long loadFailureCount;
+	private final HistogramSnapshot loadTime;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	CacheStatisticsSnapshot(final long hitCount, final long missCount, final long evictionCount, final long expirationCount,
+			final long loadFailureCount, final HistogramSnapshot loadTime) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.expirationCount = expirationCount;
+		this.loadFailureCount = loadFailureCount;
+		this.loadTime = loadTime;
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	@Override
+	public final void extract(final StringExtractor extractor) {
+		extractor.append("hits=").append(this.hitCount);
+		extractor.append(", misses=").append(this.missCount);
+		extractor.append(", hitRatio=").append(Math.round(this.getHitRatio() * 1000) / 10.0).append('%');
+		extractor.append(", evictions=").append(this.evictionCount);
+		extractor.append(", expirations=").append(this.expirationCount);
+		extractor.append(", loads=").append(this.loadTime);
+		extractor.append(", loadFailures=").append(this.loadFailureCount);
+	}
+
+	/**
+	 * Returns the number of entries removed to make room for new entries.
+	 *
+	 * @return the number of evictions
+	 */
+	public final long getEvictionCount() {
+		return this.evictionCount;
+	}
+
+	/**
+	 * Returns the number of entries removed because they expired.
+	 *
+	 * @return the number of expirations
+	 */
+	public final long getExpirationCount() {
+		return this.expirationCount;
+	}
+
+	/**
+	 * Returns the number of lookups that found their key.
+	 *
+	 * @return the number of hits
+	 */
+	public final long getHitCount() {
+		return this.hitCount;
+	}
+
+	/**
+	 * Returns the fraction of lookups that found their key.
+	 *
+	 * @return the hit ratio between zero and one, or one if there have been no lookups
+	 */
+	public final double getHitRatio() {
+		final long requestCount = this.getRequestCount();
+
+		return requestCount == 0 ? 1.0 : (double) this.hitCount / requestCount;
+	}
+
+	/**
+	 * Returns the number of successful loads.
+	 *
+	 * @return the number of successful loads
+	 */
+	public final long getLoadCount() {
+		return this.loadTime.getCount();
+	}
+
+	/**
+	 * Returns the number of failed loads.
+	 *
+	 * @return the number of failed loads
+	 */
+	public final long getLoadFailureCount() {
+		return this.loadFailureCount;
+	}
+
+	/**
+	 * Returns the histogram of successful load times.
+	 *
+	 * @return the read-only {@link HistogramSnapshot} of successful load times
+	 */
+	public final HistogramSnapshot getLoadTime() {
+		return this.loadTime;
+	}
+
+	/**
+	 * Returns the number of lookups that did not find their key.
+	 *
+	 * @return the number of misses
+	 */
+	public final long getMissCount() {
+		return this.missCount;
+	}
+
+	/**
+	 * Returns the total number of lookups.
+	 *
+	 * @return the number of hits plus the number of misses
+	 */
+	public final long getRequestCount() {
+		return this.hitCount + this.missCount;
+	}
+
+	@Override
+	public final String toString() {
+		final StringExtractor extractor = new StringExtractor();
+		this.extract(extractor);
+		return extractor.toString();
+	}
+
+} // End CacheStatisticsSnapshot
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import root.lang.FastInteger;
+import root.log.Log;
+import root.util.Root;
+import root.validation.InvalidParameterException;
+
+/**
+ * An optional background sweeper that expires entries out of one or more {@link CacheTimedConcurrent} caches. A cache that stops being read never
+ * advances its own timer wheel, so without a sweeper its expired entries stay pinned in the heap until the cache is used again.
+ * <p>
+ * Calling {@link #start()} starts a single daemon thread shared by every registered cache. Each tick it reads the time from
+ * {@link Root#systemTimePerSecond} and asks each cache to expire and recycle at most <code>budget</code> entries into its
+ * <code>cacheEntryPool</code>, which bounds how long the sweeper holds any one cache lock.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheSweeper {
+
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 * Runs {@link CacheSweeper#sweep(long)} every <code>period</code> milliseconds until it is interrupted.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private final class Sweeper extends Thread {
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Sweeper() {
+			super("CacheSweeper");
+			this.setDaemon(true);
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final void run() {
+			while (!this.isInterrupted()) {
+				try {
+					Thread.sleep(CacheSweeper.this.period);
+				} catch (final InterruptedException e) {
+					return;
+				}
+
+				CacheSweeper.this.sweep(Root.systemTimePerSecond.currentTime);
+			}
+		}
+
+	} // End Sweeper
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final Log log = new Log(CacheSweeper.class);
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final int budget;
+	private final long period;
+	private final CopyOnWriteArrayList<CacheTimedConcurrent<?, ?>> caches;
+
+	private Sweeper sweeper;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	/**
+	 * Creates a sweeper that ticks once a second, which matches the resolution of {@link Root#systemTimePerSecond}.
+	 *
+	 * @param budget
+	 *            the maximum number of entries each cache expires per tick
+	 */
+	public CacheSweeper(final int budget) {
+		this(budget, 1);
+	}
+
+	/**
+	 * Creates a sweeper that ticks every <code>numSecondsToSleep</code> seconds once it is started.
+	 *
+	 * @param budget
+	 *            the maximum number of entries each cache expires per tick
+	 * @param numSecondsToSleep
+	 *            the number of seconds between each tick
+	 */
+	public CacheSweeper(final int budget, final int numSecondsToSleep) {
+		if (budget <= 0) {
+			throw new InvalidParameterException(this.getClass().getName(), int.class, "budget", "Invalid budget: {P}", FastInteger.valueOf(budget));
+		}
+
+		if (numSecondsToSleep <= 0) {
+			throw new InvalidParameterException(this.getClass().getName(), int.class, "numSecondsToSleep", "Invalid number of seconds: {P}",
+					FastInteger.valueOf(numSecondsToSleep));
+		}
+
+		this.budget = budget;
+		this.period = numSecondsToSleep * 1000L;
+		this.caches = new CopyOnWriteArrayList<>();
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * Returns the maximum number of entries each cache expires per tick.
+	 *
+	 * @return the maximum number of entries each cache expires per tick
+	 */
+	public final int getBudget() {
+		return this.budget;
+	}
+
+	/**
+	 * Adds the cache to the set of caches swept on every tick.
+	 *
+	 * @param cache
+	 *            the cache to sweep
+	 */
+	public final void register(final CacheTimedConcurrent<?, ?> cache) {
+		this.caches.addIfAbsent(cache);
+	}
+
+	/**
+	 * Starts the background thread that sweeps the registered caches on every tick. Does nothing if the thread is already running.
+	 */
+	public final synchronized void start() {
+		if (this.sweeper == null) {
+			this.sweeper = new Sweeper();
+			this.sweeper.start();
+		}
+	}
+
+	/**
+	 * Stops the background thread started by {@link #start()}. The registered caches go back to expiring entries only when they are accessed.
+	 */
+	public final synchronized void stop() {
+		if (this.sweeper != null) {
+			this.sweeper.interrupt();
+			this.sweeper = null;
+		}
+	}
+
+	/**
+	 * Removes the cache from the set of caches swept on every tick.
+	 *
+	 * @param cache
+	 *            the cache to stop sweeping
+	 */
+	public final void unregister(final CacheTimedConcurrent<?, ?> cache) {
+		this.caches.remove(cache);
+	}
+
+	// <><><><><><><><><><><><><>< Package Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Asks each registered cache to expire at most <code>budget</code> entries as of the current time.
+	 */
+	final void sweep(final long currentTime) {
+		for (final CacheTimedConcurrent<?, ?> cache : this.caches) {
+			try {
+				cache.sweep(currentTime, this.budget);
+			} catch (final RuntimeException e) {
+				log.error("Exception occurred while sweeping cache", e);
+			}
+		}
+	}
+
+} // End CacheSweeper
@@ -0,0 +1,492 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import root.adt.Collector;
+import root.adt.CollectorArray;
+import root.adt.ListArray;
+import root.lang.ConcurrentItemizer;
+import root.lang.Itemizer;
+import root.metrics.Counter;
+import root.util.Root;
+
+/**
+ * A two-level cache that composes a small, fast level one {@link RootCache} with a large level two {@link RootCache} such as a {@link CacheOffHeap}.
+ * <p>
+ * Every entry lives in exactly one level:
+ * <ul>
+ * <li>New entries are always put into level one</li>
+ * <li>An entry evicted from level one is demoted into level two through its {@link CacheEvictionListener}</li>
+ * <li>A hit in level two promotes the entry back into level one, removing it from level two</li>
+ * <li>An entry evicted from level two leaves the cache and is reported to the {@link CacheEvictionListener} of this cache</li>
+ * </ul>
+ * The hits of each level are counted separately so that {@link #getL1HitRatio()} and {@link #getL2HitRatio()} can be used to size each level.
+ * <p>
+ * This cache is thread-safe as long as both levels are. A hit in level one takes no lock of its own, while writes and promotions of the same key are
+ * serialized on one of a fixed set of key locks so that a promotion never overwrites a newer value.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <K>
+ *            The key type of the cache entry
+ * @param <V>
+ *            The value type of the cache entry
+ */
+public final class CacheTiered<K, V> implements RootCache<K, V> {
+
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 * Iterates over the values of level one followed by the values of level two. Locking the {@link ConcurrentItemizer} locks the iterator of each
+	 * level that is itself a {@link ConcurrentItemizer}.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private final class Ascend implements ConcurrentItemizer<V> {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private int index;
+		private final Itemizer<V> l1Itemizer;
+		private final Itemizer<V> l2Itemizer;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Ascend() {
+			this.index = -1;
+			this.l1Itemizer = CacheTiered.this.l1.iterator();
+			this.l2Itemizer = CacheTiered.this.l2.iterator();
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		/**
+		 * @see root.lang.Itemizer#getIndex()
+		 */
+		@Override
+		public final int getIndex() {
+			return this.index;
+		}
+
+		/**
+		 * @see root.lang.Itemizer#getSize()
+		 */
+		@Override
+		public final int getSize() {
+			return CacheTiered.this.getSize();
+		}
+
+		/**
+		 * @see root.lang.Itemizer#hasNext()
+		 */
+		@Override
+		public final boolean hasNext() {
+			return this.l1Itemizer.hasNext() || this.l2Itemizer.hasNext();
+		}
+
+		/**
+		 * @see root.lang.Itemizer#iterator()
+		 */
+		@Override
+		public final ConcurrentItemizer<V> iterator() {
+			return this;
+		}
+
+		@Override
+		public final void lock() {
+			if (this.l1Itemizer instanceof ConcurrentItemizer) {
+				((ConcurrentItemizer<V>) this.l1Itemizer).lock();
+			}
+
+			if (this.l2Itemizer instanceof ConcurrentItemizer) {
+				((ConcurrentItemizer<V>) this.l2Itemizer).lock();
+			}
+		}
+
+		@Override
+		public final V next() {
+			final V v;
+
+			if (this.l1Itemizer.hasNext()) {
+				v = this.l1Itemizer.next();
+			} else if (this.l2Itemizer.hasNext()) {
+				v = this.l2Itemizer.next();
+			} else {
+				throw new NoSuchElementException();
+			}
+
+			this.index++;
+
+			return v;
+		}
+
+		/**
+		 * @throws UnsupportedOperationException
+		 */
+		@Override
+		public final void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public final void reset() {
+			this.index = -1;
+			this.l1Itemizer.reset();
+			this.l2Itemizer.reset();
+		}
+
+		@Override
+		public final void unlock() {
+			if (this.l2Itemizer instanceof ConcurrentItemizer) {
+				((ConcurrentItemizer<V>) this.l2Itemizer).unlock();
+			}
+
+			if (this.l1Itemizer instanceof ConcurrentItemizer) {
+				((ConcurrentItemizer<V>) this.l1Itemizer).unlock();
+			}
+		}
+
+	} // End Ascend
+
+	/**
+	 * Demotes each entry evicted from level one into level two.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private final class Demote implements CacheEvictionListener<K, V> {
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final void onEviction(final K key, final V value) {
+			CacheTiered.this.l2.put(key, value);
+		}
+
+	} // End Demote
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final int numKeyLocks = 64;
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final RootCache<K, V> l1;
+	private final RootCache<K, V> l2;
+	private final ReentrantLock[] keyLocks;
+
+	private final Counter l1Hits;
+	private final Counter l2Hits;
+	private final Counter misses;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	/**
+	 * Creates a two-level cache that takes over the {@link CacheEvictionListener} of level one to demote its evictions into level two.
+	 *
+	 * @param l1
+	 *            the small, fast level one cache
+	 * @param l2
+	 *            the large level two cache
+	 */
+	public CacheTiered(final RootCache<K, V> l1, final RootCache<K, V> l2) {
+		this.l1 = l1;
+		this.l2 = l2;
+		this.keyLocks = new ReentrantLock[numKeyLocks];
+		this.l1Hits = new Counter();
+		this.l2Hits = new Counter();
+		this.misses = new Counter();
+
+		for (int i = 0; i < numKeyLocks; i++) {
+			this.keyLocks[i] = new ReentrantLock();
+		}
+
+		l1.setEvictionListener(new Demote());
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * @see root.cache.RootCache#clear()
+	 */
+	@Override
+	public final void clear() {
+		this.l1.clear();
+		this.l2.clear();
+	}
+
+	/**
+	 * Returns the value from level one, or promotes it into level one if it is found in level two.
+	 *
+	 * @see root.cache.RootCache#get(K)
+	 */
+	@Override
+	public final V get(final K key) {
+		// 1. Check level one without taking a key lock
+		final V value = this.l1.get(key);
+
+		if (value != null) {
+			this.l1Hits.increment();
+			return value;
+		}
+
+		// 2. Move the entry from level two into level one
+		return this.promote(key);
+	}
+
+	/**
+	 * Looks up every key with a single batch lookup on level one, then looks up each key that missed level one again through {@link #get(Object)},
+	 * which promotes it from level two unless an earlier occurrence of the same key in the batch already has. The keys are only iterated once, so
+	 * any {@link Iterable} will do.
+	 *
+	 * @see root.cache.RootCache#getAll(Iterable, Collector)
+	 */
+	@Override
+	public final int getAll(final Iterable<? extends K> keys, final Collector<? super V> values) {
+		final ListArray<K> keyList = new ListArray<>();
+
+		for (final K key : keys) {
+			keyList.add(key);
+		}
+
+		final CollectorArray<V> l1Values = new CollectorArray<>(keyList.getSize());
+		int numFound = 0;
+
+		this.l1.getAll(keyList, l1Values);
+
+		for (int i = 0; i < keyList.getSize(); i++) {
+			final K key = keyList.get(i);
+			V value = l1Values.get(i);
+
+			if (value != null) {
+				this.l1Hits.increment();
+			} else {
+				value = this.get(key);
+			}
+
+			if (value != null) {
+				numFound++;
+			}
+
+			values.add(value);
+		}
+
+		return numFound;
+	}
+
+	/**
+	 * Returns the combined capacity of both levels.
+	 *
+	 * @see root.cache.RootCache#getCapacity()
+	 */
+	@Override
+	public final int getCapacity() {
+		return this.l1.getCapacity() + this.l2.getCapacity();
+	}
+
+	/**
+	 * Returns the keys of level two followed by the keys of level one, so that the keys of the hotter level come last.
+	 *
+	 * @see root.cache.RootCache#getKeys()
+	 */
+	@Override
+	public final ListArray<K> getKeys() {
+		final ListArray<K> keys = this.l2.getKeys();
+
+		keys.addAll(this.l1.getKeys());
+
+		return keys;
+	}
+
+	/**
+	 * Returns the fraction of all lookups that found their key in either level.
+	 *
+	 * @return the hit ratio between zero and one, or one if there have been no lookups
+	 */
+	public final double getHitRatio() {
+		final long hitCount = this.l1Hits.sum() + this.l2Hits.sum();
+		final long requestCount = hitCount + this.misses.sum();
+
+		return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+	}
+
+	/**
+	 * Returns the fraction of all lookups that found their key in level one.
+	 *
+	 * @return the level one hit ratio between zero and one, or one if there have been no lookups
+	 */
+	public final double getL1HitRatio() {
+		final long hitCount = this.l1Hits.sum();
+		final long requestCount = hitCount + this.l2Hits.sum() + this.misses.sum();
+
+		return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+	}
+
+	/**
+	 * Returns the fraction of the lookups that missed level one which found their key in level two.
+	 *
+	 * @return the level two hit ratio between zero and one, or one if there have been no lookups in level two
+	 */
+	public final double getL2HitRatio() {
+		final long hitCount = this.l2Hits.sum();
+		final long requestCount = hitCount + this.misses.sum();
+
+		return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+	}
+
+	@Override
+	public final int getSize() {
+		return this.l1.getSize() + this.l2.getSize();
+	}
+
+	@Override
+	public final boolean isEmpty() {
+		return this.l1.isEmpty() && this.l2.isEmpty();
+	}
+
+	/**
+	 * @see root.cache.RootCache#iterator()
+	 */
+	@Override
+	public final ConcurrentItemizer<V> iterator() {
+		return new Ascend();
+	}
+
+	/**
+	 * Removes any stale copy of the entry from level two and puts the entry into level one. The stale copy is removed first so that the demotion the
+	 * put may cause cannot evict it from level two and report it as leaving the cache.
+	 *
+	 * @return the previous value of the key in either level, otherwise whatever level one returns for the put
+	 *
+	 * @see root.cache.RootCache#put(K, V)
+	 */
+	@Override
+	public final V put(final K key, final V value) {
+		final ReentrantLock keyLock = this.keyLockFor(key);
+
+		keyLock.lock();
+		try {
+			final V demotedValue = this.l2.remove(key);
+			final V oldValue = this.l1.put(key, value);
+
+			return (demotedValue != null) ? demotedValue : oldValue;
+		} finally {
+			keyLock.unlock();
+		}
+	}
+
+	/**
+	 * @see root.cache.RootCache#putAll(Map)
+	 */
+	@Override
+	public final void putAll(final Map<? extends K, ? extends V> map) {
+		for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			this.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * @see root.cache.RootCache#remove(Object)
+	 */
+	@Override
+	public final V remove(final K key) {
+		final ReentrantLock keyLock = this.keyLockFor(key);
+
+		keyLock.lock();
+		try {
+			final V oldValue = this.l1.remove(key);
+			final V demotedValue = this.l2.remove(key);
+
+			return (oldValue != null) ? oldValue : demotedValue;
+		} finally {
+			keyLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the next element of level two, or of level one once level two is empty.
+	 *
+	 * @see root.cache.RootCache#removeNext()
+	 */
+	@Override
+	public final V removeNext() {
+		final V value = this.l2.removeNext();
+
+		return (value != null) ? value : this.l1.removeNext();
+	}
+
+	/**
+	 * Resets the hit and miss counts of both levels to zero.
+	 */
+	public final void resetHitRatios() {
+		this.l1Hits.reset();
+		this.l2Hits.reset();
+		this.misses.reset();
+	}
+
+	/**
+	 * Sets the {@link CacheEvictionListener} on level two, which is notified of the entries that leave the cache altogether.
+	 *
+	 * @see root.cache.RootCache#setEvictionListener(CacheEvictionListener)
+	 */
+	@Override
+	public final void setEvictionListener(final CacheEvictionListener<K, V> listener) {
+		this.l2.setEvictionListener(listener);
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	private ReentrantLock keyLockFor(final K key) {
+		return this.keyLocks[Root.hashCode(key) & (numKeyLocks - 1)];
+	}
+
+	/**
+	 * Moves the entry from level two into level one, counting a level two hit or a miss.
+	 */
+	private V promote(final K key) {
+		final ReentrantLock keyLock = this.keyLockFor(key);
+		final V value;
+
+		keyLock.lock();
+		try {
+			value = this.l2.remove(key);
+
+			if (value != null) {
+				this.l1.put(key, value);
+			}
+		} finally {
+			keyLock.unlock();
+		}
+
+		if (value == null) {
+			this.misses.increment();
+		} else {
+			this.l2Hits.increment();
+		}
+
+		return value;
+	}
+
+} // End CacheTiered
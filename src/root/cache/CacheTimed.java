@@ -15,11 +15,15 @@
  */
 package root.cache;
 
+import java.util.Map;
 import java.util.NoSuchElementException;
 
+import root.adt.Collector;
+import root.adt.ListArray;
 import root.adt.QueueBounded;
 import root.lang.Itemizer;
 import root.util.Root;
+import root.validation.InvalidParameterException;
 
 /**
  * TODO: http://stackoverflow.com/questions/3802370/java-time-based-map-cache-with-expiring-keys<br>
@@ -141,14 +145,50 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 	private final long expireDuration;
 	private final CacheEntryTimed<K, V>[] cache;
 
+	private long weightedSize;
+	private final long maxWeight;
+	private final CacheWeigher<K, V> weigher;
+
 	private final QueueBounded<CacheEntryTimed<K, V>> cacheEntryPool;
 
+	private CacheStatistics statistics;
+	private CacheEvictionListener<K, V> evictionListener;
+
 	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
 
 	public CacheTimed(final int capacity, final long expireDuration) {
 		this.capacity = Root.calculateHashTableCapacity(capacity);
 		this.cache = CacheEntryTimed.newArray(this.capacity);
 		this.expireDuration = expireDuration;
+		this.maxWeight = Long.MAX_VALUE;
+		this.weigher = null;
+		this.cacheEntryPool = new QueueBounded<>(this.capacity);
+	}
+
+	/**
+	 * Creates a cache that is bounded by the total weight of its entries, as measured by the {@link CacheWeigher}, as well as by the number of its
+	 * entries. Each put evicts the oldest entries until the total weight is no more than the maximum weight, so an entry that is heavier than the
+	 * maximum weight on its own is evicted as soon as it is put.
+	 *
+	 * @param capacity
+	 *            the maximum number of entries
+	 * @param expireDuration
+	 *            the number of milliseconds before an entry expires
+	 * @param maxWeight
+	 *            the maximum total weight of the entries
+	 * @param weigher
+	 *            the {@link CacheWeigher} that weighs each entry
+	 */
+	public CacheTimed(final int capacity, final long expireDuration, final long maxWeight, final CacheWeigher<K, V> weigher) {
+		if (maxWeight <= 0) {
+			throw new InvalidParameterException(this.getClass().getName(), long.class, "maxWeight", "Invalid maximum weight: {P}", maxWeight);
+		}
+
+		this.capacity = Root.calculateHashTableCapacity(capacity);
+		this.cache = CacheEntryTimed.newArray(this.capacity);
+		this.expireDuration = expireDuration;
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
 		this.cacheEntryPool = new QueueBounded<>(this.capacity);
 	}
 
@@ -187,8 +227,9 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 			this.listHead = null;
 			this.listTail = null;
 
-			// 3. Reset the size to zero
+			// 3. Reset the size and weighted size to zero
 			this.size = 0;
+			this.weightedSize = 0;
 		}
 	}
 
@@ -214,15 +255,43 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 			// 2. Look for the cached item
 			for (CacheEntryTimed<K, V> e = this.cache[i]; e != null; e = e.mapNext) {
 				if (Root.equals(e.key, key)) {
-					// a) Return cached value
+					// a) Record the hit and return cached value
+					if (this.statistics != null) {
+						this.statistics.recordHit();
+					}
+
 					return e.value;
 				}
 			}
 		}
 
+		if (this.statistics != null) {
+			this.statistics.recordMiss();
+		}
+
 		return null;
 	}
 
+	/**
+	 * @see root.cache.RootCache#getAll(Iterable, Collector)
+	 */
+	@Override
+	public final int getAll(final Iterable<? extends K> keys, final Collector<? super V> values) {
+		int numFound = 0;
+
+		for (final K key : keys) {
+			final V value = this.get(key);
+
+			if (value != null) {
+				numFound++;
+			}
+
+			values.add(value);
+		}
+
+		return numFound;
+	}
+
 	/**
 	 *
 	 *
@@ -235,11 +304,57 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 		return this.capacity;
 	}
 
+	/**
+	 * Returns the keys of the entries that have not expired from the oldest to the newest.
+	 *
+	 * @see root.cache.RootCache#getKeys()
+	 */
+	@Override
+	public final ListArray<K> getKeys() {
+		final long currentTime = Root.systemTimePerSecond.currentTime;
+		final ListArray<K> keys = new ListArray<>(this.size);
+
+		for (CacheEntryTimed<K, V> e = this.listHead; e != null; e = e.listNext) {
+			if (!e.itemTimer.hasExpired(currentTime)) {
+				keys.add(e.key);
+			}
+		}
+
+		return keys;
+	}
+
+	/**
+	 * Returns the maximum total weight of the entries, which is {@link Long#MAX_VALUE} when the cache is not weighted.
+	 *
+	 * @return the maximum total weight of the entries
+	 */
+	public final long getMaxWeight() {
+		return this.maxWeight;
+	}
+
 	@Override
 	public final int getSize() {
 		return this.size;
 	}
 
+	/**
+	 * Returns the {@link CacheStatistics} recorded by this cache.
+	 *
+	 * @return the {@link CacheStatistics} of this cache, or <code>null</code> if statistics are disabled
+	 */
+	public final CacheStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	/**
+	 * Returns the total weight of the entries in the cache as measured by its {@link CacheWeigher}, or zero when the cache is not weighted.
+	 *
+	 * @return the total weight of the entries in the cache
+	 */
+	public final long getWeightedSize() {
+		return this.weightedSize;
+	}
+
 	@Override
 	public final boolean isEmpty() {
 		return this.size == 0;
@@ -270,6 +385,7 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 	public final V put(final K key, final V value) {
 		final int i = Root.hashCode(key) % this.cache.length;
 		final long currentTime = Root.systemTimePerSecond.currentTime;
+		final int weight = this.weigh(key, value);
 		CacheEntryTimed<K, V> e = this.cache[i];
 
 		// 1. Check to see if the key is already mapped to the cache
@@ -279,6 +395,8 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 				final V oldValue = e.value;
 				e.value = value;
 				e.itemTimer.reset(currentTime);
+				this.weightedSize += weight - e.weight;
+				e.weight = weight;
 
 				if (this.listTail != e) {
 					if (this.listHead == e) {
@@ -295,6 +413,11 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 					this.listTail = e;
 				}
 
+				// b) Evict the oldest entries while the cache is overweight
+				if (this.weightedSize > this.maxWeight) {
+					this.evictOverweight(currentTime);
+				}
+
 				// c) Return the old cached value
 				return oldValue;
 			}
@@ -302,6 +425,14 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 
 		// 2. Recycle oldest cached item object if cache is full
 		if (this.size == this.capacity) {
+			if (this.statistics != null) {
+				this.statistics.recordEviction();
+			}
+
+			if (this.evictionListener != null && !this.listHead.itemTimer.hasExpired(currentTime)) {
+				this.evictionListener.onEviction(this.listHead.key, this.listHead.value);
+			}
+
 			// a) Remove the oldest CacheEntryTimed from both the list and cache
 			final CacheEntryTimed<K, V> oldestItem = this.listHead;
 			this.listHead = this.listHead.listNext;
@@ -323,6 +454,8 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 			final V oldValue = oldestItem.value;
 
 			this.cache[i] = oldestItem.recycle(key, value, i, currentTime, this.cache[i]);
+			this.weightedSize += weight - oldestItem.weight;
+			oldestItem.weight = weight;
 
 			// c) Attach recycled item to the tail of the list
 			this.listTail.listNext = oldestItem;
@@ -330,7 +463,12 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 			oldestItem.listNext = null;
 			this.listTail = oldestItem;
 
-			// d) Return old cached value
+			// d) Evict the oldest entries while the cache is overweight
+			if (this.weightedSize > this.maxWeight) {
+				this.evictOverweight(currentTime);
+			}
+
+			// e) Return old cached value
 			return oldValue;
 		}
 
@@ -342,6 +480,8 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 			this.cache[i] = e.recycle(key, value, i, currentTime, this.cache[i]);
 		}
 
+		e.weight = weight;
+
 		if (this.listTail == null) {
 			this.listHead = e;
 		} else {
@@ -351,10 +491,26 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 
 		this.listTail = e;
 		this.size++;
+		this.weightedSize += weight;
+
+		// 4. Evict the oldest entries while the cache is overweight
+		if (this.weightedSize > this.maxWeight) {
+			this.evictOverweight(currentTime);
+		}
 
 		return null;
 	}
 
+	/**
+	 * @see root.cache.RootCache#putAll(Map)
+	 */
+	@Override
+	public final void putAll(final Map<? extends K, ? extends V> map) {
+		for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			this.put(entry.getKey(), entry.getValue());
+		}
+	}
+
 	/**
 	 *
 	 *
@@ -420,8 +576,9 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 				// 4. Add the foundItem to the cacheEntryPool
 				this.cacheEntryPool.enqueue(foundItem);
 
-				// 5. Decrement the size by one
+				// 5. Decrement the size by one and the weighted size by its weight
 				this.size--;
+				this.weightedSize -= foundItem.weight;
 
 				// 6. Return old cached value
 				return oldValue;
@@ -478,8 +635,9 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 			// 3. Add the oldestItem to the cacheEntryPool
 			this.cacheEntryPool.enqueue(oldestItem);
 
-			// 4. Decrement the size by one
+			// 4. Decrement the size by one and the weighted size by its weight
 			this.size--;
+			this.weightedSize -= oldestItem.weight;
 
 			// 5. Return old cached value
 			return oldValue;
@@ -488,8 +646,43 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 		return null;
 	}
 
+	/**
+	 * @see root.cache.RootCache#setEvictionListener(CacheEvictionListener)
+	 */
+	@Override
+	public final void setEvictionListener(final CacheEvictionListener<K, V> listener) {
+		this.evictionListener = listener;
+	}
+
+	/**
+	 * Enables statistics on this cache by recording them into the {@link CacheStatistics}, or disables them when <code>null</code>.
+	 *
+	 * @param statistics
+	 *            the {@link CacheStatistics} to record into, or <code>null</code> to disable statistics
+	 */
+	public final void setStatistics(final CacheStatistics statistics) {
+		this.statistics = statistics;
+	}
+
 	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
 
+	/**
+	 * Evicts the oldest entries until the total weight of the cache is no more than its maximum weight.
+	 */
+	private void evictOverweight(final long currentTime) {
+		while (this.weightedSize > this.maxWeight) {
+			if (this.statistics != null) {
+				this.statistics.recordEviction();
+			}
+
+			if (this.evictionListener != null && !this.listHead.itemTimer.hasExpired(currentTime)) {
+				this.evictionListener.onEviction(this.listHead.key, this.listHead.value);
+			}
+
+			this.removeNext();
+		}
+	}
+
 	private void purgeExpiredEntries(CacheEntryTimed<K, V> lastValidEntry, final long currentTime) {
 		// 1. Find the last valid entry in the list
 		for (; lastValidEntry != null && lastValidEntry.itemTimer.hasExpired(currentTime); lastValidEntry = lastValidEntry.listNext) {
@@ -499,6 +692,10 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 		// 2. Manage the expired cache entries
 		if (lastValidEntry == null) {
 			// a) Just clear the entire cache since there are no valid entries
+			if (this.statistics != null) {
+				this.statistics.recordExpirations(this.size);
+			}
+
 			this.clear();
 		} else {
 			CacheEntryTimed<K, V> e, next;
@@ -531,8 +728,13 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 				// Add the CacheEntryTimed to the cacheEntryPool
 				this.cacheEntryPool.enqueue(e);
 
-				// Decrement the size by one
+				// Decrement the size by one and the weighted size by its weight
 				this.size--;
+				this.weightedSize -= e.weight;
+
+				if (this.statistics != null) {
+					this.statistics.recordExpiration();
+				}
 			}
 
 			// c) Reset the listHead to lastValidEntry
@@ -541,4 +743,11 @@ public class CacheTimed<K, V> implements RootCache<K, V> {
 		}
 	}
 
+	/**
+	 * Returns the weight of the entry, or zero when the cache is not weighted.
+	 */
+	private int weigh(final K key, final V value) {
+		return (this.weigher == null) ? 0 : this.weigher.weigh(key, value);
+	}
+
 } // End CacheTimed
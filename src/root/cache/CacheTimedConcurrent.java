@@ -15,13 +15,17 @@
  */
 package root.cache;
 
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.locks.ReentrantLock;
 
+import root.adt.Collector;
+import root.adt.ListArray;
 import root.adt.QueueBounded;
 import root.lang.ConcurrentItemizer;
 import root.lang.Itemizer;
 import root.util.Root;
+import root.validation.InvalidParameterException;
 
 /**
  * TODO: http://stackoverflow.com/questions/3802370/java-time-based-map-cache-with-expiring-keys<br>
@@ -29,16 +33,16 @@ import root.util.Root;
  * TODO: Need a Duration class so that I can say new CacheTimed(10, Duration.minutes(10));<br>
  * TODO: Test all of the remove() methods for correctness (do this for every Cache class)
  * <p>
- * This cache class is a simple implementation of an expiring item cache. There are no background threads or other nonsense used to manage expired
- * cache entries. The expiring cache uses {@link root.clock.Timer} to determine when cached entries have expired.
+ * This cache class is an implementation of an expiring item cache where every entry may have its own time to live. There are no background threads
+ * or other nonsense used to manage expired cache entries. The expiring cache uses {@link root.clock.Timer} to determine when cached entries have
+ * expired and a hierarchical {@link TimerWheel} to find them.
  * <p>
  * The algorithm used to manage cache entries is as follows:
  * <ul>
- * <li>Every time {@link #get(K)} is called, the oldest item in the cache is checked to see if it has expired
- * <ul>
- * <li>If the oldest item in the cache has expired, maintenance is performed to remove all expired entries from the cache</li>
- * </ul>
- * </li>
+ * <li>Every time {@link #get(K)} or {@link #put(K, V)} is called, the timer wheel is advanced to the current time and at most
+ * {@link #expireBudget} expired entries are removed from the cache, so that no single caller pays for a large purge</li>
+ * <li>Optionally, a {@link CacheSweeper} expires entries in the background so that a cache that is no longer read still releases them</li>
+ * <li>An entry found by {@link #get(K)} that has expired but not yet been reclaimed is removed and <code>null</code> is returned</li>
  * <li>If an existing cached item is updated during a {@link #put(K, V)}, its timer is reset and it becomes the newest item in the cache</li>
  * <li>If a new item is being cached during a {@link #put(K, V)} and the cache is full, LRU-based behavior is taken where the oldest cached item
  * (regardless of whether it has expired or not) is removed from the cache to make room for the new item</li>
@@ -143,6 +147,11 @@ public class CacheTimedConcurrent<K, V> implements RootCache<K, V> {
 
 	} // End Ascend
 
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	/** The maximum number of timer wheel entries visited by a single {@link #get(K)} or {@link #put(K, V)} call */
+	private static final int expireBudget = 64;
+
 	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
 
 	private CacheEntryTimed<K, V> listHead;
@@ -153,17 +162,50 @@ public class CacheTimedConcurrent<K, V> implements RootCache<K, V> {
 	private final long expireDuration;
 	private final CacheEntryTimed<K, V>[] cache;
 
+	private long weightedSize;
+	private final long maxWeight;
+	private final CacheWeigher<K, V> weigher;
+
 	private final QueueBounded<CacheEntryTimed<K, V>> cacheEntryPool;
 	private final ReentrantLock cacheLock;
+	private final TimerWheel<K, V> timerWheel;
+
+	private CacheStatistics statistics;
+	private CacheEvictionListener<K, V> evictionListener;
 
 	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
 
 	public CacheTimedConcurrent(final int capacity, final long expireDuration) {
+		this(capacity, expireDuration, Long.MAX_VALUE, null);
+	}
+
+	/**
+	 * Creates a cache that is bounded by the total weight of its entries, as measured by the {@link CacheWeigher}, as well as by the number of its
+	 * entries. Each put evicts the oldest entries until the total weight is no more than the maximum weight, so an entry that is heavier than the
+	 * maximum weight on its own is evicted as soon as it is put.
+	 *
+	 * @param capacity
+	 *            the maximum number of entries
+	 * @param expireDuration
+	 *            the number of milliseconds before an entry expires
+	 * @param maxWeight
+	 *            the maximum total weight of the entries
+	 * @param weigher
+	 *            the {@link CacheWeigher} that weighs each entry
+	 */
+	public CacheTimedConcurrent(final int capacity, final long expireDuration, final long maxWeight, final CacheWeigher<K, V> weigher) {
+		if (maxWeight <= 0) {
+			throw new InvalidParameterException(this.getClass().getName(), long.class, "maxWeight", "Invalid maximum weight: {P}", maxWeight);
+		}
+
 		this.capacity = Root.calculateHashTableCapacity(capacity);
 		this.cache = CacheEntryTimed.newArray(this.capacity);
 		this.expireDuration = expireDuration;
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
 		this.cacheEntryPool = new QueueBounded<>(this.capacity);
 		this.cacheLock = new ReentrantLock();
+		this.timerWheel = new TimerWheel<>(Root.systemTimePerSecond.currentTime);
 	}
 
 	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
@@ -192,6 +234,8 @@ public class CacheTimedConcurrent<K, V> implements RootCache<K, V> {
 						e.listPrev = null;
 						e.mapNext = null;
 						e.mapPrev = null;
+						e.wheelNext = null;
+						e.wheelPrev = null;
 
 						// b) Add the CacheEntryTimed to the cacheEntryPool
 						this.cacheEntryPool.enqueue(e);
@@ -204,8 +248,12 @@ public class CacheTimedConcurrent<K, V> implements RootCache<K, V> {
 				this.listHead = null;
 				this.listTail = null;
 
-				// 3. Reset the size to zero
+				// 3. Reset the timer wheel
+				this.timerWheel.clear();
+
+				// 4. Reset the size and weighted size to zero
 				this.size = 0;
+				this.weightedSize = 0;
 			}
 		} finally {
 			this.cacheLock.unlock();
@@ -222,33 +270,17 @@ public class CacheTimedConcurrent<K, V> implements RootCache<K, V> {
 	 */
 	@Override
 	public final V get(final K key) {
-		if (this.listHead != null) {
-			final int i = Root.hashCode(key) % this.cache.length;
-			final long currentTime = Root.systemTimePerSecond.currentTime;
-
-			this.cacheLock.lock();
-
-			try {
-				if (this.listHead != null) {
-					// 1. Purge all expired entries if the listHead has expired
-					if (this.listHead.itemTimer.hasExpired(currentTime)) {
-						this.purgeExpiredEntries(this.listHead.listNext, currentTime);
-					}
-
-					// 2. Look for the cached item
-					for (CacheEntryTimed<K, V> e = this.cache[i]; e != null; e = e.mapNext) {
-						if (Root.equals(e.key, key)) {
-							// a) Return cached value
-							return e.value;
-						}
-					}
-				}
-			} finally {
-				this.cacheLock.unlock();
-			}
-		}
+		return this.get(key, null);
+	}
 
-		return null;
+	/**
+	 * Looks up every key while holding the cache lock once for the whole batch.
+	 *
+	 * @see root.cache.RootCache#getAll(Iterable, Collector)
+	 */
+	@Override
+	public final int getAll(final Iterable<? extends K> keys, final Collector<? super V> values) {
+		return this.getAll(keys, values, null);
 	}
 
 	/**
@@ -263,11 +295,91 @@ public class CacheTimedConcurrent<K, V> implements RootCache<K, V> {
 		return this.capacity;
 	}
 
+	/**
+	 * Returns the keys of the entries that have not expired from the least to the most recently used.
+	 *
+	 * @see root.cache.RootCache#getKeys()
+	 */
+	@Override
+	public final ListArray<K> getKeys() {
+		final long currentTime = Root.systemTimePerSecond.currentTime;
+		final ListArray<K> keys = new ListArray<>(this.size);
+
+		this.cacheLock.lock();
+		try {
+			for (CacheEntryTimed<K, V> e = this.listHead; e != null; e = e.listNext) {
+				if (!e.itemTimer.hasExpired(currentTime)) {
+					keys.add(e.key);
+				}
+			}
+		} finally {
+			this.cacheLock.unlock();
+		}
+
+		return keys;
+	}
+
+	/**
+	 * Returns the maximum total weight of the entries, which is {@link Long#MAX_VALUE} when the cache is not weighted.
+	 *
+	 * @return the maximum total weight of the entries
+	 */
+	public final long getMaxWeight() {
+		return this.maxWeight;
+	}
+
 	@Override
 	public final int getSize() {
 		return this.size;
 	}
 
+	/**
+	 * Returns the {@link CacheStatistics} recorded by this cache.
+	 *
+	 * @return the {@link CacheStatistics} of this cache, or <code>null</code> if statistics are disabled
+	 */
+	public final CacheStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	/**
+	 * Returns the number of milliseconds before the entry associated with the key expires.
+	 *
+	 * @param key
+	 *            the key of the cache entry
+	 * @return the number of milliseconds before the entry expires, {@link Long#MAX_VALUE} if the entry never expires, or <code>-1</code> if the key
+	 *         is not in the cache or has already expired
+	 */
+	public final long getTimeRemaining(final K key) {
+		if (this.size != 0) {
+			final int i = Root.hashCode(key) % this.cache.length;
+			final long currentTime = Root.systemTimePerSecond.currentTime;
+
+			this.cacheLock.lock();
+
+			try {
+				for (CacheEntryTimed<K, V> e = this.cache[i]; e != null; e = e.mapNext) {
+					if (Root.equals(e.key, key)) {
+						return timeRemaining(e, currentTime);
+					}
+				}
+			} finally {
+				this.cacheLock.unlock();
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Returns the total weight of the entries in the cache as measured by its {@link CacheWeigher}, or zero when the cache is not weighted.
+	 *
+	 * @return the total weight of the entries in the cache
+	 */
+	public final long getWeightedSize() {
+		return this.weightedSize;
+	}
+
 	@Override
 	public final boolean isEmpty() {
 		return this.size == 0;
@@ -286,7 +398,7 @@ public class CacheTimedConcurrent<K, V> implements RootCache<K, V> {
 	}
 
 	/**
-	 *
+	 * Maps the value to the key using the expire duration of the cache.
 	 *
 	 * @param key
 	 * @param value
@@ -296,98 +408,56 @@ public class CacheTimedConcurrent<K, V> implements RootCache<K, V> {
 	 */
 	@Override
 	public final V put(final K key, final V value) {
-		final int i = Root.hashCode(key) % this.cache.length;
+		return this.put(key, value, this.expireDuration);
+	}
+
+	/**
+	 * Maps the value to the key with its own time to live, which overrides the expire duration of the cache for this entry only.
+	 *
+	 * @param key
+	 *            the key of the cache entry
+	 * @param value
+	 *            the value of the cache entry
+	 * @param ttl
+	 *            the number of milliseconds before the entry expires, where zero or less means the entry never expires
+	 * @return the previous value associated with the key, or the value evicted to make room for the new entry
+	 */
+	public final V put(final K key, final V value, final long ttl) {
 		final long currentTime = Root.systemTimePerSecond.currentTime;
 
 		this.cacheLock.lock();
-
 		try {
-			CacheEntryTimed<K, V> e = this.cache[i];
-
-			// 1. Check to see if the key is already mapped to the cache
-			for (; e != null; e = e.mapNext) {
-				if (Root.equals(e.key, key)) {
-					// a) Update cached value and move to the tail of the list
-					final V oldValue = e.value;
-					e.value = value;
-					e.itemTimer.reset(currentTime);
-
-					if (this.listTail != e) {
-						if (this.listHead == e) {
-							this.listHead = this.listHead.listNext;
-							this.listHead.listPrev = null;
-						} else {
-							e.listPrev.listNext = e.listNext;
-							e.listNext.listPrev = e.listPrev;
-						}
-
-						this.listTail.listNext = e;
-						e.listPrev = this.listTail;
-						e.listNext = null;
-						this.listTail = e;
-					}
-
-					// c) Return the old cached value
-					return oldValue;
-				}
-			}
-
-			// 2. Recycle oldest cached item object if cache is full
-			if (this.size == this.capacity) {
-				// a) Remove the oldest CacheEntryTimed from both the list and cache
-				final CacheEntryTimed<K, V> oldestItem = this.listHead;
-				this.listHead = this.listHead.listNext;
-				this.listHead.listPrev = null;
-
-				if (oldestItem == this.cache[oldestItem.index]) {
-					this.cache[oldestItem.index] = oldestItem.mapNext;
-					if (oldestItem.mapNext != null) {
-						oldestItem.mapNext.mapPrev = null;
-					}
-				} else {
-					oldestItem.mapPrev.mapNext = oldestItem.mapNext;
-					if (oldestItem.mapNext != null) {
-						oldestItem.mapNext.mapPrev = oldestItem.mapPrev;
-					}
-				}
-
-				// b) Reuse the oldest CachedItem for the new cache entry
-				final V oldValue = oldestItem.value;
+			// 1. Remove a bounded number of expired entries from the cache
+			this.expireEntries(currentTime, expireBudget);
 
-				this.cache[i] = oldestItem.recycle(key, value, i, currentTime, this.cache[i]);
-
-				// c) Attach recycled item to the tail of the list
-				this.listTail.listNext = oldestItem;
-				oldestItem.listPrev = this.listTail;
-				oldestItem.listNext = null;
-				this.listTail = oldestItem;
+			// 2. Put the entry into the cache
+			return this.putValue(key, value, ttl, currentTime);
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
 
-				// d) Return old cached value
-				return oldValue;
-			}
+	/**
+	 * Puts every entry with the expire duration of the cache while holding the cache lock once for the whole batch.
+	 *
+	 * @see root.cache.RootCache#putAll(Map)
+	 */
+	@Override
+	public final void putAll(final Map<? extends K, ? extends V> map) {
+		final long currentTime = Root.systemTimePerSecond.currentTime;
 
-			// 3. Otherwise create new/reuse existing cache item and append it to the list tail
-			if (this.cacheEntryPool.isEmpty()) {
-				e = this.cache[i] = new CacheEntryTimed<K, V>(key, value, i, this.expireDuration, this.cache[i]);
-			} else {
-				e = this.cacheEntryPool.dequeue();
-				this.cache[i] = e.recycle(key, value, i, currentTime, this.cache[i]);
-			}
+		this.cacheLock.lock();
+		try {
+			// 1. Remove a bounded number of expired entries from the cache once for the whole batch
+			this.expireEntries(currentTime, expireBudget);
 
-			if (this.listTail == null) {
-				this.listHead = e;
-			} else {
-				this.listTail.listNext = e;
-				e.listPrev = this.listTail;
+			// 2. Put each entry into the cache
+			for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+				this.putValue(entry.getKey(), entry.getValue(), this.expireDuration, currentTime);
 			}
-
-			this.listTail = e;
-			this.size++;
 		} finally {
 			this.cacheLock.unlock();
 		}
-
-		return null;
 	}
 
 	/**
@@ -413,7 +483,9 @@ public class CacheTimedConcurrent<K, V> implements RootCache<K, V> {
 				}
 
 				if (foundItem != null) {
-					// 2. Remove the found item from the cache and list
+					// 2. Remove the found item from the cache, list, and timer wheel
+					this.timerWheel.deschedule(foundItem);
+
 					if (this.size == 1) {
 						this.listHead = null;
 						this.listTail = null;
@@ -456,8 +528,9 @@ public class CacheTimedConcurrent<K, V> implements RootCache<K, V> {
 					// 4. Add the foundItem to the cacheEntryPool
 					this.cacheEntryPool.enqueue(foundItem);
 
-					// 5. Decrement the size by one
+					// 5. Decrement the size by one and the weighted size by its weight
 					this.size--;
+					this.weightedSize -= foundItem.weight;
 
 					// 6. Return old cached value
 					return oldValue;
@@ -481,8 +554,9 @@ public class CacheTimedConcurrent<K, V> implements RootCache<K, V> {
 
 		try {
 			if (this.size != 0) {
-				// 1. Remove the oldest CachedItem from both the list and the cache
+				// 1. Remove the oldest CachedItem from the list, the cache, and the timer wheel
 				final CacheEntryTimed<K, V> oldestItem = this.listHead;
+				this.timerWheel.deschedule(oldestItem);
 
 				if (this.size == 1) {
 					this.listHead = null;
@@ -518,8 +592,9 @@ public class CacheTimedConcurrent<K, V> implements RootCache<K, V> {
 				// 3. Add the oldestItem to the cacheEntryPool
 				this.cacheEntryPool.enqueue(oldestItem);
 
-				// 4. Decrement the size by one
+				// 4. Decrement the size by one and the weighted size by its weight
 				this.size--;
+				this.weightedSize -= oldestItem.weight;
 
 				// 5. Return old cached value
 				return oldValue;
@@ -531,57 +606,398 @@ public class CacheTimedConcurrent<K, V> implements RootCache<K, V> {
 		return null;
 	}
 
+	/**
+	 * @see root.cache.RootCache#setEvictionListener(CacheEvictionListener)
+	 */
+	@Override
+	public final void setEvictionListener(final CacheEvictionListener<K, V> listener) {
+		this.cacheLock.lock();
+		try {
+			this.evictionListener = listener;
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
+
+	/**
+	 * Enables statistics on this cache by recording them into the {@link CacheStatistics}, or disables them when <code>null</code>.
+	 *
+	 * @param statistics
+	 *            the {@link CacheStatistics} to record into, or <code>null</code> to disable statistics
+	 */
+	public final void setStatistics(final CacheStatistics statistics) {
+		this.cacheLock.lock();
+		try {
+			this.statistics = statistics;
+		} finally {
+			this.cacheLock.unlock();
+		}
+	}
+
+	// <><><><><><><><><><><><><><> Package Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Looks up the key like {@link #get(K)} and, if <code>timeRemaining</code> is not <code>null</code>, stores into its first element the number of
+	 * milliseconds before the entry expires as {@link #getTimeRemaining(K)} would, without taking the cache lock a second time.
+	 *
+	 * @param key
+	 *            the key of the cache entry
+	 * @param timeRemaining
+	 *            receives the time remaining of the entry if it is found, or <code>null</code>
+	 * @return the value associated with the key, or <code>null</code> if it is not in the cache
+	 */
+	final V get(final K key, final long[] timeRemaining) {
+		if (this.listHead != null) {
+			final long currentTime = Root.systemTimePerSecond.currentTime;
+
+			this.cacheLock.lock();
+			try {
+				// 1. Remove a bounded number of expired entries from the cache
+				this.expireEntries(currentTime, expireBudget);
+
+				// 2. Look for the cached item
+				return this.getValue(key, currentTime, timeRemaining, 0);
+			} finally {
+				this.cacheLock.unlock();
+			}
+		}
+
+		if (this.statistics != null) {
+			this.statistics.recordMiss();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Looks up every key like {@link #getAll(Iterable, Collector)} and, if <code>timeRemaining</code> is not <code>null</code>, stores the time
+	 * remaining of the entry found for the <code>i</code>th key into <code>timeRemaining[i]</code>.
+	 *
+	 * @param keys
+	 *            the keys to look up
+	 * @param values
+	 *            receives the value of each key in order, or <code>null</code> for a key that is not in the cache
+	 * @param timeRemaining
+	 *            receives the time remaining of each entry found, with room for every key, or <code>null</code>
+	 * @return the number of keys found in the cache
+	 */
+	final int getAll(final Iterable<? extends K> keys, final Collector<? super V> values, final long[] timeRemaining) {
+		final long currentTime = Root.systemTimePerSecond.currentTime;
+		int numFound = 0;
+		int i = 0;
+
+		this.cacheLock.lock();
+		try {
+			// 1. Remove a bounded number of expired entries from the cache once for the whole batch
+			this.expireEntries(currentTime, expireBudget);
+
+			// 2. Look for each cached item
+			for (final K key : keys) {
+				final V value = this.getValue(key, currentTime, timeRemaining, i++);
+
+				if (value != null) {
+					numFound++;
+				}
+
+				values.add(value);
+			}
+		} finally {
+			this.cacheLock.unlock();
+		}
+
+		return numFound;
+	}
+
+	/**
+	 * Called by a {@link CacheSweeper} to expire and recycle at most <code>budget</code> entries when the cache is not being accessed.
+	 *
+	 * @param currentTime
+	 *            the current time in milliseconds
+	 * @param budget
+	 *            the maximum number of timer wheel entries to visit
+	 */
+	final void sweep(final long currentTime, final int budget) {
+		if (this.size != 0) {
+			this.cacheLock.lock();
+
+			try {
+				this.expireEntries(currentTime, budget);
+			} finally {
+				this.cacheLock.unlock();
+			}
+		}
+	}
+
 	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
 
-	private void purgeExpiredEntries(CacheEntryTimed<K, V> lastValidEntry, final long currentTime) {
-		// 1. Find the last valid entry in the list
-		for (; lastValidEntry != null && lastValidEntry.itemTimer.hasExpired(currentTime); lastValidEntry = lastValidEntry.listNext) {
-			;
+	/**
+	 * Evicts the oldest entries until the total weight of the cache is no more than its maximum weight. The cache lock must be held.
+	 */
+	private void evictOverweight(final long currentTime) {
+		while (this.weightedSize > this.maxWeight) {
+			if (this.statistics != null) {
+				this.statistics.recordEviction();
+			}
+
+			if (this.evictionListener != null && !this.listHead.itemTimer.hasExpired(currentTime)) {
+				this.evictionListener.onEviction(this.listHead.key, this.listHead.value);
+			}
+
+			this.removeEntry(this.listHead);
 		}
+	}
 
-		// 2. Manage the expired cache entries
-		if (lastValidEntry == null) {
-			// a) Just clear the entire cache since there are no valid entries
-			this.clear();
-		} else {
-			CacheEntryTimed<K, V> e, next;
+	/**
+	 * Advances the timer wheel and removes the expired entries it hands back, visiting no more than <code>budget</code> entries.
+	 */
+	private void expireEntries(final long currentTime, final int budget) {
+		CacheEntryTimed<K, V> e = this.timerWheel.advance(currentTime, budget);
 
-			// b) Purge all of the expired entries from listHead to lastValidEntry
-			for (e = this.listHead; e != lastValidEntry; e = next) {
-				next = e.listNext;
+		for (CacheEntryTimed<K, V> next; e != null; e = next) {
+			next = e.wheelNext;
+			e.wheelNext = null;
+			this.removeEntry(e);
 
-				// Remove the CacheEntryTimed from the cache
-				if (e == this.cache[e.index]) {
-					this.cache[e.index] = e.mapNext;
-					if (e.mapNext != null) {
-						e.mapNext.mapPrev = null;
+			if (this.statistics != null) {
+				this.statistics.recordExpiration();
+			}
+		}
+	}
+
+	/**
+	 * Looks up the key, storing the time remaining of the entry found into <code>timeRemaining[index]</code> unless the array is <code>null</code>.
+	 * The cache lock must be held.
+	 */
+	private V getValue(final K key, final long currentTime, final long[] timeRemaining, final int index) {
+		final int i = Root.hashCode(key) % this.cache.length;
+
+		for (CacheEntryTimed<K, V> e = this.cache[i]; e != null; e = e.mapNext) {
+			if (Root.equals(e.key, key)) {
+				// a) Remove the cached item if it has expired but has not been reclaimed yet
+				if (e.itemTimer.hasExpired(currentTime)) {
+					this.removeEntry(e);
+
+					if (this.statistics != null) {
+						this.statistics.recordExpiration();
 					}
-				} else {
-					e.mapPrev.mapNext = e.mapNext;
-					if (e.mapNext != null) {
-						e.mapNext.mapPrev = e.mapPrev;
+
+					break;
+				}
+
+				// b) Record the hit and return cached value
+				if (this.statistics != null) {
+					this.statistics.recordHit();
+				}
+
+				if (timeRemaining != null) {
+					timeRemaining[index] = timeRemaining(e, currentTime);
+				}
+
+				return e.value;
+			}
+		}
+
+		if (this.statistics != null) {
+			this.statistics.recordMiss();
+		}
+
+		return null;
+	}
+
+	private V putValue(final K key, final V value, final long ttl, final long currentTime) {
+		final int i = Root.hashCode(key) % this.cache.length;
+		final int weight = this.weigh(key, value);
+		CacheEntryTimed<K, V> e = this.cache[i];
+
+		// 1. Check to see if the key is already mapped to the cache
+		for (; e != null; e = e.mapNext) {
+			if (Root.equals(e.key, key)) {
+				// a) Update cached value, reschedule its expiration, and move to the tail of the list
+				final V oldValue = e.value;
+				e.value = value;
+				this.weightedSize += weight - e.weight;
+				e.weight = weight;
+				e.itemTimer.setExpiration(ttl);
+				e.itemTimer.reset(currentTime);
+				this.timerWheel.deschedule(e);
+				this.timerWheel.schedule(e);
+
+				if (this.listTail != e) {
+					if (this.listHead == e) {
+						this.listHead = this.listHead.listNext;
+						this.listHead.listPrev = null;
+					} else {
+						e.listPrev.listNext = e.listNext;
+						e.listNext.listPrev = e.listPrev;
 					}
+
+					this.listTail.listNext = e;
+					e.listPrev = this.listTail;
+					e.listNext = null;
+					this.listTail = e;
 				}
 
-				// Clean up the CacheEntryTimed for GC
-				e.key = null;
-				e.value = null;
-				e.listNext = null;
-				e.listPrev = null;
-				e.mapNext = null;
-				e.mapPrev = null;
+				// b) Evict the oldest entries while the cache is overweight
+				if (this.weightedSize > this.maxWeight) {
+					this.evictOverweight(currentTime);
+				}
 
-				// Add the CacheEntryTimed to the cacheEntryPool
-				this.cacheEntryPool.enqueue(e);
+				// c) Return the old cached value
+				return oldValue;
+			}
+		}
 
-				// Decrement the size by one
-				this.size--;
+		// 2. Recycle oldest cached item object if cache is full
+		if (this.size == this.capacity) {
+			if (this.statistics != null) {
+				this.statistics.recordEviction();
 			}
 
-			// c) Reset the listHead to lastValidEntry
-			this.listHead = lastValidEntry;
+			if (this.evictionListener != null && !this.listHead.itemTimer.hasExpired(currentTime)) {
+				this.evictionListener.onEviction(this.listHead.key, this.listHead.value);
+			}
+
+			// a) Remove the oldest CacheEntryTimed from the list, the cache, and the timer wheel
+			final CacheEntryTimed<K, V> oldestItem = this.listHead;
+			this.timerWheel.deschedule(oldestItem);
+			this.listHead = this.listHead.listNext;
 			this.listHead.listPrev = null;
+
+			if (oldestItem == this.cache[oldestItem.index]) {
+				this.cache[oldestItem.index] = oldestItem.mapNext;
+				if (oldestItem.mapNext != null) {
+					oldestItem.mapNext.mapPrev = null;
+				}
+			} else {
+				oldestItem.mapPrev.mapNext = oldestItem.mapNext;
+				if (oldestItem.mapNext != null) {
+					oldestItem.mapNext.mapPrev = oldestItem.mapPrev;
+				}
+			}
+
+			// b) Reuse the oldest CachedItem for the new cache entry
+			final V oldValue = oldestItem.value;
+
+			this.cache[i] = oldestItem.recycle(key, value, i, currentTime, ttl, this.cache[i]);
+			this.timerWheel.schedule(oldestItem);
+			this.weightedSize += weight - oldestItem.weight;
+			oldestItem.weight = weight;
+
+			// c) Attach recycled item to the tail of the list
+			this.listTail.listNext = oldestItem;
+			oldestItem.listPrev = this.listTail;
+			oldestItem.listNext = null;
+			this.listTail = oldestItem;
+
+			// d) Evict the oldest entries while the cache is overweight
+			if (this.weightedSize > this.maxWeight) {
+				this.evictOverweight(currentTime);
+			}
+
+			// e) Return old cached value
+			return oldValue;
 		}
+
+		// 3. Otherwise create new/reuse existing cache item and append it to the list tail
+		if (this.cacheEntryPool.isEmpty()) {
+			e = this.cache[i] = new CacheEntryTimed<K, V>(key, value, i, ttl, this.cache[i]);
+			e.itemTimer.reset(currentTime);
+		} else {
+			e = this.cacheEntryPool.dequeue();
+			this.cache[i] = e.recycle(key, value, i, currentTime, ttl, this.cache[i]);
+		}
+
+		e.weight = weight;
+		this.timerWheel.schedule(e);
+
+		if (this.listTail == null) {
+			this.listHead = e;
+		} else {
+			this.listTail.listNext = e;
+			e.listPrev = this.listTail;
+		}
+
+		this.listTail = e;
+		this.size++;
+		this.weightedSize += weight;
+
+		// 4. Evict the oldest entries while the cache is overweight
+		if (this.weightedSize > this.maxWeight) {
+			this.evictOverweight(currentTime);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Removes the entry from the list, the cache, and the timer wheel and then returns it to the cacheEntryPool.
+	 */
+	private V removeEntry(final CacheEntryTimed<K, V> e) {
+		// 1. Remove the CacheEntryTimed from the timer wheel
+		this.timerWheel.deschedule(e);
+
+		// 2. Remove the CacheEntryTimed from the list
+		if (e.listPrev == null) {
+			this.listHead = e.listNext;
+		} else {
+			e.listPrev.listNext = e.listNext;
+		}
+
+		if (e.listNext == null) {
+			this.listTail = e.listPrev;
+		} else {
+			e.listNext.listPrev = e.listPrev;
+		}
+
+		// 3. Remove the CacheEntryTimed from the cache
+		if (e == this.cache[e.index]) {
+			this.cache[e.index] = e.mapNext;
+			if (e.mapNext != null) {
+				e.mapNext.mapPrev = null;
+			}
+		} else {
+			e.mapPrev.mapNext = e.mapNext;
+			if (e.mapNext != null) {
+				e.mapNext.mapPrev = e.mapPrev;
+			}
+		}
+
+		// 4. Clean up the CacheEntryTimed for GC
+		final V oldValue = e.value;
+
+		e.key = null;
+		e.value = null;
+		e.listNext = null;
+		e.listPrev = null;
+		e.mapNext = null;
+		e.mapPrev = null;
+
+		// 5. Add the CacheEntryTimed to the cacheEntryPool
+		this.cacheEntryPool.enqueue(e);
+
+		// 6. Decrement the size by one and the weighted size by its weight
+		this.size--;
+		this.weightedSize -= e.weight;
+
+		return oldValue;
+	}
+
+	/**
+	 * Returns the number of milliseconds before the entry expires, {@link Long#MAX_VALUE} if it never expires, or <code>-1</code> if it has expired.
+	 */
+	private static <K, V> long timeRemaining(final CacheEntryTimed<K, V> e, final long currentTime) {
+		if (e.itemTimer.getExpiration() <= 0) {
+			return Long.MAX_VALUE;
+		}
+
+		return e.itemTimer.hasExpired(currentTime) ? -1 : e.itemTimer.remaining(currentTime);
+	}
+
+	/**
+	 * Returns the weight of the entry, or zero when the cache is not weighted.
+	 */
+	private int weigh(final K key, final V value) {
+		return (this.weigher == null) ? 0 : this.weigher.weigh(key, value);
 	}
 
 } // End CacheTimed
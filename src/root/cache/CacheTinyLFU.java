@@ -0,0 +1,581 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import root.adt.Collector;
+import root.adt.ListArray;
+import root.lang.Itemizer;
+import root.util.Root;
+
+/**
+ * A cache that combines recency and frequency using the W-TinyLFU admission policy. Unlike {@link CacheLRU}, a single pass over a large key space
+ * (such as a report walking every customer ID) cannot flush the frequently used entries out of the cache.
+ * <p>
+ * The cache is split into three LRU ordered regions:
+ * <ul>
+ * <li>A small <b>window</b> of roughly 1% of the capacity that admits every new entry</li>
+ * <li>A <b>probation</b> region holding entries evicted from the window that have yet to be accessed again</li>
+ * <li>A <b>protected</b> region of 80% of the main region holding entries that were accessed while on probation</li>
+ * </ul>
+ * When an entry falls out of the window and the cache is full, a {@link FrequencySketch} decides whether that candidate is accessed more often than
+ * the oldest entry on probation. Only the more frequently used of the two stays in the cache.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <K>
+ *            The key type of the cache entry
+ * @param <V>
+ *            The value type of the cache entry
+ */
+public final class CacheTinyLFU<K, V> implements RootCache<K, V> {
+
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 * @param <V>
+	 *            The value type of the cache entry
+	 */
+	private final class Ascend implements Itemizer<V> {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private int index;
+		private int region;
+		private CacheEntryTinyLFU<K, V> cursor;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Ascend() {
+			this.reset();
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		/**
+		 * @see root.lang.Itemizer#getIndex()
+		 */
+		@Override
+		public final int getIndex() {
+			return this.index;
+		}
+
+		/**
+		 * @see root.lang.Itemizer#getSize()
+		 */
+		@Override
+		public final int getSize() {
+			return CacheTinyLFU.this.size;
+		}
+
+		/**
+		 * @see root.lang.Itemizer#hasNext()
+		 */
+		@Override
+		public final boolean hasNext() {
+			while (this.cursor == null && this.region < CacheEntryTinyLFU.PROTECTED) {
+				this.cursor = CacheTinyLFU.this.regionOf(++this.region).head;
+			}
+
+			return this.cursor != null;
+		}
+
+		/**
+		 * @see root.lang.Itemizer#iterator()
+		 */
+		@Override
+		public final Itemizer<V> iterator() {
+			return this;
+		}
+
+		@Override
+		public final V next() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			final V v = this.cursor.value;
+			this.cursor = this.cursor.listNext;
+			this.index++;
+
+			return v;
+		}
+
+		/**
+		 * @throws UnsupportedOperationException
+		 */
+		@Override
+		public final void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public final void reset() {
+			this.index = -1;
+			this.region = CacheEntryTinyLFU.WINDOW;
+			this.cursor = CacheTinyLFU.this.window.head;
+		}
+
+	} // End Ascend
+
+	/**
+	 * An LRU ordered list of the entries within one region of the cache.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private final class Region {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private CacheEntryTinyLFU<K, V> head;
+		private CacheEntryTinyLFU<K, V> tail;
+
+		private int size;
+		private final int maxSize;
+		private final byte id;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Region(final byte id, final int maxSize) {
+			this.id = id;
+			this.maxSize = maxSize;
+		}
+
+		// <><><><><><><><><><><><><> Private Methods <><><><><><><><><><><><><>
+
+		private void addKeys(final ListArray<K> keys) {
+			for (CacheEntryTinyLFU<K, V> e = this.head; e != null; e = e.listNext) {
+				keys.add(e.key);
+			}
+		}
+
+		private void append(final CacheEntryTinyLFU<K, V> e) {
+			e.region = this.id;
+			e.listNext = null;
+			e.listPrev = this.tail;
+
+			if (this.tail == null) {
+				this.head = e;
+			} else {
+				this.tail.listNext = e;
+			}
+
+			this.tail = e;
+			this.size++;
+		}
+
+		private void clear() {
+			this.head = null;
+			this.tail = null;
+			this.size = 0;
+		}
+
+		private boolean isOverflowing() {
+			return this.size > this.maxSize;
+		}
+
+		private void moveToTail(final CacheEntryTinyLFU<K, V> e) {
+			if (this.tail != e) {
+				this.unlink(e);
+				this.append(e);
+			}
+		}
+
+		private void unlink(final CacheEntryTinyLFU<K, V> e) {
+			if (e.listPrev == null) {
+				this.head = e.listNext;
+			} else {
+				e.listPrev.listNext = e.listNext;
+			}
+
+			if (e.listNext == null) {
+				this.tail = e.listPrev;
+			} else {
+				e.listNext.listPrev = e.listPrev;
+			}
+
+			e.listNext = null;
+			e.listPrev = null;
+			this.size--;
+		}
+
+	} // End Region
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private int size;
+	private final int capacity;
+
+	private final Region window;
+	private final Region probation;
+	private final Region protect;
+
+	private final FrequencySketch sketch;
+	private final CacheEntryTinyLFU<K, V>[] cache;
+
+	private CacheEvictionListener<K, V> evictionListener;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	public CacheTinyLFU(final int capacity) {
+		this.capacity = Root.calculateHashTableCapacity(capacity);
+		this.cache = CacheEntryTinyLFU.newArray(this.capacity);
+		this.sketch = new FrequencySketch(this.capacity);
+
+		final int windowSize = Math.max(1, this.capacity / 100);
+		final int mainSize = this.capacity - windowSize;
+
+		this.window = new Region(CacheEntryTinyLFU.WINDOW, windowSize);
+		this.probation = new Region(CacheEntryTinyLFU.PROBATION, mainSize);
+		this.protect = new Region(CacheEntryTinyLFU.PROTECTED, mainSize * 4 / 5);
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * @see root.cache.RootCache#clear()
+	 */
+	@Override
+	public final void clear() {
+		if (this.size != 0) {
+			CacheEntryTinyLFU<K, V> e, next;
+
+			// 1. Clear all entries from the cache
+			for (int i = 0; i < this.cache.length; i++) {
+				for (e = this.cache[i]; e != null; e = next) {
+					next = e.mapNext;
+					e.key = null;
+					e.value = null;
+					e.listNext = null;
+					e.listPrev = null;
+					e.mapNext = null;
+					e.mapPrev = null;
+				}
+
+				this.cache[i] = null;
+			}
+
+			// 2. Reset each of the regions
+			this.window.clear();
+			this.probation.clear();
+			this.protect.clear();
+
+			// 3. Reset the size to zero
+			this.size = 0;
+		}
+	}
+
+	/**
+	 * Returns the value associated with the key, recording the access in the frequency sketch whether or not the key is found.
+	 *
+	 * @see root.cache.RootCache#get(K)
+	 */
+	@Override
+	public final V get(final K key) {
+		this.sketch.increment(key);
+
+		final CacheEntryTinyLFU<K, V> e = this.find(key);
+
+		if (e != null) {
+			this.onAccess(e);
+			return e.value;
+		}
+
+		return null;
+	}
+
+	/**
+	 * @see root.cache.RootCache#getAll(Iterable, Collector)
+	 */
+	@Override
+	public final int getAll(final Iterable<? extends K> keys, final Collector<? super V> values) {
+		int numFound = 0;
+
+		for (final K key : keys) {
+			final V value = this.get(key);
+
+			if (value != null) {
+				numFound++;
+			}
+
+			values.add(value);
+		}
+
+		return numFound;
+	}
+
+	/**
+	 * @see root.cache.RootCache#getCapacity()
+	 */
+	@Override
+	public final int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Returns the keys from the coldest to the hottest region, which is probation, then the window, then protected, each from its least to its most
+	 * recently used.
+	 *
+	 * @see root.cache.RootCache#getKeys()
+	 */
+	@Override
+	public final ListArray<K> getKeys() {
+		final ListArray<K> keys = new ListArray<>(this.size);
+
+		this.probation.addKeys(keys);
+		this.window.addKeys(keys);
+		this.protect.addKeys(keys);
+
+		return keys;
+	}
+
+	@Override
+	public final int getSize() {
+		return this.size;
+	}
+
+	@Override
+	public final boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Returns an {@link Itemizer} over the window, probation, and protected regions in that order.
+	 *
+	 * @see root.cache.RootCache#iterator()
+	 */
+	@Override
+	public final Itemizer<V> iterator() {
+		return new Ascend();
+	}
+
+	/**
+	 * Maps the value to the key. A new entry always enters the window, but may be rejected from the cache altogether when it falls out of the window
+	 * if it is accessed less often than the entry it would replace.
+	 *
+	 * @return the previous value associated with the key, or the value evicted to make room for a new key the same as the other caches, or
+	 *         <code>null</code> if neither
+	 *
+	 * @see root.cache.RootCache#put(K, V)
+	 */
+	@Override
+	public final V put(final K key, final V value) {
+		this.sketch.increment(key);
+
+		final int i = Root.hashCode(key) % this.cache.length;
+		CacheEntryTinyLFU<K, V> e = this.cache[i];
+
+		// 1. Check to see if the key is already mapped to the cache
+		for (; e != null; e = e.mapNext) {
+			if (Root.equals(e.key, key)) {
+				final V oldValue = e.value;
+				e.value = value;
+				this.onAccess(e);
+				return oldValue;
+			}
+		}
+
+		// 2. Create the new cache entry and append it to the window
+		e = this.cache[i] = new CacheEntryTinyLFU<K, V>(key, value, i, this.cache[i]);
+		this.window.append(e);
+		this.size++;
+
+		// 3. Move the oldest window entry to probation once the window overflows
+		if (this.window.isOverflowing()) {
+			final CacheEntryTinyLFU<K, V> candidate = this.window.head;
+			this.window.unlink(candidate);
+			this.probation.append(candidate);
+
+			// 4. Evict either the candidate or the probation victim if the cache is full
+			if (this.size > this.capacity) {
+				return this.evict(candidate);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @see root.cache.RootCache#putAll(Map)
+	 */
+	@Override
+	public final void putAll(final Map<? extends K, ? extends V> map) {
+		for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			this.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * @see root.cache.RootCache#remove(Object)
+	 */
+	@Override
+	public final V remove(final K key) {
+		if (this.size != 0) {
+			final CacheEntryTinyLFU<K, V> e = this.find(key);
+
+			if (e != null) {
+				return this.removeEntry(e);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Removes the entry that would next be chosen for eviction, which is the oldest entry on probation, then the oldest protected entry, then the
+	 * oldest entry in the window.
+	 *
+	 * @see root.cache.RootCache#removeNext()
+	 */
+	@Override
+	public final V removeNext() {
+		if (this.size != 0) {
+			if (this.probation.head != null) {
+				return this.removeEntry(this.probation.head);
+			}
+
+			if (this.protect.head != null) {
+				return this.removeEntry(this.protect.head);
+			}
+
+			return this.removeEntry(this.window.head);
+		}
+
+		return null;
+	}
+
+	/**
+	 * @see root.cache.RootCache#setEvictionListener(CacheEvictionListener)
+	 */
+	@Override
+	public final void setEvictionListener(final CacheEvictionListener<K, V> listener) {
+		this.evictionListener = listener;
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Compares the access frequency of the candidate that just left the window against the oldest entry on probation and removes whichever is used
+	 * least, returning the value removed. Ties go to the victim already in the cache so that a scan of one-hit keys never displaces it.
+	 */
+	private V evict(final CacheEntryTinyLFU<K, V> candidate) {
+		CacheEntryTinyLFU<K, V> victim = this.probation.head;
+
+		if (victim == candidate) {
+			victim = this.protect.head;
+		}
+
+		if (victim == null || this.sketch.frequency(candidate.key) <= this.sketch.frequency(victim.key)) {
+			victim = candidate;
+		}
+
+		if (this.evictionListener != null) {
+			this.evictionListener.onEviction(victim.key, victim.value);
+		}
+
+		return this.removeEntry(victim);
+	}
+
+	private CacheEntryTinyLFU<K, V> find(final K key) {
+		for (CacheEntryTinyLFU<K, V> e = this.cache[Root.hashCode(key) % this.cache.length]; e != null; e = e.mapNext) {
+			if (Root.equals(e.key, key)) {
+				return e;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Moves the entry to the tail of its region, promoting a probation entry into the protected region. If that overflows the protected region, its
+	 * oldest entry is demoted back to probation.
+	 */
+	private void onAccess(final CacheEntryTinyLFU<K, V> e) {
+		switch (e.region) {
+		case CacheEntryTinyLFU.WINDOW:
+			this.window.moveToTail(e);
+			break;
+		case CacheEntryTinyLFU.PROBATION:
+			this.probation.unlink(e);
+			this.protect.append(e);
+
+			if (this.protect.isOverflowing()) {
+				final CacheEntryTinyLFU<K, V> demoted = this.protect.head;
+				this.protect.unlink(demoted);
+				this.probation.append(demoted);
+			}
+			break;
+		default:
+			this.protect.moveToTail(e);
+		}
+	}
+
+	private Region regionOf(final int region) {
+		switch (region) {
+		case CacheEntryTinyLFU.WINDOW:
+			return this.window;
+		case CacheEntryTinyLFU.PROBATION:
+			return this.probation;
+		default:
+			return this.protect;
+		}
+	}
+
+	private V removeEntry(final CacheEntryTinyLFU<K, V> e) {
+		// 1. Remove the entry from its region list
+		this.regionOf(e.region).unlink(e);
+
+		// 2. Remove the entry from its hash chain
+		if (e == this.cache[e.index]) {
+			this.cache[e.index] = e.mapNext;
+			if (e.mapNext != null) {
+				e.mapNext.mapPrev = null;
+			}
+		} else {
+			e.mapPrev.mapNext = e.mapNext;
+			if (e.mapNext != null) {
+				e.mapNext.mapPrev = e.mapPrev;
+			}
+		}
+
+		// 3. Clean up the entry for garbage collection purposes
+		final V oldValue = e.value;
+
+		e.key = null;
+		e.value = null;
+		e.mapNext = null;
+		e.mapPrev = null;
+
+		// 4. Decrement the size by one
+		this.size--;
+
+		return oldValue;
+	}
+
+} // End CacheTinyLFU
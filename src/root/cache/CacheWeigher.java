@@ -0,0 +1,47 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+/**
+ * Measures the weight of a cache entry, such as the approximate number of bytes its value occupies on the heap, so that a cache can be bounded by
+ * the total weight of its entries rather than only by their number.
+ * <p>
+ * An entry is weighed once when it is put into the cache, so its weight must not change while it is cached. The weigher is called while a
+ * thread-safe cache holds its lock, so it must be quick and must not call back into the cache.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <K>
+ *            The key type of the cache entry
+ * @param <V>
+ *            The value type of the cache entry
+ */
+public interface CacheWeigher<K, V> {
+
+	/**
+	 * Returns the weight of the entry, which must not be negative.
+	 *
+	 * @param key
+	 *            the key of the entry
+	 * @param value
+	 *            the value of the entry
+	 * @return the weight of the entry
+	 */
+	int weigh(K key, V value);
+
+} // End CacheWeigher
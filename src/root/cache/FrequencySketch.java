@@ -0,0 +1,141 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import root.util.Root;
+
+/**
+ * Package class implementing a count-min sketch of 4-bit counters used to estimate how often a key has been accessed.
+ * <p>
+ * Each <code>long</code> in the table holds sixteen 4-bit counters. A key is mapped to four counters in four different table slots and its estimated
+ * frequency is the minimum of those counters, which caps out at 15. Once the number of recorded increments reaches ten times the cache capacity,
+ * every counter is halved so that the sketch ages out keys that used to be popular but are no longer accessed.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+final class FrequencySketch {
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final long[] seeds = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+	private static final long resetMask = 0x7777777777777777L;
+	private static final long oneMask = 0x1111111111111111L;
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private int size;
+	private final int sampleSize;
+	private final int tableMask;
+	private final long[] table;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	FrequencySketch(final int capacity) {
+		final int tableSize = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+
+		this.table = new long[tableSize];
+		this.tableMask = tableSize - 1;
+		this.sampleSize = 10 * capacity;
+	}
+
+	// <><><><><><><><><><><><><><> Package Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Returns the estimated number of times the key has been accessed, up to a maximum of 15.
+	 *
+	 * @param key
+	 *            the key whose frequency to estimate
+	 * @return the estimated frequency of the key
+	 */
+	final int frequency(final Object key) {
+		final int hash = spread(Root.hashCode(key));
+		final int start = (hash & 3) << 2;
+		int frequency = Integer.MAX_VALUE;
+		int count;
+
+		for (int i = 0; i < 4; i++) {
+			count = (int) ((this.table[this.indexOf(hash, i)] >>> ((start + i) << 2)) & 0xfL);
+
+			if (count < frequency) {
+				frequency = count;
+			}
+		}
+
+		return frequency;
+	}
+
+	/**
+	 * Increments the frequency counters of the key, halving every counter once the sample size has been reached.
+	 *
+	 * @param key
+	 *            the key whose frequency to increment
+	 */
+	final void increment(final Object key) {
+		final int hash = spread(Root.hashCode(key));
+		final int start = (hash & 3) << 2;
+		boolean added = false;
+
+		for (int i = 0; i < 4; i++) {
+			added |= this.incrementAt(this.indexOf(hash, i), start + i);
+		}
+
+		if (added && ++this.size == this.sampleSize) {
+			this.reset();
+		}
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	private static int spread(int x) {
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		return (x >>> 16) ^ x;
+	}
+
+	private boolean incrementAt(final int i, final int j) {
+		final int offset = j << 2;
+		final long mask = 0xfL << offset;
+
+		if ((this.table[i] & mask) != mask) {
+			this.table[i] += 1L << offset;
+			return true;
+		}
+
+		return false;
+	}
+
+	private int indexOf(final int hash, final int i) {
+		long h = (hash + seeds[i]) * seeds[i];
+		h += h >>> 32;
+
+		return (int) h & this.tableMask;
+	}
+
+	private void reset() {
+		int count = 0;
+
+		for (int i = 0; i < this.table.length; i++) {
+			count += Long.bitCount(this.table[i] & oneMask);
+			this.table[i] = (this.table[i] >>> 1) & resetMask;
+		}
+
+		this.size = (this.size >>> 1) - (count >>> 2);
+	}
+
+} // End FrequencySketch
@@ -15,11 +15,21 @@
  */
 package root.cache;
 
+import java.util.Map;
+
+import root.adt.Collector;
+import root.adt.ListArray;
 import root.lang.Itemizable;
 import root.lang.Itemizer;
 
 /**
  * This interface defines the contract for a Root Cache implementation.
+ * <p>
+ * Version 0.5 adds {@link #getAll(Iterable, Collector)}, {@link #getKeys()}, {@link #putAll(Map)} and
+ * {@link #setEvictionListener(CacheEvictionListener)} to the contract. This tree targets Java 7, where an interface cannot provide a default
+ * implementation, so this is a breaking change: every implementation outside of this package has to add these methods before it compiles against
+ * 0.5. A cache without a batch lookup of its own may implement the batch methods as a loop over {@link #get(Object)} and
+ * {@link #put(Object, Object)}.
  *
  * @author Edward Smith
  * @version 0.5
@@ -47,6 +57,18 @@ public interface RootCache<K, V> extends Itemizable<V> {
 	 */
 	V get(K key);
 
+	/**
+	 * Looks up every key as a single batch, adding the value associated with each key to the collector in the same order as the keys, or
+	 * <code>null</code> if no association exists. A thread-safe cache acquires its lock once for the whole batch rather than once per key.
+	 *
+	 * @param keys
+	 *            the keys to lookup the values in the cache
+	 * @param values
+	 *            the {@link Collector} that receives one value, or <code>null</code>, for each key
+	 * @return the number of keys that were found in the cache
+	 */
+	int getAll(Iterable<? extends K> keys, Collector<? super V> values);
+
 	/**
 	 * Returns the capacity of the cache.
 	 *
@@ -54,6 +76,14 @@ public interface RootCache<K, V> extends Itemizable<V> {
 	 */
 	int getCapacity();
 
+	/**
+	 * Returns the keys of the cache ordered from the coldest to the hottest entry, which for a recency-ordered cache is from the least to the most
+	 * recently used. The returned list is a copy that is not backed by the cache.
+	 *
+	 * @return the keys of the cache from the coldest to the hottest entry
+	 */
+	ListArray<K> getKeys();
+
 	/**
 	 * @see root.lang.Itemizable#getSize()
 	 */
@@ -84,6 +114,15 @@ public interface RootCache<K, V> extends Itemizable<V> {
 	 */
 	V put(K key, V value);
 
+	/**
+	 * Puts every entry of the map in the cache as a single batch. A thread-safe cache acquires its lock once for the whole batch rather than once
+	 * per entry.
+	 *
+	 * @param map
+	 *            the entries to store in the cache
+	 */
+	void putAll(Map<? extends K, ? extends V> map);
+
 	/**
 	 * Removes and returns the element of type V that is associated with the key of type K, if
 	 * present in the cache, <code>null</code> otherwise.
@@ -103,4 +142,13 @@ public interface RootCache<K, V> extends Itemizable<V> {
 	 */
 	V removeNext();
 
+	/**
+	 * Sets the {@link CacheEvictionListener} that is notified of every entry the cache evicts to make room for a new entry, or removes it when
+	 * <code>null</code>.
+	 *
+	 * @param listener
+	 *            the {@link CacheEvictionListener} to notify, or <code>null</code> to stop notifying
+	 */
+	void setEvictionListener(CacheEvictionListener<K, V> listener);
+
 } // End RootCache
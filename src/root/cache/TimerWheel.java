@@ -0,0 +1,240 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+/**
+ * Package class implementing a hierarchical timing wheel that tracks when each {@link CacheEntryTimed} expires.
+ * <p>
+ * The wheel has five levels whose buckets span roughly 1 second, 1 minute, 1 hour, 18 hours, and 3 days respectively. An entry is placed into the
+ * lowest level that can represent its time to expiration. As time advances, only the buckets whose span has passed are visited: the expired entries
+ * within them are handed back to the cache and the rest cascade down into a finer grained level. Scheduling and descheduling an entry are O(1) and
+ * each entry is only cascaded a small, constant number of times before it expires, which makes expiration O(1) amortized.
+ * <p>
+ * Every call to {@link #advance(long, int)} is bounded by a work budget. Whatever is left over once the budget is spent is parked on an overdue list
+ * that is processed first the next time the wheel advances, so that the cost of a burst of expirations is spread across many callers.
+ * <p>
+ * This class is not thread-safe and must be guarded by the lock of the owning cache.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <K>
+ *            The key type of the cache entry
+ * @param <V>
+ *            The value type of the cache entry
+ */
+final class TimerWheel<K, V> {
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	/** The number of buckets at each level of the wheel */
+	private static final int[] buckets = { 64, 64, 32, 4, 1 };
+
+	/** The span of a bucket at each level of the wheel as a power of two milliseconds */
+	private static final int[] shifts = { 10, 16, 22, 26, 28 };
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private long time;
+	private int budget;
+	private CacheEntryTimed<K, V> expired;
+
+	private final CacheEntryTimed<K, V> overdue;
+	private final CacheEntryTimed<K, V>[][] wheel;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	@SuppressWarnings("unchecked")
+	TimerWheel(final long currentTime) {
+		this.time = currentTime;
+		this.overdue = newSentinel();
+		this.wheel = new CacheEntryTimed[buckets.length][];
+
+		for (int i = 0; i < this.wheel.length; i++) {
+			this.wheel[i] = new CacheEntryTimed[buckets[i]];
+
+			for (int j = 0; j < buckets[i]; j++) {
+				this.wheel[i][j] = newSentinel();
+			}
+		}
+	}
+
+	// <><><><><><><><><><><><><><> Package Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Advances the wheel to the current time and returns the entries that have expired along the way, visiting at most <code>budget</code> entries.
+	 * The returned entries are no longer scheduled and are chained together through {@link CacheEntryTimed#wheelNext}, which the caller must reset to
+	 * <code>null</code> as it walks the chain.
+	 *
+	 * @param currentTime
+	 *            the current time in milliseconds
+	 * @param budget
+	 *            the maximum number of entries to visit
+	 * @return the chain of expired entries, or <code>null</code> if none have expired
+	 */
+	final CacheEntryTimed<K, V> advance(final long currentTime, final int budget) {
+		final long previousTime = this.time;
+		this.budget = budget;
+
+		// 1. Retry the entries left over from when an earlier advance ran out of budget
+		this.process(this.overdue);
+
+		// 2. Visit each bucket whose span has passed, starting with the finest grained level
+		if (currentTime > previousTime) {
+			this.time = currentTime;
+
+			for (int i = 0; i < this.wheel.length; i++) {
+				final long previousTicks = previousTime >>> shifts[i];
+				final long delta = (currentTime >>> shifts[i]) - previousTicks;
+
+				if (delta <= 0) {
+					break;
+				}
+
+				final int mask = buckets[i] - 1;
+				final int start = (int) previousTicks & mask;
+				final int steps = (int) Math.min(delta + 1, buckets[i]);
+
+				for (int j = 0; j < steps; j++) {
+					this.process(this.wheel[i][(start + j) & mask]);
+				}
+			}
+		}
+
+		// 3. Hand the expired entries back to the cache
+		final CacheEntryTimed<K, V> e = this.expired;
+		this.expired = null;
+
+		return e;
+	}
+
+	/**
+	 * Resets the wheel to empty. The caller is responsible for clearing the wheel links of the entries themselves.
+	 */
+	final void clear() {
+		this.reset(this.overdue);
+
+		for (final CacheEntryTimed<K, V>[] level : this.wheel) {
+			for (final CacheEntryTimed<K, V> sentinel : level) {
+				this.reset(sentinel);
+			}
+		}
+	}
+
+	/**
+	 * Removes the entry from the wheel if it is scheduled.
+	 *
+	 * @param e
+	 *            the entry to deschedule
+	 */
+	final void deschedule(final CacheEntryTimed<K, V> e) {
+		if (e.wheelNext != null) {
+			e.wheelNext.wheelPrev = e.wheelPrev;
+			e.wheelPrev.wheelNext = e.wheelNext;
+			e.wheelNext = null;
+			e.wheelPrev = null;
+		}
+	}
+
+	/**
+	 * Adds the entry to the wheel bucket that covers its expiration time. An entry whose {@link root.clock.Timer} has no expiration never expires and
+	 * is not scheduled.
+	 *
+	 * @param e
+	 *            the entry to schedule
+	 */
+	final void schedule(final CacheEntryTimed<K, V> e) {
+		if (e.itemTimer.getExpiration() > 0) {
+			final long expireTime = this.time + Math.max(0, e.itemTimer.remaining(this.time));
+			final CacheEntryTimed<K, V> sentinel = this.findBucket(expireTime);
+
+			e.wheelNext = sentinel;
+			e.wheelPrev = sentinel.wheelPrev;
+			sentinel.wheelPrev.wheelNext = e;
+			sentinel.wheelPrev = e;
+		}
+	}
+
+	// <><><><><><><><><><><><><><> Static Methods <><><><><><><><><><><><><><>
+
+	private static <K, V> CacheEntryTimed<K, V> newSentinel() {
+		final CacheEntryTimed<K, V> sentinel = new CacheEntryTimed<>(null, null, 0, 0, null);
+		sentinel.wheelNext = sentinel;
+		sentinel.wheelPrev = sentinel;
+
+		return sentinel;
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	private CacheEntryTimed<K, V> findBucket(final long expireTime) {
+		final long duration = expireTime - this.time;
+		final int last = this.wheel.length - 1;
+
+		for (int i = 0; i < last; i++) {
+			if (duration < 1L << shifts[i + 1]) {
+				return this.wheel[i][(int) (expireTime >>> shifts[i]) & (buckets[i] - 1)];
+			}
+		}
+
+		return this.wheel[last][0];
+	}
+
+	/**
+	 * Detaches every entry from the bucket, moving each expired entry onto the expired chain and rescheduling the rest. Once the budget runs out, the
+	 * remaining entries are spliced onto the overdue list.
+	 */
+	private void process(final CacheEntryTimed<K, V> sentinel) {
+		if (sentinel.wheelNext == sentinel) {
+			return;
+		}
+
+		// 1. Detach the entries from the bucket so that rescheduled entries can land back in it
+		CacheEntryTimed<K, V> e = sentinel.wheelNext;
+		final CacheEntryTimed<K, V> last = sentinel.wheelPrev;
+		this.reset(sentinel);
+		last.wheelNext = null;
+
+		// 2. Expire or reschedule each detached entry
+		for (CacheEntryTimed<K, V> next; e != null; e = next) {
+			if (this.budget <= 0) {
+				e.wheelPrev = this.overdue.wheelPrev;
+				this.overdue.wheelPrev.wheelNext = e;
+				last.wheelNext = this.overdue;
+				this.overdue.wheelPrev = last;
+				return;
+			}
+
+			this.budget--;
+			next = e.wheelNext;
+
+			if (e.itemTimer.hasExpired(this.time)) {
+				e.wheelPrev = null;
+				e.wheelNext = this.expired;
+				this.expired = e;
+			} else {
+				this.schedule(e);
+			}
+		}
+	}
+
+	private void reset(final CacheEntryTimed<K, V> sentinel) {
+		sentinel.wheelNext = sentinel;
+		sentinel.wheelPrev = sentinel;
+	}
+
+} // End TimerWheel
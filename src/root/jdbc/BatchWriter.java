@@ -0,0 +1,460 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+
+import root.lang.FastInteger;
+import root.log.Log;
+import root.metrics.Counter;
+import root.metrics.Histogram;
+import root.metrics.Meter;
+import root.thread.ThreadPool;
+import root.util.Jdbc;
+import root.validation.InvalidParameterException;
+
+/**
+ * Writes rows through a {@link CachedSQLStatement} in JDBC batches that are bounded both by a number of rows and by an estimated number of bytes, so
+ * that a large import never holds more than one bounded batch in memory.
+ * <p>
+ * Each call to {@link #write(Object...)} binds one row and adds it to the current batch, which is executed as soon as it reaches
+ * <code>maxRows</code> rows or <code>maxBytes</code> bytes. The size of a row is estimated from its values: a {@link String} or <code>char[]</code>
+ * counts two bytes per character, a <code>byte[]</code> its length, and any other value eight bytes.
+ * <p>
+ * When the writer is given a {@link ThreadPool} it pipelines the batches on a second pooled connection: one batch is executed on the
+ * {@link ThreadPool} while the caller fills the next batch on the other connection. At most one batch is in flight, and an error from a pipelined
+ * batch is thrown by the next call to the writer. Inside a {@link Transaction} both connections are the same, so the writer falls back to executing
+ * every batch on the calling thread.
+ * <p>
+ * The number of rows written and their rate per second are reported by {@link #getRows()}, the number of rows in batches that failed to execute by
+ * {@link #getFailedRows()}, and the time each batch took to execute by {@link #getFlushTime()}. A {@code BatchWriter} is meant to be used by one thread and must be closed to write the last batch and release its
+ * connections.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class BatchWriter implements AutoCloseable {
+
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 * A connection and its prepared statement along with the rows added to it since it was last executed.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private final class Batch implements Runnable {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private final PooledConnection conn;
+		private final PreparedStatement stmt;
+
+		private int numRows;
+		private long numBytes;
+
+		/** Counted down once a pipelined execution of this batch has finished */
+		private CountDownLatch done;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Batch(final PooledConnection conn) throws SQLException {
+			this.conn = conn;
+			this.stmt = conn.prepareStatement(BatchWriter.this.cachedSql);
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final void run() {
+			try {
+				this.execute();
+			} catch (final SQLException e) {
+				BatchWriter.this.flushError = e;
+			} catch (final RuntimeException e) {
+				BatchWriter.this.flushError = new SQLException("Cannot execute a batch of " + BatchWriter.this.cachedSql, e);
+			} finally {
+				this.done.countDown();
+			}
+		}
+
+		// <><><><><><><><><><><><><> Private Methods <><><><><><><><><><><><><>
+
+		/**
+		 * Executes the batch and empties it. A failed batch is cleared from the statement as well and its rows are counted as failed, so that the
+		 * batch starts out empty the next time it is filled and none of its rows are sent twice.
+		 */
+		private void execute() throws SQLException {
+			final long startTime = System.nanoTime();
+
+			try {
+				this.stmt.executeBatch();
+			} catch (final SQLException | RuntimeException e) {
+				BatchWriter.this.failedRows.add(this.numRows);
+				this.numRows = 0;
+				this.numBytes = 0;
+
+				try {
+					this.stmt.clearBatch();
+				} catch (final SQLException | RuntimeException c) {
+					e.addSuppressed(c);
+				}
+
+				throw e;
+			}
+
+			BatchWriter.this.flushTime.record(System.nanoTime() - startTime);
+			BatchWriter.this.rows.mark(this.numRows);
+
+			this.numRows = 0;
+			this.numBytes = 0;
+		}
+
+	} // End Batch
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final Log log = new Log(BatchWriter.class);
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final CachedSQLStatement cachedSql;
+	private final int maxRows;
+	private final long maxBytes;
+
+	private final ThreadPool threadPool;
+
+	/** The batch the caller is filling */
+	private Batch current;
+
+	/** The batch that is executed on the {@link ThreadPool}, or <code>null</code> if the writer does not pipeline */
+	private Batch pipelined;
+
+	/** The error thrown by the last pipelined batch, which is rethrown to the caller */
+	private volatile SQLException flushError;
+
+	private final Meter rows;
+	private final Counter failedRows;
+	private final Histogram flushTime;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	/**
+	 * Creates a writer that executes every batch on the calling thread.
+	 *
+	 * @param dataSource
+	 *            the {@link RootDataSource} to get the connection from
+	 * @param cachedSql
+	 *            the {@link CachedSQLStatement} to write each row with
+	 * @param maxRows
+	 *            the number of rows after which a batch is executed
+	 * @param maxBytes
+	 *            the estimated number of bytes after which a batch is executed
+	 * @throws SQLException
+	 *             if the statement cannot be prepared
+	 */
+	public BatchWriter(final RootDataSource dataSource, final CachedSQLStatement cachedSql, final int maxRows, final long maxBytes)
+			throws SQLException {
+		this(dataSource, cachedSql, maxRows, maxBytes, null);
+	}
+
+	/**
+	 * Creates a writer that pipelines the batches on a second pooled connection when a {@link ThreadPool} is given.
+	 *
+	 * @param dataSource
+	 *            the {@link RootDataSource} to get the connections from
+	 * @param cachedSql
+	 *            the {@link CachedSQLStatement} to write each row with
+	 * @param maxRows
+	 *            the number of rows after which a batch is executed
+	 * @param maxBytes
+	 *            the estimated number of bytes after which a batch is executed
+	 * @param threadPool
+	 *            the {@link ThreadPool} that executes the batches, or <code>null</code> to execute them on the calling thread
+	 * @throws SQLException
+	 *             if the statement cannot be prepared
+	 */
+	public BatchWriter(final RootDataSource dataSource, final CachedSQLStatement cachedSql, final int maxRows, final long maxBytes,
+			final ThreadPool threadPool) throws SQLException {
+		if (maxRows <= 0) {
+			throw new InvalidParameterException(this.getClass().getName(), int.class, "maxRows", "Invalid maximum rows: {P}",
+					FastInteger.valueOf(maxRows));
+		}
+
+		if (maxBytes <= 0) {
+			throw new InvalidParameterException(this.getClass().getName(), long.class, "maxBytes", "Invalid maximum bytes: {P}", maxBytes);
+		}
+
+		this.cachedSql = cachedSql;
+		this.maxRows = maxRows;
+		this.maxBytes = maxBytes;
+		this.rows = new Meter();
+		this.failedRows = new Counter();
+		this.flushTime = new Histogram();
+
+		// 1. Prepare the statement on the first connection
+		this.current = this.newBatch(dataSource.getConnection(), null);
+
+		// 2. Prepare the statement on a second connection unless both are the same connection of a transaction
+		if (threadPool != null) {
+			final PooledConnection conn;
+
+			try {
+				conn = dataSource.getConnection();
+			} catch (final DatabaseException e) {
+				this.release(this.current);
+				throw e;
+			}
+
+			if (conn == this.current.conn) {
+				log.debug("Not pipelining {P} inside of a transaction", cachedSql);
+			} else {
+				this.pipelined = this.newBatch(conn, this.current);
+			}
+		}
+
+		this.threadPool = this.pipelined == null ? null : threadPool;
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * Writes the last batch, waits for a pipelined batch to finish, and releases the connections.
+	 *
+	 * @throws SQLException
+	 *             if a batch fails to execute
+	 */
+	@Override
+	public final void close() throws SQLException {
+		try {
+			this.flush();
+			this.awaitPipelined();
+		} finally {
+			this.release(this.current);
+
+			if (this.pipelined != null) {
+				this.release(this.pipelined);
+			}
+		}
+	}
+
+	/**
+	 * Executes the current batch, on the {@link ThreadPool} when the writer pipelines. A pipelined batch still in flight is waited for first.
+	 *
+	 * @throws SQLException
+	 *             if a batch fails to execute
+	 */
+	public final void flush() throws SQLException {
+		if (this.current.numRows == 0) {
+			return;
+		}
+
+		if (this.threadPool == null) {
+			this.current.execute();
+			return;
+		}
+
+		// 1. Wait for the previous batch so that at most one batch is in flight
+		this.awaitPipelined();
+
+		// 2. Hand the current batch to the thread pool and fill the other batch in the meantime
+		final Batch batch = this.current;
+		batch.done = new CountDownLatch(1);
+
+		this.current = this.pipelined;
+		this.pipelined = batch;
+
+		try {
+			this.threadPool.execute(batch);
+		} catch (final IllegalStateException e) {
+			batch.run();
+		}
+	}
+
+	/**
+	 * Returns the number of rows in batches that failed to execute, which are not written and are not retried.
+	 *
+	 * @return the {@link Counter} of the rows in failed batches
+	 */
+	public final Counter getFailedRows() {
+		return this.failedRows;
+	}
+
+	/**
+	 * Returns the time each batch took to execute.
+	 *
+	 * @return the {@link Histogram} of the batch execution times
+	 */
+	public final Histogram getFlushTime() {
+		return this.flushTime;
+	}
+
+	/**
+	 * Returns the estimated number of bytes after which a batch is executed.
+	 *
+	 * @return the estimated number of bytes after which a batch is executed
+	 */
+	public final long getMaxBytes() {
+		return this.maxBytes;
+	}
+
+	/**
+	 * Returns the number of rows after which a batch is executed.
+	 *
+	 * @return the number of rows after which a batch is executed
+	 */
+	public final int getMaxRows() {
+		return this.maxRows;
+	}
+
+	/**
+	 * Returns the number of rows written to the database so far and their rate per second.
+	 *
+	 * @return the {@link Meter} of the rows written
+	 */
+	public final Meter getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * Returns {@code true} if the batches are executed on a {@link ThreadPool} with a second connection.
+	 *
+	 * @return {@code true} if the writer pipelines its batches
+	 */
+	public final boolean isPipelined() {
+		return this.threadPool != null;
+	}
+
+	/**
+	 * Binds the values to the parameters of the statement, in order, and adds the row to the current batch. The batch is executed once it reaches
+	 * the maximum number of rows or bytes.
+	 *
+	 * @param values
+	 *            the parameter values of the row
+	 * @throws SQLException
+	 *             if the row cannot be bound or a batch fails to execute
+	 */
+	public final void write(final Object... values) throws SQLException {
+		if (this.flushError != null) {
+			this.awaitPipelined();
+		}
+
+		final Batch batch = this.current;
+
+		for (int i = 0; i < values.length; i++) {
+			batch.stmt.setObject(i + 1, values[i]);
+			batch.numBytes += sizeOf(values[i]);
+		}
+
+		batch.stmt.addBatch();
+
+		if (++batch.numRows >= this.maxRows || batch.numBytes >= this.maxBytes) {
+			this.flush();
+		}
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Waits for the pipelined batch to finish and rethrows the error it failed with, if any.
+	 *
+	 * @throws SQLException
+	 *             if the pipelined batch failed or the wait was interrupted
+	 */
+	private void awaitPipelined() throws SQLException {
+		if (this.pipelined != null && this.pipelined.done != null) {
+			try {
+				this.pipelined.done.await();
+				this.pipelined.done = null;
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while waiting for a batch of " + this.cachedSql + " to finish", e);
+			}
+		}
+
+		final SQLException e = this.flushError;
+
+		if (e != null) {
+			this.flushError = null;
+			throw e;
+		}
+	}
+
+	/**
+	 * Creates a {@link Batch} on the connection, returning the connection and the connection of the <code>other</code> batch to the pool when the
+	 * statement cannot be prepared.
+	 *
+	 * @param conn
+	 *            the {@link PooledConnection} to prepare the statement on
+	 * @param other
+	 *            the {@link Batch} that has already been created, or <code>null</code>
+	 * @return the new {@link Batch}
+	 * @throws SQLException
+	 *             if the statement cannot be prepared
+	 */
+	private Batch newBatch(final PooledConnection conn, final Batch other) throws SQLException {
+		try {
+			return new Batch(conn);
+		} catch (final SQLException e) {
+			conn.close();
+
+			if (other != null) {
+				this.release(other);
+			}
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Closes the statement of the batch and returns its connection to the pool.
+	 *
+	 * @param batch
+	 *            the {@link Batch} to release
+	 */
+	private void release(final Batch batch) {
+		Jdbc.close(batch.stmt);
+		batch.conn.close();
+	}
+
+	/**
+	 * Returns the estimated number of bytes the value occupies in a batch.
+	 *
+	 * @param value
+	 *            the parameter value
+	 * @return the estimated size of the value in bytes
+	 */
+	private static long sizeOf(final Object value) {
+		if (value instanceof String) {
+			return ((String) value).length() << 1;
+		}
+
+		if (value instanceof byte[]) {
+			return ((byte[]) value).length;
+		}
+
+		if (value instanceof char[]) {
+			return ((char[]) value).length << 1;
+		}
+
+		return 8;
+	}
+
+} // End BatchWriter
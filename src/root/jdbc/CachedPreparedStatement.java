@@ -70,6 +70,12 @@ final class CachedPreparedStatement implements java.sql.PreparedStatement {
 	/** The wrapped {@link PreparedStatement} */
 	final PreparedStatement stmt;
 
+	/** Set to {@code true} while a caller holds the statement, from the time the {@link PooledConnection} hands it out until {@link #close()} */
+	boolean checkedOut;
+
+	/** Set to {@code true} when the statement cache evicted the statement while it was checked out, so that {@link #close()} closes it */
+	private boolean evicted;
+
 	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
 
 	CachedPreparedStatement(final PooledConnection con, final PreparedStatement stmt, final CachedSQLStatement cachedSqlStmt) {
@@ -148,7 +154,12 @@ final class CachedPreparedStatement implements java.sql.PreparedStatement {
 
 	@Override
 	public final void close() throws SQLException {
-		if (this.hasError) {
+		this.checkedOut = false;
+
+		if (this.evicted) {
+			// The cache already let go of the statement, so the caller was the last one using it
+			Jdbc.close(this.stmt);
+		} else if (this.hasError) {
 			log.error("Closing Cached SQL Statement [{P}]", this.cachedSqlStmt);
 			this.con.stmtCache.remove(this.cachedSqlStmt);
 			Jdbc.close(this.stmt);
@@ -1128,4 +1139,18 @@ final class CachedPreparedStatement implements java.sql.PreparedStatement {
 		throw new UnsupportedOperationException();
 	}
 
+	// <><><><><><><><><><><><><>< Package Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Closes the underlying {@link PreparedStatement} once the statement cache has let go of it, deferring the close to {@link #close()} if a caller
+	 * still holds the statement.
+	 */
+	final void evict() {
+		if (this.checkedOut) {
+			this.evicted = true;
+		} else {
+			Jdbc.close(this.stmt);
+		}
+	}
+
 } // End CachedPreparedStatement
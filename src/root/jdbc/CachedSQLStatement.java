@@ -35,6 +35,9 @@ public final class CachedSQLStatement implements Extractable {
 	public final FastString sql;
 	private final int hashCode;
 
+	/** The column labels of the latest query of the statement, or <code>null</code> if it has not been queried */
+	volatile ColumnIndex columnIndex;
+
 	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
 
 	public CachedSQLStatement(final String sql) {
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.jdbc;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import root.util.Root;
+
+/**
+ * Resolves the column labels of a query to their column indexes. A {@code ColumnIndex} is built from the {@link ResultSetMetaData} the first time a
+ * {@link CachedSQLStatement} is queried and then cached on the statement. Every later execution still reads the column count and every column
+ * label from the metadata to check them with {@link #matches(ResultSetMetaData)}, and builds a new {@code ColumnIndex} only if they changed. The
+ * cache saves hashing the labels and building the lookup table on each execution, not reading the metadata.
+ * <p>
+ * Labels are compared without regard to case, the same as {@link java.sql.ResultSet#findColumn(String)}. The labels are hashed once into an open
+ * addressing table, and the lookup hashes the label it is given case-insensitively character by character so that it never allocates. A column
+ * whose label the driver returns as <code>null</code> can only be read by its index.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+final class ColumnIndex {
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	/** The label of column <code>i + 1</code> and its hash are held at index <code>i</code> */
+	private final String[] labels;
+	private final int[] hashes;
+
+	/** Linear probing table of column indexes starting at one, where zero marks an empty slot */
+	private final int[] table;
+	private final int tableMask;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	ColumnIndex(final ResultSetMetaData metaData) throws SQLException {
+		final int numColumns = metaData.getColumnCount();
+
+		this.labels = new String[numColumns];
+		this.hashes = new int[numColumns];
+		this.table = new int[Integer.highestOneBit(Math.max(numColumns, 1)) << 2];
+		this.tableMask = this.table.length - 1;
+
+		for (int i = 0; i < numColumns; i++) {
+			this.labels[i] = metaData.getColumnLabel(i + 1);
+			this.hashes[i] = hash(this.labels[i]);
+
+			// Only the first column with a label is indexed
+			if (this.labels[i] != null && this.indexOf(this.labels[i]) == 0) {
+				int slot = this.hashes[i] & this.tableMask;
+
+				while (this.table[slot] != 0) {
+					slot = (slot + 1) & this.tableMask;
+				}
+
+				this.table[slot] = i + 1;
+			}
+		}
+	}
+
+	// <><><><><><><><><><><><><>< Package Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Returns the number of columns of the query.
+	 *
+	 * @return the number of columns of the query
+	 */
+	final int getColumnCount() {
+		return this.labels.length;
+	}
+
+	/**
+	 * Returns the index of the first column with the label, or zero if no column has the label.
+	 *
+	 * @param label
+	 *            the column label to look up
+	 * @return the index of the column starting at one, or zero if no column has the label
+	 */
+	final int indexOf(final String label) {
+		if (label == null) {
+			return 0;
+		}
+
+		final int h = hash(label);
+
+		for (int slot = h & this.tableMask, column; (column = this.table[slot]) != 0; slot = (slot + 1) & this.tableMask) {
+			if (this.hashes[column - 1] == h && label.equalsIgnoreCase(this.labels[column - 1])) {
+				return column;
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Returns {@code true} if the query described by the metadata returns the same column labels in the same order.
+	 *
+	 * @param metaData
+	 *            the {@link ResultSetMetaData} of the latest execution of the query
+	 * @return {@code true} if the column labels are unchanged
+	 * @throws SQLException
+	 *             if the driver cannot return the metadata
+	 */
+	final boolean matches(final ResultSetMetaData metaData) throws SQLException {
+		if (metaData.getColumnCount() != this.labels.length) {
+			return false;
+		}
+
+		for (int i = 0; i < this.labels.length; i++) {
+			if (!Root.equals(this.labels[i], metaData.getColumnLabel(i + 1))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Hashes the label the same way for every label that {@link String#equalsIgnoreCase(String)} considers equal, and a <code>null</code> label to
+	 * zero.
+	 */
+	private static int hash(final String label) {
+		if (label == null) {
+			return 0;
+		}
+
+		int h = 0;
+
+		for (int i = 0; i < label.length(); i++) {
+			h = 31 * h + Character.toLowerCase(Character.toUpperCase(label.charAt(i)));
+		}
+
+		return h ^ (h >>> 16);
+	}
+
+} // End ColumnIndex
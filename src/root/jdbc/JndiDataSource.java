@@ -53,7 +53,10 @@ public final class JndiDataSource extends RootDataSource {
 		@Override
 		public final PooledConnection create() {
 			try {
-				return new PooledConnection(JndiDataSource.this, JndiDataSource.this.dataSource.getConnection());
+				final PooledConnection pooledConn = new PooledConnection(JndiDataSource.this, JndiDataSource.this.dataSource.getConnection());
+
+				pooledConn.prepareHottest();
+				return pooledConn;
 			} catch (final SQLException e) {
 				throw new DatabaseException(e);
 			}
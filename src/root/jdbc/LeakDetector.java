@@ -0,0 +1,490 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.jdbc;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import root.adt.ListArray;
+import root.lang.Extractable;
+import root.lang.FastInteger;
+import root.lang.ParamString;
+import root.lang.StringExtractor;
+import root.log.Log;
+import root.metrics.Counter;
+import root.metrics.Histogram;
+import root.validation.InvalidParameterException;
+
+/**
+ * Detects {@link PooledConnection} objects that are held for too long, most often because the caller forgot to close them, and profiles how long
+ * each call site holds on to its connections.
+ * <p>
+ * One in every <code>sampleRate</code> connections handed out by the {@link RootDataSource} records the stack trace of its caller, which is the only
+ * costly part of tracking a borrow. {@link #check()} flags each connection held longer than <code>leakThreshold</code> milliseconds once, logging
+ * where it was borrowed if its borrow was sampled, and {@link #start(long)} runs the check on a background thread. Every returned connection records
+ * its hold time, and a sampled one also records it against its call site, which is the first caller outside of <code>root.jdbc</code>. The call
+ * sites that hold the pool the longest in total are the ones monopolizing it. The detector stops tracking new call sites once it holds
+ * <code>maxCallSites</code> of them.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class LeakDetector implements Extractable {
+
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 * The total hold time of a call site at the time the call sites were requested.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private static final class CallSite implements Comparable<CallSite> {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private final String site;
+		private final long total;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private CallSite(final String site, final long total) {
+			this.site = site;
+			this.total = total;
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final int compareTo(final CallSite callSite) {
+			return this.total > callSite.total ? -1 : this.total < callSite.total ? 1 : 0;
+		}
+
+	} // End CallSite
+
+	/**
+	 * Runs {@link LeakDetector#check()} every <code>period</code> milliseconds until it is interrupted.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private final class Checker extends Thread {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private final long period;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Checker(final long period) {
+			super("LeakDetector");
+			this.period = period;
+			this.setDaemon(true);
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final void run() {
+			while (!this.isInterrupted()) {
+				try {
+					LeakDetector.this.check();
+				} catch (final RuntimeException e) {
+					log.error("Exception occurred while checking for leaked connections", e);
+				}
+
+				try {
+					Thread.sleep(this.period);
+				} catch (final InterruptedException e) {
+					return;
+				}
+			}
+		}
+
+	} // End Checker
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final Log log = new Log(LeakDetector.class);
+
+	/** The call sites of connections borrowed from within the framework are attributed to the first caller outside of this package */
+	private static final String jdbcPackage = "root.jdbc.";
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	/** The time in nanoseconds after which a borrowed connection is flagged as a leak */
+	private final long leakThreshold;
+
+	private final int sampleRate;
+
+	private final int maxCallSites;
+
+	/** Every connection the detector has seen borrowed, kept until the connection is destroyed so a borrow only has to stamp its time */
+	private final Set<PooledConnection> connections;
+
+	private final ConcurrentHashMap<String, Histogram> siteHoldTimes;
+
+	private final Histogram holdTime;
+
+	private final Counter leakCount;
+
+	private Checker checker;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	/**
+	 * Creates a leak detector that flags connections held longer than <code>leakThreshold</code> milliseconds and records the call site of one in
+	 * every <code>sampleRate</code> borrows, tracking up to <code>maxCallSites</code> distinct call sites.
+	 *
+	 * @param leakThreshold
+	 *            the number of milliseconds after which a borrowed connection is flagged as a leak
+	 * @param sampleRate
+	 *            record the call site of one in every <code>sampleRate</code> borrows, where <code>1</code> records every call site
+	 * @param maxCallSites
+	 *            the maximum number of distinct call sites to track
+	 */
+	public LeakDetector(final long leakThreshold, final int sampleRate, final int maxCallSites) {
+		if (leakThreshold <= 0) {
+			throw new InvalidParameterException(this.getClass().getName(), long.class, "leakThreshold", "Invalid leak threshold: {P}", leakThreshold);
+		}
+
+		if (sampleRate <= 0) {
+			throw new InvalidParameterException(this.getClass().getName(), int.class, "sampleRate", "Invalid sample rate: {P}",
+					FastInteger.valueOf(sampleRate));
+		}
+
+		if (maxCallSites <= 0) {
+			throw new InvalidParameterException(this.getClass().getName(), int.class, "maxCallSites", "Invalid maximum number of call sites: {P}",
+					FastInteger.valueOf(maxCallSites));
+		}
+
+		this.leakThreshold = leakThreshold * 1000000;
+		this.sampleRate = sampleRate;
+		this.maxCallSites = maxCallSites;
+		this.connections = Collections.newSetFromMap(new ConcurrentHashMap<PooledConnection, Boolean>());
+		this.siteHoldTimes = new ConcurrentHashMap<>();
+		this.holdTime = new Histogram();
+		this.leakCount = new Counter();
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * Flags every borrowed connection held longer than the leak threshold that has not been flagged yet, logging the stack trace of its borrow if
+	 * the borrow was sampled.
+	 *
+	 * @return the number of connections currently held longer than the leak threshold
+	 */
+	public final int check() {
+		final long now = System.nanoTime();
+		int numLeaks = 0;
+
+		for (final PooledConnection conn : this.connections) {
+			final long borrowTime = conn.borrowTime;
+
+			if (borrowTime != 0 && now - borrowTime > this.leakThreshold) {
+				numLeaks++;
+
+				if (!conn.leakReported) {
+					conn.leakReported = true;
+					this.leakCount.increment();
+
+					final Throwable borrowTrace = conn.borrowTrace;
+					final long heldFor = (now - borrowTime) / 1000000;
+
+					if (borrowTrace == null) {
+						log.warn("Possible leak of a PooledConnection held for {P} ms, its borrow was not sampled", heldFor);
+					} else {
+						log.warn(ParamString.formatMsg("Possible leak of a PooledConnection held for {P} ms by {P}", heldFor, callSite(borrowTrace)),
+								borrowTrace);
+					}
+				}
+			}
+		}
+
+		return numLeaks;
+	}
+
+	@Override
+	public final void extract(final StringExtractor extractor) {
+		extractor.append("LeakDetector [");
+		extractor.append("leak threshold=").append(this.leakThreshold / 1000000).append(" ms");
+		extractor.append(", sample rate=1/").append(this.sampleRate);
+		extractor.append(", borrowed=").append(this.getBorrowedCount());
+		extractor.append(", leaks=").append(this.leakCount.sum());
+		extractor.append(", hold time=").append(this.holdTime);
+
+		for (final String site : this.getCallSites(5)) {
+			extractor.append(", ").append(site).append('=').append(this.siteHoldTimes.get(site));
+		}
+
+		extractor.append(']');
+	}
+
+	/**
+	 * Returns the number of connections currently borrowed.
+	 *
+	 * @return the number of connections currently borrowed
+	 */
+	public final int getBorrowedCount() {
+		int numBorrowed = 0;
+
+		for (final PooledConnection conn : this.connections) {
+			if (conn.borrowTime != 0) {
+				numBorrowed++;
+			}
+		}
+
+		return numBorrowed;
+	}
+
+	/**
+	 * Returns up to <code>max</code> call sites ordered from the longest to the shortest total hold time of their sampled borrows.
+	 *
+	 * @param max
+	 *            the maximum number of call sites to return
+	 * @return the call sites holding the pool the longest, longest first
+	 */
+	public final ListArray<String> getCallSites(final int max) {
+		// 1. Take a snapshot of every total hold time so the sort sees stable values
+		CallSite[] callSites = new CallSite[this.siteHoldTimes.size()];
+		int size = 0;
+
+		for (final Map.Entry<String, Histogram> e : this.siteHoldTimes.entrySet()) {
+			if (size == callSites.length) {
+				callSites = Arrays.copyOf(callSites, size + 8);
+			}
+
+			callSites[size++] = new CallSite(e.getKey(), e.getValue().getSum());
+		}
+
+		// 2. Sort from the longest to the shortest total hold time and keep the first max call sites
+		Arrays.sort(callSites, 0, size);
+
+		final int n = Math.min(Math.max(max, 0), size);
+		final ListArray<String> sites = new ListArray<>(n);
+
+		for (int i = 0; i < n; i++) {
+			sites.add(callSites[i].site);
+		}
+
+		return sites;
+	}
+
+	/**
+	 * Returns the hold times of every returned connection.
+	 *
+	 * @return the {@link Histogram} of hold times
+	 */
+	public final Histogram getHoldTime() {
+		return this.holdTime;
+	}
+
+	/**
+	 * Returns the hold times of the sampled borrows made from the call site, or <code>null</code> if the call site is not tracked.
+	 *
+	 * @param site
+	 *            the call site as returned by {@link #getCallSites(int)}
+	 * @return the {@link Histogram} of hold times of the call site
+	 */
+	public final Histogram getHoldTime(final String site) {
+		return this.siteHoldTimes.get(site);
+	}
+
+	/**
+	 * Returns the number of connections flagged as leaks so far.
+	 *
+	 * @return the number of connections flagged as leaks
+	 */
+	public final long getLeakCount() {
+		return this.leakCount.sum();
+	}
+
+	/**
+	 * Returns the number of milliseconds after which a borrowed connection is flagged as a leak.
+	 *
+	 * @return the leak threshold in milliseconds
+	 */
+	public final long getLeakThreshold() {
+		return this.leakThreshold / 1000000;
+	}
+
+	/**
+	 * Returns the rate at which borrows record their call site.
+	 *
+	 * @return the sample rate
+	 */
+	public final int getSampleRate() {
+		return this.sampleRate;
+	}
+
+	/**
+	 * Forgets every hold time and call site along with the number of leaks. Connections that are currently borrowed are still tracked.
+	 */
+	public final void reset() {
+		this.siteHoldTimes.clear();
+		this.holdTime.reset();
+		this.leakCount.reset();
+	}
+
+	/**
+	 * Starts a background thread that runs {@link #check()} every <code>period</code> milliseconds. Does nothing if the thread is already running.
+	 *
+	 * @param period
+	 *            the number of milliseconds between two checks
+	 */
+	public final synchronized void start(final long period) {
+		if (period <= 0) {
+			throw new InvalidParameterException(this.getClass().getName(), long.class, "period", "Invalid check period: {P}", period);
+		}
+
+		if (this.checker == null) {
+			this.checker = new Checker(period);
+			this.checker.start();
+		}
+	}
+
+	/**
+	 * Stops the background thread started by {@link #start(long)}.
+	 */
+	public final synchronized void stop() {
+		if (this.checker != null) {
+			this.checker.interrupt();
+			this.checker = null;
+		}
+	}
+
+	@Override
+	public final String toString() {
+		final StringExtractor extractor = new StringExtractor();
+		this.extract(extractor);
+
+		return extractor.toString();
+	}
+
+	// <><><><><><><><><><><><><>< Package Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Starts tracking a connection handed out by the {@link RootDataSource}, recording the stack trace of the caller if the borrow is sampled.
+	 */
+	final void borrowed(final PooledConnection conn) {
+		this.borrowed(conn, this.sample());
+	}
+
+	/**
+	 * Starts tracking a connection handed out by the {@link RootDataSource} with the stack trace {@link #sample()} took on the thread that asked for
+	 * it, so that a connection acquired on another thread is still attributed to its caller.
+	 */
+	final void borrowed(final PooledConnection conn, final Throwable borrowTrace) {
+		conn.borrowTrace = borrowTrace;
+
+		if (conn.leakReported) {
+			conn.leakReported = false;
+		}
+
+		conn.borrowTime = System.nanoTime();
+
+		if (conn.leakDetector != this) {
+			conn.leakDetector = this;
+			this.connections.add(conn);
+		}
+	}
+
+	/**
+	 * Stops tracking a connection that is being destroyed.
+	 */
+	final void forget(final PooledConnection conn) {
+		this.connections.remove(conn);
+	}
+
+	/**
+	 * Stops tracking a connection returned to the pool and records how long it was held. Does nothing for a connection borrowed before the detector
+	 * was set on the {@link RootDataSource}.
+	 */
+	final void returned(final PooledConnection conn) {
+		final long borrowTime = conn.borrowTime;
+
+		if (borrowTime == 0) {
+			return;
+		}
+
+		// 1. Mark the connection as returned
+		final long heldFor = System.nanoTime() - borrowTime;
+		final Throwable borrowTrace = conn.borrowTrace;
+
+		conn.borrowTime = 0;
+		conn.borrowTrace = null;
+
+		if (conn.leakReported) {
+			log.warn("PooledConnection flagged as a leak was returned after {P} ms", heldFor / 1000000);
+		}
+
+		// 2. Record the hold time, and against its call site for a sampled borrow
+		this.holdTime.record(heldFor);
+
+		if (borrowTrace != null) {
+			final String site = callSite(borrowTrace);
+			Histogram siteHoldTime = this.siteHoldTimes.get(site);
+
+			if (siteHoldTime == null) {
+				if (this.siteHoldTimes.size() >= this.maxCallSites) {
+					return;
+				}
+
+				final Histogram newHoldTime = new Histogram();
+				siteHoldTime = this.siteHoldTimes.putIfAbsent(site, newHoldTime);
+
+				if (siteHoldTime == null) {
+					siteHoldTime = newHoldTime;
+				}
+			}
+
+			siteHoldTime.record(heldFor);
+		}
+	}
+
+	/**
+	 * Returns the stack trace of the caller if the borrow it is about to make is sampled, or <code>null</code> otherwise.
+	 */
+	final Throwable sample() {
+		return this.sampleRate == 1 || ThreadLocalRandom.current().nextInt(this.sampleRate) == 0 ? new Throwable("PooledConnection borrowed") : null;
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Returns the first frame of the stack trace outside of the <code>root.jdbc</code> package, which is the code that borrowed the connection.
+	 */
+	private static String callSite(final Throwable borrowTrace) {
+		final StackTraceElement[] stackTrace = borrowTrace.getStackTrace();
+
+		for (final StackTraceElement element : stackTrace) {
+			if (!element.getClassName().startsWith(jdbcPackage)) {
+				return element.toString();
+			}
+		}
+
+		return stackTrace.length == 0 ? "unknown" : stackTrace[stackTrace.length - 1].toString();
+	}
+
+} // End LeakDetector
@@ -23,6 +23,7 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.NClob;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLClientInfoException;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
@@ -36,12 +37,15 @@ import java.util.concurrent.Executor;
 
 import root.annotation.Delegate;
 import root.annotation.Todo;
+import root.adt.ListArray;
+import root.cache.CacheEvictionListener;
 import root.cache.CacheLRU;
-import root.clock.Timer;
 import root.lang.Extractable;
+import root.lang.FastInteger;
 import root.lang.StringExtractor;
 import root.log.Log;
 import root.util.Jdbc;
+import root.validation.InvalidParameterException;
 
 /**
  *
@@ -53,14 +57,34 @@ import root.util.Jdbc;
 @Todo("I should be able to move the hasError functionality up into SQLBroker, just check if Connection != null and Statement != null before setting")
 public final class PooledConnection implements java.sql.Connection, Extractable {
 
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 * Closes each {@link CachedPreparedStatement} the statement cache evicts to make room for another statement, or once its caller closes it if the
+	 * statement is still in use.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private static final class StatementCloser implements CacheEvictionListener<CachedSQLStatement, CachedPreparedStatement> {
+
+		@Override
+		public final void onEviction(final CachedSQLStatement cachedSql, final CachedPreparedStatement stmt) {
+			log.debug("Evicting PreparedStatement {P}", cachedSql.sql);
+
+			stmt.evict();
+		}
+
+	} // End StatementCloser
+
 	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
 
 	private static final Log log = new Log(PooledConnection.class);
 
-	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+	private static final StatementCloser stmtCloser = new StatementCloser();
 
-	/** Keeps track of how long the pooled connection has been idle and if it has expired */
-	final Timer t;
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
 
 	/** Set to {@code true} when the underlying connection throws an {@link SQLException} */
 	boolean hasError;
@@ -76,25 +100,43 @@ public final class PooledConnection implements java.sql.Connection, Extractable
 	 */
 	private boolean noTrans;
 
-	/** {@link PreparedStatement} cache if enabled on the {@link PooledDataSource} */
-	final CacheLRU<CachedSQLStatement, CachedPreparedStatement> stmtCache;
+	/** Set to {@code true} when the underlying connection was made read-only for read-only work and must be made writable again once returned */
+	private boolean resetReadOnly;
+
+	/** {@link PreparedStatement} cache if enabled on the {@link PooledDataSource}, which grows up to the maximum statement cache size */
+	CacheLRU<CachedSQLStatement, CachedPreparedStatement> stmtCache;
 
 	private final RootDataSource dataSource;
 
 	private final Connection connection;
 
+	/** The time in nanoseconds the {@link LeakDetector} saw the connection handed out, or <code>0</code> while it is not tracked */
+	volatile long borrowTime;
+
+	/** The stack trace of the caller that borrowed the connection if the {@link LeakDetector} sampled the borrow */
+	Throwable borrowTrace;
+
+	/** Set to <code>true</code> once the {@link LeakDetector} has flagged the connection as a leak */
+	volatile boolean leakReported;
+
+	/** The {@link LeakDetector} tracking the connection, if any */
+	LeakDetector leakDetector;
+
 	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
 
 	PooledConnection(final RootDataSource dataSource, final Connection connection) {
 		this.dataSource = dataSource;
 		this.connection = connection;
 		this.noTrans = true;
-		this.t = new Timer(dataSource.getMaxIdleTime());
 
 		if (dataSource.getStmtCacheSize() == 0) {
 			this.stmtCache = null;
 		} else {
-			this.stmtCache = new CacheLRU<>(dataSource.getStmtCacheSize());
+			// Start out large enough for every statement the data source has seen so far
+			final int cacheSize = Math.min(dataSource.stmtRegistry.getSize(), dataSource.getMaxStmtCacheSize());
+
+			this.stmtCache = new CacheLRU<>(Math.max(dataSource.getStmtCacheSize(), cacheSize));
+			this.stmtCache.setEvictionListener(stmtCloser);
 		}
 	}
 
@@ -119,8 +161,23 @@ public final class PooledConnection implements java.sql.Connection, Extractable
 	@Override
 	public final void close() {
 		if (this.noTrans) {
+			if (this.resetReadOnly) {
+				this.resetReadOnly = false;
+
+				try {
+					this.setReadOnly(false);
+				} catch (final SQLException e) {
+					log.error("Cannot reset the read-only mode of {P}", e, this);
+				}
+			}
+
+			final LeakDetector leakDetector = this.dataSource.leakDetector;
+
+			if (leakDetector != null) {
+				leakDetector.returned(this);
+			}
+
 			this.dataSource.pool.abandon(this);
-			this.t.reset();
 		}
 	}
 
@@ -241,7 +298,7 @@ public final class PooledConnection implements java.sql.Connection, Extractable
 	public final void extract(final StringExtractor extractor) {
 		extractor.append("PooledConnection [");
 		extractor.append("hasError=").append(this.hasError ? "yes" : "no");
-		extractor.append(", stmt cache size=").append(this.dataSource.getStmtCacheSize());
+		extractor.append(", stmt cache size=").append(this.stmtCache == null ? 0 : this.stmtCache.getCapacity());
 		extractor.append(", trans=").append(this.noTrans ? "no" : "yes");
 		extractor.append(", resetAutoCommit=").append(this.resetAutoCommit ? "yes" : "no");
 		extractor.append(", isolation level=");
@@ -391,7 +448,7 @@ public final class PooledConnection implements java.sql.Connection, Extractable
 
 	@Override
 	public final boolean isValid(final int timeout) {
-		return !this.hasError && !this.t.hasExpired();
+		return !this.hasError;
 	}
 
 	@Override
@@ -441,21 +498,35 @@ public final class PooledConnection implements java.sql.Connection, Extractable
 	}
 
 	public final PreparedStatement prepareStatement(final CachedSQLStatement cachedSql) throws SQLException {
+		this.dataSource.stmtRegistry.record(cachedSql);
+
+		if (this.stmtCache == null) {
+			return this.prepareStatement(cachedSql.sql.string);
+		}
+
 		try {
 			CachedPreparedStatement stmt = this.stmtCache.get(cachedSql);
 
 			if (stmt == null) {
 				log.debug("Caching PreparedStatement {P}", cachedSql.sql);
 
+				// Grow the cache instead of evicting when the data source uses more statements than the cache holds
+				if (this.stmtCache.getSize() == this.stmtCache.getCapacity() && this.stmtCache.getCapacity() < this.dataSource.getMaxStmtCacheSize()
+						&& this.dataSource.stmtRegistry.getSize() > this.stmtCache.getCapacity()) {
+					this.growStmtCache();
+				}
+
 				stmt = new CachedPreparedStatement(this, this.connection.prepareStatement(cachedSql.sql.string), cachedSql);
 
 				final CachedPreparedStatement old = this.stmtCache.put(cachedSql, stmt);
 
 				if (old != null) {
-					Jdbc.close(old.stmt);
+					old.evict();
 				}
 			}
 
+			stmt.checkedOut = true;
+
 			return stmt;
 		} catch (final SQLException e) {
 			this.hasError = true;
@@ -524,6 +595,78 @@ public final class PooledConnection implements java.sql.Connection, Extractable
 		}
 	}
 
+	/**
+	 * Streams the rows of the query to the handler, reading <code>fetchSize</code> rows from the database at a time, so that a query of any size
+	 * runs in constant memory. The column labels are resolved into an index cached on the {@link CachedSQLStatement}, which each
+	 * execution checks against the labels of its result set metadata and rebuilds if they changed. Some drivers, such as PostgreSQL, only honor the
+	 * fetch size when auto-commit is off.
+	 *
+	 * @param cachedSql
+	 *            the {@link CachedSQLStatement} to query
+	 * @param fetchSize
+	 *            the number of rows to read from the database at a time, or zero for the driver default
+	 * @param handler
+	 *            the {@link RowHandler} that receives each row
+	 * @param params
+	 *            the parameter values of the query, in order
+	 * @return the number of rows handed to the handler
+	 * @throws SQLException
+	 *             if the query fails or the handler cannot read a row
+	 */
+	public final long query(final CachedSQLStatement cachedSql, final int fetchSize, final RowHandler handler, final Object... params)
+			throws SQLException {
+		if (fetchSize < 0) {
+			throw new InvalidParameterException(this.getClass().getName(), int.class, "fetchSize", "Invalid fetch size: {P}",
+					FastInteger.valueOf(fetchSize));
+		}
+
+		final PreparedStatement stmt = this.prepareStatement(cachedSql);
+		ResultSet rs = null;
+
+		try {
+			// 1. Bind the parameters and execute the query
+			for (int i = 0; i < params.length; i++) {
+				stmt.setObject(i + 1, params[i]);
+			}
+
+			if (fetchSize > 0) {
+				stmt.setFetchSize(fetchSize);
+			}
+
+			rs = stmt.executeQuery();
+
+			// 2. Resolve the column labels unless the statement already has and the query still returns the same column labels
+			ColumnIndex columnIndex = cachedSql.columnIndex;
+
+			if (columnIndex == null || !columnIndex.matches(rs.getMetaData())) {
+				columnIndex = new ColumnIndex(rs.getMetaData());
+				cachedSql.columnIndex = columnIndex;
+			}
+
+			// 3. Hand each row to the handler until the rows run out or the handler stops
+			final Row row = new Row(rs, columnIndex);
+
+			while (rs.next()) {
+				row.rowNumber++;
+
+				if (!handler.handle(row)) {
+					break;
+				}
+			}
+
+			return row.rowNumber;
+		} finally {
+			if (fetchSize > 0) {
+				try {
+					stmt.setFetchSize(0);
+				} catch (final SQLException e) {
+				}
+			}
+
+			Jdbc.close(stmt, rs);
+		}
+	}
+
 	@Override
 	public final void releaseSavepoint(final Savepoint savepoint) throws SQLException {
 		try {
@@ -711,6 +854,10 @@ public final class PooledConnection implements java.sql.Connection, Extractable
 	// <><><><><><><><><><><><><>< Package Methods ><><><><><><><><><><><><><>
 
 	final void destroy() {
+		if (this.leakDetector != null) {
+			this.leakDetector.forget(this);
+		}
+
 		if (this.stmtCache != null) {
 			for (CachedPreparedStatement stmt = this.stmtCache.removeNext(); stmt != null; stmt = this.stmtCache.removeNext()) {
 				Jdbc.close(stmt.stmt);
@@ -720,7 +867,25 @@ public final class PooledConnection implements java.sql.Connection, Extractable
 		Jdbc.close(this.connection);
 	}
 
-	final void initTransaction(final TransactionIsolationLevel isoLevel) throws SQLException {
+	/**
+	 * Makes the underlying connection read-only until the connection is returned to the pool, unless it already is.
+	 *
+	 * @throws SQLException
+	 *             if the driver cannot change the read-only mode
+	 */
+	final void initReadOnly() throws SQLException {
+		if (!this.resetReadOnly && !this.isReadOnly()) {
+			this.setReadOnly(true);
+			this.resetReadOnly = true;
+		}
+	}
+
+	final void initTransaction(final TransactionIsolationLevel isoLevel, final boolean readOnly) throws SQLException {
+		// The read-only mode cannot be changed once the transaction has started
+		if (readOnly) {
+			this.initReadOnly();
+		}
+
 		if (isoLevel != TransactionIsolationLevel.DEFAULT && isoLevel != this.getTransactionIsolationLevel()) {
 			this.previousIsolationLevel = this.getTransactionIsolationLevel();
 			this.setTransactionIsolationLevel(isoLevel);
@@ -734,4 +899,46 @@ public final class PooledConnection implements java.sql.Connection, Extractable
 		this.noTrans = false;
 	}
 
+	/**
+	 * Prepares the hottest statements of the data source that fit into the statement cache, so that the first callers of a new connection find them
+	 * already prepared. A statement that fails to prepare is logged and skipped.
+	 */
+	final void prepareHottest() {
+		if (this.stmtCache != null) {
+			final ListArray<CachedSQLStatement> hottest = this.dataSource.stmtRegistry.getHottest(this.stmtCache.getCapacity());
+
+			// Put the coldest statement first so that the hottest statement ends up as the most recently used
+			for (int i = hottest.getSize() - 1; i >= 0; i--) {
+				final CachedSQLStatement cachedSql = hottest.get(i);
+
+				try {
+					this.stmtCache.put(cachedSql, new CachedPreparedStatement(this, this.connection.prepareStatement(cachedSql.sql.string), cachedSql));
+				} catch (final SQLException e) {
+					log.error("Cannot prepare PreparedStatement {P}", e, cachedSql.sql);
+				}
+			}
+		}
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Moves every cached statement into a new cache twice the size of the current one, bounded by the maximum statement cache size.
+	 */
+	private void growStmtCache() {
+		final CacheLRU<CachedSQLStatement, CachedPreparedStatement> oldCache = this.stmtCache;
+		final CacheLRU<CachedSQLStatement, CachedPreparedStatement> newCache = new CacheLRU<>(
+				Math.min(oldCache.getCapacity() << 1, this.dataSource.getMaxStmtCacheSize()));
+
+		// The keys come from the least to the most recently used so the new cache keeps the same order
+		for (final CachedSQLStatement cachedSql : oldCache.getKeys()) {
+			newCache.put(cachedSql, oldCache.get(cachedSql));
+		}
+
+		newCache.setEvictionListener(stmtCloser);
+		this.stmtCache = newCache;
+
+		log.debug("Grew PreparedStatement cache to {P}", newCache.getCapacity());
+	}
+
 } // End PooledConnection
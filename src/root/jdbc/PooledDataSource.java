@@ -52,7 +52,10 @@ public final class PooledDataSource extends RootDataSource {
 		public final PooledConnection create() {
 			try {
 				final Connection conn = PooledDataSource.this.driver.connect(PooledDataSource.this.url, PooledDataSource.this.dbProperties);
-				return new PooledConnection(PooledDataSource.this, conn);
+				final PooledConnection pooledConn = new PooledConnection(PooledDataSource.this, conn);
+
+				pooledConn.prepareHottest();
+				return pooledConn;
 			} catch (final SQLException e) {
 				throw new DatabaseException(e);
 			}
@@ -150,6 +153,7 @@ public final class PooledDataSource extends RootDataSource {
 		extractor.append("driver=").append(this.driver.getClass().getName());
 		extractor.append(", url=").append(this.url);
 		extractor.append(", stmt cache size=").append(this.stmtCacheSize);
+		extractor.append(", max stmt cache size=").append(this.getMaxStmtCacheSize());
 		extractor.append(", maxIdleTime=").append(this.maxIdleTime);
 		extractor.append(", maxWait=").append(this.pool.getMaxWait());
 		extractor.append(", poolCapacity=").append(this.pool.getCapacity());
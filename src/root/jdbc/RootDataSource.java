@@ -18,11 +18,21 @@ package root.jdbc;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import root.lang.Extractable;
 import root.log.Log;
+import root.pool.PoolAcquireListener;
 import root.pool.PoolConcurrent;
 import root.pool.PoolObjectFactory;
+import root.pool.PoolStatistics;
+import root.pool.PoolStatisticsSnapshot;
 
 /**
  *
@@ -32,21 +42,148 @@ import root.pool.PoolObjectFactory;
  */
 public abstract class RootDataSource implements javax.sql.DataSource, Extractable {
 
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 * Hands the {@link PooledConnection} of an asynchronous acquisition to the {@link LeakDetector} once the caller takes it, along with the stack
+	 * trace sampled when the acquisition started.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private static final class DetectedAcquire implements Future<PooledConnection> {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private final Future<PooledConnection> acquisition;
+		private final LeakDetector leakDetector;
+		private final Throwable borrowTrace;
+		private boolean borrowed;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private DetectedAcquire(final Future<PooledConnection> acquisition, final LeakDetector leakDetector, final Throwable borrowTrace) {
+			this.acquisition = acquisition;
+			this.leakDetector = leakDetector;
+			this.borrowTrace = borrowTrace;
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final boolean cancel(final boolean mayInterruptIfRunning) {
+			return this.acquisition.cancel(mayInterruptIfRunning);
+		}
+
+		@Override
+		public final PooledConnection get() throws InterruptedException, ExecutionException {
+			return this.borrowed(this.acquisition.get());
+		}
+
+		@Override
+		public final PooledConnection get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			return this.borrowed(this.acquisition.get(timeout, unit));
+		}
+
+		@Override
+		public final boolean isCancelled() {
+			return this.acquisition.isCancelled();
+		}
+
+		@Override
+		public final boolean isDone() {
+			return this.acquisition.isDone();
+		}
+
+		// <><><><><><><><><><><><><> Private Methods <><><><><><><><><><><><><>
+
+		private synchronized PooledConnection borrowed(final PooledConnection conn) {
+			if (!this.borrowed) {
+				this.leakDetector.borrowed(conn, this.borrowTrace);
+				this.borrowed = true;
+			}
+
+			return conn;
+		}
+
+	} // End DetectedAcquire
+
+	/**
+	 * Hands the {@link PooledConnection} of an asynchronous acquisition to the {@link LeakDetector} before passing it on to the listener. The
+	 * listener runs on the thread that acquired the connection, so the stack trace of the borrow is sampled on the calling thread when the
+	 * acquisition starts.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private static final class DetectedListener implements PoolAcquireListener<PooledConnection> {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private final PoolAcquireListener<? super PooledConnection> listener;
+		private final LeakDetector leakDetector;
+		private final Throwable borrowTrace;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private DetectedListener(final PoolAcquireListener<? super PooledConnection> listener, final LeakDetector leakDetector,
+				final Throwable borrowTrace) {
+			this.listener = listener;
+			this.leakDetector = leakDetector;
+			this.borrowTrace = borrowTrace;
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final void onAcquire(final PooledConnection conn) {
+			this.leakDetector.borrowed(conn, this.borrowTrace);
+			this.listener.onAcquire(conn);
+		}
+
+		@Override
+		public final void onFailure(final Throwable cause) {
+			this.listener.onFailure(cause);
+		}
+
+	} // End DetectedListener
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	/** The maximum number of distinct {@link CachedSQLStatement} objects the {@link StatementRegistry} tracks */
+	private static final int stmtRegistryCapacity = 1024;
+
+	/** The default size up to which the {@link PreparedStatement} cache of each {@link PooledConnection} may grow */
+	private static final int defaultMaxStmtCacheSize = 512;
+
 	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
 
-	/** The size of the {@link PreparedStatement} cache to create on each {@link PooledConnection} */
+	/** The initial size of the {@link PreparedStatement} cache to create on each {@link PooledConnection} */
 	protected int stmtCacheSize;
 
+	/** The size up to which the {@link PreparedStatement} cache of each {@link PooledConnection} may grow */
+	protected int maxStmtCacheSize;
+
+	/** Counts how often each {@link CachedSQLStatement} is prepared across every {@link PooledConnection} */
+	protected final StatementRegistry stmtRegistry;
+
 	/** The maximum amount of time a {@link PooledConnection} may be idle before it is recycled */
 	protected long maxIdleTime;
 
 	/** The {@link PoolConcurrent} of {@link PooledConnection} managed by this {@link JndiDataSource} */
 	protected final PoolConcurrent<PooledConnection> pool;
 
+	/** Tracks the {@link PooledConnection} objects handed out if leak detection is enabled */
+	volatile LeakDetector leakDetector;
+
 	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
 
 	protected RootDataSource(final int capacity) {
 		this.pool = new PoolConcurrent<>(capacity, this.getPooledConnectionFactory());
+		this.stmtRegistry = new StatementRegistry(stmtRegistryCapacity);
+		this.maxStmtCacheSize = defaultMaxStmtCacheSize;
 	}
 
 	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
@@ -66,13 +203,13 @@ public abstract class RootDataSource implements javax.sql.DataSource, Extractabl
 		final TransactionLocalScope txnScope = Transaction.getLocalScope();
 
 		try {
-			if (txnScope == null || !txnScope.manages(this)) {
-				return this.pool.acquire();
+			if (txnScope == null || !txnScope.isBeginning() && !txnScope.manages(this)) {
+				return this.acquire();
 			}
 
 			if (txnScope.isBeginning()) {
 				this.getLog().debug("Starting transaction on {P} with isolation level {P}", this, txnScope.isoLevel);
-				return txnScope.initialize(this, this.pool.acquire());
+				return txnScope.initialize(this, this.acquire());
 			}
 
 			return txnScope.getConnection();
@@ -87,6 +224,103 @@ public abstract class RootDataSource implements javax.sql.DataSource, Extractabl
 		throw new UnsupportedOperationException();
 	}
 
+	/**
+	 * Starts acquiring a {@link PooledConnection} without blocking the calling thread while the pool is exhausted. The connection is taken with
+	 * {@link Future#get()}, which waits up to <code>maxWait</code> for it and blocks the thread that calls it in the meantime, and must be closed as
+	 * usual. Use {@link #getConnectionAsync(Executor, PoolAcquireListener)} to be called back with the connection instead. A {@link Future} that is not going to be
+	 * consumed must be cancelled so that any connection already handed to it goes back to the pool.
+	 * <p>
+	 * A {@link Transaction} binds its connection to the current thread, so inside a transaction the connection is acquired right away just as with
+	 * {@link #getConnection()}.
+	 *
+	 * @return a {@link Future} of the {@link PooledConnection}
+	 * @see PoolConcurrent#acquireAsync()
+	 */
+	public final Future<PooledConnection> getConnectionAsync() {
+		final TransactionLocalScope txnScope = Transaction.getLocalScope();
+
+		if (txnScope != null && (txnScope.isBeginning() || txnScope.manages(this))) {
+			final FutureTask<PooledConnection> task = new FutureTask<>(new Callable<PooledConnection>() {
+				@Override
+				public final PooledConnection call() {
+					return RootDataSource.this.getConnection();
+				}
+			});
+
+			task.run();
+			return task;
+		}
+
+		try {
+			final LeakDetector leakDetector = this.leakDetector;
+
+			if (leakDetector == null) {
+				return this.pool.acquireAsync();
+			}
+
+			return new DetectedAcquire(this.pool.acquireAsync(), leakDetector, leakDetector.sample());
+		} catch (final Exception e) {
+			this.getLog().error("Cannot acquire a connection from the pool", e);
+			throw new DatabaseException("Cannot acquire a connection from the pool", e);
+		}
+	}
+
+	/**
+	 * Starts acquiring a {@link PooledConnection} and passes it to the {@link PoolAcquireListener} on the {@link Executor} once the pool hands it
+	 * over, so no thread waits while the pool is exhausted. The connection must be closed as usual, and the returned {@link Future} may be used to
+	 * cancel the acquisition.
+	 * <p>
+	 * A {@link Transaction} binds its connection to the current thread, so inside a transaction the connection is acquired right away and passed to
+	 * the listener on the calling thread.
+	 *
+	 * @param executor
+	 *            the {@link Executor} that completes the acquisition, which must not block
+	 * @param listener
+	 *            the {@link PoolAcquireListener} to pass the connection or the failure to
+	 * @return a {@link Future} of the {@link PooledConnection}
+	 * @see PoolConcurrent#acquireAsync(Executor, PoolAcquireListener)
+	 */
+	public final Future<PooledConnection> getConnectionAsync(final Executor executor, final PoolAcquireListener<? super PooledConnection> listener) {
+		final TransactionLocalScope txnScope = Transaction.getLocalScope();
+
+		if (txnScope != null && (txnScope.isBeginning() || txnScope.manages(this))) {
+			final Future<PooledConnection> task = this.getConnectionAsync();
+
+			try {
+				listener.onAcquire(task.get());
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				listener.onFailure(e);
+			} catch (final ExecutionException e) {
+				listener.onFailure(e.getCause());
+			}
+
+			return task;
+		}
+
+		try {
+			final LeakDetector leakDetector = this.leakDetector;
+
+			if (leakDetector == null) {
+				return this.pool.acquireAsync(executor, listener);
+			}
+
+			return this.pool.acquireAsync(executor, new DetectedListener(listener, leakDetector, leakDetector.sample()));
+		} catch (final Exception e) {
+			this.getLog().error("Cannot acquire a connection from the pool", e);
+			throw new DatabaseException("Cannot acquire a connection from the pool", e);
+		}
+	}
+
+	/**
+	 * Returns the {@link LeakDetector} tracking the connections handed out, or <code>null</code> if leak detection is disabled.
+	 *
+	 * @return the {@link LeakDetector}, or <code>null</code> if leak detection is disabled
+	 */
+	public final LeakDetector getLeakDetector() {
+		return this.leakDetector;
+	}
+
 	/**
 	 * Returns the maximum number of milliseconds a connection may be idle in the pool before it is recycled.
 	 *
@@ -96,6 +330,15 @@ public abstract class RootDataSource implements javax.sql.DataSource, Extractabl
 		return this.maxIdleTime;
 	}
 
+	/**
+	 * Returns the size up to which the {@link PreparedStatement} cache of each pooled {@link Connection} may grow.
+	 *
+	 * @return the maximum size of the {@link PreparedStatement} cache
+	 */
+	public final int getMaxStmtCacheSize() {
+		return Math.max(this.stmtCacheSize, this.maxStmtCacheSize);
+	}
+
 	/**
 	 * Returns the maximum amount of time in milliseconds the pool will wait for a connection to become available before erroring out.
 	 *
@@ -106,29 +349,71 @@ public abstract class RootDataSource implements javax.sql.DataSource, Extractabl
 	}
 
 	/**
-	 * Returns the size of the {@link PreparedStatement} cache for each pooled {@link Connection}.
+	 * Returns the number of idle connections the pool maintenance keeps open.
+	 *
+	 * @return the number of idle connections the pool maintenance keeps open
+	 */
+	public final int getMinIdle() {
+		return this.pool.getMinIdle();
+	}
+
+	/**
+	 * Returns the initial size of the {@link PreparedStatement} cache for each pooled {@link Connection}.
 	 *
-	 * @return the size of the {@link PreparedStatement} cache
+	 * @return the initial size of the {@link PreparedStatement} cache
 	 */
 	public final int getStmtCacheSize() {
-		// TODO: I think this should go away and a PooledConnection can just support however many CachedSQLStatement objects come its way
 		return this.stmtCacheSize;
 	}
 
+	/**
+	 * Returns the {@link StatementRegistry} that counts how often each {@link CachedSQLStatement} is prepared on this data source.
+	 *
+	 * @return the {@link StatementRegistry} of this data source
+	 */
+	public final StatementRegistry getStmtRegistry() {
+		return this.stmtRegistry;
+	}
+
 	@Override
 	public final boolean isWrapperFor(final Class<?> iface) throws SQLException {
 		throw new UnsupportedOperationException();
 	}
 
 	/**
-	 * Sets the maximum number of milliseconds a connection may be idle in the pool before it is recycled. A value less than or equal to zero is
-	 * ignored.
+	 * Enables leak detection on the connections handed out from now on by tracking them with the {@link LeakDetector}, or disables it when
+	 * <code>null</code>.
+	 *
+	 * @param leakDetector
+	 *            the {@link LeakDetector} to track connections with, or <code>null</code> to disable leak detection
+	 */
+	public final void setLeakDetector(final LeakDetector leakDetector) {
+		this.leakDetector = leakDetector;
+	}
+
+	/**
+	 * Sets the maximum number of milliseconds a connection may be idle in the pool before it is closed. The pool maintenance closes idle connections
+	 * beyond <code>minIdle</code>, otherwise {@link #getConnection()} closes an expired connection instead of handing it out. A value less than or
+	 * equal to zero keeps idle connections open forever.
 	 *
 	 * @param maxIdleTime
 	 *            the maximum number of milliseconds a connection may be idle
 	 */
 	public final void setMaxIdleTime(final long maxIdleTime) {
 		this.maxIdleTime = maxIdleTime;
+		this.pool.setMaxIdleTime(maxIdleTime);
+	}
+
+	/**
+	 * Sets the size up to which the {@link PreparedStatement} cache of each {@link PooledConnection} may grow. A connection doubles its cache when it
+	 * has to evict a statement while the data source has seen more distinct statements than the cache holds. The default is <code>512</code>, and a
+	 * value less than the initial size keeps the cache at its initial size.
+	 *
+	 * @param maxStmtCacheSize
+	 *            the maximum size of the {@link PreparedStatement} cache
+	 */
+	public final void setMaxStmtCacheSize(final int maxStmtCacheSize) {
+		this.maxStmtCacheSize = maxStmtCacheSize;
 	}
 
 	/**
@@ -143,17 +428,58 @@ public abstract class RootDataSource implements javax.sql.DataSource, Extractabl
 	}
 
 	/**
-	 * Sets the size of the {@link PreparedStatement} cache for each {@link PooledConnection}. The default is <code>0</code> where no statement cache
-	 * is created.
+	 * Sets the number of idle connections the pool maintenance keeps open.
+	 *
+	 * @param minIdle
+	 *            the number of idle connections to keep open
+	 */
+	public final void setMinIdle(final int minIdle) {
+		this.pool.setMinIdle(minIdle);
+	}
+
+	/**
+	 * Enables statistics on the connection pool by recording them into the {@link PoolStatistics}, or disables them when <code>null</code>.
+	 *
+	 * @param statistics
+	 *            the {@link PoolStatistics} to record into, or <code>null</code> to disable statistics
+	 */
+	public final void setPoolStatistics(final PoolStatistics statistics) {
+		this.pool.setStatistics(statistics);
+	}
+
+	/**
+	 * Sets the initial size of the {@link PreparedStatement} cache for each {@link PooledConnection}. A new connection starts with a larger cache when
+	 * the {@link StatementRegistry} has already seen more distinct statements, up to the maximum size. The default is <code>0</code> where no
+	 * statement cache is created.
 	 *
 	 * @param stmtCacheSize
-	 *            the size of the {@link PreparedStatement} cache
+	 *            the initial size of the {@link PreparedStatement} cache
 	 */
 	public final void setStmtCacheSize(final int stmtCacheSize) {
-		// TODO: I think this should go away and a PooledConnection can just support however many CachedSQLStatement objects come its way
 		this.stmtCacheSize = stmtCacheSize;
 	}
 
+	/**
+	 * Returns a point in time copy of the statistics of the connection pool along with its current number of active, idle and waiting connections
+	 * and threads.
+	 *
+	 * @return a {@link PoolStatisticsSnapshot} of the connection pool
+	 */
+	public final PoolStatisticsSnapshot snapshot() {
+		return this.pool.snapshot();
+	}
+
+	/**
+	 * Starts the pool maintenance, which opens <code>minIdle</code> connections in the background, closes connections that have been idle for longer
+	 * than <code>maxIdleTime</code>, and validates idle connections in the background.
+	 *
+	 * @param period
+	 *            the number of milliseconds between two maintenance runs
+	 */
+	public final void startMaintenance(final long period) {
+		this.pool.startMaintenance(period);
+	}
+
 	@Override
 	public final <T> T unwrap(final Class<T> iface) throws SQLException {
 		throw new UnsupportedOperationException();
@@ -165,4 +491,20 @@ public abstract class RootDataSource implements javax.sql.DataSource, Extractabl
 
 	protected abstract PoolObjectFactory<PooledConnection> getPooledConnectionFactory();
 
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Acquires a {@link PooledConnection} from the pool and hands it to the {@link LeakDetector} if leak detection is enabled.
+	 */
+	private PooledConnection acquire() throws InterruptedException {
+		final PooledConnection conn = this.pool.acquire();
+		final LeakDetector leakDetector = this.leakDetector;
+
+		if (leakDetector != null) {
+			leakDetector.borrowed(conn);
+		}
+
+		return conn;
+	}
+
 } // End RootDataSource
@@ -0,0 +1,396 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.jdbc;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import root.lang.Extractable;
+import root.lang.FastInteger;
+import root.lang.StringExtractor;
+import root.log.Log;
+import root.metrics.Counter;
+import root.validation.InvalidParameterException;
+import root.validation.NullParameterException;
+
+/**
+ * Routes connection requests between a primary {@link RootDataSource} and any number of replica {@link RootDataSource} objects.
+ * <p>
+ * {@link #getConnection()} returns a connection to the primary for writes, and {@link #getReadOnlyConnection()} returns a connection to a replica
+ * picked by the {@link RoutingStrategy}. A {@link Transaction} that is begun with {@link Transaction#beginReadOnly()} is routed to a replica as
+ * well, and every other {@link Transaction} is pinned to the primary. Once a {@link Transaction} holds a connection, every request of the thread
+ * goes to the same data source until the transaction ends. A replica that cannot hand out a connection is skipped in favor of the primary.
+ * <p>
+ * Read-only work that ends up on the primary runs on a connection set to read-only, which is made writable again once it is returned to the pool.
+ * The connection of a read-only {@link Transaction} is set to read-only no matter which data source it comes from.
+ * <p>
+ * The number of connections routed to each data source is counted, and {@link #extract(StringExtractor)} reports it along with a snapshot of each
+ * connection pool to show how the load is distributed.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class RoutingDataSource implements javax.sql.DataSource, Extractable {
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final Log log = new Log(RoutingDataSource.class);
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final RoutingStrategy strategy;
+
+	/** The primary data source is held at index zero followed by the replicas */
+	private final RootDataSource[] dataSources;
+
+	/** The number of connections routed to the data source at the same index */
+	private final Counter[] routedCounts;
+
+	/** The position of the next replica to take, or to start looking from */
+	private final AtomicInteger nextReplica;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	/**
+	 * Creates a data source that sends writes to the primary and read-only work to the replicas.
+	 *
+	 * @param strategy
+	 *            the {@link RoutingStrategy} that picks the replica for read-only work
+	 * @param primary
+	 *            the {@link RootDataSource} of the primary
+	 * @param replicas
+	 *            the {@link RootDataSource} of each replica, where read-only work goes to the primary when there are none
+	 */
+	public RoutingDataSource(final RoutingStrategy strategy, final RootDataSource primary, final RootDataSource... replicas) {
+		if (strategy == null) {
+			throw new NullParameterException(this.getClass().getName(), RoutingStrategy.class, "strategy");
+		}
+
+		if (primary == null) {
+			throw new NullParameterException(this.getClass().getName(), RootDataSource.class, "primary");
+		}
+
+		this.strategy = strategy;
+		this.dataSources = new RootDataSource[replicas.length + 1];
+		this.routedCounts = new Counter[this.dataSources.length];
+		this.nextReplica = new AtomicInteger();
+
+		this.dataSources[0] = primary;
+		for (int i = 0; i < replicas.length; i++) {
+			if (replicas[i] == null) {
+				throw new NullParameterException(this.getClass().getName(), RootDataSource.class, "replicas");
+			}
+
+			this.dataSources[i + 1] = replicas[i];
+		}
+
+		for (int i = 0; i < this.routedCounts.length; i++) {
+			this.routedCounts[i] = new Counter();
+		}
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * Gracefully closes the primary and every replica.
+	 */
+	public final void close() {
+		for (final RootDataSource dataSource : this.dataSources) {
+			dataSource.close();
+		}
+	}
+
+	@Override
+	public final void extract(final StringExtractor extractor) {
+		extractor.append("RoutingDataSource [strategy=").append(this.strategy);
+
+		for (int i = 0; i < this.dataSources.length; i++) {
+			if (i == 0) {
+				extractor.append(", primary=(routed=");
+			} else {
+				extractor.append(", replica").append(i - 1).append("=(routed=");
+			}
+
+			extractor.append(this.routedCounts[i].sum()).append(", ");
+			this.dataSources[i].snapshot().extract(extractor);
+			extractor.append(')');
+		}
+
+		extractor.append(']');
+	}
+
+	/**
+	 * Returns a connection for writes, which comes from the primary unless the current thread is in a read-only {@link Transaction}.
+	 *
+	 * @return a {@link PooledConnection} for writes
+	 */
+	@Override
+	public final PooledConnection getConnection() {
+		return this.route(false);
+	}
+
+	@Override
+	public final Connection getConnection(final String username, final String password) throws SQLException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public final int getLoginTimeout() throws SQLException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public final PrintWriter getLogWriter() throws SQLException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public final Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		return log.getParent();
+	}
+
+	/**
+	 * Returns the primary {@link RootDataSource}.
+	 *
+	 * @return the primary {@link RootDataSource}
+	 */
+	public final RootDataSource getPrimary() {
+		return this.dataSources[0];
+	}
+
+	/**
+	 * Returns the number of connections routed to the primary.
+	 *
+	 * @return the number of connections routed to the primary
+	 */
+	public final long getPrimaryRoutedCount() {
+		return this.routedCounts[0].sum();
+	}
+
+	/**
+	 * Returns a connection for read-only work, which comes from a replica unless the current thread is in a {@link Transaction} that is pinned to
+	 * the primary.
+	 *
+	 * @return a {@link PooledConnection} for read-only work
+	 */
+	public final PooledConnection getReadOnlyConnection() {
+		return this.route(true);
+	}
+
+	/**
+	 * Returns the replica {@link RootDataSource} at the index.
+	 *
+	 * @param index
+	 *            the index of the replica, starting at zero
+	 * @return the replica {@link RootDataSource} at the index
+	 */
+	public final RootDataSource getReplica(final int index) {
+		return this.dataSources[this.getReplicaIndex(index)];
+	}
+
+	/**
+	 * Returns the number of replicas.
+	 *
+	 * @return the number of replicas
+	 */
+	public final int getReplicaCount() {
+		return this.dataSources.length - 1;
+	}
+
+	/**
+	 * Returns the number of connections routed to the replica at the index.
+	 *
+	 * @param index
+	 *            the index of the replica, starting at zero
+	 * @return the number of connections routed to the replica
+	 */
+	public final long getReplicaRoutedCount(final int index) {
+		return this.routedCounts[this.getReplicaIndex(index)].sum();
+	}
+
+	/**
+	 * Returns the {@link RoutingStrategy} that picks the replica for read-only work.
+	 *
+	 * @return the {@link RoutingStrategy} of this data source
+	 */
+	public final RoutingStrategy getStrategy() {
+		return this.strategy;
+	}
+
+	@Override
+	public final boolean isWrapperFor(final Class<?> iface) throws SQLException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public final void setLoginTimeout(final int seconds) throws SQLException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public final void setLogWriter(final PrintWriter out) throws SQLException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public final String toString() {
+		final StringExtractor extractor = new StringExtractor(512);
+		this.extract(extractor);
+		return extractor.toString();
+	}
+
+	@Override
+	public final <T> T unwrap(final Class<T> iface) throws SQLException {
+		throw new UnsupportedOperationException();
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Returns a connection from the data source at the index and counts it.
+	 *
+	 * @param index
+	 *            the index of the data source
+	 * @return a {@link PooledConnection} from the data source
+	 */
+	private PooledConnection getConnection(final int index) {
+		final PooledConnection conn = this.dataSources[index].getConnection();
+
+		this.routedCounts[index].increment();
+
+		return conn;
+	}
+
+	/**
+	 * Returns a connection from the primary for read-only work. Outside of a {@link Transaction}, which sets the read-only mode itself, the
+	 * connection is set to read-only until it is returned to the pool.
+	 *
+	 * @param txnScope
+	 *            the {@link TransactionLocalScope} of the current thread, or <code>null</code>
+	 * @return a read-only {@link PooledConnection} from the primary
+	 */
+	private PooledConnection getReadOnlyPrimary(final TransactionLocalScope txnScope) {
+		final PooledConnection conn = this.getConnection(0);
+
+		if (txnScope == null) {
+			try {
+				conn.initReadOnly();
+			} catch (final SQLException e) {
+				conn.close();
+				throw new DatabaseException("Cannot set the primary connection to read-only", e);
+			}
+		}
+
+		return conn;
+	}
+
+	/**
+	 * Returns the index into the data sources of the replica at the index.
+	 *
+	 * @param index
+	 *            the index of the replica, starting at zero
+	 * @return the index of the replica into the data sources
+	 */
+	private int getReplicaIndex(final int index) {
+		if (index < 0 || index >= this.getReplicaCount()) {
+			throw new InvalidParameterException(this.getClass().getName(), int.class, "index", "Invalid replica index: {P}", FastInteger.valueOf(index));
+		}
+
+		return index + 1;
+	}
+
+	/**
+	 * Picks the data source for the request and returns one of its connections.
+	 *
+	 * @param readOnly
+	 *            {@code true} if the request only reads
+	 * @return a {@link PooledConnection} from the picked data source
+	 */
+	private PooledConnection route(boolean readOnly) {
+		final TransactionLocalScope txnScope = Transaction.getLocalScope();
+
+		if (txnScope != null) {
+			// 1. A transaction that holds a connection keeps using the data source of that connection
+			if (!txnScope.isBeginning()) {
+				for (int i = 0; i < this.dataSources.length; i++) {
+					if (txnScope.manages(this.dataSources[i])) {
+						return this.getConnection(i);
+					}
+				}
+
+				return this.getConnection(0);
+			}
+
+			// 2. A new transaction goes to a replica only if it was begun as read-only
+			readOnly = txnScope.readOnly;
+		}
+
+		if (!readOnly) {
+			return this.getConnection(0);
+		}
+
+		if (this.dataSources.length == 1) {
+			return this.getReadOnlyPrimary(txnScope);
+		}
+
+		// 3. Fall back to the primary when the picked replica cannot hand out a connection
+		final int index = this.selectReplica();
+
+		try {
+			return this.getConnection(index);
+		} catch (final DatabaseException e) {
+			log.warn("Routing read-only work to the primary since replica {P} is unavailable", FastInteger.valueOf(index - 1));
+			return this.getReadOnlyPrimary(txnScope);
+		}
+	}
+
+	/**
+	 * Picks a replica with the {@link RoutingStrategy}. The least active replica is picked from the estimate each pool keeps without its lock, so
+	 * routing never contends with the threads acquiring and returning connections.
+	 *
+	 * @return the index of the picked replica into the data sources
+	 */
+	private int selectReplica() {
+		final int numReplicas = this.dataSources.length - 1;
+		final int start = (this.nextReplica.getAndIncrement() & Integer.MAX_VALUE) % numReplicas;
+
+		if (this.strategy == RoutingStrategy.ROUND_ROBIN) {
+			return start + 1;
+		}
+
+		// Start looking at the next replica in turn so that idle replicas share the load instead of the first one taking it all
+		int best = start;
+		int bestActive = Integer.MAX_VALUE;
+
+		for (int i = 0; i < numReplicas; i++) {
+			final int replica = (start + i) % numReplicas;
+			final int active = this.dataSources[replica + 1].pool.getActiveEstimate();
+
+			if (active < bestActive) {
+				best = replica;
+				bestActive = active;
+			}
+		}
+
+		return best + 1;
+	}
+
+} // End RoutingDataSource
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.jdbc;
+
+import root.lang.Extractable;
+import root.lang.StringExtractor;
+
+/**
+ * The strategies a {@link RoutingDataSource} can use to pick the replica for read-only work.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public enum RoutingStrategy implements Extractable {
+
+	// <><><><><><><><><><><><><><>< Enum Values ><><><><><><><><><><><><><><>
+
+	/** Takes the replicas in turn */
+	ROUND_ROBIN,
+
+	/** Takes the replica with the fewest connections in use, breaking ties in turn */
+	LEAST_ACTIVE;
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	@Override
+	public final void extract(final StringExtractor extractor) {
+		extractor.append(this.name());
+	}
+
+} // End RoutingStrategy
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * The current row of a query streamed to a {@link RowHandler}. A single {@code Row} is reused for every row of the query, so streaming a query
+ * allocates nothing per row beyond the values the driver returns.
+ * <p>
+ * The getters that take a column label resolve it through the {@link ColumnIndex} cached on the {@link CachedSQLStatement} instead of asking the
+ * driver to find the column. The getters that take a column index skip the lookup altogether, with {@link #indexOf(String)} resolving a label
+ * once ahead of a tight loop.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class Row {
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final ResultSet resultSet;
+	private final ColumnIndex columnIndex;
+
+	/** The number of the current row, starting at one */
+	long rowNumber;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	Row(final ResultSet resultSet, final ColumnIndex columnIndex) {
+		this.resultSet = resultSet;
+		this.columnIndex = columnIndex;
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	public final BigDecimal getBigDecimal(final int column) throws SQLException {
+		return this.resultSet.getBigDecimal(column);
+	}
+
+	public final BigDecimal getBigDecimal(final String label) throws SQLException {
+		return this.resultSet.getBigDecimal(this.indexOf(label));
+	}
+
+	public final boolean getBoolean(final int column) throws SQLException {
+		return this.resultSet.getBoolean(column);
+	}
+
+	public final boolean getBoolean(final String label) throws SQLException {
+		return this.resultSet.getBoolean(this.indexOf(label));
+	}
+
+	public final byte[] getBytes(final int column) throws SQLException {
+		return this.resultSet.getBytes(column);
+	}
+
+	public final byte[] getBytes(final String label) throws SQLException {
+		return this.resultSet.getBytes(this.indexOf(label));
+	}
+
+	/**
+	 * Returns the number of columns of the query.
+	 *
+	 * @return the number of columns of the query
+	 */
+	public final int getColumnCount() {
+		return this.columnIndex.getColumnCount();
+	}
+
+	public final Date getDate(final int column) throws SQLException {
+		return this.resultSet.getDate(column);
+	}
+
+	public final Date getDate(final String label) throws SQLException {
+		return this.resultSet.getDate(this.indexOf(label));
+	}
+
+	public final double getDouble(final int column) throws SQLException {
+		return this.resultSet.getDouble(column);
+	}
+
+	public final double getDouble(final String label) throws SQLException {
+		return this.resultSet.getDouble(this.indexOf(label));
+	}
+
+	public final int getInt(final int column) throws SQLException {
+		return this.resultSet.getInt(column);
+	}
+
+	public final int getInt(final String label) throws SQLException {
+		return this.resultSet.getInt(this.indexOf(label));
+	}
+
+	public final long getLong(final int column) throws SQLException {
+		return this.resultSet.getLong(column);
+	}
+
+	public final long getLong(final String label) throws SQLException {
+		return this.resultSet.getLong(this.indexOf(label));
+	}
+
+	public final Object getObject(final int column) throws SQLException {
+		return this.resultSet.getObject(column);
+	}
+
+	public final Object getObject(final String label) throws SQLException {
+		return this.resultSet.getObject(this.indexOf(label));
+	}
+
+	/**
+	 * Returns the {@link ResultSet} positioned on the current row, to read values by column index. The {@link ResultSet} must not be moved or closed.
+	 *
+	 * @return the {@link ResultSet} positioned on the current row
+	 */
+	public final ResultSet getResultSet() {
+		return this.resultSet;
+	}
+
+	/**
+	 * Returns the number of the current row, starting at one.
+	 *
+	 * @return the number of the current row
+	 */
+	public final long getRowNumber() {
+		return this.rowNumber;
+	}
+
+	public final String getString(final int column) throws SQLException {
+		return this.resultSet.getString(column);
+	}
+
+	public final String getString(final String label) throws SQLException {
+		return this.resultSet.getString(this.indexOf(label));
+	}
+
+	public final Timestamp getTimestamp(final int column) throws SQLException {
+		return this.resultSet.getTimestamp(column);
+	}
+
+	public final Timestamp getTimestamp(final String label) throws SQLException {
+		return this.resultSet.getTimestamp(this.indexOf(label));
+	}
+
+	/**
+	 * Returns the index of the column with the label.
+	 *
+	 * @param label
+	 *            the column label to look up
+	 * @return the index of the column starting at one
+	 * @throws SQLException
+	 *             if no column of the query has the label
+	 */
+	public final int indexOf(final String label) throws SQLException {
+		final int index = this.columnIndex.indexOf(label);
+
+		if (index == 0) {
+			throw new SQLException("Unknown column label: " + label);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Returns {@code true} if the last value read was SQL <code>NULL</code>.
+	 *
+	 * @return {@code true} if the last value read was SQL <code>NULL</code>
+	 * @throws SQLException
+	 *             if the driver cannot tell
+	 */
+	public final boolean wasNull() throws SQLException {
+		return this.resultSet.wasNull();
+	}
+
+} // End Row
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * Receives each row of a query streamed by {@link PooledConnection#query(CachedSQLStatement, int, RowHandler, Object...)}. The same {@link Row}
+ * is passed for every row of the query and is only valid until the handler returns.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public interface RowHandler {
+
+	/**
+	 * Called once for each row of the query.
+	 *
+	 * @param row
+	 *            the current {@link Row} of the query
+	 * @return {@code true} to continue with the next row, or {@code false} to stop reading the query
+	 * @throws SQLException
+	 *             if a value of the row cannot be read
+	 */
+	boolean handle(Row row) throws SQLException;
+
+} // End RowHandler
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.jdbc;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import root.adt.ListArray;
+import root.lang.FastInteger;
+import root.metrics.Counter;
+import root.validation.InvalidParameterException;
+
+/**
+ * Counts how often each {@link CachedSQLStatement} is prepared across every {@link PooledConnection} of a {@link RootDataSource}.
+ * <p>
+ * A new {@link PooledConnection} asks the registry for the hottest statements and prepares them before it is handed out, and sizes its
+ * {@link java.sql.PreparedStatement} cache after the number of distinct statements the registry has seen. A {@link CachedSQLStatement} is compared by
+ * identity, so it is meant to be created once and shared. The registry stops tracking new statements once it holds <code>capacity</code> of them.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class StatementRegistry {
+
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 * The number of uses of a {@link CachedSQLStatement} at the time the hottest statements were requested.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private static final class Usage implements Comparable<Usage> {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private final CachedSQLStatement stmt;
+		private final long count;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Usage(final CachedSQLStatement stmt, final long count) {
+			this.stmt = stmt;
+			this.count = count;
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final int compareTo(final Usage usage) {
+			return this.count > usage.count ? -1 : this.count < usage.count ? 1 : 0;
+		}
+
+	} // End Usage
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final int capacity;
+	private final ConcurrentHashMap<CachedSQLStatement, Counter> usageMap;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	/**
+	 * Creates a registry that tracks up to <code>capacity</code> distinct statements.
+	 *
+	 * @param capacity
+	 *            the maximum number of distinct statements to track
+	 */
+	public StatementRegistry(final int capacity) {
+		if (capacity <= 0) {
+			throw new InvalidParameterException(this.getClass().getName(), int.class, "capacity", "Invalid capacity: {P}",
+					FastInteger.valueOf(capacity));
+		}
+
+		this.capacity = capacity;
+		this.usageMap = new ConcurrentHashMap<>();
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * Forgets every statement and its usage count.
+	 */
+	public final void clear() {
+		this.usageMap.clear();
+	}
+
+	/**
+	 * Returns the maximum number of distinct statements the registry tracks.
+	 *
+	 * @return the maximum number of distinct statements the registry tracks
+	 */
+	public final int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Returns the number of times the statement has been prepared, or zero if the statement is not tracked.
+	 *
+	 * @param stmt
+	 *            the {@link CachedSQLStatement} to look up
+	 * @return the number of times the statement has been prepared
+	 */
+	public final long getCount(final CachedSQLStatement stmt) {
+		final Counter counter = this.usageMap.get(stmt);
+
+		return counter == null ? 0 : counter.sum();
+	}
+
+	/**
+	 * Returns up to <code>max</code> statements ordered from the most to the least used.
+	 *
+	 * @param max
+	 *            the maximum number of statements to return
+	 * @return the hottest statements, most used first
+	 */
+	public final ListArray<CachedSQLStatement> getHottest(final int max) {
+		// 1. Take a snapshot of every usage count so the sort sees stable values
+		Usage[] usages = new Usage[this.usageMap.size()];
+		int size = 0;
+
+		for (final Map.Entry<CachedSQLStatement, Counter> e : this.usageMap.entrySet()) {
+			if (size == usages.length) {
+				usages = Arrays.copyOf(usages, size + 8);
+			}
+
+			usages[size++] = new Usage(e.getKey(), e.getValue().sum());
+		}
+
+		// 2. Sort from the most to the least used and keep the first max statements
+		Arrays.sort(usages, 0, size);
+
+		final int n = Math.min(Math.max(max, 0), size);
+		final ListArray<CachedSQLStatement> hottest = new ListArray<>(n);
+
+		for (int i = 0; i < n; i++) {
+			hottest.add(usages[i].stmt);
+		}
+
+		return hottest;
+	}
+
+	/**
+	 * Returns the number of distinct statements the registry has seen.
+	 *
+	 * @return the number of distinct statements the registry has seen
+	 */
+	public final int getSize() {
+		return this.usageMap.size();
+	}
+
+	/**
+	 * Records one use of the statement. A statement that is not yet tracked is ignored once the registry is full.
+	 *
+	 * @param stmt
+	 *            the {@link CachedSQLStatement} that was prepared
+	 */
+	public final void record(final CachedSQLStatement stmt) {
+		Counter counter = this.usageMap.get(stmt);
+
+		if (counter == null) {
+			if (this.usageMap.size() >= this.capacity) {
+				return;
+			}
+
+			final Counter newCounter = new Counter();
+			counter = this.usageMap.putIfAbsent(stmt, newCounter);
+
+			if (counter == null) {
+				counter = newCounter;
+			}
+		}
+
+		counter.increment();
+	}
+
+} // End StatementRegistry
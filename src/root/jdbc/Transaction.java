@@ -20,11 +20,15 @@ import java.sql.SQLException;
 
 import javax.sql.DataSource;
 
-import root.adt.MapHashed;
 import root.annotation.Todo;
 import root.log.Log;
 
 /**
+ * Demarcates a transaction that spans every {@link RootDataSource#getConnection()} call made by the current thread between {@link #begin()} and
+ * {@link #commit()} or {@link #rollback()}.
+ * <p>
+ * The {@link TransactionLocalScope} of each thread is held in a {@link ThreadLocal}, so looking it up on every connection request touches nothing
+ * but the current thread and needs no locking. The scope is cleared when the transaction ends, and it can never outlive its thread.
  *
  * @author Edward Smith
  * @version 0.5
@@ -38,7 +42,8 @@ public final class Transaction {
 
 	private static final Log log = new Log(Transaction.class);
 
-	private static final MapHashed<Thread, TransactionLocalScope> txnMap = new MapHashed<>();
+	/** The transaction scope of the current thread, or <code>null</code> if a transaction is not in progress */
+	private static final ThreadLocal<TransactionLocalScope> localScope = new ThreadLocal<>();
 
 	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
 
@@ -57,11 +62,31 @@ public final class Transaction {
 	 *            The isolation level to use for the transaction
 	 */
 	public static final void begin(final TransactionIsolationLevel isoLevel) {
-		if (txnMap.get(Thread.currentThread()) == null) {
-			txnMap.put(Thread.currentThread(), new TransactionLocalScope(isoLevel));
+		Transaction.begin(isoLevel, false);
+	}
+
+	/**
+	 * Begins a transaction on the current thread if one is not already in progress. The new transaction is created with the specified isolation
+	 * level, and a read-only transaction may be routed to a replica by a {@link RoutingDataSource}.
+	 *
+	 * @param isoLevel
+	 *            The isolation level to use for the transaction
+	 * @param readOnly
+	 *            {@code true} if the transaction only reads
+	 */
+	public static final void begin(final TransactionIsolationLevel isoLevel, final boolean readOnly) {
+		if (localScope.get() == null) {
+			localScope.set(new TransactionLocalScope(isoLevel, readOnly));
 		}
 	}
 
+	/**
+	 * Begins a read-only transaction on the current thread if one is not already in progress with the default transaction isolation level.
+	 */
+	public static final void beginReadOnly() {
+		Transaction.begin(TransactionIsolationLevel.DEFAULT, true);
+	}
+
 	/**
 	 * Commits the {@link Connection} obtained from the {@link DataSource} used during the transaction. If the {@link Connection} throws an
 	 * {@link SQLException} while attempting to commit, it is repackaged into a {@link DatabaseException} and immediately rethrown.
@@ -69,7 +94,7 @@ public final class Transaction {
 	 * A {@link DatabaseException} is thrown if <code>Transaction.begin()</code> has not been called before this method.
 	 */
 	public static final void commit() {
-		final TransactionLocalScope txnScope = txnMap.get(Thread.currentThread());
+		final TransactionLocalScope txnScope = localScope.get();
 
 		if (txnScope == null) {
 			log.error("Attempting to commit a transaction that is inactive");
@@ -83,7 +108,7 @@ public final class Transaction {
 			log.error("Exception occurred while committing transaction", e);
 			throw new DatabaseException("Exception occurred while committing transaction", e);
 		} finally {
-			txnMap.remove(Thread.currentThread());
+			localScope.remove();
 		}
 	}
 
@@ -93,7 +118,18 @@ public final class Transaction {
 	 * @return {@code true} if the current {@link Thread} has an active transaction
 	 */
 	public static final boolean isActive() {
-		return txnMap.containsKey(Thread.currentThread());
+		return localScope.get() != null;
+	}
+
+	/**
+	 * Returns {@code true} if the current {@link Thread} has an active transaction that was begun as read-only, {@code false} otherwise.
+	 *
+	 * @return {@code true} if the current {@link Thread} has an active read-only transaction
+	 */
+	public static final boolean isReadOnly() {
+		final TransactionLocalScope txnScope = localScope.get();
+
+		return txnScope != null && txnScope.readOnly;
 	}
 
 	/**
@@ -103,7 +139,7 @@ public final class Transaction {
 	 *             if there is no active transaction
 	 */
 	public static final void rollback() {
-		final TransactionLocalScope txnScope = txnMap.get(Thread.currentThread());
+		final TransactionLocalScope txnScope = localScope.get();
 
 		if (txnScope == null) {
 			log.error("Attempting to rollback a transaction that is inactive");
@@ -116,7 +152,7 @@ public final class Transaction {
 		} catch (final SQLException e) {
 			// No-op...the connection is hosed
 		} finally {
-			txnMap.remove(Thread.currentThread());
+			localScope.remove();
 		}
 	}
 
@@ -126,7 +162,7 @@ public final class Transaction {
 	 * Returns the {@link TransactionLocalScope} associated with the current thread, or {@code null} if a transaction is not in progress.
 	 */
 	static final TransactionLocalScope getLocalScope() {
-		return txnMap.get(Thread.currentThread());
+		return localScope.get();
 	}
 
 } // End Transaction
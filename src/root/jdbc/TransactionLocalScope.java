@@ -32,10 +32,14 @@ final class TransactionLocalScope {
 
 	final TransactionIsolationLevel isoLevel;
 
+	/** Set to {@code true} when the transaction only reads */
+	final boolean readOnly;
+
 	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
 
-	TransactionLocalScope(final TransactionIsolationLevel isoLevel) {
+	TransactionLocalScope(final TransactionIsolationLevel isoLevel, final boolean readOnly) {
 		this.isoLevel = isoLevel;
+		this.readOnly = readOnly;
 	}
 
 	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
@@ -53,7 +57,7 @@ final class TransactionLocalScope {
 	final PooledConnection initialize(final RootDataSource dataSource, final PooledConnection conn) throws SQLException {
 		this.dataSource = dataSource;
 		this.connection = conn;
-		conn.initTransaction(this.isoLevel);
+		conn.initTransaction(this.isoLevel, this.readOnly);
 
 		return conn;
 	}
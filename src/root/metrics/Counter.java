@@ -0,0 +1,127 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import root.lang.Extractable;
+import root.lang.StringExtractor;
+
+/**
+ * A thread-safe counter striped across several cells so that threads incrementing it concurrently rarely update the same memory location. Each cell
+ * is padded out to its own cache line, with a leading cache line that keeps the first cell away from whatever precedes the array, to avoid false
+ * sharing. Reading the counter sums every cell, which makes {@link #sum()} more expensive than {@link #increment()} and only a snapshot while other
+ * threads are still counting.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class Counter implements Extractable {
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	/** The number of <code>long</code> values that fill a 64 byte cache line */
+	private static final int padding = 8;
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final int stripeMask;
+	private final AtomicLongArray cells;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	/**
+	 * Creates a counter with one stripe for every available processor, rounded up to the next power of two.
+	 */
+	public Counter() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a counter with the requested number of stripes, rounded up to the next power of two.
+	 *
+	 * @param numStripes
+	 *            the number of stripes
+	 */
+	public Counter(final int numStripes) {
+		final int n = numStripes <= 1 ? 1 : Integer.highestOneBit(numStripes - 1) << 1;
+
+		this.stripeMask = n - 1;
+		this.cells = new AtomicLongArray((n + 1) * padding);
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * Adds the value to the counter.
+	 *
+	 * @param x
+	 *            the value to add
+	 */
+	public final void add(final long x) {
+		this.cells.getAndAdd((((int) Thread.currentThread().getId() & this.stripeMask) + 1) * padding, x);
+	}
+
+	/**
+	 * Subtracts one from the counter.
+	 */
+	public final void decrement() {
+		this.add(-1);
+	}
+
+	@Override
+	public final void extract(final StringExtractor extractor) {
+		extractor.append(this.sum());
+	}
+
+	/**
+	 * Adds one to the counter.
+	 */
+	public final void increment() {
+		this.add(1);
+	}
+
+	/**
+	 * Resets every stripe of the counter to zero. Increments made concurrently with the reset may or may not be lost.
+	 */
+	public final void reset() {
+		for (int i = padding; i < this.cells.length(); i += padding) {
+			this.cells.set(i, 0);
+		}
+	}
+
+	/**
+	 * Returns the sum of every stripe of the counter.
+	 *
+	 * @return the current value of the counter
+	 */
+	public final long sum() {
+		long sum = 0;
+
+		for (int i = padding; i < this.cells.length(); i += padding) {
+			sum += this.cells.get(i);
+		}
+
+		return sum;
+	}
+
+	@Override
+	public final String toString() {
+		return Long.toString(this.sum());
+	}
+
+} // End Counter
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import root.lang.Extractable;
+import root.lang.StringExtractor;
+
+/**
+ * A thread-safe histogram of durations in nanoseconds. Each duration is counted in a power of two bucket, so recording is a constant time operation
+ * that never allocates and the histogram always occupies the same small amount of memory no matter how many durations it records. The trade-off is
+ * that percentiles are only accurate to within a factor of two.
+ * <p>
+ * Like {@link Counter}, the buckets are striped by thread so that threads recording concurrently rarely update the same cache line. Reading the
+ * histogram sums every stripe.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class Histogram implements Extractable {
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	/** The number of <code>long</code> values that fill a 64 byte cache line */
+	private static final int padding = 8;
+
+	/** The number of buckets, one for zero and one for each bit of a positive <code>long</code> */
+	private static final int numBuckets = Long.SIZE + 1;
+
+	/** The distance between two stripes, rounded up to a whole number of cache lines */
+	private static final int stripeSize = (numBuckets + padding - 1) & -padding;
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final Counter sum;
+	private final AtomicLong max;
+	private final int stripeMask;
+
+	/**
+	 * Bucket <code>b</code> of each stripe counts the durations from <code>2^(b-1)</code> up to <code>2^b - 1</code> nanoseconds, where the stripes
+	 * start after a leading cache line of padding
+	 */
+	private final AtomicLongArray buckets;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	/**
+	 * Creates a histogram with one stripe for every available processor, rounded up to the next power of two.
+	 */
+	public Histogram() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a histogram with the requested number of stripes, rounded up to the next power of two.
+	 *
+	 * @param numStripes
+	 *            the number of stripes
+	 */
+	public Histogram(final int numStripes) {
+		final int n = numStripes <= 1 ? 1 : Integer.highestOneBit(numStripes - 1) << 1;
+
+		this.sum = new Counter(n);
+		this.max = new AtomicLong();
+		this.stripeMask = n - 1;
+		this.buckets = new AtomicLongArray(padding + n * stripeSize);
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	@Override
+	public final void extract(final StringExtractor extractor) {
+		this.snapshot().extract(extractor);
+	}
+
+	/**
+	 * Returns the number of durations recorded.
+	 *
+	 * @return the number of durations recorded
+	 */
+	public final long getCount() {
+		long count = 0;
+
+		for (int i = padding; i < this.buckets.length(); i++) {
+			count += this.buckets.get(i);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Returns the longest duration recorded.
+	 *
+	 * @return the longest duration recorded in nanoseconds
+	 */
+	public final long getMax() {
+		return this.max.get();
+	}
+
+	/**
+	 * Returns the average duration recorded.
+	 *
+	 * @return the average duration recorded in nanoseconds, or zero if none have been recorded
+	 */
+	public final long getMean() {
+		final long count = this.getCount();
+
+		return count == 0 ? 0 : this.sum.sum() / count;
+	}
+
+	/**
+	 * Returns an upper bound on the duration below which the requested fraction of the recorded durations fall.
+	 *
+	 * @param fraction
+	 *            the percentile as a fraction between zero and one
+	 * @return the upper bound of the bucket holding the percentile in nanoseconds, capped at the longest duration recorded
+	 */
+	public final long getPercentile(final double fraction) {
+		final long count = this.getCount();
+
+		if (count == 0) {
+			return 0;
+		}
+
+		final long rank = Math.max(1, (long) Math.ceil(count * fraction));
+		long seen = 0;
+
+		for (int b = 0; b < numBuckets; b++) {
+			seen += this.getBucket(b);
+
+			if (seen >= rank) {
+				return b == Long.SIZE ? this.getMax() : Math.min((1L << b) - 1, this.getMax());
+			}
+		}
+
+		return this.getMax();
+	}
+
+	/**
+	 * Returns the sum of every duration recorded.
+	 *
+	 * @return the sum of every duration recorded in nanoseconds
+	 */
+	public final long getSum() {
+		return this.sum.sum();
+	}
+
+	/**
+	 * Records a duration.
+	 *
+	 * @param nanos
+	 *            the duration in nanoseconds, where a negative duration is recorded as zero
+	 */
+	public final void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+
+		final int stripe = (int) Thread.currentThread().getId() & this.stripeMask;
+		this.buckets.incrementAndGet(padding + stripe * stripeSize + Long.SIZE - Long.numberOfLeadingZeros(nanos));
+		this.sum.add(nanos);
+
+		for (long m = this.max.get(); nanos > m && !this.max.compareAndSet(m, nanos); m = this.max.get()) {
+			;
+		}
+	}
+
+	/**
+	 * Resets the histogram so that it no longer holds any durations.
+	 */
+	public final void reset() {
+		for (int i = padding; i < this.buckets.length(); i++) {
+			this.buckets.set(i, 0);
+		}
+
+		this.sum.reset();
+		this.max.set(0);
+	}
+
+	/**
+	 * Returns a read-only copy of this histogram that is unaffected by durations recorded afterwards.
+	 *
+	 * @return a {@link HistogramSnapshot} of this histogram
+	 */
+	public final HistogramSnapshot snapshot() {
+		final long[] copy = new long[numBuckets];
+
+		for (int b = 0; b < numBuckets; b++) {
+			copy[b] = this.getBucket(b);
+		}
+
+		return new HistogramSnapshot(copy, this.sum.sum(), this.max.get());
+	}
+
+	@Override
+	public final String toString() {
+		final StringExtractor extractor = new StringExtractor();
+		this.extract(extractor);
+		return extractor.toString();
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Returns the count of the bucket summed across every stripe.
+	 */
+	private long getBucket(final int b) {
+		long count = 0;
+
+		for (int i = padding + b; i < this.buckets.length(); i += stripeSize) {
+			count += this.buckets.get(i);
+		}
+
+		return count;
+	}
+
+} // End Histogram
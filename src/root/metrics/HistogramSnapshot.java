@@ -0,0 +1,151 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.metrics;
+
+import root.lang.Extractable;
+import root.lang.StringExtractor;
+import root.math.Statistics;
+import root.time.Duration;
+
+/**
+ * An immutable, point in time copy of a {@link Histogram}. Unlike the histogram itself, a snapshot cannot record further durations, so it is safe to
+ * hand out from the statistics snapshots of the cache and pool packages.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class HistogramSnapshot implements Extractable {
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final char[] labelP50 = { ' ', 'p', '5', '0', ',', ' ' };
+	private static final char[] labelP99 = { ' ', 'p', '9', '9', ',', ' ' };
+	private static final char[] labelMax = { ' ', 'm', 'a', 'x', ')' };
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final long count;
+	private final long sum;
+	private final long max;
+
+	/** Bucket <code>b</code> counts the durations from <code>2^(b-1)</code> up to <code>2^b - 1</code> nanoseconds */
+	private final long[] buckets;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	HistogramSnapshot(final long[] buckets, final long sum, final long max) {
+		long count = 0;
+
+		for (final long b : buckets) {
+			count += b;
+		}
+
+		this.count = count;
+		this.sum = sum;
+		this.max = max;
+		this.buckets = buckets;
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	@Override
+	public final void extract(final StringExtractor extractor) {
+		extractor.append('(').append(this.count).appendArray(Statistics.labelCount);
+
+		Duration.formatNanos(this.getMean(), extractor);
+		extractor.appendArray(Statistics.labelAverage);
+
+		Duration.formatNanos(this.getPercentile(0.5), extractor);
+		extractor.appendArray(labelP50);
+
+		Duration.formatNanos(this.getPercentile(0.99), extractor);
+		extractor.appendArray(labelP99);
+
+		Duration.formatNanos(this.max, extractor);
+		extractor.appendArray(labelMax);
+	}
+
+	/**
+	 * Returns the number of durations recorded.
+	 *
+	 * @return the number of durations recorded
+	 */
+	public final long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the longest duration recorded.
+	 *
+	 * @return the longest duration recorded in nanoseconds
+	 */
+	public final long getMax() {
+		return this.max;
+	}
+
+	/**
+	 * Returns the average duration recorded.
+	 *
+	 * @return the average duration recorded in nanoseconds, or zero if none have been recorded
+	 */
+	public final long getMean() {
+		return this.count == 0 ? 0 : this.sum / this.count;
+	}
+
+	/**
+	 * Returns an upper bound on the duration below which the requested fraction of the recorded durations fall.
+	 *
+	 * @param fraction
+	 *            the percentile as a fraction between zero and one
+	 * @return the upper bound of the bucket holding the percentile in nanoseconds, capped at the longest duration recorded
+	 */
+	public final long getPercentile(final double fraction) {
+		if (this.count == 0) {
+			return 0;
+		}
+
+		final long rank = Math.max(1, (long) Math.ceil(this.count * fraction));
+		long seen = 0;
+
+		for (int b = 0; b < this.buckets.length; b++) {
+			seen += this.buckets[b];
+
+			if (seen >= rank) {
+				return b == Long.SIZE ? this.max : Math.min((1L << b) - 1, this.max);
+			}
+		}
+
+		return this.max;
+	}
+
+	/**
+	 * Returns the sum of every duration recorded.
+	 *
+	 * @return the sum of every duration recorded in nanoseconds
+	 */
+	public final long getSum() {
+		return this.sum;
+	}
+
+	@Override
+	public final String toString() {
+		final StringExtractor extractor = new StringExtractor();
+		this.extract(extractor);
+		return extractor.toString();
+	}
+
+} // End HistogramSnapshot
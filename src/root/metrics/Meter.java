@@ -0,0 +1,108 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.metrics;
+
+import root.lang.Extractable;
+import root.lang.StringExtractor;
+import root.math.Statistics;
+
+/**
+ * A thread-safe meter that counts events and reports their mean rate per second since the meter was created or last reset. The events are counted
+ * in a striped {@link Counter}, so marking the meter from several threads at once stays cheap.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class Meter implements Extractable {
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final char[] labelRate = { '/', 's', ')' };
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final Counter count;
+	private volatile long startTime;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	public Meter() {
+		this.count = new Counter();
+		this.startTime = System.nanoTime();
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	@Override
+	public final void extract(final StringExtractor extractor) {
+		extractor.append('(').append(this.getCount()).appendArray(Statistics.labelCount);
+		extractor.append(this.getRate()).appendArray(labelRate);
+	}
+
+	/**
+	 * Returns the number of events marked.
+	 *
+	 * @return the number of events marked
+	 */
+	public final long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * Returns the mean number of events per second since the meter was created or last reset.
+	 *
+	 * @return the mean number of events per second
+	 */
+	public final double getRate() {
+		final long elapsed = System.nanoTime() - this.startTime;
+
+		return elapsed <= 0 ? 0 : this.count.sum() * 1e9 / elapsed;
+	}
+
+	/**
+	 * Marks one event.
+	 */
+	public final void mark() {
+		this.count.increment();
+	}
+
+	/**
+	 * Marks the number of events.
+	 *
+	 * @param n
+	 *            the number of events to mark
+	 */
+	public final void mark(final long n) {
+		this.count.add(n);
+	}
+
+	/**
+	 * Resets the count to zero and restarts the rate measurement from now.
+	 */
+	public final void reset() {
+		this.count.reset();
+		this.startTime = System.nanoTime();
+	}
+
+	@Override
+	public final String toString() {
+		final StringExtractor extractor = new StringExtractor();
+		this.extract(extractor);
+		return extractor.toString();
+	}
+
+} // End Meter
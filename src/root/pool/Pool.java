@@ -42,11 +42,14 @@ public abstract class Pool<T> {
 
 	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
 
-	/** The size of the pool */
-	protected int size;
+	/** The size of the pool, only changed while holding the pool lock but readable without it */
+	protected volatile int size;
+
+	/** The maximum number of objects the pool may create */
+	protected final int capacity;
 
 	/** <code>true</code> if the {@link #close()} method has been called */
-	protected boolean closed;
+	protected volatile boolean closed;
 
 	/** Caches the parameters used for {@link Log#debug(String, Extractable...)} */
 	protected final Extractable[] debugParams;
@@ -57,6 +60,9 @@ public abstract class Pool<T> {
 	/** The bounded queue that stores idle objects in the pool */
 	protected final QueueBounded<T> queue;
 
+	/** The statistics recorded by the pool, or <code>null</code> if statistics are disabled */
+	protected volatile PoolStatistics statistics;
+
 	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
 
 	/**
@@ -68,11 +74,27 @@ public abstract class Pool<T> {
 	 *            the {@link PoolObjectFactory} implementation to use
 	 */
 	protected Pool(final int capacity, final PoolObjectFactory<T> factory) {
+		this(capacity, factory, new QueueBounded<T>(capacity));
+	}
+
+	/**
+	 * Creates an empty pool with a fixed capacity that stores its idle objects in the specified {@link QueueBounded}, which is <code>null</code> for a
+	 * pool that keeps track of its idle objects on its own.
+	 *
+	 * @param capacity
+	 *            the capacity of the pool
+	 * @param factory
+	 *            the {@link PoolObjectFactory} implementation to use
+	 * @param queue
+	 *            the bounded queue that stores idle objects in the pool, or <code>null</code>
+	 */
+	protected Pool(final int capacity, final PoolObjectFactory<T> factory, final QueueBounded<T> queue) {
 		this.closed = false;
 
+		this.capacity = capacity;
 		this.factory = factory;
 		this.debugParams = Parameters.toArray(new FastString(factory.getObjectClassName()));
-		this.queue = new QueueBounded<>(capacity);
+		this.queue = queue;
 	}
 
 	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
@@ -106,7 +128,46 @@ public abstract class Pool<T> {
 	 * @return the capacity of this pool
 	 */
 	public final int getCapacity() {
-		return this.queue.getCapacity();
+		return this.capacity;
+	}
+
+	/**
+	 * Returns the number of objects that were acquired from the pool and not yet returned. The default counts every object of the pool that is not
+	 * idle, and is not synchronized with the pool.
+	 *
+	 * @return the number of active objects
+	 */
+	public int getActiveCount() {
+		return this.size - this.getIdleCount();
+	}
+
+	/**
+	 * Returns the number of idle objects in the pool. The default counts the objects in the queue, or returns zero for a pool without one, and is
+	 * not synchronized with the pool.
+	 *
+	 * @return the number of idle objects
+	 */
+	public int getIdleCount() {
+		return this.queue == null ? 0 : this.queue.getSize();
+	}
+
+	/**
+	 * Returns the {@link PoolStatistics} recorded by this pool.
+	 *
+	 * @return the {@link PoolStatistics} of this pool, or <code>null</code> if statistics are disabled
+	 */
+	public final PoolStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	/**
+	 * Returns the number of threads waiting for an object to return to the pool. The default returns zero for a pool that does not keep track of
+	 * its waiting threads.
+	 *
+	 * @return the number of waiting threads
+	 */
+	public int getWaitingCount() {
+		return 0;
 	}
 
 	/**
@@ -115,9 +176,31 @@ public abstract class Pool<T> {
 	 * @param t
 	 *            the object to remove from the pool
 	 */
-	public final void remove(final T t) {
+	public void remove(final T t) {
 		this.factory.destroy(t);
 		this.size--;
 	}
 
+	/**
+	 * Enables statistics on this pool by recording them into the {@link PoolStatistics}, or disables them when <code>null</code>.
+	 *
+	 * @param statistics
+	 *            the {@link PoolStatistics} to record into, or <code>null</code> to disable statistics
+	 */
+	public final void setStatistics(final PoolStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Returns a point in time copy of the statistics of this pool along with its current number of active, idle and waiting objects and threads.
+	 * Every recorded statistic is zero if statistics are disabled.
+	 *
+	 * @return a {@link PoolStatisticsSnapshot} of this pool
+	 */
+	public final PoolStatisticsSnapshot snapshot() {
+		final PoolStatistics s = this.statistics;
+
+		return (s == null ? new PoolStatistics() : s).snapshot(this.getActiveCount(), this.getIdleCount(), this.getWaitingCount());
+	}
+
 } // End Pool
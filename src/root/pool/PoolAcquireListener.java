@@ -0,0 +1,49 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.pool;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Receives the outcome of an asynchronous acquisition started with {@link PoolConcurrent#acquireAsync(Executor, PoolAcquireListener)}. Exactly one
+ * of the two methods is called, on a thread of the {@link Executor} given to the acquisition, unless the acquisition is cancelled first.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <T>
+ *            The type of elements managed by the pool
+ */
+public interface PoolAcquireListener<T> {
+
+	/**
+	 * Called with the object handed to the acquisition, which must be returned to the pool with {@link Pool#abandon(Object)} as usual.
+	 *
+	 * @param t
+	 *            the acquired object
+	 */
+	void onAcquire(T t);
+
+	/**
+	 * Called when the acquisition fails, such as when the pool is closed or the {@link PoolObjectFactory} cannot create a new object.
+	 *
+	 * @param cause
+	 *            the reason the acquisition failed
+	 */
+	void onFailure(Throwable cause);
+
+} // End PoolAcquireListener
@@ -0,0 +1,485 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.pool;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import root.adt.StackArray;
+import root.lang.ParamString;
+import root.log.Log;
+
+/**
+ * A thread-safe version of the generic resource {@link Pool} that never holds a shared lock while acquiring or abandoning an object.
+ * <p>
+ * Every object the pool creates is tracked by an entry whose state moves from idle to in use with a compare-and-set, so exactly one thread can
+ * borrow it at a time. An {@link #acquire()} first tries the objects its thread abandoned most recently, which are usually still idle, then scans
+ * every entry in the pool, then creates a new object if the pool has room, and only then waits for another thread to abandon an object. An
+ * {@link #abandon(Object)} hands the object directly to a waiting thread when there is one, otherwise it simply marks the entry idle again.
+ * <p>
+ * Both {@link PoolObjectFactory#create()} and {@link PoolObjectFactory#validate(Object)} are called on the acquiring thread without any lock held,
+ * so a slow factory only delays the thread that needs the object. The pool tracks its objects by equality, so the pooled objects should not
+ * override {@link Object#equals(Object)}.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ *
+ * @param <T>
+ *            The type of elements managed by the pool
+ */
+public final class PoolBag<T> extends Pool<T> {
+
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 * Tracks the state of a single pooled object.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 * @param <T>
+	 *            The type of the pooled object
+	 */
+	private static final class Entry<T> {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private final T object;
+		private final AtomicInteger state;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Entry(final T object) {
+			this.object = object;
+			this.state = new AtomicInteger(inUse);
+		}
+
+	} // End Entry
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final Log log = new Log(PoolBag.class);
+
+	/** The entry states */
+	private static final int idle = 0;
+	private static final int inUse = 1;
+	private static final int removed = -1;
+
+	/** The maximum number of recently abandoned entries each thread remembers */
+	private static final int maxThreadLocalEntries = 16;
+
+	/** The maximum number of nanoseconds a waiting thread blocks before it scans the pool again */
+	private static final long maxHandoffWait = 10000000L;
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	/** The maximum number of nanoseconds to wait for an object to return to the pool */
+	private long maxWait;
+
+	/** The number of objects the pool has created that have not been destroyed yet */
+	private final AtomicInteger poolSize;
+
+	/** The number of threads waiting for an object to return to the pool */
+	private final AtomicInteger waiters;
+
+	/** Every entry in the pool, scanned by threads that find nothing in their own thread-local entries */
+	private final CopyOnWriteArrayList<Entry<T>> sharedList;
+
+	/** Finds the entry of an object when it is abandoned or removed */
+	private final ConcurrentHashMap<T, Entry<T>> entryMap;
+
+	/** Hands an abandoned entry directly to the thread that has waited the longest */
+	private final SynchronousQueue<Entry<T>> handoffQueue;
+
+	/** The entries each thread abandoned most recently */
+	private final ThreadLocal<StackArray<Entry<T>>> threadLocalEntries;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	/**
+	 * Creates an empty pool with a fixed capacity. Object lifecycles are managed by the provided {@link PoolObjectFactory} implementation.
+	 *
+	 * @param capacity
+	 *            The capacity of the pool
+	 * @param factory
+	 *            The {@link PoolObjectFactory} implementation to use
+	 */
+	public PoolBag(final int capacity, final PoolObjectFactory<T> factory) {
+		super(capacity, factory, null);
+		this.maxWait = Long.MAX_VALUE;
+		this.poolSize = new AtomicInteger();
+		this.waiters = new AtomicInteger();
+		this.sharedList = new CopyOnWriteArrayList<>();
+		this.entryMap = new ConcurrentHashMap<>(capacity);
+		this.handoffQueue = new SynchronousQueue<>(true);
+		this.threadLocalEntries = new ThreadLocal<StackArray<Entry<T>>>() {
+			@Override
+			protected StackArray<Entry<T>> initialValue() {
+				return new StackArray<>(maxThreadLocalEntries);
+			}
+		};
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * Returns the abandoned object to the pool making it immediately available for acquisition.
+	 * <p>
+	 * If any thread is waiting to acquire an object from the pool, the object is handed directly to the thread that has waited the longest.
+	 * Otherwise the object is remembered by the current thread so that its next {@link #acquire()} can find it without scanning the pool.
+	 *
+	 * @param t
+	 *            the object to return to the pool
+	 */
+	@Override
+	public final void abandon(final T t) {
+		log.debug(returningObjectToPool, this.debugParams);
+
+		final Entry<T> entry = this.entryMap.get(t);
+
+		// 1. Destroy an object that does not belong to the pool, or that is returned to a closed pool
+		if (entry == null) {
+			this.factory.destroy(t);
+			return;
+		}
+
+		if (this.closed) {
+			this.destroy(entry);
+			return;
+		}
+
+		entry.state.set(idle);
+
+		if (this.closed && entry.state.compareAndSet(idle, removed)) {
+			this.destroy(entry);
+			return;
+		}
+
+		// 2. Hand the object to a waiting thread, unless another thread borrows it first
+		for (int i = 0; this.waiters.get() > 0; i++) {
+			if (entry.state.get() != idle || this.handoffQueue.offer(entry)) {
+				return;
+			}
+
+			if ((i & 0xff) == 0xff) {
+				LockSupport.parkNanos(10000);
+			} else {
+				Thread.yield();
+			}
+		}
+
+		// 3. Otherwise remember the entry for the next acquire() on this thread
+		final StackArray<Entry<T>> localEntries = this.threadLocalEntries.get();
+
+		if (localEntries.getSize() < maxThreadLocalEntries) {
+			localEntries.push(entry);
+		}
+	}
+
+	/**
+	 * Acquires an object from the pool according to the following algorithm:
+	 * <ul>
+	 * <li>Try to borrow one of the objects the current thread abandoned most recently.
+	 * <li>Otherwise try to borrow any idle object in the pool.
+	 * <li>Otherwise if the size of the pool is below capacity, create a new object from the {@link PoolObjectFactory}, which also increments the
+	 * size of the pool.
+	 * <li>Otherwise wait up to <code>maxWait</code> for another thread to abandon an object.
+	 * </ul>
+	 * Every borrowed object is validated by the {@link PoolObjectFactory}. An invalid object is destroyed and removed from the pool before trying
+	 * again.
+	 *
+	 * @return an instance of the pooled object
+	 * @throws InterruptedException
+	 */
+	@Override
+	public final T acquire() throws InterruptedException {
+		final PoolStatistics statistics = this.statistics;
+
+		if (statistics == null) {
+			return this.acquireObject(null);
+		}
+
+		final long startTime = System.nanoTime();
+		final T t = this.acquireObject(statistics);
+		statistics.recordAcquire(System.nanoTime() - startTime);
+
+		return t;
+	}
+
+	/**
+	 * Closes the pool and destroys every idle object. An object that is in use when the pool closes is destroyed when it is abandoned.
+	 */
+	@Override
+	public final void close() {
+		this.closed = true;
+
+		for (final Entry<T> entry : this.sharedList) {
+			if (entry.state.compareAndSet(idle, removed)) {
+				this.destroy(entry);
+			}
+		}
+	}
+
+	/**
+	 * @see root.pool.Pool#getActiveCount()
+	 */
+	@Override
+	public final int getActiveCount() {
+		return this.poolSize.get() - this.getIdleCount();
+	}
+
+	/**
+	 * @see root.pool.Pool#getIdleCount()
+	 */
+	@Override
+	public final int getIdleCount() {
+		int count = 0;
+
+		for (final Entry<T> entry : this.sharedList) {
+			if (entry.state.get() == idle) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Returns the maximum wait time in milliseconds for an object to become available in the pool before throwing a {@link NoSuchElementException}.
+	 *
+	 * @return the maximum wait time for an object to become available
+	 */
+	public final long getMaxWait() {
+		return this.maxWait / 1000000;
+	}
+
+	/**
+	 * Returns the number of objects the pool has created that have not been destroyed yet.
+	 *
+	 * @return the number of objects in the pool
+	 */
+	public final int getSize() {
+		return this.poolSize.get();
+	}
+
+	/**
+	 * @see root.pool.Pool#getWaitingCount()
+	 */
+	@Override
+	public final int getWaitingCount() {
+		return this.waiters.get();
+	}
+
+	/**
+	 * Destroys the specified object and removes it from the pool, which makes room for a new object in its place.
+	 *
+	 * @param t
+	 *            the object to remove from the pool
+	 */
+	@Override
+	public final void remove(final T t) {
+		final Entry<T> entry = this.entryMap.get(t);
+
+		if (entry == null) {
+			this.factory.destroy(t);
+		} else {
+			this.destroy(entry);
+		}
+	}
+
+	/**
+	 * Sets the maximum wait time in milliseconds for an object to become available in the pool.
+	 *
+	 * @param maxWait
+	 *            The maximum millisecond wait time value to set
+	 */
+	public final void setMaxWait(final int maxWait) {
+		this.maxWait = maxWait * 1000000L;
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Acquires an object from the pool as described by {@link #acquire()}, recording into the {@link PoolStatistics} unless it is <code>null</code>.
+	 */
+	private T acquireObject(final PoolStatistics statistics) throws InterruptedException {
+		log.debug(acquiringObjectFromPool, this.debugParams);
+
+		// 1. Try the entries the current thread abandoned most recently
+		final StackArray<Entry<T>> localEntries = this.threadLocalEntries.get();
+
+		while (!localEntries.isEmpty()) {
+			final Entry<T> entry = localEntries.pop();
+
+			if (entry.state.compareAndSet(idle, inUse) && this.isValid(entry)) {
+				return entry.object;
+			}
+		}
+
+		// 2. Scan the pool, create a new object, or wait for an object to be abandoned
+		long timeout = this.maxWait;
+		Entry<T> entry;
+
+		while (true) {
+			if (this.closed) {
+				throw new ClosedForBusinessException(this.debugParams);
+			}
+
+			entry = this.borrowShared();
+
+			if (entry == null) {
+				final T t = this.create();
+
+				if (t != null) {
+					return t;
+				}
+
+				if (timeout <= 0) {
+					if (statistics != null) {
+						statistics.recordTimeout();
+					}
+
+					log.throwException(new NoSuchElementException(ParamString.formatMsg("Cannot acquire a {P} from the pool", this.debugParams)));
+				}
+
+				final long startTime = System.nanoTime();
+
+				final int numWaiting = this.waiters.incrementAndGet();
+
+				if (statistics != null) {
+					statistics.recordWaiting(numWaiting);
+				}
+
+				try {
+					// Scan again now that abandon() can see this thread waiting
+					entry = this.borrowShared();
+
+					if (entry == null) {
+						entry = this.handoffQueue.poll(Math.min(timeout, maxHandoffWait), TimeUnit.NANOSECONDS);
+
+						if (entry != null && !entry.state.compareAndSet(idle, inUse)) {
+							entry = null;
+						}
+					}
+				} finally {
+					this.waiters.decrementAndGet();
+				}
+
+				timeout -= System.nanoTime() - startTime;
+			}
+
+			if (entry != null && this.isValid(entry)) {
+				return entry.object;
+			}
+		}
+	}
+
+	/**
+	 * Borrows the first idle entry in the pool, or returns <code>null</code> if every entry is in use.
+	 */
+	private Entry<T> borrowShared() {
+		for (final Entry<T> entry : this.sharedList) {
+			if (entry.state.compareAndSet(idle, inUse)) {
+				return entry;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Creates a new object if the pool has room for it, or returns <code>null</code> if the pool is at capacity.
+	 */
+	private T create() {
+		int size;
+
+		// 1. Reserve room for the new object
+		do {
+			size = this.poolSize.get();
+
+			if (size >= this.capacity) {
+				return null;
+			}
+		} while (!this.poolSize.compareAndSet(size, size + 1));
+
+		// 2. Create the object, giving back the reserved room if the factory fails
+		log.debug("Creating a new {P} from the factory", this.debugParams);
+
+		final PoolStatistics statistics = this.statistics;
+		final long startTime = statistics == null ? 0 : System.nanoTime();
+		final T t;
+
+		try {
+			t = this.factory.create();
+		} catch (final RuntimeException e) {
+			this.poolSize.decrementAndGet();
+			throw e;
+		}
+
+		if (statistics != null) {
+			statistics.recordCreate(System.nanoTime() - startTime);
+		}
+
+		// 3. Add the new object to the pool as in use
+		final Entry<T> entry = new Entry<>(t);
+
+		this.entryMap.put(t, entry);
+		this.sharedList.add(entry);
+
+		return t;
+	}
+
+	/**
+	 * Removes the entry from the pool and destroys its object, unless another thread already has.
+	 */
+	private void destroy(final Entry<T> entry) {
+		entry.state.set(removed);
+
+		if (this.sharedList.remove(entry)) {
+			this.entryMap.remove(entry.object, entry);
+			this.poolSize.decrementAndGet();
+			this.factory.destroy(entry.object);
+		}
+	}
+
+	/**
+	 * Validates the object of the borrowed entry, destroying it and returning <code>false</code> if it is invalid.
+	 */
+	private boolean isValid(final Entry<T> entry) {
+		if (this.factory.validate(entry.object)) {
+			return true;
+		}
+
+		final PoolStatistics statistics = this.statistics;
+
+		if (statistics != null) {
+			statistics.recordValidationFailure();
+		}
+
+		log.debug("Removing an invalid {P} from the pool", this.debugParams);
+		this.destroy(entry);
+
+		return false;
+	}
+
+} // End PoolBag
@@ -16,15 +16,52 @@
 package root.pool;
 
 import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
 
-import root.annotation.Todo;
+import root.adt.ListArray;
+import root.adt.QueueLinked;
+import root.lang.FastInteger;
 import root.lang.ParamString;
 import root.log.Log;
 import root.thread.Sync;
+import root.validation.InvalidParameterException;
+import root.validation.NullParameterException;
 
 /**
  * A thread-safe version of the generic resource {@link Pool}.
  * <p>
+ * Every thread that uses the pool maps to one of a fixed number of slots, one per processor, that holds the object the thread returned last. While
+ * no thread is waiting on the pool and other idle objects are queued, {@link #abandon(Object)} parks the object in the slot of the current thread
+ * if it is empty without taking the pool lock, and the next {@link #acquire()} on the same thread takes it back out without taking the lock either.
+ * A thread that finds no idle object in the queue takes the objects parked in the slots of the other threads before it creates a new object or
+ * waits, so an object in a slot is never lost to the rest of the pool.
+ * <p>
+ * Calling {@link #startMaintenance(long)} starts a background thread that prefills the pool up to <code>minIdle</code> idle objects, destroys the
+ * objects that have been idle for longer than <code>maxIdleTime</code> as long as more than <code>minIdle</code> objects are idle, and validates
+ * every idle object, so request threads do not pay for creation unless the pool runs dry. {@link #acquire()} still validates every object it hands
+ * out, so an object returned broken is destroyed rather than handed to the next caller, which is why {@link PoolObjectFactory#validate(Object)}
+ * should stay cheap.
+ * <p>
+ * Without the maintenance thread an object that has been idle for longer than <code>maxIdleTime</code> is destroyed when it is acquired instead,
+ * and the next idle object is tried in its place.
+ * <p>
+ * A fair pool serves its waiting threads in the order they started waiting. Instead of signalling whichever thread wins the lock next, a returned
+ * object, or the room left behind by a destroyed object, is handed directly to the thread that has waited the longest. A thread close to its
+ * <code>maxWait</code> deadline therefore cannot be overtaken by threads that arrived after it, which bounds the tail of the wait times when the
+ * pool is saturated at the cost of a little throughput.
+ * <p>
+ * {@link #acquireAsync()} starts an acquisition without blocking the calling thread. An acquisition that has to wait joins the same wait queue as
+ * the threads of a fair pool, on any pool, and is handed its object directly, so a pool with many waiting acquisitions wakes exactly one waiter per
+ * returned object instead of a herd of threads competing for the lock. Taking the object with {@link Future#get()} still blocks the thread that
+ * calls it, so only {@link #acquireAsync(Executor, PoolAcquireListener)}, which passes the object to a {@link PoolAcquireListener} on an
+ * {@link Executor} once it is handed over, keeps a waiting acquisition from holding a thread.
  *
  * @author Edward Smith
  * @version 0.5
@@ -33,13 +70,365 @@ import root.thread.Sync;
  * @param <T>
  *            The type of elements managed by the pool
  */
-@Todo("See about keeping track of the maximum number of threads that have waited on this pool and log the value like once a day")
 public final class PoolConcurrent<T> extends Pool<T> {
 
+	// <><><><><><><><><><><><><>< Private Classes ><><><><><><><><><><><><><>
+
+	/**
+	 * An acquisition started by {@link PoolConcurrent#acquireAsync()}. The object, or the room to create one, handed to the acquisition is held in its
+	 * {@link Waiter} until {@link #get()} takes it. An acquisition with a {@link PoolAcquireListener} is run on its {@link Executor} once something
+	 * is handed to it, which takes the object and passes it on to the listener.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private final class AsyncAcquire implements Future<T>, Runnable {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private final Waiter<T> waiter;
+
+		/** The listener to pass the outcome of the acquisition to, or <code>null</code> if the caller takes it with {@link #get()} */
+		private final PoolAcquireListener<? super T> listener;
+
+		/** The time in nanoseconds the acquisition was started */
+		private final long startTime;
+
+		/** Set to <code>true</code> once {@link #get()} has taken what was handed to the acquisition */
+		private boolean taken;
+
+		/** Set to <code>true</code> once the object taken by {@link #get()} has been created or validated, successfully or not */
+		private boolean completed;
+
+		/** The object returned by {@link #get()} */
+		private T result;
+
+		/** The failure thrown by {@link #get()} if the object could not be created */
+		private ExecutionException failure;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private AsyncAcquire(final Waiter<T> waiter, final long startTime, final PoolAcquireListener<? super T> listener) {
+			this.waiter = waiter;
+			this.startTime = startTime;
+			this.listener = listener;
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		/**
+		 * Cancels the acquisition unless {@link #get()} has already taken its object. Unlike a plain {@link Future}, an acquisition that has already
+		 * been handed an object can still be cancelled, which passes the object or the room to create one on to the next waiter.
+		 */
+		@Override
+		public final boolean cancel(final boolean mayInterruptIfRunning) {
+			final PoolConcurrent<T> pool = PoolConcurrent.this;
+
+			pool.sync.lock();
+			try {
+				if (this.taken || this.waiter.cancelled) {
+					return false;
+				}
+
+				this.waiter.cancelled = true;
+
+				// Pass on anything handed over in the meantime, otherwise leave it to the wait queue to skip the acquisition
+				if (this.waiter.object != null) {
+					pool.offer(this.waiter.object, this.waiter.idleSince);
+					this.waiter.object = null;
+				} else if (this.waiter.reserved) {
+					this.waiter.reserved = false;
+					pool.release();
+				} else if (!pool.closed) {
+					pool.waiters--;
+				}
+
+				this.waiter.condition.signalAll();
+
+				return true;
+			} finally {
+				pool.sync.unlock();
+			}
+		}
+
+		/**
+		 * Waits up to <code>maxWait</code> for the object, cancelling the acquisition if none is handed over in time.
+		 */
+		@Override
+		public final T get() throws InterruptedException, ExecutionException {
+			try {
+				return this.get(PoolConcurrent.this.maxWait, TimeUnit.NANOSECONDS);
+			} catch (final TimeoutException e) {
+				this.cancel(false);
+
+				final PoolStatistics statistics = PoolConcurrent.this.statistics;
+
+				if (statistics != null) {
+					statistics.recordTimeout();
+				}
+
+				throw new ExecutionException(new NoSuchElementException(ParamString.formatMsg("Cannot acquire a {P} from the pool",
+						PoolConcurrent.this.debugParams)));
+			}
+		}
+
+		/**
+		 * Waits up to the timeout for the object, then creates it in the room handed over or validates it outside of the pool lock. An object that
+		 * fails validation or has been idle for too long is replaced by one acquired with {@link PoolConcurrent#acquire()}. Every later call returns the same object, or throws the
+		 * same {@link ExecutionException} if the object could not be created.
+		 */
+		@Override
+		public final T get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			final PoolConcurrent<T> pool = PoolConcurrent.this;
+			long nanos = unit.toNanos(timeout);
+			final T t;
+			final long idleSince;
+			final boolean reserved;
+
+			// 1. Wait for an object or room to create one to be handed over
+			pool.sync.lock();
+			try {
+				if (this.taken) {
+					// Another call took the object, so wait for it to finish creating or validating it
+					while (!this.completed) {
+						if (nanos <= 0) {
+							throw new TimeoutException();
+						}
+
+						nanos = this.waiter.condition.awaitNanos(nanos);
+					}
+
+					return this.getResult();
+				}
+
+				while (this.waiter.object == null && !this.waiter.reserved && !this.waiter.cancelled && !pool.closed) {
+					if (nanos <= 0) {
+						throw new TimeoutException();
+					}
+
+					nanos = this.waiter.condition.awaitNanos(nanos);
+				}
+
+				if (this.waiter.cancelled) {
+					throw new CancellationException();
+				}
+
+				if (this.waiter.object == null && !this.waiter.reserved) {
+					throw new ExecutionException(new ClosedForBusinessException(pool.debugParams));
+				}
+
+				t = this.waiter.object;
+				idleSince = this.waiter.idleSince;
+				reserved = this.waiter.reserved;
+				this.waiter.object = null;
+				this.waiter.reserved = false;
+				this.taken = true;
+			} finally {
+				pool.sync.unlock();
+			}
+
+			// 2. Create a new object in the reserved room, or validate the idle object, outside of the lock
+			final PoolStatistics statistics = pool.statistics;
+			T result = null;
+			ExecutionException failure = null;
+
+			try {
+				if (reserved) {
+					result = pool.create();
+				} else if (pool.check(t, idleSince)) {
+					result = t;
+				} else {
+					result = pool.acquireObject(statistics, true);
+				}
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failure = new ExecutionException(e);
+			} catch (final RuntimeException e) {
+				failure = new ExecutionException(e);
+			}
+
+			// 3. Publish the outcome to every other call
+			pool.sync.lock();
+			try {
+				this.result = result;
+				this.failure = failure;
+				this.completed = true;
+				this.waiter.condition.signalAll();
+			} finally {
+				pool.sync.unlock();
+			}
+
+			if (failure != null) {
+				throw failure;
+			}
+
+			if (statistics != null) {
+				statistics.recordAcquire(System.nanoTime() - this.startTime);
+			}
+
+			return result;
+		}
+
+		/**
+		 * Takes the object handed to the acquisition with {@link #get()} and passes it, or the failure to create it, on to the listener. Nothing is
+		 * passed on if the acquisition has been cancelled in the meantime.
+		 */
+		@Override
+		public final void run() {
+			final T t;
+
+			try {
+				t = this.get();
+			} catch (final CancellationException e) {
+				return;
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				this.listener.onFailure(e);
+				return;
+			} catch (final ExecutionException e) {
+				this.listener.onFailure(e.getCause());
+				return;
+			}
+
+			this.listener.onAcquire(t);
+		}
+
+		@Override
+		public final boolean isCancelled() {
+			PoolConcurrent.this.sync.lock();
+			try {
+				return this.waiter.cancelled;
+			} finally {
+				PoolConcurrent.this.sync.unlock();
+			}
+		}
+
+		@Override
+		public final boolean isDone() {
+			PoolConcurrent.this.sync.lock();
+			try {
+				if (this.taken) {
+					return this.completed;
+				}
+
+				return this.waiter.cancelled || this.waiter.object != null || this.waiter.reserved || PoolConcurrent.this.closed;
+			} finally {
+				PoolConcurrent.this.sync.unlock();
+			}
+		}
+
+		// <><><><><><><><><><><><><> Private Methods <><><><><><><><><><><><><>
+
+		/**
+		 * Returns the object created or validated by {@link #get()}, or throws its failure. Must be called while holding the pool lock.
+		 */
+		private T getResult() throws ExecutionException {
+			if (this.failure != null) {
+				throw this.failure;
+			}
+
+			return this.result;
+		}
+
+	} // End AsyncAcquire
+
+	/**
+	 * Runs {@link PoolConcurrent#maintain()} on a fixed period until the pool is closed.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 */
+	private final class Maintenance extends Thread {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		private final long period;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Maintenance(final long period) {
+			super("PoolMaintenance-" + PoolConcurrent.this.factory.getObjectClassName());
+			this.period = period;
+			this.setDaemon(true);
+		}
+
+		// <><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><>
+
+		@Override
+		public final void run() {
+			while (!PoolConcurrent.this.closed) {
+				try {
+					PoolConcurrent.this.maintain();
+				} catch (final RuntimeException e) {
+					log.error("Exception occurred while maintaining the pool of {P}", e, PoolConcurrent.this.debugParams);
+				}
+
+				try {
+					Thread.sleep(this.period);
+				} catch (final InterruptedException e) {
+					return;
+				}
+			}
+		}
+
+	} // End Maintenance
+
+	/**
+	 * A thread waiting on a fair pool, or an asynchronous acquisition waiting on any pool, for an object or for room to create one.
+	 *
+	 * @author Edward Smith
+	 * @version 0.5
+	 * @since 0.5
+	 *
+	 * @param <T>
+	 *            The type of elements managed by the pool
+	 */
+	private static final class Waiter<T> {
+
+		// <><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><>
+
+		/** The object handed to the waiting thread */
+		private T object;
+
+		/** The time in milliseconds the object handed to the waiting thread became idle */
+		private long idleSince;
+
+		/** Set to <code>true</code> when room for a new object is handed to the waiting thread */
+		private boolean reserved;
+
+		/** Set to <code>true</code> when the waiting thread gave up */
+		private boolean cancelled;
+
+		/** Set to <code>true</code> for an asynchronous acquisition, which is counted among the waiters until it leaves the wait queue */
+		private final boolean async;
+
+		/** The executor that runs <code>completion</code> once something is handed to the waiter, or <code>null</code> */
+		private Executor executor;
+
+		/** Completes an asynchronous acquisition with a {@link PoolAcquireListener}, or <code>null</code> */
+		private Runnable completion;
+
+		/** Wakes up the waiting thread and no other */
+		private final Condition condition;
+
+		// <><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><>
+
+		private Waiter(final Condition condition, final boolean async) {
+			this.condition = condition;
+			this.async = async;
+		}
+
+	} // End Waiter
+
 	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
 
 	private static final Log log = new Log(PoolConcurrent.class);
 
+	/** The number of references that fill a 64 byte cache line, so that no two slots share a cache line */
+	private static final int padding = 16;
+
 	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
 
 	/** The maximum number of nanoseconds to wait for an object to return to the pool */
@@ -48,6 +437,51 @@ public final class PoolConcurrent<T> extends Pool<T> {
 	/** Manages synchronization efforts between all {@link Thread}s that use the pool */
 	private final Sync sync;
 
+	/** The number of threads waiting for an object to return to the pool, only changed while holding the pool lock */
+	private volatile int waiters;
+
+	/** The slots holding the object each thread returned last, <code>padding</code> elements apart */
+	private final AtomicReferenceArray<T> slots;
+
+	/** The time in milliseconds the object in each slot was parked, at the same index as the slot */
+	private final long[] parkedSince;
+
+	/** The number of slots minus one, used to map a thread to its slot */
+	private final int slotMask;
+
+	/** The number of objects in the queue, readable without the pool lock */
+	private volatile int queued;
+
+	/** The number of idle objects the maintenance thread keeps in the pool */
+	private int minIdle;
+
+	/** The maximum number of milliseconds an object may be idle before it is destroyed */
+	private long maxIdleTime;
+
+	/** The time in milliseconds each idle object was returned to the queue, in the same circular order as the queue */
+	private final long[] idleSince;
+
+	/** The index in <code>idleSince</code> of the object at the head of the queue */
+	private int idleHead;
+
+	/** The time in milliseconds the object last taken out of the queue or a slot became idle, only used while holding the pool lock */
+	private long takenIdleSince;
+
+	/** The background thread maintaining the pool, or <code>null</code> if it has not been started */
+	private volatile Maintenance maintenance;
+
+	/** <code>true</code> if waiting threads are served in the order they started waiting */
+	private final boolean fair;
+
+	/** The threads waiting on a fair pool and the asynchronous acquisitions waiting on any pool, from the longest waiting to the most recent */
+	private final QueueLinked<Waiter<T>> waitQueue;
+
+	/** The number of threads of a non-fair pool waiting on the pool lock condition instead of the wait queue */
+	private int blocked;
+
+	/** Set to <code>true</code> when the last object or room went to the wait queue while threads were blocked on the pool lock condition */
+	private boolean queueServed;
+
 	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
 
 	/**
@@ -59,9 +493,34 @@ public final class PoolConcurrent<T> extends Pool<T> {
 	 *            The {@link PoolObjectFactory} implementation to use
 	 */
 	public PoolConcurrent(final int capacity, final PoolObjectFactory<T> factory) {
+		this(capacity, factory, false);
+	}
+
+	/**
+	 * Creates an empty pool with a fixed capacity that may serve its waiting threads in the order they started waiting. Object lifecycles are managed
+	 * by the provided {@link PoolObjectFactory} implementation.
+	 *
+	 * @param capacity
+	 *            The capacity of the pool
+	 * @param factory
+	 *            The {@link PoolObjectFactory} implementation to use
+	 * @param fair
+	 *            <code>true</code> to hand returned objects directly to the thread that has waited the longest
+	 */
+	public PoolConcurrent(final int capacity, final PoolObjectFactory<T> factory, final boolean fair) {
 		super(capacity, factory);
+		this.fair = fair;
+		this.waitQueue = new QueueLinked<>();
 		this.maxWait = Long.MAX_VALUE;
 		this.sync = new Sync();
+		this.idleSince = new long[capacity];
+
+		final int numProcessors = Runtime.getRuntime().availableProcessors();
+		final int numSlots = numProcessors <= 1 ? 1 : Integer.highestOneBit(numProcessors - 1) << 1;
+
+		this.slotMask = numSlots - 1;
+		this.slots = new AtomicReferenceArray<>(numSlots * padding);
+		this.parkedSince = new long[numSlots * padding];
 	}
 
 	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
@@ -69,7 +528,9 @@ public final class PoolConcurrent<T> extends Pool<T> {
 	/**
 	 * Returns the abandoned object to the pool making it immediately available for acquisition.
 	 * <p>
-	 * One thread waiting to acquire an object from the pool will be notified about the availability of this object.
+	 * If no thread is waiting on the pool and other idle objects are queued, the object is parked in the slot of the current thread without taking
+	 * the pool lock unless the slot is already taken. Otherwise one thread waiting to acquire an object from the pool will be notified about the
+	 * availability of this object.
 	 *
 	 * @param t
 	 *            the object to return to the pool
@@ -78,15 +539,30 @@ public final class PoolConcurrent<T> extends Pool<T> {
 	public final void abandon(final T t) {
 		log.debug(returningObjectToPool, this.debugParams);
 
+		// 1. Park the object in the slot of the current thread if nobody is waiting for it and the queue holds other idle objects
+		if (this.waiters == 0 && this.queued > 0 && !this.closed) {
+			final int slot = this.getSlot();
+
+			// A thread sharing the slot may overwrite the time of an object it fails to park, which only makes that object look younger
+			this.parkedSince[slot] = System.currentTimeMillis();
+
+			if (this.slots.compareAndSet(slot, null, t)) {
+				// A thread that started waiting or closed the pool in the meantime may have missed the slot, so take the object back out unless it
+				// has already been taken
+				if ((this.waiters == 0 && !this.closed) || !this.slots.compareAndSet(slot, t, null)) {
+					return;
+				}
+			}
+		}
+
+		// 2. Otherwise hand the object to a waiting thread or return it to the shared queue
 		this.sync.lock();
 		try {
 			if (this.closed) {
 				this.remove(t);
 			} else {
-				this.queue.enqueue(t);
+				this.offer(t, System.currentTimeMillis());
 			}
-
-			this.sync.signal();
 		} finally {
 			this.sync.unlock();
 		}
@@ -95,53 +571,77 @@ public final class PoolConcurrent<T> extends Pool<T> {
 	/**
 	 * Acquires an object from the pool according to the following algorithm:
 	 * <ul>
-	 * <li>If the size of the pool is at capacity and no objects are present then wait up to <code>maxWait</code> for an object to become available.
-	 * <li>Any pooled objects are validated by the {@link PoolObjectFactory}. Invalid objects are destroyed and removed from the pool until either the
-	 * pool is purged or a valid object is found and returned.
-	 * <li>Otherwise if the pool is empty, a new object is created from the {@link PoolObjectFactory} and returned, which also increments the size of
-	 * the pool.
+	 * <li>The object the current thread returned last is taken from its slot without taking the pool lock.
+	 * <li>If no objects are present in the queue then take an object parked in the slot of another thread.
+	 * <li>If the size of the pool is at capacity and no objects are present then wait up to <code>maxWait</code> for an object to become available. A fair pool hands the object, or room to create one, to its longest waiting thread.
+	 * <li>Any pooled object is taken from the pool and then validated by the {@link PoolObjectFactory}. An invalid object, or one that has been idle
+	 * for longer than <code>maxIdleTime</code> while the maintenance thread is not running, is destroyed and removed from the pool before trying
+	 * again.
+	 * <li>Otherwise if the pool is empty, the size of the pool is incremented and a new object is created from the {@link PoolObjectFactory}.
 	 * </ul>
+	 * The pool lock is only held while taking an object from the pool or reserving room for a new one, so a slow {@link PoolObjectFactory#create()}
+	 * or {@link PoolObjectFactory#validate(Object)} call never blocks the other threads using the pool.
 	 *
 	 * @return an instance of the pooled object
 	 * @throws InterruptedException
 	 */
 	@Override
 	public final T acquire() throws InterruptedException {
-		long timeout = this.maxWait;
+		final PoolStatistics statistics = this.statistics;
 
-		log.debug(acquiringObjectFromPool, this.debugParams);
-		this.sync.lock();
-		try {
-			if (!this.closed) {
-				while (!this.closed && this.size == this.queue.getCapacity() && this.queue.isEmpty()) {
-					if (timeout > 0) {
-						timeout = this.sync.awaitNanos(timeout);
-					} else {
-						log.throwException(new NoSuchElementException(ParamString.formatMsg("Cannot acquire a {P} from the pool", this.debugParams)));
-					}
-				}
+		if (statistics == null) {
+			return this.acquireObject(null, true);
+		}
 
-				if (!this.closed) {
-					while (!this.queue.isEmpty() && !this.factory.validate(this.queue.peek())) {
-						log.debug("Removing an invalid {P} from the pool", this.debugParams);
-						this.factory.destroy(this.queue.dequeue());
-						this.size--;
-					}
+		final long startTime = System.nanoTime();
+		final T t = this.acquireObject(statistics, true);
+		statistics.recordAcquire(System.nanoTime() - startTime);
 
-					if (this.queue.isEmpty()) {
-						log.debug("Creating a new {P} from the factory", this.debugParams);
-						this.size++;
-						return this.factory.create();
-					}
+		return t;
+	}
 
-					return this.queue.dequeue();
-				}
-			}
-		} finally {
-			this.sync.unlock();
+	/**
+	 * Starts acquiring an object from the pool without blocking the calling thread. The returned {@link Future} is handed the object the current
+	 * thread returned last, an idle object, or room to create a new object right away if there is one. Otherwise the acquisition joins the wait
+	 * queue and is handed the next object returned to the pool, taking its turn with the waiting threads of a fair pool and alternating with them
+	 * otherwise. {@link Future#get()} creates or validates the object just as {@link #acquire()} would, and waits up to
+	 * <code>maxWait</code> for it.
+	 * <p>
+	 * Every {@link Future} must either be consumed with {@link Future#get()}, after which its object is returned with {@link #abandon(Object)} as
+	 * usual, or cancelled, which passes on anything already handed to it.
+	 *
+	 * @return a {@link Future} of the pooled object
+	 */
+	public final Future<T> acquireAsync() {
+		return this.startAsync(null, null);
+	}
+
+	/**
+	 * Starts acquiring an object from the pool just like {@link #acquireAsync()}, but passes the object to the {@link PoolAcquireListener} instead
+	 * of making the caller wait for it. Once an object or room to create one is handed to the acquisition, it is completed on the {@link Executor},
+	 * which creates or validates the object and calls the listener. No thread is held while the acquisition waits. Unlike {@link Future#get()}, the
+	 * acquisition does not give up after <code>maxWait</code>, so the caller cancels the returned {@link Future} to stop waiting, after which the
+	 * listener is not called.
+	 * <p>
+	 * The executor may be called while the pool lock is held, so it must hand the task over to another thread without blocking, as a
+	 * {@link java.util.concurrent.ThreadPoolExecutor} with an unbounded queue does.
+	 *
+	 * @param executor
+	 *            the {@link Executor} that completes the acquisition
+	 * @param listener
+	 *            the {@link PoolAcquireListener} to pass the object or the failure to
+	 * @return a {@link Future} of the pooled object, which may be used to cancel the acquisition
+	 */
+	public final Future<T> acquireAsync(final Executor executor, final PoolAcquireListener<? super T> listener) {
+		if (executor == null) {
+			throw new NullParameterException(this.getClass().getName(), Executor.class, "executor");
+		}
+
+		if (listener == null) {
+			throw new NullParameterException(this.getClass().getName(), PoolAcquireListener.class, "listener");
 		}
 
-		throw new ClosedForBusinessException(this.debugParams);
+		return this.startAsync(executor, listener);
 	}
 
 	/**
@@ -154,15 +654,27 @@ public final class PoolConcurrent<T> extends Pool<T> {
 		this.sync.lock();
 		this.closed = true;
 
+		if (this.maintenance != null) {
+			this.maintenance.interrupt();
+		}
+
 		try {
-			// Destroy all idle objects in the queue
+			// Destroy all idle objects in the queue and the slots
 			while (!this.queue.isEmpty()) {
-				this.remove(this.queue.dequeue());
+				this.remove(this.dequeue());
+			}
+
+			for (T t = this.takeParked(); t != null; t = this.takeParked()) {
+				this.remove(t);
 			}
 
 			// Signal all waiting threads
 			this.sync.signalAll();
 
+			for (Waiter<T> waiter = this.nextWaiter(); waiter != null; waiter = this.nextWaiter()) {
+				this.handOff(waiter);
+			}
+
 			// Make sure all objects are destroyed before exiting the method
 			while (this.size > 0) {
 				this.sync.awaitNanos(this.maxWait);
@@ -172,6 +684,51 @@ public final class PoolConcurrent<T> extends Pool<T> {
 		}
 	}
 
+	/**
+	 * @see root.pool.Pool#getActiveCount()
+	 */
+	@Override
+	public final int getActiveCount() {
+		this.sync.lock();
+		try {
+			return this.size - this.queue.getSize() - this.countParked();
+		} finally {
+			this.sync.unlock();
+		}
+	}
+
+	/**
+	 * Returns an estimate of the number of objects in use that is read without taking the pool lock, so that it is cheap enough to consult on every
+	 * acquisition. The estimate may be off by the objects moving in or out of the pool while it is read.
+	 *
+	 * @return an estimate of the number of objects in use
+	 */
+	public final int getActiveEstimate() {
+		return Math.max(0, this.size - this.queued - this.countParked());
+	}
+
+	/**
+	 * @see root.pool.Pool#getIdleCount()
+	 */
+	@Override
+	public final int getIdleCount() {
+		this.sync.lock();
+		try {
+			return this.queue.getSize() + this.countParked();
+		} finally {
+			this.sync.unlock();
+		}
+	}
+
+	/**
+	 * Returns the maximum number of milliseconds an object may be idle before it is destroyed.
+	 *
+	 * @return the maximum number of milliseconds an object may be idle
+	 */
+	public final long getMaxIdleTime() {
+		return this.maxIdleTime;
+	}
+
 	/**
 	 * Returns the maximum wait time in milliseconds for an object to become available in the pool before throwing a {@link NoSuchElementException}.
 	 *
@@ -181,6 +738,48 @@ public final class PoolConcurrent<T> extends Pool<T> {
 		return this.maxWait / 1000000;
 	}
 
+	/**
+	 * Returns the number of idle objects the maintenance thread keeps in the pool.
+	 *
+	 * @return the number of idle objects the maintenance thread keeps in the pool
+	 */
+	public final int getMinIdle() {
+		return this.minIdle;
+	}
+
+	/**
+	 * @see root.pool.Pool#getWaitingCount()
+	 */
+	@Override
+	public final int getWaitingCount() {
+		return this.waiters;
+	}
+
+	/**
+	 * Destroys the specified object and then removes it from the pool, which lets one waiting thread create a new object in its place. The object is
+	 * destroyed outside of the pool lock unless the pool is closing, where the remaining objects are destroyed while holding it.
+	 *
+	 * @param t
+	 *            the object to remove from the pool
+	 */
+	@Override
+	public final void remove(final T t) {
+		this.factory.destroy(t);
+		this.release();
+	}
+
+	/**
+	 * Sets the maximum number of milliseconds an object may be idle before it is destroyed. The maintenance thread destroys idle objects beyond
+	 * <code>minIdle</code> once they have been idle that long, otherwise {@link #acquire()} destroys an expired object instead of handing it out. A
+	 * value less than or equal to zero keeps idle objects forever.
+	 *
+	 * @param maxIdleTime
+	 *            the maximum number of milliseconds an object may be idle
+	 */
+	public final void setMaxIdleTime(final long maxIdleTime) {
+		this.maxIdleTime = maxIdleTime;
+	}
+
 	/**
 	 * Sets the maximum wait time in milliseconds for an object to become available in the pool.
 	 *
@@ -191,4 +790,648 @@ public final class PoolConcurrent<T> extends Pool<T> {
 		this.maxWait = maxWait * 1000000L;
 	}
 
+	/**
+	 * Sets the number of idle objects the maintenance thread keeps in the pool.
+	 *
+	 * @param minIdle
+	 *            the number of idle objects to keep in the pool
+	 */
+	public final void setMinIdle(final int minIdle) {
+		if (minIdle < 0 || minIdle > this.capacity) {
+			throw new InvalidParameterException(this.getClass().getName(), int.class, "minIdle", "Invalid minimum idle count: {P}",
+					FastInteger.valueOf(minIdle));
+		}
+
+		this.minIdle = minIdle;
+	}
+
+	/**
+	 * Starts the background thread that maintains the pool every <code>period</code> milliseconds. Its first run prefills the pool up to
+	 * <code>minIdle</code> idle objects without making the caller wait for them. The thread stops when the pool is closed.
+	 *
+	 * @param period
+	 *            the number of milliseconds between two maintenance runs
+	 */
+	public final void startMaintenance(final long period) {
+		if (period <= 0) {
+			throw new InvalidParameterException(this.getClass().getName(), long.class, "period", "Invalid maintenance period: {P}", period);
+		}
+
+		this.sync.lock();
+		try {
+			if (this.maintenance == null && !this.closed) {
+				this.maintenance = new Maintenance(period);
+				this.maintenance.start();
+			}
+		} finally {
+			this.sync.unlock();
+		}
+	}
+
+	/**
+	 * Acquires an object from the pool just like {@link #acquire()} when the current thread parked one, an object is idle or there is room to
+	 * create a new one, but returns <code>null</code> instead of waiting when every object of a full pool is in use.
+	 *
+	 * @return an instance of the pooled object, or <code>null</code> if none is available without waiting
+	 */
+	public final T tryAcquire() {
+		final PoolStatistics statistics = this.statistics;
+		final long startTime = statistics == null ? 0 : System.nanoTime();
+		final T t;
+
+		try {
+			t = this.acquireObject(statistics, false);
+		} catch (final InterruptedException e) {
+			// Never thrown since the pool does not wait
+			Thread.currentThread().interrupt();
+			return null;
+		}
+
+		if (t != null && statistics != null) {
+			statistics.recordAcquire(System.nanoTime() - startTime);
+		}
+
+		return t;
+	}
+
+	// <><><><><><><><><><><><><><> Package Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Runs the maintenance of the pool according to the following algorithm:
+	 * <ol>
+	 * <li>Objects parked in the slots of the threads are moved to the queue so that they age like every other idle object.
+	 * <li>Objects that have been idle for longer than <code>maxIdleTime</code> are destroyed as long as more than <code>minIdle</code> objects are
+	 * idle.
+	 * <li>Every remaining idle object is taken out of the queue one at a time and validated, then returned to the queue or destroyed. Objects
+	 * returned to the pool in the meantime are queued ahead of the validated objects, so the queue is put back in the order the objects became
+	 * idle afterwards.
+	 * <li>New objects are created until <code>minIdle</code> objects are idle or the pool is at capacity.
+	 * </ol>
+	 * The pool lock is never held while creating, validating or destroying an object.
+	 */
+	final void maintain() {
+		final ListArray<T> expired = new ListArray<>();
+		int numIdle;
+
+		// 1. Collect the parked objects and the objects that have been idle for too long
+		this.sync.lock();
+		try {
+			final long currentTime = System.currentTimeMillis();
+
+			for (T t = this.takeParked(); t != null; t = this.takeParked()) {
+				this.offer(t, currentTime);
+			}
+
+			if (this.maxIdleTime > 0) {
+				while (this.queue.getSize() > this.minIdle && currentTime - this.idleSince[this.idleHead] >= this.maxIdleTime) {
+					expired.add(this.dequeue());
+				}
+			}
+
+			numIdle = this.queue.getSize();
+		} finally {
+			this.sync.unlock();
+		}
+
+		for (final T t : expired) {
+			log.debug("Removing an idle {P} from the pool", this.debugParams);
+			this.remove(t);
+		}
+
+		// 2. Validate each idle object outside of the lock
+		for (; numIdle > 0; numIdle--) {
+			final T t;
+			final long timestamp;
+
+			this.sync.lock();
+			try {
+				if (this.closed || this.queue.isEmpty()) {
+					break;
+				}
+
+				timestamp = this.idleSince[this.idleHead];
+				t = this.dequeue();
+			} finally {
+				this.sync.unlock();
+			}
+
+			if (this.validate(t)) {
+				this.idle(t, timestamp);
+			}
+		}
+
+		this.sync.lock();
+		try {
+			this.sortIdle();
+		} finally {
+			this.sync.unlock();
+		}
+
+		// 3. Create new objects outside of the lock until there are enough idle objects
+		while (true) {
+			this.sync.lock();
+			try {
+				if (this.closed || this.queue.getSize() >= this.minIdle || this.size == this.capacity) {
+					return;
+				}
+
+				this.size++;
+			} finally {
+				this.sync.unlock();
+			}
+
+			this.idle(this.create(), System.currentTimeMillis());
+		}
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Acquires an object from the pool as described by {@link #acquire()}, recording into the {@link PoolStatistics} unless it is <code>null</code>.
+	 * Returns <code>null</code> instead of waiting on a full pool unless <code>wait</code> is <code>true</code>.
+	 */
+	private T acquireObject(final PoolStatistics statistics, final boolean wait) throws InterruptedException {
+		long timeout = this.maxWait;
+		long idleSince = 0;
+		T t;
+
+		log.debug(acquiringObjectFromPool, this.debugParams);
+
+		boolean reserved = false;
+
+		// 1. Take the object the current thread returned last
+		final int slot = this.getSlot();
+
+		t = this.slots.getAndSet(slot, null);
+
+		if (t != null && this.check(t, this.parkedSince[slot])) {
+			return t;
+		}
+
+		while (true) {
+			// 2. Take an idle object from the pool or reserve room for a new one
+			this.sync.lock();
+			try {
+				t = null;
+
+				// An object parked by another thread is reused before the pool grows
+				if (!this.closed && this.queue.isEmpty()) {
+					t = this.takeParked();
+				}
+
+				if (t == null && !this.closed && this.size == this.capacity && this.queue.isEmpty()) {
+					if (!wait) {
+						return null;
+					}
+
+					this.waiters++;
+
+					if (statistics != null) {
+						statistics.recordWaiting(this.waiters);
+					}
+
+					try {
+						// Scan the slots after announcing the wait so that abandon() either sees the waiter or parks its object before the scan
+						if (this.fair) {
+							if ((t = this.takeParked()) == null) {
+								final Waiter<T> waiter = this.awaitHandOff(timeout, statistics);
+
+								t = waiter.object;
+								reserved = waiter.reserved;
+							}
+						} else {
+							this.blocked++;
+							try {
+								while (!this.closed && this.size == this.capacity && this.queue.isEmpty() && (t = this.takeParked()) == null) {
+									if (timeout > 0) {
+										timeout = this.sync.awaitNanos(timeout);
+									} else {
+										if (statistics != null) {
+											statistics.recordTimeout();
+										}
+
+										log.throwException(new NoSuchElementException(ParamString.formatMsg("Cannot acquire a {P} from the pool",
+												this.debugParams)));
+									}
+								}
+							} finally {
+								this.blocked--;
+							}
+						}
+					} finally {
+						this.waiters--;
+					}
+				}
+
+				if (t == null && !reserved) {
+					if (this.closed) {
+						throw new ClosedForBusinessException(this.debugParams);
+					}
+
+					if (this.queue.isEmpty()) {
+						this.size++;
+					} else {
+						t = this.dequeue();
+					}
+				}
+
+				idleSince = this.takenIdleSince;
+			} finally {
+				this.sync.unlock();
+			}
+
+			// 3. Create a new object in the reserved room, or validate the idle object
+			if (t == null) {
+				return this.create();
+			}
+
+			if (this.check(t, idleSince)) {
+				return t;
+			}
+		}
+	}
+
+	/**
+	 * Waits on a fair pool until an object or room to create one is handed to the current thread, the pool is closed, or <code>timeout</code>
+	 * nanoseconds have passed. A thread that gives up passes on anything handed to it in the meantime. Must be called while holding the pool lock.
+	 */
+	private Waiter<T> awaitHandOff(long timeout, final PoolStatistics statistics) throws InterruptedException {
+		final Waiter<T> waiter = new Waiter<>(this.sync.newCondition(), false);
+
+		this.waitQueue.enqueue(waiter);
+		try {
+			while (waiter.object == null && !waiter.reserved && !this.closed) {
+				if (timeout > 0) {
+					timeout = waiter.condition.awaitNanos(timeout);
+				} else {
+					if (statistics != null) {
+						statistics.recordTimeout();
+					}
+
+					log.throwException(new NoSuchElementException(ParamString.formatMsg("Cannot acquire a {P} from the pool", this.debugParams)));
+				}
+			}
+		} catch (final InterruptedException | RuntimeException e) {
+			waiter.cancelled = true;
+
+			if (waiter.object != null) {
+				this.offer(waiter.object, waiter.idleSince);
+			} else if (waiter.reserved) {
+				this.release();
+			}
+
+			throw e;
+		}
+
+		this.takenIdleSince = waiter.idleSince;
+
+		return waiter;
+	}
+
+	/**
+	 * Checks an idle object outside of the lock before it is handed out, removing it from the pool if it has been idle for longer than
+	 * <code>maxIdleTime</code> while the maintenance thread is not running, or if it is invalid.
+	 */
+	private boolean check(final T t, final long idleSince) {
+		if (this.maintenance == null && this.maxIdleTime > 0 && System.currentTimeMillis() - idleSince >= this.maxIdleTime) {
+			log.debug("Removing an idle {P} from the pool", this.debugParams);
+			this.remove(t);
+
+			return false;
+		}
+
+		return this.validate(t);
+	}
+
+	/**
+	 * Runs an asynchronous acquisition that was handed something right away on its {@link Executor}, unless it has none.
+	 */
+	private Future<T> complete(final AsyncAcquire acquisition, final Executor executor) {
+		if (executor != null) {
+			executor.execute(acquisition);
+		}
+
+		return acquisition;
+	}
+
+	/**
+	 * Returns the number of objects parked in the slots of the threads.
+	 */
+	private int countParked() {
+		int count = 0;
+
+		for (int i = 0; i < this.slots.length(); i += padding) {
+			if (this.slots.get(i) != null) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Creates a new object outside of the lock in the room already reserved by the caller, giving back the room if the factory fails.
+	 */
+	private T create() {
+		final PoolStatistics statistics = this.statistics;
+		final long startTime = statistics == null ? 0 : System.nanoTime();
+		final T t;
+
+		log.debug("Creating a new {P} from the factory", this.debugParams);
+		try {
+			t = this.factory.create();
+		} catch (final RuntimeException e) {
+			this.release();
+			throw e;
+		}
+
+		if (statistics != null) {
+			statistics.recordCreate(System.nanoTime() - startTime);
+		}
+
+		return t;
+	}
+
+	/**
+	 * Takes the object at the head of the queue, which is the one that has been idle the longest, and records the time it became idle in
+	 * <code>takenIdleSince</code>. Must be called while holding the pool lock.
+	 */
+	private T dequeue() {
+		this.takenIdleSince = this.idleSince[this.idleHead];
+		this.idleHead = (this.idleHead + 1) % this.capacity;
+		this.queued--;
+
+		return this.queue.dequeue();
+	}
+
+	/**
+	 * Adds the object to the tail of the queue along with the time it became idle. Must be called while holding the pool lock.
+	 */
+	private void enqueue(final T t, final long idleSince) {
+		this.idleSince[(this.idleHead + this.queue.getSize()) % this.capacity] = idleSince;
+		this.queue.enqueue(t);
+		this.queued++;
+	}
+
+	/**
+	 * Returns the index in <code>slots</code> of the slot of the current thread.
+	 */
+	private int getSlot() {
+		return ((int) Thread.currentThread().getId() & this.slotMask) * padding;
+	}
+
+	/**
+	 * Wakes up the waiter once an object or room has been handed to it or the pool has been closed, and runs an asynchronous acquisition with a
+	 * {@link PoolAcquireListener} on its {@link Executor}. Must be called while holding the pool lock.
+	 */
+	private void handOff(final Waiter<T> waiter) {
+		waiter.condition.signal();
+
+		if (waiter.executor != null) {
+			waiter.executor.execute(waiter.completion);
+		}
+	}
+
+	/**
+	 * Returns an object taken by the maintenance thread to the pool, or destroys it if the pool has been closed in the meantime.
+	 */
+	private void idle(final T t, final long idleSince) {
+		this.sync.lock();
+		try {
+			if (this.closed) {
+				this.remove(t);
+			} else {
+				this.offer(t, idleSince);
+			}
+		} finally {
+			this.sync.unlock();
+		}
+	}
+
+	/**
+	 * Returns the next waiter in the wait queue to hand an object or room to, or <code>null</code> to leave it to the threads blocked on the pool
+	 * lock condition. While both are waiting, a non-fair pool alternates between them so that a steady stream of asynchronous acquisitions cannot
+	 * starve the blocked threads. Must be called while holding the pool lock.
+	 */
+	private Waiter<T> nextInLine() {
+		if (this.blocked > 0 && this.queueServed) {
+			this.queueServed = false;
+			return null;
+		}
+
+		final Waiter<T> waiter = this.nextWaiter();
+		this.queueServed = waiter != null;
+
+		return waiter;
+	}
+
+	/**
+	 * Takes the longest waiting thread or asynchronous acquisition off the wait queue, skipping the ones that gave up, or returns <code>null</code> if
+	 * nothing is waiting. Must be called while holding the pool lock.
+	 */
+	private Waiter<T> nextWaiter() {
+		while (!this.waitQueue.isEmpty()) {
+			final Waiter<T> waiter = this.waitQueue.dequeue();
+
+			if (!waiter.cancelled) {
+				if (waiter.async) {
+					this.waiters--;
+				}
+
+				return waiter;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Hands an idle object to the longest waiting thread of a fair pool or asynchronous acquisition, or adds it to the queue and signals one waiting
+	 * thread. Must be called while holding the pool lock.
+	 */
+	private void offer(final T t, final long idleSince) {
+		final Waiter<T> waiter = this.nextInLine();
+
+		if (waiter == null) {
+			this.enqueue(t, idleSince);
+			this.sync.signal();
+		} else {
+			waiter.object = t;
+			waiter.idleSince = idleSince;
+			this.handOff(waiter);
+		}
+	}
+
+	/**
+	 * Decrements the size of the pool and signals one waiting thread that there is room for a new object. The room is handed directly to the
+	 * longest waiting thread of a fair pool or asynchronous acquisition instead.
+	 */
+	private void release() {
+		this.sync.lock();
+		try {
+			final Waiter<T> waiter = this.closed ? null : this.nextInLine();
+
+			if (waiter == null) {
+				this.size--;
+				this.sync.signal();
+			} else {
+				waiter.reserved = true;
+				this.handOff(waiter);
+			}
+		} finally {
+			this.sync.unlock();
+		}
+	}
+
+	/**
+	 * Sorts the queue by the time each object became idle, oldest first, so that the maintenance thread finds the objects that have been idle the
+	 * longest at the head. Does nothing if the queue is already in order. Must be called while holding the pool lock.
+	 */
+	@SuppressWarnings("unchecked")
+	private void sortIdle() {
+		final int n = this.queue.getSize();
+		boolean sorted = true;
+
+		for (int i = 1; i < n && sorted; i++) {
+			sorted = this.idleSince[(this.idleHead + i - 1) % this.capacity] <= this.idleSince[(this.idleHead + i) % this.capacity];
+		}
+
+		if (sorted) {
+			return;
+		}
+
+		// 1. Take every object out of the queue along with the time it became idle
+		final Object[] objects = new Object[n];
+		final long[] timestamps = new long[n];
+
+		for (int i = 0; i < n; i++) {
+			timestamps[i] = this.idleSince[this.idleHead];
+			objects[i] = this.dequeue();
+		}
+
+		// 2. Insertion sort, which keeps objects that became idle at the same time in order and is quick on an almost sorted queue
+		for (int i = 1; i < n; i++) {
+			final Object object = objects[i];
+			final long timestamp = timestamps[i];
+			int j = i - 1;
+
+			for (; j >= 0 && timestamps[j] > timestamp; j--) {
+				objects[j + 1] = objects[j];
+				timestamps[j + 1] = timestamps[j];
+			}
+
+			objects[j + 1] = object;
+			timestamps[j + 1] = timestamp;
+		}
+
+		// 3. Put the objects back in order
+		for (int i = 0; i < n; i++) {
+			this.enqueue((T) objects[i], timestamps[i]);
+		}
+	}
+
+	/**
+	 * Starts an asynchronous acquisition as described by {@link #acquireAsync()}, completing it on the {@link Executor} once something is handed to
+	 * it unless the executor is <code>null</code>.
+	 */
+	private Future<T> startAsync(final Executor executor, final PoolAcquireListener<? super T> listener) {
+		final Waiter<T> waiter = new Waiter<>(this.sync.newCondition(), true);
+		final AsyncAcquire acquisition = new AsyncAcquire(waiter, System.nanoTime(), listener);
+
+		log.debug(acquiringObjectFromPool, this.debugParams);
+
+		// 1. Take the object the current thread returned last
+		final int slot = this.getSlot();
+
+		waiter.object = this.slots.getAndSet(slot, null);
+
+		if (waiter.object != null) {
+			waiter.idleSince = this.parkedSince[slot];
+			return this.complete(acquisition, executor);
+		}
+
+		// 2. Take an idle or parked object, reserve room for a new one, or join the wait queue
+		this.sync.lock();
+		try {
+			if (this.closed) {
+				throw new ClosedForBusinessException(this.debugParams);
+			}
+
+			if (!this.queue.isEmpty()) {
+				waiter.object = this.dequeue();
+				waiter.idleSince = this.takenIdleSince;
+			} else if ((waiter.object = this.takeParked()) != null) {
+				// An object parked by another thread is reused before the pool grows
+				waiter.idleSince = this.takenIdleSince;
+			} else if (this.size < this.capacity) {
+				this.size++;
+				waiter.reserved = true;
+			} else {
+				this.waiters++;
+
+				final PoolStatistics statistics = this.statistics;
+
+				if (statistics != null) {
+					statistics.recordWaiting(this.waiters);
+				}
+
+				// Scan the slots after announcing the wait so that abandon() either sees the waiter or parks its object before the scan
+				if ((waiter.object = this.takeParked()) == null) {
+					// The acquisition is completed by whoever hands it an object or room
+					waiter.executor = executor;
+					waiter.completion = acquisition;
+					this.waitQueue.enqueue(waiter);
+
+					return acquisition;
+				}
+
+				waiter.idleSince = this.takenIdleSince;
+				this.waiters--;
+			}
+		} finally {
+			this.sync.unlock();
+		}
+
+		return this.complete(acquisition, executor);
+	}
+
+	/**
+	 * Takes an object parked in the slot of any thread and records the time it was parked in <code>takenIdleSince</code>, or returns
+	 * <code>null</code> if every slot is empty. Must be called while holding the pool lock.
+	 */
+	private T takeParked() {
+		for (int i = 0; i < this.slots.length(); i += padding) {
+			if (this.slots.get(i) != null) {
+				final T t = this.slots.getAndSet(i, null);
+
+				if (t != null) {
+					this.takenIdleSince = this.parkedSince[i];
+					return t;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Validates an idle object outside of the lock, removing it from the pool if it is invalid.
+	 */
+	private boolean validate(final T t) {
+		if (this.factory.validate(t)) {
+			return true;
+		}
+
+		final PoolStatistics statistics = this.statistics;
+
+		if (statistics != null) {
+			statistics.recordValidationFailure();
+		}
+
+		log.debug("Removing an invalid {P} from the pool", this.debugParams);
+		this.remove(t);
+
+		return false;
+	}
+
 } // End PoolConcurrent
@@ -85,21 +85,36 @@ public final class PoolSimple<T> extends Pool<T> {
 	@Override
 	public final T acquire() {
 		// 1. If the pool is full but the queue is empty, throw an exception
-		if (this.size == this.queue.getCapacity() && this.queue.isEmpty()) {
+		if (this.size == this.capacity && this.queue.isEmpty()) {
 			log.throwException(new IllegalStateException("PoolSimple is full but queue is empty"));
 		}
 
+		final PoolStatistics statistics = this.statistics;
+
 		log.debug(acquiringObjectFromPool, this.debugParams);
 		while (!this.queue.isEmpty() && !this.factory.validate(this.queue.peek())) {
 			log.debug("Removing an invalid {P} from the pool", this.debugParams);
 			this.factory.destroy(this.queue.dequeue());
 			this.size--;
+
+			if (statistics != null) {
+				statistics.recordValidationFailure();
+			}
 		}
 
 		if (this.queue.isEmpty()) {
 			log.debug("Creating a new {P} from the factory", this.debugParams);
 			this.size++;
-			return this.factory.create();
+
+			if (statistics == null) {
+				return this.factory.create();
+			}
+
+			final long startTime = System.nanoTime();
+			final T t = this.factory.create();
+			statistics.recordCreate(System.nanoTime() - startTime);
+
+			return t;
 		}
 
 		return this.queue.dequeue();
@@ -116,4 +131,30 @@ public final class PoolSimple<T> extends Pool<T> {
 		}
 	}
 
+	/**
+	 * @see root.pool.Pool#getActiveCount()
+	 */
+	@Override
+	public final int getActiveCount() {
+		return this.size - this.queue.getSize();
+	}
+
+	/**
+	 * @see root.pool.Pool#getIdleCount()
+	 */
+	@Override
+	public final int getIdleCount() {
+		return this.queue.getSize();
+	}
+
+	/**
+	 * Returns zero since a {@code PoolSimple} never waits for an object.
+	 *
+	 * @return zero
+	 */
+	@Override
+	public final int getWaitingCount() {
+		return 0;
+	}
+
 } // End PoolSimple
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.pool;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import root.metrics.Counter;
+import root.metrics.Histogram;
+
+/**
+ * Opt-in statistics recorded by a pool. Statistics are disabled until an instance is handed to a pool through
+ * {@link Pool#setStatistics(PoolStatistics)}, and a pool without statistics pays nothing more than a <code>null</code> check to skip recording them.
+ * <p>
+ * Every counter is a striped {@link Counter} so that recording from many threads does not add contention of its own. The acquire time histogram
+ * shows how long callers wait for an object, and together with the maximum number of waiting threads and the number of timeouts it shows a pool
+ * running out of objects well before callers start to time out.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class PoolStatistics {
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final Histogram acquireTime;
+	private final Histogram createTime;
+	private final Counter validationFailures;
+	private final Counter timeouts;
+	private final AtomicInteger maxWaiting;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	public PoolStatistics() {
+		this.acquireTime = new Histogram();
+		this.createTime = new Histogram();
+		this.validationFailures = new Counter();
+		this.timeouts = new Counter();
+		this.maxWaiting = new AtomicInteger();
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	/**
+	 * Resets every statistic back to zero.
+	 */
+	public final void reset() {
+		this.acquireTime.reset();
+		this.createTime.reset();
+		this.validationFailures.reset();
+		this.timeouts.reset();
+		this.maxWaiting.set(0);
+	}
+
+	@Override
+	public final String toString() {
+		return this.snapshot(0, 0, 0).toString();
+	}
+
+	// <><><><><><><><><><><><><><> Package Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Records an object handed out by the pool.
+	 *
+	 * @param nanos
+	 *            how long the caller waited for the object in nanoseconds
+	 */
+	final void recordAcquire(final long nanos) {
+		this.acquireTime.record(nanos);
+	}
+
+	/**
+	 * Records a new object created by the factory.
+	 *
+	 * @param nanos
+	 *            how long the creation took in nanoseconds
+	 */
+	final void recordCreate(final long nanos) {
+		this.createTime.record(nanos);
+	}
+
+	/**
+	 * Records a caller that gave up waiting for an object.
+	 */
+	final void recordTimeout() {
+		this.timeouts.increment();
+	}
+
+	/**
+	 * Records an idle object that failed validation.
+	 */
+	final void recordValidationFailure() {
+		this.validationFailures.increment();
+	}
+
+	/**
+	 * Records the number of threads waiting on the pool, keeping the highest number seen.
+	 *
+	 * @param numWaiting
+	 *            the number of threads waiting on the pool
+	 */
+	final void recordWaiting(final int numWaiting) {
+		for (int m = this.maxWaiting.get(); numWaiting > m && !this.maxWaiting.compareAndSet(m, numWaiting); m = this.maxWaiting.get()) {
+			;
+		}
+	}
+
+	/**
+	 * Returns a point in time copy of the statistics along with the current state of the pool.
+	 *
+	 * @param activeCount
+	 *            the number of objects currently acquired from the pool
+	 * @param idleCount
+	 *            the number of idle objects in the pool
+	 * @param waitingCount
+	 *            the number of threads currently waiting on the pool
+	 * @return a {@link PoolStatisticsSnapshot} of the statistics
+	 */
+	final PoolStatisticsSnapshot snapshot(final int activeCount, final int idleCount, final int waitingCount) {
+		return new PoolStatisticsSnapshot(activeCount, idleCount, waitingCount, this.maxWaiting.get(), this.acquireTime.snapshot(),
+				this.createTime.snapshot(), this.validationFailures.sum(), this.timeouts.sum());
+	}
+
+} // End PoolStatistics
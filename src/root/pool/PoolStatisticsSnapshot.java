@@ -0,0 +1,149 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.pool;
+
+import root.lang.Extractable;
+import root.lang.StringExtractor;
+import root.metrics.HistogramSnapshot;
+
+/**
+ * An immutable, point in time copy of a {@link PoolStatistics} along with the number of active, idle and waiting objects and threads of the pool.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class PoolStatisticsSnapshot implements Extractable {
+
+	// <><><><><><><><><><><><><><><> Attributes <><><><><><><><><><><><><><><>
+
+	private final int activeCount;
+	private final int idleCount;
+	private final int waitingCount;
+	private final int maxWaitingCount;
+	private final HistogramSnapshot acquireTime;
+	private final HistogramSnapshot createTime;
+	private final long validationFailureCount;
+	private final long timeoutCount;
+
+	// <><><><><><><><><><><><><><>< Constructors ><><><><><><><><><><><><><><>
+
+	PoolStatisticsSnapshot(final int activeCount, final int idleCount, final int waitingCount, final int maxWaitingCount,
+			final HistogramSnapshot acquireTime, final HistogramSnapshot createTime, final long validationFailureCount, final long timeoutCount) {
+		this.activeCount = activeCount;
+		this.idleCount = idleCount;
+		this.waitingCount = waitingCount;
+		this.maxWaitingCount = maxWaitingCount;
+		this.acquireTime = acquireTime;
+		this.createTime = createTime;
+		this.validationFailureCount = validationFailureCount;
+		this.timeoutCount = timeoutCount;
+	}
+
+	// <><><><><><><><><><><><><><> Public Methods <><><><><><><><><><><><><><>
+
+	@Override
+	public final void extract(final StringExtractor extractor) {
+		extractor.append("active=").append(this.activeCount);
+		extractor.append(", idle=").append(this.idleCount);
+		extractor.append(", waiting=").append(this.waitingCount);
+		extractor.append(", maxWaiting=").append(this.maxWaitingCount);
+		extractor.append(", acquires=").append(this.acquireTime);
+		extractor.append(", creates=").append(this.createTime);
+		extractor.append(", validationFailures=").append(this.validationFailureCount);
+		extractor.append(", timeouts=").append(this.timeoutCount);
+	}
+
+	/**
+	 * Returns the histogram of how long callers waited to acquire an object.
+	 *
+	 * @return the read-only {@link HistogramSnapshot} of acquire times
+	 */
+	public final HistogramSnapshot getAcquireTime() {
+		return this.acquireTime;
+	}
+
+	/**
+	 * Returns the number of objects that were acquired from the pool and not yet returned.
+	 *
+	 * @return the number of active objects
+	 */
+	public final int getActiveCount() {
+		return this.activeCount;
+	}
+
+	/**
+	 * Returns the histogram of how long the factory took to create each new object.
+	 *
+	 * @return the read-only {@link HistogramSnapshot} of create times
+	 */
+	public final HistogramSnapshot getCreateTime() {
+		return this.createTime;
+	}
+
+	/**
+	 * Returns the number of idle objects in the pool.
+	 *
+	 * @return the number of idle objects
+	 */
+	public final int getIdleCount() {
+		return this.idleCount;
+	}
+
+	/**
+	 * Returns the highest number of threads that waited on the pool at the same time.
+	 *
+	 * @return the maximum number of waiting threads
+	 */
+	public final int getMaxWaitingCount() {
+		return this.maxWaitingCount;
+	}
+
+	/**
+	 * Returns the number of callers that gave up waiting for an object.
+	 *
+	 * @return the number of timeouts
+	 */
+	public final long getTimeoutCount() {
+		return this.timeoutCount;
+	}
+
+	/**
+	 * Returns the number of idle objects that failed validation.
+	 *
+	 * @return the number of validation failures
+	 */
+	public final long getValidationFailureCount() {
+		return this.validationFailureCount;
+	}
+
+	/**
+	 * Returns the number of threads waiting on the pool.
+	 *
+	 * @return the number of waiting threads
+	 */
+	public final int getWaitingCount() {
+		return this.waitingCount;
+	}
+
+	@Override
+	public final String toString() {
+		final StringExtractor extractor = new StringExtractor();
+		this.extract(extractor);
+		return extractor.toString();
+	}
+
+} // End PoolStatisticsSnapshot
@@ -55,6 +55,15 @@ public final class Sync {
 		this.lock.lock();
 	}
 
+	/**
+	 * Returns a new {@link Condition} bound to the same lock, for callers that need to wake up one specific thread rather than any of them.
+	 *
+	 * @return a new {@link Condition} bound to the lock
+	 */
+	public final Condition newCondition() {
+		return this.lock.newCondition();
+	}
+
 	/**
 	 * Wakes up one thread waiting on the underlying {@link Condition}.
 	 */
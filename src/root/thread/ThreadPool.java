@@ -197,13 +197,7 @@ public final class ThreadPool {
 			throw new IllegalStateException(e);
 		}
 
-		t.sync.lock();
-		try {
-			t.activity = r;
-			t.sync.signal();
-		} finally {
-			t.sync.unlock();
-		}
+		this.handOff(t, r);
 	}
 
 	/**
@@ -247,4 +241,45 @@ public final class ThreadPool {
 		this.pool.setMaxWait(maxWait);
 	}
 
+	/**
+	 * Execute a single {@link Runnable} against the {@link ThreadPool} if a thread is free or another one can be started, without waiting for a
+	 * thread to free up otherwise.
+	 *
+	 * @param r
+	 *            the {@link Runnable} to execute
+	 * @return <code>true</code> if the {@link Runnable} was handed to a thread, or <code>false</code> if every thread is busy
+	 */
+	public final boolean tryExecute(final Runnable r) {
+		final PooledThread t;
+
+		try {
+			t = this.pool.tryAcquire();
+		} catch (final Exception e) {
+			throw new IllegalStateException(e);
+		}
+
+		if (t == null) {
+			return false;
+		}
+
+		this.handOff(t, r);
+
+		return true;
+	}
+
+	// <><><><><><><><><><><><><>< Private Methods ><><><><><><><><><><><><><>
+
+	/**
+	 * Hands the {@link Runnable} to the acquired thread and wakes it up.
+	 */
+	private void handOff(final PooledThread t, final Runnable r) {
+		t.sync.lock();
+		try {
+			t.activity = r;
+			t.sync.signal();
+		} finally {
+			t.sync.unlock();
+		}
+	}
+
 } // End ThreadPool
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.adt;
+
+import java.util.NoSuchElementException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+import root.lang.Itemizer;
+import root.lang.StringExtractor;
+
+/**
+ * Test the {@link CollectorArray} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CollectorArrayTest extends TestCase {
+
+	private CollectorArray<String> collector;
+
+	public CollectorArrayTest() {
+		super("CollectorArray");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.collector = new CollectorArray<>();
+	}
+
+	@Test
+	public void testAdd() {
+		for (int i = 0; i < 8; i++) {
+			this.collector.add("Foo");
+			assertEquals(i + 1, this.collector.size);
+			assertEquals("Foo", this.collector.values[i]);
+		}
+
+		assertEquals(8, this.collector.values.length);
+
+		this.collector.add("Foo");
+		assertEquals(9, this.collector.size);
+		assertEquals(16, this.collector.values.length);
+		assertEquals("Foo", this.collector.values[8]);
+	}
+
+	@Test
+	public void testAddNull() {
+		this.collector.add(null);
+		assertEquals(1, this.collector.size);
+		assertNull(this.collector.values[0]);
+
+		this.collector.add("Foo");
+		assertEquals(2, this.collector.size);
+		assertEquals("Foo", this.collector.values[1]);
+	}
+
+	@Test
+	public void testClear() {
+		assertEquals(0, this.collector.size);
+		this.collector.add("Foo");
+		assertEquals(1, this.collector.size);
+		this.collector.clear();
+		assertEquals(0, this.collector.size);
+		assertNull(this.collector.values[0]);
+	}
+
+	@Test
+	public void testConstructorCapacity() {
+		CollectorArray<String> a = new CollectorArray<>(15);
+		assertEquals(0, a.size);
+		assertEquals(15, a.values.length);
+
+		// Test minimum capacity of 8
+		a = new CollectorArray<>(7);
+		assertEquals(0, a.size);
+		assertEquals(8, a.values.length);
+	}
+
+	@Test
+	public void testConstructorDefault() {
+		assertEquals(0, this.collector.size);
+		assertEquals(8, this.collector.values.length);
+	}
+
+	@Test
+	public void testEquals() {
+		final CollectorArray<String> testCollector = new CollectorArray<>();
+		assertTrue(this.collector.equals(testCollector));
+
+		testCollector.add("Foo");
+		assertFalse(this.collector.equals(testCollector));
+
+		this.collector.add("Foo");
+		assertTrue(this.collector.equals(testCollector));
+
+		testCollector.add(null);
+		this.collector.add("Bar");
+		assertFalse(this.collector.equals(testCollector));
+	}
+
+	@Test
+	public void testExtract() {
+		final StringExtractor extractor = new StringExtractor();
+		this.collector.extract(extractor);
+		assertEquals("[]", extractor.toString());
+
+		this.collector.add("Foo");
+
+		extractor.clear();
+		this.collector.extract(extractor);
+		assertEquals("[Foo]", extractor.toString());
+
+		this.collector.add("Bar");
+
+		extractor.clear();
+		this.collector.extract(extractor);
+		assertEquals("[Foo,Bar]", extractor.toString());
+	}
+
+	@Test
+	public void testGet() {
+		assertNull(this.collector.get(0));
+		this.collector.add("Foo");
+		assertEquals("Foo", this.collector.get(0));
+
+		try {
+			this.collector.get(8);
+			fail("Expected java.lang.ArrayIndexOutOfBoundsException was not thrown");
+		} catch (final ArrayIndexOutOfBoundsException e) {
+		}
+	}
+
+	@Test
+	public void testGetSize() {
+		assertEquals(0, this.collector.getSize());
+		this.collector.add("Foo");
+		assertEquals(1, this.collector.getSize());
+	}
+
+	@Test
+	public void testHashCode() {
+		assertEquals(0, this.collector.hashCode());
+
+		this.collector.add("Foo");
+		assertEquals(70820, this.collector.hashCode());
+
+		this.collector.add("Bar");
+		assertEquals(207543, this.collector.hashCode());
+	}
+
+	@Test
+	public void testIsEmpty() {
+		assertTrue(this.collector.isEmpty());
+
+		this.collector.add("Foo");
+		assertFalse(this.collector.isEmpty());
+	}
+
+	@Test
+	public void testIterator() {
+		Itemizer<String> itemizer = this.collector.iterator();
+
+		// Test empty collector
+		assertEquals(-1, itemizer.getIndex());
+		assertEquals(0, itemizer.getSize());
+		assertFalse(itemizer.hasNext());
+		assertTrue(itemizer == itemizer.iterator());
+
+		try {
+			itemizer.next();
+			fail("Expected java.util.NoSuchElementException was not thrown");
+		} catch (final NoSuchElementException e) {
+		}
+
+		try {
+			itemizer.remove();
+			fail("Expected java.lang.UnsupportedOperationException was not thrown");
+		} catch (final UnsupportedOperationException e) {
+		}
+
+		this.collector.add("Foo");
+		this.collector.add("Bar");
+		itemizer = this.collector.iterator();
+
+		assertEquals(-1, itemizer.getIndex());
+		assertEquals(2, itemizer.getSize());
+		assertTrue(itemizer.hasNext());
+
+		assertEquals("Foo", itemizer.next());
+		assertEquals(0, itemizer.getIndex());
+		assertTrue(itemizer.hasNext());
+
+		assertEquals("Bar", itemizer.next());
+		assertEquals(1, itemizer.getIndex());
+		assertFalse(itemizer.hasNext());
+
+		itemizer.reset();
+		assertEquals(-1, itemizer.getIndex());
+		assertTrue(itemizer.hasNext());
+		itemizer.next();
+		assertTrue(itemizer.hasNext());
+		itemizer.next();
+		assertFalse(itemizer.hasNext());
+	}
+
+	@Test
+	public void testToArray() {
+		Object[] array = this.collector.toArray();
+		assertNotNull(array);
+		assertEquals(0, array.length);
+
+		this.collector.add("Foo");
+		this.collector.add("Bar");
+		array = this.collector.toArray();
+
+		assertNotNull(array);
+		assertEquals(2, array.length);
+		assertEquals("Foo", array[0]);
+		assertEquals("Bar", array[1]);
+	}
+
+	@Test
+	public void testToString() {
+		assertEquals("[]", this.collector.toString());
+
+		this.collector.add("Foo");
+		assertEquals("[Foo]", this.collector.toString());
+
+		this.collector.add("Bar");
+		assertEquals("[Foo,Bar]", this.collector.toString());
+	}
+
+} // End CollectorArrayTest
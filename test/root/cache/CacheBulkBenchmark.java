@@ -0,0 +1,132 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import root.adt.CollectorArray;
+import root.adt.ListArray;
+import root.metrics.Stopwatch;
+
+/**
+ * Benchmark of the bulk {@link RootCache#getAll(Iterable, root.adt.Collector)} and {@link RootCache#putAll(java.util.Map)} calls against the same
+ * number of single {@link RootCache#get(Object)} and {@link RootCache#put(Object, Object)} calls on {@link CacheLRUConcurrent} and
+ * {@link CacheTimedConcurrent}. Every run touches the same total number of keys, so the per-key cost is the run time divided by
+ * <code>keysPerRun</code> for each batch size.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheBulkBenchmark {
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final int capacity = 65536;
+	private static final int numKeys = capacity << 1;
+	private static final int keysPerRun = 1 << 22;
+	private static final int[] batchSizes = { 1, 16, 256 };
+
+	// <><><><><><><><><><><><><><> Static Methods <><><><><><><><><><><><><><>
+
+	public static void main(final String[] args) {
+		final Random random = new Random(0);
+		final Integer[] keys = new Integer[numKeys];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = Integer.valueOf(random.nextInt(numKeys));
+		}
+
+		final Stopwatch stopwatch = new Stopwatch();
+
+		for (final int batchSize : batchSizes) {
+			run(stopwatch, "CacheLRUConcurrent", new CacheLRUConcurrent<Integer, Integer>(capacity), keys, batchSize);
+			run(stopwatch, "CacheTimedConcurrent", new CacheTimedConcurrent<Integer, Integer>(capacity, 60000), keys, batchSize);
+
+			System.out.println("------------------------------------------------");
+			System.out.println(stopwatch.getExecutionRunReport());
+		}
+
+		System.out.println("******************* End ************************");
+		System.out.println(stopwatch);
+
+		System.exit(0);
+	}
+
+	private static void run(final Stopwatch stopwatch, final String name, final RootCache<Integer, Integer> cache, final Integer[] keys,
+			final int batchSize) {
+		final int numBatches = keysPerRun / batchSize;
+		final CollectorArray<Integer> values = new CollectorArray<>(batchSize);
+		final HashMap<Integer, Integer> map = new HashMap<>(batchSize << 1);
+		final ListArray<Integer> batch = new ListArray<>(batchSize);
+		long startTime;
+		int k = 0;
+
+		// 1. Single put() calls
+		stopwatch.start(name + " put x" + batchSize);
+		startTime = System.nanoTime();
+		for (int i = 0; i < keysPerRun; i++) {
+			final Integer key = keys[i & (numKeys - 1)];
+			cache.put(key, key);
+		}
+		report(name + " put", batchSize, startTime);
+		stopwatch.stop();
+
+		// 2. Bulk putAll() calls
+		stopwatch.start(name + " putAll x" + batchSize);
+		startTime = System.nanoTime();
+		for (int i = 0; i < numBatches; i++) {
+			map.clear();
+			for (int j = 0; j < batchSize; j++) {
+				final Integer key = keys[k++ & (numKeys - 1)];
+				map.put(key, key);
+			}
+			cache.putAll(map);
+		}
+		report(name + " putAll", batchSize, startTime);
+		stopwatch.stop();
+
+		// 3. Single get() calls
+		stopwatch.start(name + " get x" + batchSize);
+		startTime = System.nanoTime();
+		for (int i = 0; i < keysPerRun; i++) {
+			cache.get(keys[i & (numKeys - 1)]);
+		}
+		report(name + " get", batchSize, startTime);
+		stopwatch.stop();
+
+		// 4. Bulk getAll() calls
+		stopwatch.start(name + " getAll x" + batchSize);
+		startTime = System.nanoTime();
+		for (int i = 0; i < numBatches; i++) {
+			batch.clear();
+			for (int j = 0; j < batchSize; j++) {
+				batch.add(keys[k++ & (numKeys - 1)]);
+			}
+			values.clear();
+			cache.getAll(batch, values);
+		}
+		report(name + " getAll", batchSize, startTime);
+		stopwatch.stop();
+	}
+
+	private static void report(final String name, final int batchSize, final long startTime) {
+		final double nanosPerKey = (double) (System.nanoTime() - startTime) / keysPerRun;
+
+		System.out.println(String.format("%-32s batch %4d: %8.1f ns/key", name, batchSize, nanosPerKey));
+	}
+
+} // End CacheBulkBenchmark
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import root.metrics.Histogram;
+import root.metrics.HistogramSnapshot;
+
+/**
+ * Tail latency benchmark of {@link CacheLRUBuffered} against {@link CacheLRUConcurrent}. Each run starts the same number of threads against both
+ * caches where every thread performs a 90/10 mix of {@link RootCache#get(Object)} and {@link RootCache#put(Object, Object)} calls over a shared key
+ * space, timing each get into a {@link Histogram}. The p50, p99 and maximum get latencies are printed for every thread count, so the point where
+ * the lock of {@link CacheLRUConcurrent} starts to stretch the tail shows up directly.
+ * <p>
+ * The histogram buckets are powers of two, so each percentile is an upper bound accurate to within a factor of two.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheLRUBufferedBenchmark {
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final int capacity = 65536;
+	private static final int numKeys = capacity << 1;
+	private static final int opsPerThread = 1000000;
+	private static final int[] threadCounts = { 1, 2, 4, 8, 16, 32 };
+
+	// <><><><><><><><><><><><><><> Static Methods <><><><><><><><><><><><><><>
+
+	public static void main(final String[] args) throws InterruptedException {
+		final Integer[] keys = new Integer[numKeys];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = Integer.valueOf(i);
+		}
+
+		// Warm up both caches so the first measured run is not paying for class loading and compilation
+		run(new CacheLRUConcurrent<Integer, Integer>(capacity), keys, 4);
+		run(new CacheLRUBuffered<Integer, Integer>(capacity), keys, 4);
+
+		for (final int numThreads : threadCounts) {
+			System.out.println("------------------------------------------------");
+			print("CacheLRUConcurrent", run(new CacheLRUConcurrent<Integer, Integer>(capacity), keys, numThreads), numThreads);
+			print("CacheLRUBuffered", run(new CacheLRUBuffered<Integer, Integer>(capacity), keys, numThreads), numThreads);
+		}
+
+		System.out.println("******************* End ************************");
+
+		System.exit(0);
+	}
+
+	private static void print(final String name, final HistogramSnapshot getTime, final int numThreads) {
+		System.out.println(String.format("%-20s x%-3d p50 %8d ns, p99 %8d ns, max %10d ns", name, numThreads, getTime.getPercentile(0.5),
+				getTime.getPercentile(0.99), getTime.getMax()));
+	}
+
+	private static HistogramSnapshot run(final RootCache<Integer, Integer> cache, final Integer[] keys, final int numThreads)
+			throws InterruptedException {
+		final Histogram getTime = new Histogram();
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(numThreads);
+
+		for (int i = 0; i < capacity; i++) {
+			cache.put(keys[i], keys[i]);
+		}
+
+		for (int t = 0; t < numThreads; t++) {
+			final long seed = t;
+
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					final Random random = new Random(seed);
+
+					try {
+						start.await();
+
+						for (int i = 0; i < opsPerThread; i++) {
+							final Integer key = keys[random.nextInt(keys.length)];
+
+							if (random.nextInt(10) == 0) {
+								cache.put(key, key);
+							} else {
+								final long startTime = System.nanoTime();
+								cache.get(key);
+								getTime.record(System.nanoTime() - startTime);
+							}
+						}
+					} catch (final InterruptedException e) {
+						// Nothing to do
+					} finally {
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+
+		start.countDown();
+		done.await();
+
+		return getTime.snapshot();
+	}
+
+} // End CacheLRUBufferedBenchmark
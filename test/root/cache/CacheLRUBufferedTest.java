@@ -0,0 +1,118 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the {@link CacheLRUBuffered} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheLRUBufferedTest extends TestCase {
+
+	private static final int numThreads = 8;
+
+	private CacheLRUBuffered<Integer, String> cache;
+
+	public CacheLRUBufferedTest() {
+		super("CacheLRUBuffered");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.cache = new CacheLRUBuffered<>(16);
+
+		for (int i = 0; i < this.cache.getCapacity(); i++) {
+			this.cache.put(i, "v" + i);
+		}
+	}
+
+	@Test
+	public void testConcurrentAccess() throws InterruptedException {
+		final CountDownLatch done = new CountDownLatch(numThreads);
+		final AtomicInteger failures = new AtomicInteger();
+
+		for (int t = 0; t < numThreads; t++) {
+			final int seed = t;
+
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < 100000; i++) {
+							final int key = (i * 31 + seed) % 64;
+
+							if (i % 4 == 0) {
+								CacheLRUBufferedTest.this.cache.put(key, "v" + key);
+							} else {
+								final String value = CacheLRUBufferedTest.this.cache.get(key);
+
+								if (value != null && !value.equals("v" + key)) {
+									failures.incrementAndGet();
+								}
+							}
+						}
+					} catch (final RuntimeException e) {
+						failures.incrementAndGet();
+					} finally {
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+
+		done.await();
+		assertEquals(0, failures.get());
+		assertEquals(this.cache.getCapacity(), this.cache.getSize());
+		assertEquals(this.cache.getCapacity(), this.cache.getKeys().getSize());
+	}
+
+	@Test
+	public void testEvictionOrder() {
+		// The buffered read of the oldest entry is replayed before the put evicts, so the next oldest entry goes instead
+		assertEquals("v0", this.cache.get(0));
+		assertEquals("v1", this.cache.put(100, "v100"));
+		assertNull(this.cache.get(1));
+		assertEquals("v0", this.cache.get(0));
+
+		assertEquals("v2", this.cache.removeNext());
+		assertEquals(this.cache.getCapacity() - 1, this.cache.getSize());
+	}
+
+	@Test
+	public void testPutAndRemove() {
+		assertEquals("v3", this.cache.put(3, "x3"));
+		assertEquals("x3", this.cache.get(3));
+		assertEquals("x3", this.cache.remove(3));
+		assertNull(this.cache.get(3));
+		assertNull(this.cache.remove(3));
+
+		this.cache.clear();
+		assertTrue(this.cache.isEmpty());
+		assertNull(this.cache.get(0));
+	}
+
+} // End CacheLRUBufferedTest
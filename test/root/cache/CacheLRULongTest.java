@@ -0,0 +1,130 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the {@link CacheLRULong} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheLRULongTest extends TestCase {
+
+	public CacheLRULongTest() {
+		super("CacheLRULong");
+	}
+
+	@Test
+	public void testBackwardShiftDelete() {
+		final CacheLRULong<String> cache = new CacheLRULong<>(64);
+
+		// Sequential keys land in clusters that wrap around the table, so every removal shifts part of a probe sequence backwards
+		for (long key = 0; key < 64; key++) {
+			cache.put(key << 20, "v" + key);
+		}
+
+		for (long key = 0; key < 64; key += 2) {
+			assertEquals("v" + key, cache.remove(key << 20));
+		}
+
+		for (long key = 0; key < 64; key++) {
+			assertEquals(key % 2 == 0 ? null : "v" + key, cache.get(key << 20));
+		}
+
+		assertEquals(32, cache.getSize());
+	}
+
+	@Test
+	public void testEvictionOrder() {
+		final CacheLRULong<String> cache = new CacheLRULong<>(8);
+
+		for (long key = 0; key < 8; key++) {
+			cache.put(key, "v" + key);
+		}
+
+		assertEquals("v0", cache.get(0));
+		assertEquals("v1", cache.put(8, "v8"));
+		assertNull(cache.get(1));
+		assertEquals("v2", cache.removeNext());
+		assertEquals(7, cache.getSize());
+
+		cache.clear();
+		assertTrue(cache.isEmpty());
+		assertNull(cache.get(0));
+	}
+
+	/**
+	 * Runs a random mix of operations on a small, crowded cache against a reference LRU map.
+	 */
+	@Test
+	public void testMatchesReference() {
+		final CacheLRULong<Long> cache = new CacheLRULong<>(16);
+		final LinkedHashMap<Long, Long> reference = new LinkedHashMap<>();
+		final Random random = new Random(42);
+
+		for (int n = 0; n < 200000; n++) {
+			final long key = random.nextInt(48) * 0x9e3779b9L;
+
+			switch (random.nextInt(4)) {
+			case 0:
+				final Long expected = reference.remove(key);
+
+				if (expected != null) {
+					reference.put(key, expected);
+				}
+
+				assertEquals(expected, cache.get(key));
+				break;
+			case 1:
+				if (!reference.containsKey(key) && reference.size() == cache.getCapacity()) {
+					final Iterator<Long> oldest = reference.values().iterator();
+					oldest.next();
+					oldest.remove();
+				}
+
+				reference.put(key, Long.valueOf(n));
+				cache.put(key, Long.valueOf(n));
+				break;
+			case 2:
+				assertEquals(reference.remove(key), cache.remove(key));
+				break;
+			default:
+				if (random.nextInt(8) == 0) {
+					final Iterator<Long> oldest = reference.values().iterator();
+					final Long expectedNext = oldest.hasNext() ? oldest.next() : null;
+
+					if (expectedNext != null) {
+						oldest.remove();
+					}
+
+					assertEquals(expectedNext, cache.removeNext());
+				}
+			}
+
+			assertEquals(reference.size(), cache.getSize());
+		}
+	}
+
+} // End CacheLRULongTest
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import root.metrics.Stopwatch;
+
+/**
+ * Contention benchmark of {@link CacheLRUSegmented} against {@link CacheLRUConcurrent}. Each run starts the same number of threads against both
+ * caches where every thread performs a 90/10 mix of {@link RootCache#get(Object)} and {@link RootCache#put(Object, Object)} calls over a shared key
+ * space.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheLRUSegmentedBenchmark {
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final int capacity = 65536;
+	private static final int numKeys = capacity << 1;
+	private static final int opsPerThread = 1000000;
+	private static final int[] threadCounts = { 1, 2, 4, 8, 16, 32 };
+
+	// <><><><><><><><><><><><><><> Static Methods <><><><><><><><><><><><><><>
+
+	public static void main(final String[] args) throws InterruptedException {
+		final Integer[] keys = new Integer[numKeys];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = Integer.valueOf(i);
+		}
+
+		final Stopwatch stopwatch = new Stopwatch();
+
+		for (final int numThreads : threadCounts) {
+			final String concurrent = "CacheLRUConcurrent x" + numThreads;
+			final String segmented = "CacheLRUSegmented x" + numThreads;
+
+			stopwatch.start(concurrent);
+			run(new CacheLRUConcurrent<Integer, Integer>(capacity), keys, numThreads);
+			stopwatch.stop();
+
+			stopwatch.start(segmented);
+			run(new CacheLRUSegmented<Integer, Integer>(capacity), keys, numThreads);
+			stopwatch.stop();
+
+			System.out.println("------------------------------------------------");
+			System.out.println(stopwatch.getExecutionRunReport());
+		}
+
+		System.out.println("******************* End ************************");
+		System.out.println(stopwatch);
+
+		System.exit(0);
+	}
+
+	private static void run(final RootCache<Integer, Integer> cache, final Integer[] keys, final int numThreads) throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(numThreads);
+
+		for (int t = 0; t < numThreads; t++) {
+			final long seed = t;
+
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					final Random random = new Random(seed);
+
+					try {
+						start.await();
+
+						for (int i = 0; i < opsPerThread; i++) {
+							final Integer key = keys[random.nextInt(keys.length)];
+
+							if (random.nextInt(10) == 0) {
+								cache.put(key, key);
+							} else {
+								cache.get(key);
+							}
+						}
+					} catch (final InterruptedException e) {
+						// Nothing to do
+					} finally {
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+
+		start.countDown();
+		done.await();
+	}
+
+} // End CacheLRUSegmentedBenchmark
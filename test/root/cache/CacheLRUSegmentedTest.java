@@ -0,0 +1,138 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+import root.adt.CollectorArray;
+import root.adt.ListArray;
+import root.validation.InvalidParameterException;
+
+/**
+ * Test the {@link CacheLRUSegmented} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheLRUSegmentedTest extends TestCase {
+
+	public CacheLRUSegmentedTest() {
+		super("CacheLRUSegmented");
+	}
+
+	@Test
+	public void testCapacity() {
+		assertEquals(17, new CacheLRUSegmented<Integer, Integer>(17, 16).getCapacity());
+		assertEquals(1000, new CacheLRUSegmented<Integer, Integer>(1000, 7).getCapacity());
+
+		// There are never more segments than entries
+		final CacheLRUSegmented<Integer, Integer> cache = new CacheLRUSegmented<>(5, 16);
+
+		for (int i = 0; i < 100; i++) {
+			cache.put(i, i);
+		}
+
+		assertEquals(5, cache.getCapacity());
+		assertEquals(5, cache.getSize());
+
+		try {
+			new CacheLRUSegmented<Integer, Integer>(0, 4);
+			fail("Expected root.validation.InvalidParameterException was not thrown");
+		} catch (final InvalidParameterException e) {
+		}
+	}
+
+	@Test
+	public void testEvictionOrder() {
+		final CacheLRUSegmented<Integer, String> cache = new CacheLRUSegmented<>(4, 1);
+
+		for (int i = 0; i < 4; i++) {
+			cache.put(i, "v" + i);
+		}
+
+		// Reading the oldest entry makes the next oldest the first one evicted
+		assertEquals("v0", cache.get(0));
+		assertEquals("v1", cache.put(4, "v4"));
+		assertNull(cache.get(1));
+		assertEquals("v2", cache.put(5, "v5"));
+		assertEquals(new ListArray<>(3, 0, 4, 5), cache.getKeys());
+	}
+
+	@Test
+	public void testGetAll() {
+		final CacheLRUSegmented<Integer, String> cache = new CacheLRUSegmented<>(64, 4);
+		final CollectorArray<String> values = new CollectorArray<>();
+
+		for (int i = 0; i < 10; i++) {
+			cache.put(i, "v" + i);
+		}
+
+		assertEquals(2, cache.getAll(Arrays.asList(3, 42, 9), values));
+		assertEquals("v3", values.get(0));
+		assertNull(values.get(1));
+		assertEquals("v9", values.get(2));
+
+		// Keys spread over every segment, repeated or missing, still come back in the order they were asked for
+		final CollectorArray<String> spread = new CollectorArray<>();
+
+		assertEquals(9, cache.getAll(Arrays.asList(7, 6, 5, 4, 40, 3, 2, 1, 0, 7), spread));
+		assertEquals(10, spread.getSize());
+		assertEquals("v7", spread.get(0));
+		assertEquals("v4", spread.get(3));
+		assertNull(spread.get(4));
+		assertEquals("v0", spread.get(8));
+		assertEquals("v7", spread.get(9));
+	}
+
+	@Test
+	public void testPutAll() {
+		final CacheLRUSegmented<Integer, String> cache = new CacheLRUSegmented<>(64, 4);
+		final HashMap<Integer, String> map = new HashMap<>();
+
+		for (int i = 0; i < 20; i++) {
+			map.put(i, "v" + i);
+		}
+
+		cache.putAll(map);
+		assertEquals(20, cache.getSize());
+
+		for (int i = 0; i < 20; i++) {
+			assertEquals("v" + i, cache.get(i));
+		}
+	}
+
+	@Test
+	public void testRemove() {
+		final CacheLRUSegmented<Integer, String> cache = new CacheLRUSegmented<>(64, 4);
+
+		for (int i = 0; i < 10; i++) {
+			cache.put(i, "v" + i);
+		}
+
+		assertEquals("v7", cache.remove(7));
+		assertNull(cache.get(7));
+		assertEquals(9, cache.getSize());
+
+		cache.clear();
+		assertTrue(cache.isEmpty());
+	}
+
+} // End CacheLRUSegmentedTest
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+import root.thread.ThreadPool;
+
+/**
+ * Test the {@link CacheLoading} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheLoadingTest extends TestCase {
+
+	private static final int numThreads = 16;
+
+	/**
+	 * Counts its loads and holds each one until <code>release</code> opens, so that every other thread has time to miss on the same key. If
+	 * <code>selfLoad</code> is set, the loader first asks the cache for the key it is loading and records the exception it receives.
+	 */
+	private final class Loader implements CacheLoader<Integer, String> {
+
+		private final AtomicInteger numLoads = new AtomicInteger();
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final CopyOnWriteArrayList<RuntimeException> selfLoadFailures = new CopyOnWriteArrayList<>();
+		private volatile boolean selfLoad;
+
+		@Override
+		public String load(final Integer key) throws Exception {
+			this.numLoads.incrementAndGet();
+
+			if (this.selfLoad) {
+				try {
+					CacheLoadingTest.this.cache.get(key);
+				} catch (final CacheLoadException e) {
+					this.selfLoadFailures.add(e);
+				}
+			}
+
+			this.release.await(5, TimeUnit.SECONDS);
+
+			return "v" + key;
+		}
+	}
+
+	private Loader loader;
+	private CacheLoading<Integer, String> cache;
+
+	public CacheLoadingTest() {
+		super("CacheLoading");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.loader = new Loader();
+		this.cache = new CacheLoading<>(new CacheLRUConcurrent<Integer, String>(16), this.loader);
+	}
+
+	@Test
+	public void testConcurrentMissesLoadOnce() throws InterruptedException {
+		final CopyOnWriteArrayList<Object> results = this.missConcurrently(7);
+
+		// Every thread missed on the same key while the first one was loading it, so they all share that single load
+		assertEquals(1, this.loader.numLoads.get());
+		assertEquals(numThreads, results.size());
+
+		for (final Object result : results) {
+			assertEquals("v7", result);
+		}
+
+		assertEquals("v7", this.cache.get(7));
+		assertEquals(1, this.loader.numLoads.get());
+	}
+
+	@Test
+	public void testLoaderAskingForItsOwnKeyFails() throws InterruptedException {
+		this.loader.selfLoad = true;
+
+		final CopyOnWriteArrayList<Object> results = this.missConcurrently(3);
+
+		// Only the loading thread is told it asked for its own key, while the threads waiting on it still receive the loaded value
+		assertEquals(1, this.loader.numLoads.get());
+		assertEquals(1, this.loader.selfLoadFailures.size());
+		assertTrue(this.loader.selfLoadFailures.get(0).getCause() instanceof IllegalStateException);
+
+		for (final Object result : results) {
+			assertEquals("v3", result);
+		}
+	}
+
+	@Test
+	public void testRefreshNeverWaitsForABusyPool() throws InterruptedException {
+		final CacheTimedConcurrent<Integer, String> timed = new CacheTimedConcurrent<>(16, 60000);
+		final ThreadPool refreshPool = new ThreadPool(1, "Refresh");
+		final CacheLoading<Integer, String> refreshing = new CacheLoading<>(timed, this.loader, 120000, refreshPool);
+
+		timed.put(1, "old1");
+		timed.put(2, "old2");
+
+		try {
+			// Every hit falls within the refresh window, so the first one occupies the only refresh thread until the load is released
+			assertEquals("old1", refreshing.get(1));
+
+			for (int i = 0; i < 500 && this.loader.numLoads.get() == 0; i++) {
+				Thread.sleep(10);
+			}
+
+			assertEquals(1, this.loader.numLoads.get());
+
+			// A hit while the refresh thread is busy returns right away and skips its refresh instead of waiting for the thread
+			final AtomicInteger numHits = new AtomicInteger();
+			final Thread reader = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					if ("old2".equals(refreshing.get(2))) {
+						numHits.incrementAndGet();
+					}
+				}
+			});
+
+			reader.start();
+			reader.join(5000);
+			assertEquals(1, numHits.get());
+			assertEquals(1, this.loader.numLoads.get());
+
+			this.loader.release.countDown();
+
+			for (int i = 0; i < 500 && !"v1".equals(timed.get(1)); i++) {
+				Thread.sleep(10);
+			}
+
+			assertEquals("v1", timed.get(1));
+			assertEquals("old2", timed.get(2));
+		} finally {
+			this.loader.release.countDown();
+			refreshPool.close();
+		}
+	}
+
+	/**
+	 * Starts <code>numThreads</code> threads that all get the key from the empty cache, releases the load once they are all running and returns
+	 * what each thread received, either its value or its exception.
+	 */
+	private CopyOnWriteArrayList<Object> missConcurrently(final Integer key) throws InterruptedException {
+		final CopyOnWriteArrayList<Object> results = new CopyOnWriteArrayList<>();
+		final CountDownLatch started = new CountDownLatch(numThreads);
+		final Thread[] threads = new Thread[numThreads];
+
+		for (int t = 0; t < numThreads; t++) {
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					started.countDown();
+
+					try {
+						results.add(CacheLoadingTest.this.cache.get(key));
+					} catch (final RuntimeException e) {
+						results.add(e);
+					}
+				}
+			});
+
+			threads[t].start();
+		}
+
+		// Give the threads that lost the race to start the load time to block on it before it completes
+		started.await(5, TimeUnit.SECONDS);
+		Thread.sleep(100);
+		this.loader.release.countDown();
+
+		for (final Thread thread : threads) {
+			thread.join(5000);
+		}
+
+		return results;
+	}
+
+} // End CacheLoadingTest
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+import root.lang.ConcurrentItemizer;
+import root.validation.InvalidParameterException;
+
+/**
+ * Test the {@link CacheOffHeap} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheOffHeapTest extends TestCase {
+
+	private static final class StringSerializer implements CacheSerializer<String> {
+
+		@Override
+		public String deserialize(final byte[] bytes) {
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public byte[] serialize(final String s) {
+			return s.getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	/** Sixteen 4 KB slabs */
+	private CacheOffHeap<String, String> cache;
+
+	/** Needs a 4 KB chunk, so each large value fills a whole slab */
+	private String largeValue;
+
+	/** Needs a 64 byte chunk */
+	private String smallValue;
+
+	public CacheOffHeapTest() {
+		super("CacheOffHeap");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.cache = new CacheOffHeap<>(1000, 64 * 1024, 4096, new StringSerializer(), new StringSerializer());
+
+		final char[] chars = new char[3000];
+		Arrays.fill(chars, 'L');
+		this.largeValue = new String(chars);
+		this.smallValue = "small";
+
+		for (int i = 0; i < 16; i++) {
+			this.cache.put("L" + i, this.largeValue + i);
+		}
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsedOfSizeClass() {
+		this.cache.get("L0");
+		this.cache.put("L16", this.largeValue);
+
+		assertEquals(16, this.cache.getSize());
+		assertNotNull(this.cache.get("L0"));
+		assertNull(this.cache.get("L1"));
+		assertEquals(this.largeValue, this.cache.get("L16"));
+	}
+
+	@Test
+	public void testIteratorStartsAtHeadOnceLocked() {
+		final ConcurrentItemizer<String> values = this.cache.iterator();
+
+		// L0 becomes the most recently used entry after the iterator was created, so iterating starts at L1 once the lock is held
+		this.cache.get("L0");
+		values.lock();
+
+		try {
+			assertTrue(values.hasNext());
+			assertEquals(this.largeValue + 1, values.next());
+
+			int numValues = 1;
+			for (; values.hasNext(); values.next()) {
+				numValues++;
+			}
+
+			assertEquals(16, numValues);
+		} finally {
+			values.unlock();
+		}
+	}
+
+	@Test
+	public void testMaxBytesBelowOneSlab() {
+		try {
+			new CacheOffHeap<>(1000, 4095, 4096, new StringSerializer(), new StringSerializer());
+			fail("Expected root.validation.InvalidParameterException was not thrown");
+		} catch (final InvalidParameterException e) {
+		}
+
+		try {
+			new CacheOffHeap<>(1000, 0, 4096, new StringSerializer(), new StringSerializer());
+			fail("Expected root.validation.InvalidParameterException was not thrown");
+		} catch (final InvalidParameterException e) {
+		}
+
+		assertEquals(0, new CacheOffHeap<>(1000, 4096, 4096, new StringSerializer(), new StringSerializer()).getSize());
+	}
+
+	@Test
+	public void testReplaceWithAnotherSizeClass() {
+		// The small size class takes the slab of L0, then the old value of L5 is removed
+		assertEquals(this.largeValue + 5, this.cache.put("L5", this.smallValue));
+		assertEquals(this.smallValue, this.cache.get("L5"));
+		assertNull(this.cache.get("L0"));
+		assertEquals(15, this.cache.getSize());
+
+		// A value of the same size class is written over the old one
+		assertEquals(this.largeValue + 6, this.cache.put("L6", this.largeValue));
+		assertEquals(this.largeValue, this.cache.get("L6"));
+		assertEquals(15, this.cache.getSize());
+		assertEquals(64 * 1024, this.cache.getAllocatedBytes());
+	}
+
+	@Test
+	public void testSizeClassTakesOverSlab() {
+		final ArrayList<String> evicted = new ArrayList<>();
+
+		this.cache.setEvictionListener(new CacheEvictionListener<String, String>() {
+			@Override
+			public void onEviction(final String key, final String value) {
+				evicted.add(key);
+			}
+		});
+
+		// Every slab holds a large value, so the small size class takes over the slab of the least recently used entry
+		this.cache.put("s0", this.smallValue);
+		assertEquals(this.smallValue, this.cache.get("s0"));
+		assertEquals(Arrays.asList("L0"), evicted);
+
+		// The rest of the slab is used before any other entry is evicted
+		for (int i = 1; i < 64; i++) {
+			this.cache.put("s" + i, this.smallValue);
+		}
+
+		assertEquals(79, this.cache.getSize());
+		assertEquals(1, evicted.size());
+
+		// Now the small size class evicts its own least recently used entry
+		this.cache.put("s64", this.smallValue);
+		assertEquals(Arrays.asList("L0", "s0"), evicted);
+		assertEquals(this.largeValue + 1, this.cache.get("L1"));
+	}
+
+} // End CacheOffHeapTest
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+import root.adt.ListArray;
+
+/**
+ * Test the {@link CacheSnapshot} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheSnapshotTest extends TestCase {
+
+	private static final class StringSerializer implements CacheSerializer<String> {
+
+		@Override
+		public String deserialize(final byte[] bytes) {
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public byte[] serialize(final String s) {
+			return s.getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	private CacheSnapshot<String> snapshot;
+	private File file;
+
+	public CacheSnapshotTest() {
+		super("CacheSnapshot");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.snapshot = new CacheSnapshot<>(new StringSerializer());
+		this.file = File.createTempFile("CacheSnapshotTest", ".snapshot");
+		this.file.deleteOnExit();
+	}
+
+	@Test
+	public void testCorruptKeyCount() throws IOException {
+		// A key count far beyond what the file holds is rejected before anything is allocated
+		this.write(Integer.MAX_VALUE, 1, 'a');
+		this.assertCorrupt();
+
+		this.write(-1);
+		this.assertCorrupt();
+	}
+
+	@Test
+	public void testCorruptKeyLength() throws IOException {
+		this.write(1, Integer.MAX_VALUE);
+		this.assertCorrupt();
+
+		this.write(1, -5, 'a');
+		this.assertCorrupt();
+
+		// The second key claims one more byte than is left in the file
+		this.write(2, 1, 'a', 2, 'b');
+		this.assertCorrupt();
+	}
+
+	@Test
+	public void testSaveAndRead() throws IOException {
+		final CacheLRU<String, String> cache = new CacheLRU<>(8);
+		cache.put("cold", "1");
+		cache.put("warm", "2");
+		cache.put("hot", "3");
+
+		assertEquals(3, this.snapshot.save(cache, this.file));
+		assertFalse(new File(this.file.getPath() + ".tmp").exists());
+
+		final ListArray<String> keys = this.snapshot.read(this.file);
+		assertEquals(3, keys.getSize());
+		assertEquals("cold", keys.get(0));
+		assertEquals("warm", keys.get(1));
+		assertEquals("hot", keys.get(2));
+	}
+
+	private void assertCorrupt() {
+		try {
+			this.snapshot.read(this.file);
+			fail("Expected java.io.IOException was not thrown");
+		} catch (final IOException e) {
+		}
+	}
+
+	/**
+	 * Writes a snapshot header with the key count followed by the ints and single byte characters given, without checking that they make sense.
+	 */
+	private void write(final int numKeys, final Object... contents) throws IOException {
+		try (final DataOutputStream out = new DataOutputStream(new FileOutputStream(this.file))) {
+			out.writeInt(0x524B5301);
+			out.writeInt(numKeys);
+
+			for (final Object o : contents) {
+				if (o instanceof Integer) {
+					out.writeInt((Integer) o);
+				} else {
+					out.writeByte((Character) o);
+				}
+			}
+		}
+	}
+
+} // End CacheSnapshotTest
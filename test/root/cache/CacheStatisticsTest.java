@@ -0,0 +1,170 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the {@link CacheStatistics} and {@link CacheStatisticsSnapshot} classes.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheStatisticsTest extends TestCase {
+
+	private static final int numThreads = 8;
+
+	private static final int numRequests = 10000;
+
+	public CacheStatisticsTest() {
+		super("CacheStatistics");
+	}
+
+	@Test
+	public void testConcurrentRecording() throws InterruptedException {
+		final CacheStatistics statistics = new CacheStatistics();
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] threads = new Thread[numThreads];
+
+		for (int i = 0; i < numThreads; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (final InterruptedException e) {
+						return;
+					}
+
+					// Every fourth request misses and loads, and every eighth one evicts an entry to make room
+					for (int j = 0; j < numRequests; j++) {
+						if ((j & 3) == 0) {
+							statistics.recordMiss();
+							statistics.recordLoad(j);
+						} else {
+							statistics.recordHit();
+						}
+
+						if ((j & 7) == 0) {
+							statistics.recordEviction();
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+
+		start.countDown();
+
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+
+		final CacheStatisticsSnapshot snapshot = statistics.snapshot();
+		final long numMisses = (long) numThreads * numRequests / 4;
+
+		assertEquals((long) numThreads * numRequests, snapshot.getRequestCount());
+		assertEquals(numMisses, snapshot.getMissCount());
+		assertEquals(snapshot.getRequestCount() - numMisses, snapshot.getHitCount());
+		assertEquals(numMisses, snapshot.getLoadCount());
+		assertEquals((long) numThreads * numRequests / 8, snapshot.getEvictionCount());
+		assertEquals(0.75, snapshot.getHitRatio(), 0.0);
+	}
+
+	@Test
+	public void testEmpty() {
+		final CacheStatisticsSnapshot snapshot = new CacheStatistics().snapshot();
+
+		assertEquals(0, snapshot.getRequestCount());
+		assertEquals(0, snapshot.getLoadCount());
+		assertEquals(0, snapshot.getLoadTime().getMax());
+
+		// With no requests there is nothing to miss
+		assertEquals(1.0, snapshot.getHitRatio(), 0.0);
+	}
+
+	@Test
+	public void testReset() {
+		final CacheStatistics statistics = this.record();
+		final CacheStatisticsSnapshot before = statistics.snapshot();
+
+		statistics.reset();
+
+		final CacheStatisticsSnapshot after = statistics.snapshot();
+		assertEquals(0, after.getHitCount());
+		assertEquals(0, after.getMissCount());
+		assertEquals(0, after.getEvictionCount());
+		assertEquals(0, after.getExpirationCount());
+		assertEquals(0, after.getLoadCount());
+		assertEquals(0, after.getLoadFailureCount());
+		assertEquals(0, after.getLoadTime().getSum());
+
+		// The snapshot taken before the reset keeps its counts
+		assertEquals(3, before.getHitCount());
+		assertEquals(2, before.getLoadCount());
+	}
+
+	@Test
+	public void testSnapshot() {
+		final CacheStatistics statistics = this.record();
+		final CacheStatisticsSnapshot snapshot = statistics.snapshot();
+
+		assertEquals(3, snapshot.getHitCount());
+		assertEquals(1, snapshot.getMissCount());
+		assertEquals(4, snapshot.getRequestCount());
+		assertEquals(0.75, snapshot.getHitRatio(), 0.0);
+		assertEquals(1, snapshot.getEvictionCount());
+		assertEquals(4, snapshot.getExpirationCount());
+		assertEquals(2, snapshot.getLoadCount());
+		assertEquals(1, snapshot.getLoadFailureCount());
+		assertEquals(3000, snapshot.getLoadTime().getSum());
+		assertEquals(2000, snapshot.getLoadTime().getMax());
+
+		// Statistics recorded afterwards leave the snapshot as it was taken
+		statistics.recordHit();
+		statistics.recordLoad(5000);
+
+		assertEquals(3, snapshot.getHitCount());
+		assertEquals(2, snapshot.getLoadCount());
+		assertEquals(4, statistics.snapshot().getHitCount());
+		assertEquals(3, statistics.snapshot().getLoadCount());
+	}
+
+	/**
+	 * Returns statistics with three hits, one miss, one eviction, four expirations, two loads and one failed load.
+	 */
+	private CacheStatistics record() {
+		final CacheStatistics statistics = new CacheStatistics();
+		statistics.recordHit();
+		statistics.recordHit();
+		statistics.recordHit();
+		statistics.recordMiss();
+		statistics.recordEviction();
+		statistics.recordExpiration();
+		statistics.recordExpirations(3);
+		statistics.recordLoad(1000);
+		statistics.recordLoad(2000);
+		statistics.recordLoadFailure();
+
+		return statistics;
+	}
+
+} // End CacheStatisticsTest
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+import root.util.Root;
+
+/**
+ * Test the {@link CacheSweeper} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheSweeperTest extends TestCase {
+
+	private static final long expireDuration = 60000;
+
+	private static final int numEntries = 20;
+
+	private CacheTimedConcurrent<Integer, String> cache;
+
+	/** The time at which every entry put by {@link #setUp()} has expired */
+	private long expiredTime;
+
+	public CacheSweeperTest() {
+		super("CacheSweeper");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.cache = new CacheTimedConcurrent<>(64, expireDuration);
+		this.expiredTime = Root.systemTimePerSecond.currentTime + expireDuration + 1000;
+
+		for (int i = 0; i < numEntries; i++) {
+			this.cache.put(i, "v" + i);
+		}
+	}
+
+	@Test
+	public void testCacheSweepIsBoundedByBudget() {
+		// Nothing has expired yet, so a sweep leaves every entry in place
+		this.cache.sweep(Root.systemTimePerSecond.currentTime, numEntries);
+		assertEquals(numEntries, this.cache.getSize());
+
+		// Each sweep expires no more than its budget, and the entries left over are expired by the following sweeps
+		int size = numEntries;
+		for (int i = 0; i < numEntries && size > 0; i++) {
+			this.cache.sweep(this.expiredTime, 3);
+
+			assertTrue(this.cache.getSize() >= size - 3);
+			size = this.cache.getSize();
+		}
+
+		assertEquals(0, size);
+	}
+
+	@Test
+	public void testSweepsRegisteredCaches() {
+		final CacheSweeper sweeper = new CacheSweeper(numEntries);
+		final CacheTimedConcurrent<Integer, String> other = new CacheTimedConcurrent<>(64, expireDuration);
+		other.put(1, "v1");
+
+		sweeper.register(this.cache);
+		sweeper.register(other);
+		sweeper.register(other);
+		sweeper.unregister(other);
+
+		sweeper.sweep(this.expiredTime);
+		sweeper.sweep(this.expiredTime);
+
+		assertEquals(0, this.cache.getSize());
+		assertEquals(1, other.getSize());
+	}
+
+	@Test
+	public void testStartAndStop() throws InterruptedException {
+		final CacheSweeper sweeper = new CacheSweeper(numEntries);
+
+		sweeper.start();
+		sweeper.start();
+
+		// Stopping interrupts the sleeping thread, which ends instead of sweeping again
+		sweeper.stop();
+		sweeper.stop();
+
+		for (int i = 0; i < 500 && this.isSweeperRunning(); i++) {
+			Thread.sleep(10);
+		}
+
+		assertFalse(this.isSweeperRunning());
+	}
+
+	private boolean isSweeperRunning() {
+		for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().equals("CacheSweeper")) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+} // End CacheSweeperTest
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+import root.adt.CollectorArray;
+
+/**
+ * Test the {@link CacheTiered} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheTieredTest extends TestCase {
+
+	private CacheLRUConcurrent<Integer, String> l1;
+	private CacheLRUConcurrent<Integer, String> l2;
+	private CacheTiered<Integer, String> cache;
+
+	public CacheTieredTest() {
+		super("CacheTiered");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.l1 = new CacheLRUConcurrent<>(8);
+		this.l2 = new CacheLRUConcurrent<>(16);
+		this.cache = new CacheTiered<>(this.l1, this.l2);
+
+		// Keys 0 and 1 are demoted into level two
+		for (int i = 0; i < 10; i++) {
+			this.cache.put(i, "v" + i);
+		}
+	}
+
+	@Test
+	public void testDemoteAndPromote() {
+		assertEquals(8, this.l1.getSize());
+		assertEquals(2, this.l2.getSize());
+		assertEquals(10, this.cache.getSize());
+		assertNull(this.l1.get(0));
+
+		// A hit in level two moves the entry into level one, demoting the least recently used entry of level one in turn
+		assertEquals("v0", this.cache.get(0));
+		assertEquals("v0", this.l1.get(0));
+		assertNull(this.l2.get(0));
+		assertEquals("v2", this.l2.get(2));
+		assertEquals(10, this.cache.getSize());
+	}
+
+	@Test
+	public void testEvictionLeavesCache() {
+		final ArrayList<Integer> evicted = new ArrayList<>();
+
+		this.cache.setEvictionListener(new CacheEvictionListener<Integer, String>() {
+			@Override
+			public void onEviction(final Integer key, final String value) {
+				evicted.add(key);
+			}
+		});
+
+		for (int i = 10; i < 26; i++) {
+			this.cache.put(i, "v" + i);
+		}
+
+		// Both levels are full, so the oldest demoted entries leave the cache
+		assertEquals(24, this.cache.getSize());
+		assertEquals(2, evicted.size());
+		assertEquals(Integer.valueOf(0), evicted.get(0));
+		assertEquals(Integer.valueOf(1), evicted.get(1));
+		assertNull(this.cache.get(0));
+	}
+
+	@Test
+	public void testGetAllIteratesKeysOnce() {
+		final Iterator<Integer> keys = Arrays.asList(9, 0, 42, 8).iterator();
+		final CollectorArray<String> values = new CollectorArray<>();
+
+		// A one-shot Iterable still matches each value to its own key, whether it is found in level one, level two or nowhere
+		assertEquals(3, this.cache.getAll(new Iterable<Integer>() {
+			@Override
+			public Iterator<Integer> iterator() {
+				return keys;
+			}
+		}, values));
+
+		assertEquals(4, values.getSize());
+		assertEquals("v9", values.get(0));
+		assertEquals("v0", values.get(1));
+		assertNull(values.get(2));
+		assertEquals("v8", values.get(3));
+	}
+
+	@Test
+	public void testHitRatios() {
+		this.cache.resetHitRatios();
+		assertEquals(1.0, this.cache.getHitRatio());
+
+		this.cache.get(9);
+		this.cache.get(1);
+		this.cache.get(42);
+		this.cache.get(8);
+
+		assertEquals(0.75, this.cache.getHitRatio());
+		assertEquals(0.5, this.cache.getL1HitRatio());
+		assertEquals(0.5, this.cache.getL2HitRatio());
+	}
+
+	@Test
+	public void testPutDoesNotEvictStaleCopy() {
+		final ArrayList<Integer> evicted = new ArrayList<>();
+
+		// Fill level two up with key 0 as its least recently used entry
+		for (int i = 10; i < 24; i++) {
+			this.cache.put(i, "v" + i);
+		}
+
+		assertEquals(16, this.l2.getSize());
+
+		this.cache.setEvictionListener(new CacheEvictionListener<Integer, String>() {
+			@Override
+			public void onEviction(final Integer key, final String value) {
+				evicted.add(key);
+			}
+		});
+
+		// The demotion caused by the put finds room left by the stale copy instead of evicting it as if it were leaving the cache
+		assertEquals("v0", this.cache.put(0, "x0"));
+		assertTrue(evicted.isEmpty());
+		assertEquals("x0", this.cache.get(0));
+		assertEquals(24, this.cache.getSize());
+	}
+
+	@Test
+	public void testPutReplacesDemotedCopy() {
+		assertEquals("v1", this.cache.put(1, "x1"));
+		assertEquals("x1", this.l1.get(1));
+		assertNull(this.l2.get(1));
+
+		assertEquals("x1", this.cache.remove(1));
+		assertNull(this.cache.get(1));
+	}
+
+} // End CacheTieredTest
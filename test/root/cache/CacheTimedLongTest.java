@@ -0,0 +1,88 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the {@link CacheTimedLong} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheTimedLongTest extends TestCase {
+
+	public CacheTimedLongTest() {
+		super("CacheTimedLong");
+	}
+
+	@Test
+	public void testBackwardShiftDelete() {
+		final CacheTimedLong<String> cache = new CacheTimedLong<>(64, 60000);
+
+		for (long key = 0; key < 64; key++) {
+			cache.put(key << 20, "v" + key);
+		}
+
+		for (long key = 0; key < 64; key += 2) {
+			assertEquals("v" + key, cache.remove(key << 20));
+		}
+
+		for (long key = 0; key < 64; key++) {
+			assertEquals(key % 2 == 0 ? null : "v" + key, cache.get(key << 20));
+		}
+
+		assertEquals(32, cache.getSize());
+	}
+
+	@Test
+	public void testExpiry() throws InterruptedException {
+		final CacheTimedLong<String> cache = new CacheTimedLong<>(8, 1);
+
+		cache.put(1, "v1");
+		cache.put(2, "v2");
+
+		// The cache reads a clock that ticks once per second, so wait for it to move past the expiry time
+		Thread.sleep(2100);
+
+		assertNull(cache.get(1));
+		assertNull(cache.get(2));
+		assertTrue(cache.isEmpty());
+
+		cache.put(1, "v1b");
+		assertEquals("v1b", cache.get(1));
+	}
+
+	@Test
+	public void testPutReplacesAndEvicts() {
+		final CacheTimedLong<String> cache = new CacheTimedLong<>(8, 60000);
+
+		for (long key = 0; key < 8; key++) {
+			assertNull(cache.put(key, "v" + key));
+		}
+
+		assertEquals("v0", cache.put(0, "v0b"));
+		assertEquals("v1", cache.put(8, "v8"));
+		assertNull(cache.get(1));
+		assertEquals("v0b", cache.get(0));
+		assertEquals("v2", cache.removeNext());
+		assertEquals(7, cache.getSize());
+	}
+
+} // End CacheTimedLongTest
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the {@link CacheTimed} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheTimedTest extends TestCase {
+
+	private static final long maxWeight = 10;
+
+	/** Weighs each entry by the length of its value */
+	private static final CacheWeigher<String, String> weigher = new CacheWeigher<String, String>() {
+		@Override
+		public int weigh(final String key, final String value) {
+			return value.length();
+		}
+	};
+
+	private CacheTimed<String, String> cache;
+	private ArrayList<String> evicted;
+	private CacheStatistics statistics;
+
+	public CacheTimedTest() {
+		super("CacheTimed");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.cache = new CacheTimed<>(16, 60000, maxWeight, weigher);
+		this.evicted = new ArrayList<>();
+		this.statistics = new CacheStatistics();
+
+		this.cache.setStatistics(this.statistics);
+		this.cache.setEvictionListener(new CacheEvictionListener<String, String>() {
+			@Override
+			public void onEviction(final String key, final String value) {
+				CacheTimedTest.this.evicted.add(key);
+			}
+		});
+	}
+
+	@Test
+	public void testWeightedEntryHeavierThanMaxWeight() {
+		this.cache.put("a", "aaa");
+
+		// The entry weighs more than the whole cache, so it evicts every other entry and then itself
+		assertNull(this.cache.put("big", "xxxxxxxxxxx"));
+		assertEquals(0, this.cache.getSize());
+		assertEquals(0, this.cache.getWeightedSize());
+		assertNull(this.cache.get("big"));
+		assertEquals(Arrays.asList("a", "big"), this.evicted);
+		assertEquals(2, this.statistics.snapshot().getEvictionCount());
+	}
+
+	@Test
+	public void testWeightedEvictionUntilWeightFits() {
+		this.cache.put("a", "aaa");
+		this.cache.put("b", "bbb");
+		this.cache.put("c", "ccc");
+		assertEquals(9, this.cache.getWeightedSize());
+		assertTrue(this.evicted.isEmpty());
+
+		// The cache holds far fewer entries than its capacity, yet the heavier entry evicts the two oldest to fit within the maximum weight
+		this.cache.put("d", "dddddd");
+		assertEquals(2, this.cache.getSize());
+		assertEquals(9, this.cache.getWeightedSize());
+		assertEquals(Arrays.asList("a", "b"), this.evicted);
+		assertEquals(2, this.statistics.snapshot().getEvictionCount());
+		assertNull(this.cache.get("a"));
+		assertEquals("ccc", this.cache.get("c"));
+		assertEquals("dddddd", this.cache.get("d"));
+	}
+
+	@Test
+	public void testWeightedReplaceWithAnotherWeight() {
+		this.cache.put("a", "aaa");
+		this.cache.put("b", "bbb");
+		this.cache.put("c", "ccc");
+
+		// Replacing the newest entry with a heavier value evicts the oldest entry
+		assertEquals("ccc", this.cache.put("c", "cccccc"));
+		assertEquals(9, this.cache.getWeightedSize());
+		assertEquals(Arrays.asList("a"), this.evicted);
+		assertEquals(1, this.statistics.snapshot().getEvictionCount());
+
+		// Replacing it with a lighter value frees its weight without evicting anything
+		assertEquals("cccccc", this.cache.put("c", "c"));
+		assertEquals(2, this.cache.getSize());
+		assertEquals(4, this.cache.getWeightedSize());
+		assertEquals(1, this.evicted.size());
+		assertEquals("c", this.cache.get("c"));
+	}
+
+} // End CacheTimedTest
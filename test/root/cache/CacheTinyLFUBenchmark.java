@@ -0,0 +1,146 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import root.adt.ListArray;
+import root.metrics.Stopwatch;
+
+/**
+ * Replay benchmark of the hit rates of {@link CacheLRU} against {@link CacheTinyLFU}. Every key in the trace is looked up in the cache and, on a miss,
+ * put into the cache the same way a read-through cache would be used.
+ * <p>
+ * Usage: <code>CacheTinyLFUBenchmark [traceFile [capacity]]</code>
+ * <p>
+ * A trace file contains one recorded key per line. Without a trace file, a synthetic trace is generated that mixes a Zipf distributed hot set with
+ * periodic scans over keys that are never accessed again, which is the access pattern that flushes an LRU cache.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheTinyLFUBenchmark {
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final int defaultCapacity = 1000;
+	private static final int numHotKeys = 100000;
+	private static final int traceLength = 2000000;
+	private static final int scanInterval = 200000;
+	private static final int scanLength = 20000;
+	private static final double zipfExponent = 0.9;
+
+	// <><><><><><><><><><><><><><> Static Methods <><><><><><><><><><><><><><>
+
+	public static void main(final String[] args) throws IOException {
+		final String[] trace = (args.length > 0) ? readTrace(args[0]) : generateTrace();
+		final int capacity = (args.length > 1) ? Integer.parseInt(args[1]) : defaultCapacity;
+
+		final Stopwatch stopwatch = new Stopwatch();
+
+		stopwatch.start("CacheLRU");
+		final double lruHitRate = replay(new CacheLRU<String, String>(capacity), trace);
+		stopwatch.stop();
+
+		stopwatch.start("CacheTinyLFU");
+		final double tinyLfuHitRate = replay(new CacheTinyLFU<String, String>(capacity), trace);
+		stopwatch.stop();
+
+		System.out.println("Trace length: " + trace.length + ", capacity: " + capacity);
+		System.out.printf("CacheLRU hit rate:     %.2f%%%n", lruHitRate * 100);
+		System.out.printf("CacheTinyLFU hit rate: %.2f%%%n", tinyLfuHitRate * 100);
+		System.out.println("******************* End ************************");
+		System.out.println(stopwatch);
+
+		System.exit(0);
+	}
+
+	private static String[] generateTrace() {
+		final Random random = new Random(42);
+		final String[] trace = new String[traceLength];
+
+		// 1. Build the cumulative Zipf distribution over the hot key space
+		final double[] cdf = new double[numHotKeys];
+		double sum = 0;
+
+		for (int i = 0; i < numHotKeys; i++) {
+			sum += 1.0 / Math.pow(i + 1, zipfExponent);
+			cdf[i] = sum;
+		}
+
+		// 2. Generate the trace, interrupting it with a scan of one-hit keys every scanInterval accesses
+		int scanKey = 0;
+
+		for (int i = 0; i < trace.length;) {
+			if (i > 0 && i % scanInterval == 0) {
+				for (int j = 0; j < scanLength && i < trace.length; j++) {
+					trace[i++] = "scan-" + scanKey++;
+				}
+			} else {
+				int k = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+
+				if (k < 0) {
+					k = -k - 1;
+				}
+
+				trace[i++] = "hot-" + k;
+			}
+		}
+
+		return trace;
+	}
+
+	private static String[] readTrace(final String fileName) throws IOException {
+		final ListArray<String> keys = new ListArray<>();
+
+		try (BufferedReader in = new BufferedReader(new FileReader(fileName))) {
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				line = line.trim();
+
+				if (!line.isEmpty()) {
+					keys.add(line);
+				}
+			}
+		}
+
+		final String[] trace = new String[keys.getSize()];
+		for (int i = 0; i < trace.length; i++) {
+			trace[i] = keys.get(i);
+		}
+
+		return trace;
+	}
+
+	private static double replay(final RootCache<String, String> cache, final String[] trace) {
+		int hits = 0;
+
+		for (final String key : trace) {
+			if (cache.get(key) != null) {
+				hits++;
+			} else {
+				cache.put(key, key);
+			}
+		}
+
+		return (double) hits / trace.length;
+	}
+
+} // End CacheTinyLFUBenchmark
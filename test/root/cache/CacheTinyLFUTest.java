@@ -0,0 +1,121 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the {@link CacheTinyLFU} and {@link FrequencySketch} classes.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CacheTinyLFUTest extends TestCase {
+
+	private CacheTinyLFU<Integer, String> cache;
+
+	public CacheTinyLFUTest() {
+		super("CacheTinyLFU");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.cache = new CacheTinyLFU<>(100);
+
+		for (int i = 0; i < this.cache.getCapacity(); i++) {
+			this.cache.put(i, "v" + i);
+		}
+	}
+
+	@Test
+	public void testFrequencySketch() {
+		final FrequencySketch sketch = new FrequencySketch(16);
+		final String hot = "hot";
+
+		for (int i = 0; i < 3; i++) {
+			sketch.increment(hot);
+		}
+
+		assertTrue(sketch.frequency(hot) >= 3);
+
+		// Counters saturate at 15
+		for (int i = 0; i < 20; i++) {
+			sketch.increment(hot);
+		}
+
+		assertEquals(15, sketch.frequency(hot));
+
+		// Every counter is halved once the sample size of ten times the capacity has been reached
+		int i = 0;
+
+		while (sketch.frequency(hot) == 15 && i < 1000) {
+			sketch.increment(Integer.valueOf(i++));
+		}
+
+		assertEquals(7, sketch.frequency(hot));
+	}
+
+	@Test
+	public void testFrequentEntrySurvivesScan() {
+		final int capacity = this.cache.getCapacity();
+
+		for (int i = 0; i < 10; i++) {
+			this.cache.get(0);
+		}
+
+		// A scan of keys that are only ever put once cannot displace an entry read often
+		for (int i = capacity; i < 4 * capacity; i++) {
+			this.cache.put(i, "v" + i);
+		}
+
+		assertEquals(capacity, this.cache.getSize());
+		assertEquals("v0", this.cache.get(0));
+	}
+
+	@Test
+	public void testPut() {
+		assertEquals(this.cache.getCapacity(), this.cache.getSize());
+		assertEquals("v5", this.cache.put(5, "x5"));
+		assertEquals("x5", this.cache.get(5));
+		assertEquals(this.cache.getCapacity(), this.cache.getSize());
+	}
+
+	@Test
+	public void testPutReturnsEvictedValue() {
+		final ArrayList<String> evicted = new ArrayList<>();
+
+		this.cache.setEvictionListener(new CacheEvictionListener<Integer, String>() {
+			@Override
+			public void onEviction(final Integer key, final String value) {
+				evicted.add(value);
+			}
+		});
+
+		final String value = this.cache.put(-1, "new");
+
+		assertEquals(1, evicted.size());
+		assertEquals(evicted.get(0), value);
+		assertEquals(this.cache.getCapacity(), this.cache.getSize());
+	}
+
+} // End CacheTinyLFUTest
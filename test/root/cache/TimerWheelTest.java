@@ -0,0 +1,141 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+import root.adt.ListArray;
+
+/**
+ * Test the {@link TimerWheel} class against a simulated clock.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class TimerWheelTest extends TestCase {
+
+	private static final long start = 1L << 40;
+
+	private static final long second = 1000;
+	private static final long minute = 60 * second;
+	private static final long hour = 60 * minute;
+	private static final long day = 24 * hour;
+
+	private TimerWheel<String, String> wheel;
+
+	public TimerWheelTest() {
+		super("TimerWheel");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.wheel = new TimerWheel<>(start);
+	}
+
+	@Test
+	public void testBudget() {
+		for (int i = 0; i < 10; i++) {
+			this.schedule("k" + i, 100);
+		}
+
+		// Whatever the budget leaves behind is expired first on the next advance
+		assertEquals(3, expired(this.wheel.advance(start + 2 * second, 3)).getSize());
+		assertEquals(7, expired(this.wheel.advance(start + 2 * second, 100)).getSize());
+		assertEquals(0, expired(this.wheel.advance(start + 3 * second, 100)).getSize());
+	}
+
+	@Test
+	public void testCascade() {
+		this.schedule("k", 90 * second);
+
+		// The entry cascades down from the minute level and expires within a bucket span of its expiration
+		long time = start;
+
+		for (; time < start + 90 * second; time += 100) {
+			assertEquals(0, expired(this.wheel.advance(time, 100)).getSize());
+		}
+
+		final ListArray<String> expired = new ListArray<>();
+
+		for (; time < start + 90 * second + 2048 && expired.isEmpty(); time += 100) {
+			expired.addAll(expired(this.wheel.advance(time, 100)));
+		}
+
+		assertEquals(new ListArray<>("k"), expired);
+	}
+
+	@Test
+	public void testClockJumps() {
+		this.schedule("second", 500);
+		this.schedule("minute", 5 * second);
+		this.schedule("hour", 2 * minute);
+		this.schedule("day", 3 * hour);
+		this.schedule("week", 5 * day);
+
+		// A clock that jumps backwards expires nothing and leaves the wheel where it was
+		assertEquals(0, expired(this.wheel.advance(start - hour, 100)).getSize());
+		assertEquals(0, expired(this.wheel.advance(start + 400, 100)).getSize());
+		assertEquals(new ListArray<>("second"), expired(this.wheel.advance(start + 2 * second, 100)));
+
+		// A clock that jumps ahead by hours expires everything due in between, even across several levels
+		final ListArray<String> expired = expired(this.wheel.advance(start + 4 * hour, 100));
+		assertEquals(3, expired.getSize());
+		assertTrue(expired.containsAll(new ListArray<>("minute", "hour", "day")));
+
+		assertEquals(new ListArray<>("week"), expired(this.wheel.advance(start + 10 * day, 100)));
+	}
+
+	@Test
+	public void testDeschedule() {
+		final CacheEntryTimed<String, String> e = this.schedule("k", 100);
+
+		this.wheel.deschedule(e);
+		assertNull(e.wheelNext);
+		assertEquals(0, expired(this.wheel.advance(start + hour, 100)).getSize());
+
+		// An entry without an expiration is never scheduled
+		assertNull(this.schedule("forever", 0).wheelNext);
+	}
+
+	/**
+	 * Walks the chain of expired entries, unlinking each one the way the cache does, and returns their keys.
+	 */
+	private static ListArray<String> expired(CacheEntryTimed<String, String> e) {
+		final ListArray<String> keys = new ListArray<>();
+
+		for (CacheEntryTimed<String, String> next; e != null; e = next) {
+			next = e.wheelNext;
+			e.wheelNext = null;
+			keys.add(e.key);
+		}
+
+		return keys;
+	}
+
+	private CacheEntryTimed<String, String> schedule(final String key, final long expiry) {
+		final CacheEntryTimed<String, String> e = new CacheEntryTimed<>(key, key, 0, expiry, null);
+
+		e.itemTimer.reset(start);
+		this.wheel.schedule(e);
+
+		return e;
+	}
+
+} // End TimerWheelTest
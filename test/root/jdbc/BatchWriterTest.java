@@ -0,0 +1,378 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.jdbc;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+import root.lang.StringExtractor;
+import root.log.Log;
+import root.pool.PoolObjectFactory;
+import root.thread.ThreadPool;
+
+/**
+ * Test the {@link BatchWriter} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class BatchWriterTest extends TestCase {
+
+	/**
+	 * A data source that never connects, whose pool hands out {@link PooledConnection} objects around stub connections without a statement cache.
+	 */
+	private final class DataSource extends RootDataSource {
+
+		private DataSource() {
+			super(2);
+		}
+
+		@Override
+		public final void extract(final StringExtractor extractor) {
+			extractor.append("DataSource");
+		}
+
+		@Override
+		public final int getLoginTimeout() {
+			return 0;
+		}
+
+		@Override
+		public final PrintWriter getLogWriter() {
+			return null;
+		}
+
+		@Override
+		public final Logger getParentLogger() throws SQLFeatureNotSupportedException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public final void setLoginTimeout(final int seconds) {
+		}
+
+		@Override
+		public final void setLogWriter(final PrintWriter out) {
+		}
+
+		@Override
+		protected final Log getLog() {
+			return log;
+		}
+
+		@Override
+		protected final PoolObjectFactory<PooledConnection> getPooledConnectionFactory() {
+			return new PoolObjectFactory<PooledConnection>() {
+				@Override
+				public PooledConnection create() {
+					final InvocationHandler connection = new InvocationHandler() {
+						@Override
+						public Object invoke(final Object proxy, final Method method, final Object[] args) {
+							if (method.getName().equals("prepareStatement")) {
+								final Statement stmt = new Statement();
+								BatchWriterTest.this.statements.add(stmt);
+
+								return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, stmt);
+							}
+
+							return defaultValue(proxy, method, args);
+						}
+					};
+
+					return new PooledConnection(DataSource.this,
+							(Connection) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { Connection.class }, connection));
+				}
+
+				@Override
+				public void destroy(final PooledConnection conn) {
+				}
+
+				@Override
+				public String getObjectClassName() {
+					return "PooledConnection";
+				}
+
+				@Override
+				public boolean validate(final PooledConnection conn) {
+					return true;
+				}
+			};
+		}
+	}
+
+	/**
+	 * A stub {@link PreparedStatement} that counts the rows added to its batch and records the size of each batch it executes. While
+	 * <code>fail</code> is set every batch fails to execute and keeps its rows until it is cleared.
+	 */
+	private final class Statement implements InvocationHandler {
+
+		private int numAdded;
+		private int numCleared;
+		private boolean closed;
+		private final List<Integer> executed = new CopyOnWriteArrayList<>();
+		private final List<Thread> executedBy = new CopyOnWriteArrayList<>();
+
+		@Override
+		public synchronized Object invoke(final Object proxy, final Method method, final Object[] args) throws SQLException {
+			switch (method.getName()) {
+			case "addBatch":
+				this.numAdded++;
+				return null;
+			case "clearBatch":
+				this.numAdded = 0;
+				this.numCleared++;
+				return null;
+			case "close":
+				this.closed = true;
+				return null;
+			case "executeBatch":
+				if (BatchWriterTest.this.fail) {
+					throw new SQLException("Batch failed");
+				}
+
+				this.executed.add(this.numAdded);
+				this.executedBy.add(Thread.currentThread());
+				this.numAdded = 0;
+				return new int[0];
+			default:
+				return defaultValue(proxy, method, args);
+			}
+		}
+	}
+
+	private static final Log log = new Log(BatchWriterTest.class);
+
+	private final CachedSQLStatement insert = new CachedSQLStatement("INSERT INTO t VALUES (?, ?)");
+
+	private DataSource dataSource;
+	private CopyOnWriteArrayList<Statement> statements;
+	private volatile boolean fail;
+
+	public BatchWriterTest() {
+		super("BatchWriter");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.dataSource = new DataSource();
+		this.statements = new CopyOnWriteArrayList<>();
+		this.fail = false;
+	}
+
+	@Test
+	public void testFailedBatchIsClearedAndCounted() throws SQLException {
+		final BatchWriter writer = new BatchWriter(this.dataSource, this.insert, 3, Long.MAX_VALUE);
+		final Statement stmt = this.statements.get(0);
+
+		// The batch fails on the third row, so its rows are counted as failed and cleared from the statement
+		this.fail = true;
+		writer.write(1, "a");
+		writer.write(2, "b");
+
+		try {
+			writer.write(3, "c");
+			fail("Expected java.sql.SQLException was not thrown");
+		} catch (final SQLException e) {
+		}
+
+		assertEquals(3, writer.getFailedRows().sum());
+		assertEquals(0, stmt.numAdded);
+		assertEquals(1, stmt.numCleared);
+		assertEquals(0, writer.getRows().getCount());
+
+		// The next batch starts out empty, so none of the failed rows are sent again
+		this.fail = false;
+		writer.write(4, "d");
+		writer.close();
+
+		assertEquals(Arrays.asList(1), stmt.executed);
+		assertEquals(1, writer.getRows().getCount());
+		assertEquals(3, writer.getFailedRows().sum());
+		assertTrue(stmt.closed);
+	}
+
+	@Test
+	public void testFlushOnBytes() throws SQLException {
+		// Each row is estimated at 8 bytes for the number and 2 bytes per character of the string, so every third row reaches 60 bytes
+		final BatchWriter writer = new BatchWriter(this.dataSource, this.insert, 100, 60);
+
+		for (int i = 0; i < 7; i++) {
+			writer.write(i, "123456");
+		}
+
+		writer.close();
+
+		assertEquals(Arrays.asList(3, 3, 1), this.statements.get(0).executed);
+		assertEquals(7, writer.getRows().getCount());
+		assertEquals(3, writer.getFlushTime().getCount());
+	}
+
+	@Test
+	public void testFlushOnRows() throws SQLException {
+		final BatchWriter writer = new BatchWriter(this.dataSource, this.insert, 3, Long.MAX_VALUE);
+		assertFalse(writer.isPipelined());
+
+		for (int i = 0; i < 7; i++) {
+			writer.write(i, "a");
+		}
+
+		assertEquals(Arrays.asList(3, 3), this.statements.get(0).executed);
+
+		// Closing the writer writes the last partial batch
+		writer.close();
+
+		assertEquals(1, this.statements.size());
+		assertEquals(Arrays.asList(3, 3, 1), this.statements.get(0).executed);
+		assertEquals(7, writer.getRows().getCount());
+		assertEquals(0, writer.getFailedRows().sum());
+		assertEquals(0, this.dataSource.pool.getActiveCount());
+	}
+
+	@Test
+	public void testInTransactionFallsBack() throws SQLException {
+		final ThreadPool threadPool = new ThreadPool(1, "BatchWriter");
+
+		Transaction.begin();
+
+		try {
+			// Both connections of the writer are the connection of the transaction, so it executes every batch on the calling thread
+			final BatchWriter writer = new BatchWriter(this.dataSource, this.insert, 2, Long.MAX_VALUE, threadPool);
+			assertFalse(writer.isPipelined());
+
+			for (int i = 0; i < 5; i++) {
+				writer.write(i, "a");
+			}
+
+			writer.close();
+		} finally {
+			Transaction.commit();
+			threadPool.close();
+		}
+
+		// The writer never prepared the statement a second time on the connection it already holds
+		assertEquals(1, this.statements.size());
+		assertEquals(Arrays.asList(2, 2, 1), this.statements.get(0).executed);
+
+		for (final Thread thread : this.statements.get(0).executedBy) {
+			assertSame(Thread.currentThread(), thread);
+		}
+	}
+
+	@Test
+	public void testPipelinedBatches() throws SQLException {
+		final ThreadPool threadPool = new ThreadPool(1, "BatchWriter");
+
+		try {
+			final BatchWriter writer = new BatchWriter(this.dataSource, this.insert, 3, Long.MAX_VALUE, threadPool);
+			assertTrue(writer.isPipelined());
+
+			for (int i = 0; i < 7; i++) {
+				writer.write(i, "a");
+			}
+
+			writer.close();
+
+			// The batches alternate between the two connections and are all executed on the thread pool
+			assertEquals(2, this.statements.size());
+			assertEquals(Arrays.asList(3, 1), this.statements.get(0).executed);
+			assertEquals(Arrays.asList(3), this.statements.get(1).executed);
+			assertEquals(7, writer.getRows().getCount());
+
+			for (final Statement stmt : this.statements) {
+				assertTrue(stmt.closed);
+
+				for (final Thread thread : stmt.executedBy) {
+					assertNotSame(Thread.currentThread(), thread);
+				}
+			}
+		} finally {
+			threadPool.close();
+		}
+	}
+
+	@Test
+	public void testPipelinedFlushErrorIsRethrown() throws SQLException {
+		final ThreadPool threadPool = new ThreadPool(1, "BatchWriter");
+
+		try {
+			final BatchWriter writer = new BatchWriter(this.dataSource, this.insert, 3, Long.MAX_VALUE, threadPool);
+			assertTrue(writer.isPipelined());
+
+			// The full batch is executed on the thread pool, where it fails after the write has already returned
+			this.fail = true;
+
+			for (int i = 0; i < 3; i++) {
+				writer.write(i, "a");
+			}
+
+			// The error is handed back to the caller by the next call that waits for the pipelined batch
+			try {
+				writer.close();
+				fail("Expected java.sql.SQLException was not thrown");
+			} catch (final SQLException e) {
+				assertEquals("Batch failed", e.getMessage());
+			}
+
+			assertEquals(3, writer.getFailedRows().sum());
+			assertEquals(0, writer.getRows().getCount());
+			assertEquals(0, this.dataSource.pool.getActiveCount());
+		} finally {
+			threadPool.close();
+		}
+	}
+
+	/**
+	 * Answers any other call on a stub with the default value of its return type, and the identity of the stub for <code>equals</code> and
+	 * <code>hashCode</code>.
+	 */
+	private static Object defaultValue(final Object proxy, final Method method, final Object[] args) {
+		switch (method.getName()) {
+		case "equals":
+			return proxy == args[0];
+		case "hashCode":
+			return System.identityHashCode(proxy);
+		default:
+			final Class<?> type = method.getReturnType();
+
+			if (type == boolean.class) {
+				return Boolean.FALSE;
+			}
+
+			if (type == int.class) {
+				return Integer.valueOf(0);
+			}
+
+			return null;
+		}
+	}
+
+} // End BatchWriterTest
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the {@link ColumnIndex} and {@link Row} classes.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class ColumnIndexTest extends TestCase {
+
+	public ColumnIndexTest() {
+		super("ColumnIndex");
+	}
+
+	@Test
+	public void testCaseInsensitiveLookup() throws SQLException {
+		final ColumnIndex columnIndex = new ColumnIndex(metaData("ID", "firstName", "e_Mail"));
+
+		assertEquals(3, columnIndex.getColumnCount());
+		assertEquals(1, columnIndex.indexOf("id"));
+		assertEquals(1, columnIndex.indexOf("Id"));
+		assertEquals(2, columnIndex.indexOf("FIRSTNAME"));
+		assertEquals(2, columnIndex.indexOf("firstname"));
+		assertEquals(3, columnIndex.indexOf("E_MAIL"));
+		assertEquals(0, columnIndex.indexOf("lastName"));
+		assertEquals(0, columnIndex.indexOf(""));
+	}
+
+	@Test
+	public void testDuplicateLabelsFirstColumnWins() throws SQLException {
+		final ColumnIndex columnIndex = new ColumnIndex(metaData("id", "name", "ID", "Name", "other"));
+
+		assertEquals(1, columnIndex.indexOf("id"));
+		assertEquals(1, columnIndex.indexOf("ID"));
+		assertEquals(2, columnIndex.indexOf("NAME"));
+		assertEquals(5, columnIndex.indexOf("other"));
+	}
+
+	@Test
+	public void testHashing() throws SQLException {
+		// Many more labels than the smallest table, all of which resolve to their own column through the probing
+		final String[] labels = new String[200];
+		for (int i = 0; i < labels.length; i++) {
+			labels[i] = "column" + i;
+		}
+
+		final ColumnIndex columnIndex = new ColumnIndex(metaData(labels));
+
+		for (int i = 0; i < labels.length; i++) {
+			assertEquals(i + 1, columnIndex.indexOf(labels[i]));
+			assertEquals(i + 1, columnIndex.indexOf(labels[i].toUpperCase()));
+		}
+
+		// "Aa" and "BB" share the same String hash code, so they collide in the table but are still told apart
+		final ColumnIndex colliding = new ColumnIndex(metaData("Aa", "BB"));
+		assertEquals(1, colliding.indexOf("aa"));
+		assertEquals(2, colliding.indexOf("bb"));
+
+		assertEquals(0, new ColumnIndex(metaData()).indexOf("id"));
+	}
+
+	@Test
+	public void testMatches() throws SQLException {
+		final ColumnIndex columnIndex = new ColumnIndex(metaData("id", "name"));
+
+		assertTrue(columnIndex.matches(metaData("id", "name")));
+
+		// A different count, order or case of the labels means the column index has to be rebuilt
+		assertFalse(columnIndex.matches(metaData("id")));
+		assertFalse(columnIndex.matches(metaData("id", "name", "age")));
+		assertFalse(columnIndex.matches(metaData("name", "id")));
+		assertFalse(columnIndex.matches(metaData("id", "NAME")));
+		assertFalse(columnIndex.matches(metaData("id", null)));
+	}
+
+	@Test
+	public void testNullLabels() throws SQLException {
+		// A column the driver returns without a label is left out of the lookup but keeps its place
+		final ColumnIndex columnIndex = new ColumnIndex(metaData(null, "name", null));
+
+		assertEquals(3, columnIndex.getColumnCount());
+		assertEquals(2, columnIndex.indexOf("name"));
+		assertEquals(0, columnIndex.indexOf(null));
+		assertTrue(columnIndex.matches(metaData(null, "name", null)));
+		assertFalse(columnIndex.matches(metaData("id", "name", null)));
+	}
+
+	@Test
+	public void testRowIndexOf() throws SQLException {
+		final ResultSet resultSet = (ResultSet) Proxy.newProxyInstance(ColumnIndexTest.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+				new InvocationHandler() {
+					@Override
+					public Object invoke(final Object proxy, final Method method, final Object[] args) {
+						// getInt() returns the index of the column it was asked for
+						return method.getName().equals("getInt") ? args[0] : null;
+					}
+				});
+		final Row row = new Row(resultSet, new ColumnIndex(metaData("id", "name")));
+
+		assertEquals(2, row.getColumnCount());
+		assertEquals(2, row.indexOf("NAME"));
+		assertEquals(1, row.getInt("Id"));
+		assertEquals(2, row.getInt(2));
+
+		try {
+			row.indexOf("age");
+			fail("Expected java.sql.SQLException was not thrown");
+		} catch (final SQLException e) {
+		}
+
+		try {
+			row.getInt(null);
+			fail("Expected java.sql.SQLException was not thrown");
+		} catch (final SQLException e) {
+		}
+	}
+
+	/**
+	 * Returns a stand-in {@link ResultSetMetaData} that only answers the column count and the column labels.
+	 */
+	private static ResultSetMetaData metaData(final String... labels) {
+		return (ResultSetMetaData) Proxy.newProxyInstance(ColumnIndexTest.class.getClassLoader(), new Class<?>[] { ResultSetMetaData.class },
+				new InvocationHandler() {
+					@Override
+					public Object invoke(final Object proxy, final Method method, final Object[] args) {
+						switch (method.getName()) {
+						case "getColumnCount":
+							return labels.length;
+						case "getColumnLabel":
+							return labels[(Integer) args[0] - 1];
+						default:
+							throw new UnsupportedOperationException(method.getName());
+						}
+					}
+				});
+	}
+
+} // End ColumnIndexTest
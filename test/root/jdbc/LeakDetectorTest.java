@@ -0,0 +1,280 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.jdbc;
+
+import java.io.PrintWriter;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+import root.adt.ListArray;
+import root.lang.StringExtractor;
+import root.log.Log;
+import root.pool.PoolAcquireListener;
+import root.pool.PoolObjectFactory;
+
+/**
+ * Test the {@link LeakDetector} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class LeakDetectorTest extends TestCase {
+
+	/**
+	 * A data source that never connects, just enough to create {@link PooledConnection} objects without a statement cache for the detector to
+	 * track and to hand them out of its pool.
+	 */
+	private static final class DataSource extends RootDataSource {
+
+		private static final Log log = new Log(DataSource.class);
+
+		private DataSource() {
+			super(1);
+		}
+
+		@Override
+		public final void extract(final StringExtractor extractor) {
+			extractor.append("DataSource");
+		}
+
+		@Override
+		public final int getLoginTimeout() {
+			return 0;
+		}
+
+		@Override
+		public final PrintWriter getLogWriter() {
+			return null;
+		}
+
+		@Override
+		public final Logger getParentLogger() throws SQLFeatureNotSupportedException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public final void setLoginTimeout(final int seconds) {
+		}
+
+		@Override
+		public final void setLogWriter(final PrintWriter out) {
+		}
+
+		@Override
+		protected final Log getLog() {
+			return log;
+		}
+
+		@Override
+		protected final PoolObjectFactory<PooledConnection> getPooledConnectionFactory() {
+			return new PoolObjectFactory<PooledConnection>() {
+				@Override
+				public PooledConnection create() {
+					return new PooledConnection(DataSource.this, null);
+				}
+
+				@Override
+				public void destroy(final PooledConnection conn) {
+				}
+
+				@Override
+				public String getObjectClassName() {
+					return "PooledConnection";
+				}
+
+				@Override
+				public boolean validate(final PooledConnection conn) {
+					return true;
+				}
+			};
+		}
+	}
+
+	private static final long leakThreshold = 20;
+
+	private DataSource dataSource;
+
+	public LeakDetectorTest() {
+		super("LeakDetector");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.dataSource = new DataSource();
+	}
+
+	@Test
+	public void testAsyncBorrowTracesTheCaller() throws InterruptedException {
+		final LeakDetector detector = new LeakDetector(leakThreshold, 1, 8);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		final AtomicReference<Throwable> borrowTrace = new AtomicReference<>();
+		final CountDownLatch acquired = new CountDownLatch(1);
+
+		this.dataSource.setLeakDetector(detector);
+
+		try {
+			this.dataSource.getConnectionAsync(executor, new PoolAcquireListener<PooledConnection>() {
+				@Override
+				public void onAcquire(final PooledConnection conn) {
+					borrowTrace.set(conn.borrowTrace);
+					acquired.countDown();
+				}
+
+				@Override
+				public void onFailure(final Throwable cause) {
+					acquired.countDown();
+				}
+			});
+
+			assertTrue(acquired.await(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+
+		// The connection is handed over on the executor thread, but its borrow is traced to the thread that asked for it
+		assertNotNull(borrowTrace.get());
+
+		boolean fromCaller = false;
+		for (final StackTraceElement element : borrowTrace.get().getStackTrace()) {
+			assertFalse(element.toString(), element.getClassName().startsWith("root.pool."));
+			fromCaller |= element.getMethodName().equals("testAsyncBorrowTracesTheCaller");
+		}
+
+		assertTrue(fromCaller);
+		assertEquals(1, detector.getBorrowedCount());
+	}
+
+	@Test
+	public void testCheckFlagsEachLeakOnce() throws InterruptedException {
+		final LeakDetector detector = new LeakDetector(leakThreshold, 1, 8);
+		final PooledConnection conn = new PooledConnection(this.dataSource, null);
+
+		detector.borrowed(conn);
+		assertEquals(1, detector.getBorrowedCount());
+		assertEquals(0, detector.check());
+
+		// Once held past the threshold, every check counts the connection but only the first one flags it
+		Thread.sleep(leakThreshold * 3);
+		assertEquals(1, detector.check());
+		assertEquals(1, detector.check());
+		assertEquals(1, detector.getLeakCount());
+
+		detector.returned(conn);
+		assertEquals(0, detector.getBorrowedCount());
+		assertEquals(0, detector.check());
+		assertEquals(1, detector.getHoldTime().getCount());
+		assertTrue(detector.getHoldTime().getMax() >= leakThreshold * 3000000);
+
+		// Borrowing the connection again clears its flag, so a second leak of it is flagged as well
+		detector.borrowed(conn);
+		Thread.sleep(leakThreshold * 3);
+		assertEquals(1, detector.check());
+		assertEquals(2, detector.getLeakCount());
+		detector.returned(conn);
+
+		// A connection returned without having been borrowed through the detector records nothing
+		detector.returned(conn);
+		assertEquals(2, detector.getHoldTime().getCount());
+	}
+
+	@Test
+	public void testMaxCallSites() {
+		final LeakDetector detector = new LeakDetector(leakThreshold, 1, 3);
+		final PooledConnection conn = new PooledConnection(this.dataSource, null);
+
+		// Each borrow is attributed to its own call site, and only the first three call sites are tracked
+		for (int i = 0; i < 5; i++) {
+			detector.borrowed(conn);
+			conn.borrowTrace = borrowTrace(i);
+			detector.returned(conn);
+		}
+
+		// A call site that is already tracked keeps recording after the cap is reached
+		detector.borrowed(conn);
+		conn.borrowTrace = borrowTrace(0);
+		detector.returned(conn);
+
+		final ListArray<String> callSites = detector.getCallSites(10);
+		assertEquals(3, callSites.getSize());
+		assertEquals(6, detector.getHoldTime().getCount());
+		assertEquals(2, detector.getHoldTime(borrowTrace(0).getStackTrace()[0].toString()).getCount());
+		assertEquals(1, detector.getHoldTime(borrowTrace(2).getStackTrace()[0].toString()).getCount());
+		assertNull(detector.getHoldTime(borrowTrace(3).getStackTrace()[0].toString()));
+		assertNull(detector.getHoldTime(borrowTrace(4).getStackTrace()[0].toString()));
+		assertEquals(2, detector.getCallSites(2).getSize());
+	}
+
+	@Test
+	public void testSampling() {
+		final int numBorrows = 10000;
+		final LeakDetector detector = new LeakDetector(leakThreshold, 4, 8);
+		final PooledConnection conn = new PooledConnection(this.dataSource, null);
+		int numSampled = 0;
+
+		for (int i = 0; i < numBorrows; i++) {
+			detector.borrowed(conn);
+
+			if (conn.borrowTrace != null) {
+				numSampled++;
+			}
+
+			detector.returned(conn);
+		}
+
+		// Roughly one in four borrows records its stack trace, and 10,000 borrows land well within these bounds
+		assertTrue("Sampled " + numSampled, numSampled > 2000 && numSampled < 3000);
+
+		// Every return records its hold time, but only the sampled ones are recorded against their call site
+		assertEquals(numBorrows, detector.getHoldTime().getCount());
+
+		long numSiteHoldTimes = 0;
+		for (final String site : detector.getCallSites(8)) {
+			numSiteHoldTimes += detector.getHoldTime(site).getCount();
+		}
+
+		assertEquals(numSampled, numSiteHoldTimes);
+
+		// A sample rate of one records every borrow
+		final LeakDetector every = new LeakDetector(leakThreshold, 1, 8);
+		for (int i = 0; i < 100; i++) {
+			every.borrowed(conn);
+			assertNotNull(conn.borrowTrace);
+			every.returned(conn);
+		}
+	}
+
+	/**
+	 * Returns a borrow stack trace whose only frame lies outside of <code>root.jdbc</code>, so that each <code>site</code> is its own call site.
+	 */
+	private static Throwable borrowTrace(final int site) {
+		final Throwable borrowTrace = new Throwable("PooledConnection borrowed");
+		borrowTrace.setStackTrace(new StackTraceElement[] { new StackTraceElement("app.Site" + site, "run", "Site.java", site + 1) });
+
+		return borrowTrace;
+	}
+
+} // End LeakDetectorTest
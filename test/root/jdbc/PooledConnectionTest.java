@@ -0,0 +1,248 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.jdbc;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+import root.lang.StringExtractor;
+import root.log.Log;
+import root.pool.PoolObjectFactory;
+
+/**
+ * Test the {@link PooledConnection} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class PooledConnectionTest extends TestCase {
+
+	/**
+	 * A data source that never connects, just enough to create {@link PooledConnection} objects around a stub {@link Connection}.
+	 */
+	private static final class DataSource extends RootDataSource {
+
+		private static final Log log = new Log(DataSource.class);
+
+		private DataSource() {
+			super(1);
+		}
+
+		@Override
+		public final void extract(final StringExtractor extractor) {
+			extractor.append("DataSource");
+		}
+
+		@Override
+		public final int getLoginTimeout() {
+			return 0;
+		}
+
+		@Override
+		public final PrintWriter getLogWriter() {
+			return null;
+		}
+
+		@Override
+		public final Logger getParentLogger() throws SQLFeatureNotSupportedException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public final void setLoginTimeout(final int seconds) {
+		}
+
+		@Override
+		public final void setLogWriter(final PrintWriter out) {
+		}
+
+		@Override
+		protected final Log getLog() {
+			return log;
+		}
+
+		@Override
+		protected final PoolObjectFactory<PooledConnection> getPooledConnectionFactory() {
+			return new PoolObjectFactory<PooledConnection>() {
+				@Override
+				public PooledConnection create() {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public void destroy(final PooledConnection conn) {
+				}
+
+				@Override
+				public String getObjectClassName() {
+					return "PooledConnection";
+				}
+
+				@Override
+				public boolean validate(final PooledConnection conn) {
+					return true;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Answers every call on a stub {@link Connection}, {@link PreparedStatement}, {@link ResultSet} or {@link ResultSetMetaData}. A connection
+	 * prepares a new stub statement each time, a statement remembers whether it has been closed, and a query returns no rows with the column labels
+	 * held in <code>labels</code>.
+	 */
+	private final class Stub implements InvocationHandler {
+
+		private boolean closed;
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) {
+			switch (method.getName()) {
+			case "prepareStatement":
+				return Proxy.newProxyInstance(Stub.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, new Stub());
+			case "executeQuery":
+				return Proxy.newProxyInstance(Stub.class.getClassLoader(), new Class<?>[] { ResultSet.class }, new Stub());
+			case "getMetaData":
+				return Proxy.newProxyInstance(Stub.class.getClassLoader(), new Class<?>[] { ResultSetMetaData.class }, new Stub());
+			case "getColumnCount":
+				return PooledConnectionTest.this.labels.length;
+			case "getColumnLabel":
+				return PooledConnectionTest.this.labels[(Integer) args[0] - 1];
+			case "close":
+				this.closed = true;
+				return null;
+			case "isClosed":
+				return this.closed;
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			default:
+				return method.getReturnType() == boolean.class ? Boolean.FALSE : method.getReturnType() == int.class ? Integer.valueOf(0) : null;
+			}
+		}
+	}
+
+	private DataSource dataSource;
+	private PooledConnection conn;
+
+	/** The column labels of every query */
+	private String[] labels;
+
+	public PooledConnectionTest() {
+		super("PooledConnection");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.dataSource = new DataSource();
+		this.dataSource.setStmtCacheSize(1);
+		this.dataSource.setMaxStmtCacheSize(1);
+
+		this.conn = new PooledConnection(this.dataSource,
+				(Connection) Proxy.newProxyInstance(Stub.class.getClassLoader(), new Class<?>[] { Connection.class }, new Stub()));
+	}
+
+	@Test
+	public void testEvictionClosesAStatementNotInUse() throws SQLException {
+		final PreparedStatement a = this.conn.prepareStatement(new CachedSQLStatement("SELECT a"));
+		final PreparedStatement stubA = ((CachedPreparedStatement) a).stmt;
+		a.close();
+		assertFalse(stubA.isClosed());
+
+		// The cache cannot grow, so filling it with other statements evicts the first one, which nobody is using
+		this.fillStmtCache();
+		assertTrue(stubA.isClosed());
+	}
+
+	@Test
+	public void testEvictionDefersCloseUntilTheCallerCloses() throws SQLException {
+		final PreparedStatement a = this.conn.prepareStatement(new CachedSQLStatement("SELECT a"));
+		final PreparedStatement stubA = ((CachedPreparedStatement) a).stmt;
+
+		// The first statement is evicted while its caller still holds it, so it stays open until that caller closes it
+		this.fillStmtCache();
+		assertFalse(stubA.isClosed());
+
+		a.close();
+		assertTrue(stubA.isClosed());
+
+		// Closing a statement that is still cached only returns it to the cache
+		final CachedSQLStatement selectB = new CachedSQLStatement("SELECT b");
+		final PreparedStatement b = this.conn.prepareStatement(selectB);
+		final PreparedStatement stubB = ((CachedPreparedStatement) b).stmt;
+		b.close();
+		assertFalse(stubB.isClosed());
+		assertSame(b, this.conn.prepareStatement(selectB));
+	}
+
+	@Test
+	public void testQueryRebuildsChangedColumnIndex() throws SQLException {
+		final CachedSQLStatement select = new CachedSQLStatement("SELECT * FROM t");
+		final RowHandler handler = new RowHandler() {
+			@Override
+			public boolean handle(final Row row) {
+				return true;
+			}
+		};
+
+		// The first query builds the column index and caches it on the statement
+		this.labels = new String[] { "id", "name" };
+		assertEquals(0, this.conn.query(select, 0, handler));
+		final ColumnIndex columnIndex = select.columnIndex;
+		assertNotNull(columnIndex);
+		assertEquals(2, columnIndex.indexOf("NAME"));
+
+		// The same labels keep the cached column index
+		assertEquals(0, this.conn.query(select, 0, handler));
+		assertSame(columnIndex, select.columnIndex);
+
+		// Once the query returns other labels, such as after the table was altered, the column index is rebuilt
+		this.labels = new String[] { "id", "email", "name" };
+		assertEquals(0, this.conn.query(select, 0, handler));
+		assertNotSame(columnIndex, select.columnIndex);
+		assertEquals(3, select.columnIndex.indexOf("name"));
+	}
+
+	/**
+	 * Prepares and closes as many new statements as the statement cache holds, which evicts every statement cached before.
+	 */
+	private void fillStmtCache() throws SQLException {
+		final int capacity = this.conn.stmtCache.getCapacity();
+
+		for (int i = 0; i < capacity; i++) {
+			this.conn.prepareStatement(new CachedSQLStatement("SELECT " + i)).close();
+		}
+
+		assertEquals(capacity, this.conn.stmtCache.getCapacity());
+	}
+
+} // End PooledConnectionTest
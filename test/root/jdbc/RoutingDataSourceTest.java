@@ -0,0 +1,277 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.jdbc;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+import root.lang.StringExtractor;
+import root.log.Log;
+import root.pool.PoolObjectFactory;
+
+/**
+ * Test the {@link RoutingDataSource} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class RoutingDataSourceTest extends TestCase {
+
+	/**
+	 * A data source that never connects, whose pool hands out {@link PooledConnection} objects around stub connections, or fails to create any
+	 * while <code>down</code> is set.
+	 */
+	private static final class DataSource extends RootDataSource {
+
+		private static final Log log = new Log(DataSource.class);
+
+		private volatile boolean down;
+
+		private DataSource() {
+			super(4);
+		}
+
+		@Override
+		public final void extract(final StringExtractor extractor) {
+			extractor.append("DataSource");
+		}
+
+		@Override
+		public final int getLoginTimeout() {
+			return 0;
+		}
+
+		@Override
+		public final PrintWriter getLogWriter() {
+			return null;
+		}
+
+		@Override
+		public final Logger getParentLogger() throws SQLFeatureNotSupportedException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public final void setLoginTimeout(final int seconds) {
+		}
+
+		@Override
+		public final void setLogWriter(final PrintWriter out) {
+		}
+
+		@Override
+		protected final Log getLog() {
+			return log;
+		}
+
+		@Override
+		protected final PoolObjectFactory<PooledConnection> getPooledConnectionFactory() {
+			return new PoolObjectFactory<PooledConnection>() {
+				@Override
+				public PooledConnection create() {
+					if (DataSource.this.down) {
+						throw new IllegalStateException("Data source is down");
+					}
+
+					return new PooledConnection(DataSource.this,
+							(Connection) Proxy.newProxyInstance(Stub.class.getClassLoader(), new Class<?>[] { Connection.class }, new Stub()));
+				}
+
+				@Override
+				public void destroy(final PooledConnection conn) {
+				}
+
+				@Override
+				public String getObjectClassName() {
+					return "PooledConnection";
+				}
+
+				@Override
+				public boolean validate(final PooledConnection conn) {
+					return true;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Answers every call on a stub {@link Connection}, remembering only its read-only mode.
+	 */
+	private static final class Stub implements InvocationHandler {
+
+		private boolean readOnly;
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) {
+			switch (method.getName()) {
+			case "setReadOnly":
+				this.readOnly = (Boolean) args[0];
+				return null;
+			case "isReadOnly":
+				return this.readOnly;
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			default:
+				return method.getReturnType() == boolean.class ? Boolean.FALSE : method.getReturnType() == int.class ? Integer.valueOf(0) : null;
+			}
+		}
+	}
+
+	private final DataSource primary = new DataSource();
+	private final DataSource replica0 = new DataSource();
+	private final DataSource replica1 = new DataSource();
+
+	public RoutingDataSourceTest() {
+		super("RoutingDataSource");
+	}
+
+	@Test
+	public void testLeastActive() {
+		final RoutingDataSource routing = new RoutingDataSource(RoutingStrategy.LEAST_ACTIVE, this.primary, this.replica0, this.replica1);
+
+		// While the first replica holds a connection every read-only request goes to the idle one
+		final PooledConnection held = routing.getReadOnlyConnection();
+		final int busy = routing.getReplicaRoutedCount(0) == 1 ? 0 : 1;
+
+		for (int i = 0; i < 4; i++) {
+			routing.getReadOnlyConnection().close();
+		}
+
+		assertEquals(1, routing.getReplicaRoutedCount(busy));
+		assertEquals(4, routing.getReplicaRoutedCount(1 - busy));
+
+		// Once both are idle again they share the load in turn
+		held.close();
+
+		for (int i = 0; i < 4; i++) {
+			routing.getReadOnlyConnection().close();
+		}
+
+		assertEquals(3, routing.getReplicaRoutedCount(busy));
+		assertEquals(6, routing.getReplicaRoutedCount(1 - busy));
+		assertEquals(0, routing.getPrimaryRoutedCount());
+	}
+
+	@Test
+	public void testReadOnlyTransactionGoesToReplica() {
+		final RoutingDataSource routing = new RoutingDataSource(RoutingStrategy.ROUND_ROBIN, this.primary, this.replica0);
+
+		Transaction.beginReadOnly();
+
+		try {
+			// Even a request for writes is routed to the replica of the read-only transaction
+			final PooledConnection conn = routing.getConnection();
+			assertSame(conn, routing.getConnection());
+		} finally {
+			Transaction.commit();
+		}
+
+		assertEquals(0, routing.getPrimaryRoutedCount());
+		assertEquals(2, routing.getReplicaRoutedCount(0));
+	}
+
+	@Test
+	public void testReadWriteRouting() throws SQLException {
+		final RoutingDataSource routing = new RoutingDataSource(RoutingStrategy.ROUND_ROBIN, this.primary, this.replica0);
+
+		final PooledConnection write = routing.getConnection();
+		assertFalse(write.isReadOnly());
+		write.close();
+		assertEquals(1, routing.getPrimaryRoutedCount());
+
+		routing.getReadOnlyConnection().close();
+		assertEquals(1, routing.getPrimaryRoutedCount());
+		assertEquals(1, routing.getReplicaRoutedCount(0));
+	}
+
+	@Test
+	public void testReplicaFallsBackToPrimary() throws SQLException {
+		final RoutingDataSource routing = new RoutingDataSource(RoutingStrategy.ROUND_ROBIN, this.primary, this.replica0);
+		this.replica0.down = true;
+
+		// The primary takes the read-only work on a connection that is read-only until it is returned to the pool
+		final PooledConnection conn = routing.getReadOnlyConnection();
+		assertTrue(conn.isReadOnly());
+		assertEquals(1, routing.getPrimaryRoutedCount());
+		assertEquals(0, routing.getReplicaRoutedCount(0));
+
+		conn.close();
+		assertFalse(conn.isReadOnly());
+
+		// The replica is used again as soon as it can hand out connections
+		this.replica0.down = false;
+		routing.getReadOnlyConnection().close();
+		assertEquals(1, routing.getReplicaRoutedCount(0));
+	}
+
+	@Test
+	public void testRoundRobin() {
+		final RoutingDataSource routing = new RoutingDataSource(RoutingStrategy.ROUND_ROBIN, this.primary, this.replica0, this.replica1);
+
+		// The replicas are taken in turn even while their connections are still held
+		final PooledConnection first = routing.getReadOnlyConnection();
+		final PooledConnection second = routing.getReadOnlyConnection();
+		assertEquals(1, routing.getReplicaRoutedCount(0));
+		assertEquals(1, routing.getReplicaRoutedCount(1));
+
+		first.close();
+		second.close();
+
+		for (int i = 0; i < 4; i++) {
+			routing.getReadOnlyConnection().close();
+		}
+
+		assertEquals(3, routing.getReplicaRoutedCount(0));
+		assertEquals(3, routing.getReplicaRoutedCount(1));
+		assertEquals(0, routing.getPrimaryRoutedCount());
+	}
+
+	@Test
+	public void testTransactionIsPinned() {
+		final RoutingDataSource routing = new RoutingDataSource(RoutingStrategy.ROUND_ROBIN, this.primary, this.replica0);
+
+		Transaction.begin();
+
+		try {
+			// Once the transaction holds a primary connection, read-only requests stay on it instead of going to the replica
+			final PooledConnection conn = routing.getConnection();
+			assertSame(conn, routing.getReadOnlyConnection());
+			assertSame(conn, routing.getConnection());
+		} finally {
+			Transaction.commit();
+		}
+
+		assertEquals(3, routing.getPrimaryRoutedCount());
+		assertEquals(0, routing.getReplicaRoutedCount(0));
+
+		// After the transaction ends read-only work goes back to the replica
+		routing.getReadOnlyConnection().close();
+		assertEquals(1, routing.getReplicaRoutedCount(0));
+	}
+
+} // End RoutingDataSourceTest
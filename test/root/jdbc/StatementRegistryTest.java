@@ -0,0 +1,113 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.jdbc;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+import root.adt.ListArray;
+import root.validation.InvalidParameterException;
+
+/**
+ * Test the {@link StatementRegistry} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class StatementRegistryTest extends TestCase {
+
+	private StatementRegistry registry;
+
+	private final CachedSQLStatement select = new CachedSQLStatement("SELECT * FROM foo");
+	private final CachedSQLStatement insert = new CachedSQLStatement("INSERT INTO foo VALUES (?)");
+	private final CachedSQLStatement update = new CachedSQLStatement("UPDATE foo SET bar = ?");
+
+	public StatementRegistryTest() {
+		super("StatementRegistry");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.registry = new StatementRegistry(2);
+	}
+
+	@Test
+	public void testCapacity() {
+		this.registry.record(this.select);
+		this.registry.record(this.insert);
+		this.registry.record(this.update);
+
+		assertEquals(2, this.registry.getSize());
+		assertEquals(0, this.registry.getCount(this.update));
+
+		// A tracked statement is still counted once the registry is full
+		this.registry.record(this.select);
+		assertEquals(2, this.registry.getCount(this.select));
+	}
+
+	@Test
+	public void testClear() {
+		this.registry.record(this.select);
+		this.registry.clear();
+
+		assertEquals(0, this.registry.getSize());
+		assertEquals(0, this.registry.getCount(this.select));
+	}
+
+	@Test
+	public void testConstructorCapacity() {
+		assertEquals(2, this.registry.getCapacity());
+
+		try {
+			new StatementRegistry(0);
+			fail("Expected root.validation.InvalidParameterException was not thrown");
+		} catch (final InvalidParameterException e) {
+		}
+	}
+
+	@Test
+	public void testGetHottest() {
+		assertTrue(this.registry.getHottest(8).isEmpty());
+
+		this.registry.record(this.select);
+		this.registry.record(this.insert);
+		this.registry.record(this.insert);
+
+		ListArray<CachedSQLStatement> hottest = this.registry.getHottest(8);
+		assertEquals(2, hottest.getSize());
+		assertSame(this.insert, hottest.get(0));
+		assertSame(this.select, hottest.get(1));
+
+		hottest = this.registry.getHottest(1);
+		assertEquals(1, hottest.getSize());
+		assertSame(this.insert, hottest.get(0));
+	}
+
+	@Test
+	public void testRecord() {
+		assertEquals(0, this.registry.getCount(this.select));
+
+		this.registry.record(this.select);
+		this.registry.record(this.select);
+
+		assertEquals(1, this.registry.getSize());
+		assertEquals(2, this.registry.getCount(this.select));
+	}
+
+} // End StatementRegistryTest
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.jdbc;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the {@link Transaction} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class TransactionTest extends TestCase {
+
+	private static final int numThreads = 32;
+	private static final int txnsPerThread = 10000;
+
+	public TransactionTest() {
+		super("Transaction");
+	}
+
+	@Test
+	public void testBegin() {
+		assertFalse(Transaction.isActive());
+		assertNull(Transaction.getLocalScope());
+
+		Transaction.begin(TransactionIsolationLevel.DEFAULT);
+		final TransactionLocalScope txnScope = Transaction.getLocalScope();
+		assertTrue(Transaction.isActive());
+		assertNotNull(txnScope);
+		assertEquals(TransactionIsolationLevel.DEFAULT, txnScope.isoLevel);
+
+		// A second begin() joins the transaction already in progress
+		Transaction.begin();
+		assertSame(txnScope, Transaction.getLocalScope());
+
+		Transaction.commit();
+		assertFalse(Transaction.isActive());
+		assertNull(Transaction.getLocalScope());
+	}
+
+	@Test
+	public void testCommitInactive() {
+		try {
+			Transaction.commit();
+			fail("Expected root.jdbc.DatabaseException was not thrown");
+		} catch (final DatabaseException e) {
+		}
+	}
+
+	@Test
+	public void testConcurrentTransactions() throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(numThreads);
+		final AtomicInteger failures = new AtomicInteger();
+		final ConcurrentHashMap<TransactionLocalScope, Thread> owners = new ConcurrentHashMap<>();
+
+		for (int t = 0; t < numThreads; t++) {
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+
+						for (int i = 0; i < txnsPerThread; i++) {
+							Transaction.begin();
+							final TransactionLocalScope txnScope = Transaction.getLocalScope();
+
+							// Every thread must see its own scope and no other thread may ever see it
+							if (txnScope == null || owners.putIfAbsent(txnScope, Thread.currentThread()) != null) {
+								failures.incrementAndGet();
+							}
+
+							Thread.yield();
+
+							if (Transaction.getLocalScope() != txnScope) {
+								failures.incrementAndGet();
+							}
+
+							owners.remove(txnScope);
+
+							if ((i & 1) == 0) {
+								Transaction.commit();
+							} else {
+								Transaction.rollback();
+							}
+
+							if (Transaction.isActive()) {
+								failures.incrementAndGet();
+							}
+						}
+					} catch (final Throwable e) {
+						failures.incrementAndGet();
+					} finally {
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+
+		start.countDown();
+		done.await();
+
+		assertEquals(0, failures.get());
+		assertTrue(owners.isEmpty());
+		assertFalse(Transaction.isActive());
+	}
+
+	@Test
+	public void testRollback() {
+		Transaction.begin();
+		assertTrue(Transaction.isActive());
+
+		Transaction.rollback();
+		assertFalse(Transaction.isActive());
+
+		try {
+			Transaction.rollback();
+			fail("Expected root.jdbc.DatabaseException was not thrown");
+		} catch (final DatabaseException e) {
+		}
+	}
+
+} // End TransactionTest
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.metrics;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the {@link Counter} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class CounterTest extends TestCase {
+
+	private static final int numThreads = 8;
+
+	private static final int numIncrements = 100000;
+
+	public CounterTest() {
+		super("Counter");
+	}
+
+	@Test
+	public void testConcurrentIncrements() throws InterruptedException {
+		// Fewer stripes than threads, so that several threads share a stripe
+		final Counter counter = new Counter(2);
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] threads = new Thread[numThreads];
+
+		for (int i = 0; i < numThreads; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (final InterruptedException e) {
+						return;
+					}
+
+					for (int j = 0; j < numIncrements; j++) {
+						counter.increment();
+					}
+
+					counter.add(-1);
+				}
+			};
+			threads[i].start();
+		}
+
+		start.countDown();
+
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+
+		// No increment is lost however the threads are spread across the stripes
+		assertEquals((long) numThreads * numIncrements - numThreads, counter.sum());
+	}
+
+	@Test
+	public void testReset() {
+		final Counter counter = new Counter(4);
+		counter.add(42);
+		counter.increment();
+
+		counter.reset();
+		assertEquals(0, counter.sum());
+
+		counter.increment();
+		assertEquals(1, counter.sum());
+	}
+
+	@Test
+	public void testStripes() {
+		// Any number of stripes, including none, is rounded up to a power of two that still counts correctly
+		for (final int numStripes : new int[] { -1, 0, 1, 3, 5, 64 }) {
+			final Counter counter = new Counter(numStripes);
+			counter.add(7);
+			counter.decrement();
+
+			assertEquals(6, counter.sum());
+		}
+	}
+
+	@Test
+	public void testSum() {
+		final Counter counter = new Counter();
+		assertEquals(0, counter.sum());
+
+		counter.increment();
+		counter.increment();
+		counter.add(10);
+		counter.decrement();
+		counter.add(-3);
+
+		assertEquals(8, counter.sum());
+		assertEquals("8", counter.toString());
+	}
+
+} // End CounterTest
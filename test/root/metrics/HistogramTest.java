@@ -0,0 +1,177 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.metrics;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the {@link Histogram} and {@link HistogramSnapshot} classes.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class HistogramTest extends TestCase {
+
+	private static final int numThreads = 8;
+
+	private static final int numRecords = 10000;
+
+	public HistogramTest() {
+		super("Histogram");
+	}
+
+	@Test
+	public void testConcurrentRecords() throws InterruptedException {
+		// Fewer stripes than threads, so that several threads share a stripe
+		final Histogram histogram = new Histogram(2);
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] threads = new Thread[numThreads];
+
+		for (int i = 0; i < numThreads; i++) {
+			final long offset = i;
+
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (final InterruptedException e) {
+						return;
+					}
+
+					for (int j = 1; j <= numRecords; j++) {
+						histogram.record(j * numThreads + offset);
+					}
+				}
+			};
+			threads[i].start();
+		}
+
+		start.countDown();
+
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+
+		// Every value from numThreads up to (numRecords + 1) * numThreads - 1 is recorded exactly once
+		final long count = (long) numThreads * numRecords;
+		final long first = numThreads;
+		final long last = (numRecords + 1L) * numThreads - 1;
+
+		assertEquals(count, histogram.getCount());
+		assertEquals((first + last) * count / 2, histogram.getSum());
+		assertEquals(last, histogram.getMax());
+		assertEquals(histogram.getSum() / count, histogram.getMean());
+		assertEquals(last, histogram.getPercentile(1.0));
+	}
+
+	@Test
+	public void testEmpty() {
+		final Histogram histogram = new Histogram();
+
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getSum());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getMean());
+		assertEquals(0, histogram.getPercentile(0.5));
+		assertEquals(0, histogram.snapshot().getPercentile(0.5));
+	}
+
+	@Test
+	public void testNegativeRecordedAsZero() {
+		final Histogram histogram = new Histogram(1);
+		histogram.record(-5);
+		histogram.record(0);
+
+		assertEquals(2, histogram.getCount());
+		assertEquals(0, histogram.getSum());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getPercentile(1.0));
+	}
+
+	@Test
+	public void testPercentile() {
+		final Histogram histogram = new Histogram(4);
+
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(5050, histogram.getSum());
+		assertEquals(100, histogram.getMax());
+		assertEquals(50, histogram.getMean());
+
+		// Each percentile is the upper bound of the power of two bucket it falls in, capped at the longest duration
+		assertEquals(1, histogram.getPercentile(0.0));
+		assertEquals(1, histogram.getPercentile(0.01));
+		assertEquals(3, histogram.getPercentile(0.02));
+		assertEquals(63, histogram.getPercentile(0.5));
+		assertEquals(100, histogram.getPercentile(0.99));
+		assertEquals(100, histogram.getPercentile(1.0));
+
+		final HistogramSnapshot snapshot = histogram.snapshot();
+		assertEquals(63, snapshot.getPercentile(0.5));
+		assertEquals(100, snapshot.getPercentile(0.99));
+	}
+
+	@Test
+	public void testReset() {
+		final Histogram histogram = new Histogram(4);
+		histogram.record(1000);
+		histogram.record(2000);
+
+		histogram.reset();
+
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getSum());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getPercentile(0.99));
+
+		// A smaller duration than any recorded before the reset becomes the new longest
+		histogram.record(10);
+		assertEquals(1, histogram.getCount());
+		assertEquals(10, histogram.getMax());
+	}
+
+	@Test
+	public void testSnapshot() {
+		final Histogram histogram = new Histogram(4);
+		histogram.record(100);
+		histogram.record(300);
+
+		final HistogramSnapshot snapshot = histogram.snapshot();
+
+		// Later records and a reset leave the snapshot as it was taken
+		histogram.record(5000);
+		assertEquals(3, histogram.getCount());
+		histogram.reset();
+
+		assertEquals(2, snapshot.getCount());
+		assertEquals(400, snapshot.getSum());
+		assertEquals(300, snapshot.getMax());
+		assertEquals(200, snapshot.getMean());
+		assertEquals(127, snapshot.getPercentile(0.5));
+		assertEquals(300, snapshot.getPercentile(1.0));
+		assertEquals(snapshot.toString(), snapshot.toString());
+	}
+
+} // End HistogramTest
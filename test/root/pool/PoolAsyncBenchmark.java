@@ -0,0 +1,177 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.pool;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import root.metrics.Stopwatch;
+
+/**
+ * Burst benchmark of {@link PoolConcurrent#acquire()} against {@link PoolConcurrent#acquireAsync()} with far more requests than pooled objects,
+ * which is how a pool of connections sees a spike of requests. Each request holds its object for a short while before abandoning it. Every run
+ * serves the requests with the same number of worker threads, one per pooled object: the blocking runs call {@link PoolConcurrent#acquire()} on
+ * each worker, while the asynchronous run issues every acquisition from a single thread up front and the workers complete them in turn. The time
+ * of each burst is printed along with the 99th percentile and maximum acquire times and the number of threads the burst needed.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class PoolAsyncBenchmark {
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final int capacity = 50;
+	private static final int numRequests = 10000;
+	private static final int numRuns = 3;
+	private static final long holdNanos = 100000;
+
+	private static final PoolObjectFactory<Object> factory = new PoolObjectFactory<Object>() {
+		@Override
+		public Object create() {
+			return new Object();
+		}
+
+		@Override
+		public void destroy(final Object o) {
+			// Nothing to do
+		}
+
+		@Override
+		public String getObjectClassName() {
+			return "Object";
+		}
+
+		@Override
+		public boolean validate(final Object o) {
+			return true;
+		}
+	};
+
+	// <><><><><><><><><><><><><><> Static Methods <><><><><><><><><><><><><><>
+
+	public static void main(final String[] args) throws InterruptedException {
+		final Stopwatch stopwatch = new Stopwatch();
+
+		for (int r = 0; r < numRuns; r++) {
+			final String blocking = "acquire() x" + numRequests;
+			final String fair = "acquire() fair x" + numRequests;
+			final String async = "acquireAsync() x" + numRequests;
+
+			stopwatch.start(blocking);
+			runBlocking(blocking, new PoolConcurrent<>(capacity, factory));
+			stopwatch.stop();
+
+			stopwatch.start(fair);
+			runBlocking(fair, new PoolConcurrent<>(capacity, factory, true));
+			stopwatch.stop();
+
+			stopwatch.start(async);
+			runAsync(async, new PoolConcurrent<>(capacity, factory));
+			stopwatch.stop();
+
+			System.out.println("------------------------------------------------");
+			System.out.println(stopwatch.getExecutionRunReport());
+		}
+
+		System.out.println("******************* End ************************");
+		System.out.println(stopwatch);
+
+		System.exit(0);
+	}
+
+	private static void print(final String name, final PoolConcurrent<Object> pool, final long startTime, final int numThreads) throws InterruptedException {
+		final double millis = (System.nanoTime() - startTime) / 1000000.0;
+		final PoolStatisticsSnapshot snapshot = pool.snapshot();
+
+		System.out.println(String.format("%-24s %8.1f ms, p99 %10d ns, max %10d ns, %5d threads", name, millis,
+				snapshot.getAcquireTime().getPercentile(0.99), snapshot.getAcquireTime().getMax(), numThreads));
+
+		pool.close();
+	}
+
+	private static void runAsync(final String name, final PoolConcurrent<Object> pool) throws InterruptedException {
+		final ConcurrentLinkedQueue<Future<Object>> pending = new ConcurrentLinkedQueue<>();
+		final CountDownLatch done = new CountDownLatch(capacity);
+
+		pool.setStatistics(new PoolStatistics());
+
+		final long startTime = System.nanoTime();
+
+		for (int i = 0; i < numRequests; i++) {
+			pending.add(pool.acquireAsync());
+		}
+
+		for (int t = 0; t < capacity; t++) {
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (Future<Object> future = pending.poll(); future != null; future = pending.poll()) {
+							final Object o = future.get();
+							LockSupport.parkNanos(holdNanos);
+							pool.abandon(o);
+						}
+					} catch (final InterruptedException | ExecutionException e) {
+						e.printStackTrace();
+					} finally {
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+
+		done.await();
+		print(name, pool, startTime, capacity + 1);
+	}
+
+	private static void runBlocking(final String name, final PoolConcurrent<Object> pool) throws InterruptedException {
+		final AtomicInteger remaining = new AtomicInteger(numRequests);
+		final CountDownLatch done = new CountDownLatch(capacity);
+
+		pool.setStatistics(new PoolStatistics());
+
+		final long startTime = System.nanoTime();
+
+		for (int t = 0; t < capacity; t++) {
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						while (remaining.getAndDecrement() > 0) {
+							final Object o = pool.acquire();
+							LockSupport.parkNanos(holdNanos);
+							pool.abandon(o);
+						}
+					} catch (final InterruptedException e) {
+						e.printStackTrace();
+					} finally {
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+
+		done.await();
+		print(name, pool, startTime, capacity);
+	}
+
+} // End PoolAsyncBenchmark
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.pool;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the {@link PoolBag} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class PoolBagTest extends TestCase {
+
+	/**
+	 * Creates numbered objects and records every object it destroys.
+	 */
+	private static final class Factory implements PoolObjectFactory<Integer> {
+
+		private final AtomicInteger numCreated = new AtomicInteger();
+		private final CopyOnWriteArrayList<Integer> destroyed = new CopyOnWriteArrayList<>();
+		private volatile boolean valid = true;
+
+		@Override
+		public Integer create() {
+			return this.numCreated.incrementAndGet();
+		}
+
+		@Override
+		public void destroy(final Integer i) {
+			this.destroyed.add(i);
+		}
+
+		@Override
+		public String getObjectClassName() {
+			return "Integer";
+		}
+
+		@Override
+		public boolean validate(final Integer i) {
+			return this.valid;
+		}
+	}
+
+	private Factory factory;
+
+	public PoolBagTest() {
+		super("PoolBag");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.factory = new Factory();
+	}
+
+	@Test
+	public void testAcquireWaitsForAbandon() throws Exception {
+		final PoolBag<Integer> pool = new PoolBag<>(1, this.factory);
+		final Integer i = pool.acquire();
+		final AtomicReference<Integer> waiterResult = new AtomicReference<>();
+		final Thread waiter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					waiterResult.set(pool.acquire());
+				} catch (final InterruptedException e) {
+					// Nothing to do
+				}
+			}
+		});
+
+		waiter.start();
+
+		for (int n = 0; n < 500 && pool.getWaitingCount() == 0; n++) {
+			Thread.sleep(10);
+		}
+
+		assertEquals(1, pool.getWaitingCount());
+
+		// The abandoned object is handed to the waiting thread instead of being kept by this one
+		pool.abandon(i);
+		waiter.join(5000);
+		assertSame(i, waiterResult.get());
+		assertEquals(1, this.factory.numCreated.get());
+		assertEquals(1, pool.getActiveCount());
+		assertEquals(0, pool.getWaitingCount());
+	}
+
+	@Test
+	public void testAcquireTimesOut() throws InterruptedException {
+		final PoolBag<Integer> pool = new PoolBag<>(1, this.factory);
+
+		pool.acquire();
+		pool.setMaxWait(10);
+
+		try {
+			pool.acquire();
+			fail("Expected java.util.NoSuchElementException was not thrown");
+		} catch (final NoSuchElementException e) {
+		}
+
+		assertEquals(0, pool.getWaitingCount());
+	}
+
+	@Test
+	public void testClose() throws InterruptedException {
+		final PoolBag<Integer> pool = new PoolBag<>(2, this.factory);
+		final Integer first = pool.acquire();
+		final Integer second = pool.acquire();
+
+		pool.abandon(first);
+		pool.close();
+
+		// Idle objects are destroyed when the pool closes, objects in use when they are abandoned
+		assertEquals(1, this.factory.destroyed.size());
+		assertEquals(first, this.factory.destroyed.get(0));
+
+		pool.abandon(second);
+		assertEquals(2, this.factory.destroyed.size());
+		assertEquals(0, pool.getSize());
+
+		try {
+			pool.acquire();
+			fail("Expected root.pool.ClosedForBusinessException was not thrown");
+		} catch (final ClosedForBusinessException e) {
+		}
+	}
+
+	@Test
+	public void testConcurrentAcquireIsExclusive() throws InterruptedException {
+		final int capacity = 4;
+		final PoolBag<Integer> pool = new PoolBag<>(capacity, this.factory);
+		final AtomicIntegerArray owners = new AtomicIntegerArray(capacity + 1);
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		final Thread[] threads = new Thread[8];
+
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int n = 0; n < 20000; n++) {
+							final Integer i = pool.acquire();
+
+							if (owners.incrementAndGet(i) != 1) {
+								throw new IllegalStateException("Object " + i + " was borrowed by two threads at once");
+							}
+
+							owners.decrementAndGet(i);
+							pool.abandon(i);
+						}
+					} catch (final Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			});
+			threads[t].start();
+		}
+
+		for (final Thread thread : threads) {
+			thread.join(60000);
+		}
+
+		assertNull(failure.get());
+		assertTrue(this.factory.numCreated.get() <= capacity);
+		assertEquals(this.factory.numCreated.get(), pool.getIdleCount());
+		assertEquals(0, pool.getWaitingCount());
+	}
+
+	@Test
+	public void testInvalidObjectIsReplaced() throws InterruptedException {
+		final PoolBag<Integer> pool = new PoolBag<>(1, this.factory);
+		final Integer first = pool.acquire();
+
+		pool.abandon(first);
+		this.factory.valid = false;
+
+		// The invalid object is destroyed, which makes room for a new one that is not validated
+		final Integer second = pool.acquire();
+		assertEquals(Integer.valueOf(2), second);
+		assertEquals(1, this.factory.destroyed.size());
+		assertEquals(first, this.factory.destroyed.get(0));
+		assertEquals(1, pool.getSize());
+	}
+
+	@Test
+	public void testRemoveMakesRoom() throws InterruptedException {
+		final PoolBag<Integer> pool = new PoolBag<>(1, this.factory);
+		final Integer first = pool.acquire();
+
+		pool.remove(first);
+		assertEquals(0, pool.getSize());
+		assertEquals(first, this.factory.destroyed.get(0));
+		assertEquals(Integer.valueOf(2), pool.acquire());
+	}
+
+	@Test
+	public void testThreadReusesItsAbandonedObjects() throws InterruptedException {
+		final PoolBag<Integer> pool = new PoolBag<>(4, this.factory);
+		final Integer first = pool.acquire();
+		final Integer second = pool.acquire();
+
+		// The object abandoned most recently by this thread is acquired first
+		pool.abandon(first);
+		pool.abandon(second);
+		assertSame(second, pool.acquire());
+		assertSame(first, pool.acquire());
+		assertEquals(2, this.factory.numCreated.get());
+		assertEquals(2, pool.getActiveCount());
+	}
+
+} // End PoolBagTest
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.pool;
+
+import java.util.concurrent.CountDownLatch;
+
+import root.metrics.Stopwatch;
+
+/**
+ * Borrow and return benchmark of {@link PoolConcurrent}, a fair {@link PoolConcurrent} and {@link PoolBag}. Each run starts the same number of
+ * threads against every pool where each thread repeatedly acquires an object and abandons it right away, which is how a request thread uses a
+ * pooled connection. The cost of one borrow and return cycle is printed for each thread count along with the 99th percentile and maximum acquire
+ * times, which show the tail of the wait once there are more threads than objects.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class PoolBenchmark {
+
+	// <><><><><><><><><><><><><><><> Constants <><><><><><><><><><><><><><><>
+
+	private static final int capacity = 16;
+	private static final int cyclesPerRun = 1 << 22;
+	private static final int[] threadCounts = { 1, 8, 64 };
+
+	private static final PoolObjectFactory<Object> factory = new PoolObjectFactory<Object>() {
+		@Override
+		public Object create() {
+			return new Object();
+		}
+
+		@Override
+		public void destroy(final Object o) {
+			// Nothing to do
+		}
+
+		@Override
+		public String getObjectClassName() {
+			return "Object";
+		}
+
+		@Override
+		public boolean validate(final Object o) {
+			return true;
+		}
+	};
+
+	// <><><><><><><><><><><><><><> Static Methods <><><><><><><><><><><><><><>
+
+	public static void main(final String[] args) throws InterruptedException {
+		final Stopwatch stopwatch = new Stopwatch();
+
+		for (final int numThreads : threadCounts) {
+			final String concurrent = "PoolConcurrent x" + numThreads;
+			final String fair = "PoolConcurrent fair x" + numThreads;
+			final String bag = "PoolBag x" + numThreads;
+
+			stopwatch.start(concurrent);
+			run(concurrent, new PoolConcurrent<>(capacity, factory), numThreads);
+			stopwatch.stop();
+
+			stopwatch.start(fair);
+			run(fair, new PoolConcurrent<>(capacity, factory, true), numThreads);
+			stopwatch.stop();
+
+			stopwatch.start(bag);
+			run(bag, new PoolBag<>(capacity, factory), numThreads);
+			stopwatch.stop();
+
+			System.out.println("------------------------------------------------");
+			System.out.println(stopwatch.getExecutionRunReport());
+		}
+
+		System.out.println("******************* End ************************");
+		System.out.println(stopwatch);
+
+		System.exit(0);
+	}
+
+	private static void run(final String name, final Pool<Object> pool, final int numThreads) throws InterruptedException {
+		final int cyclesPerThread = cyclesPerRun / numThreads;
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(numThreads);
+		final PoolStatistics statistics = new PoolStatistics();
+
+		pool.setStatistics(statistics);
+
+		for (int t = 0; t < numThreads; t++) {
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+
+						for (int i = 0; i < cyclesPerThread; i++) {
+							pool.abandon(pool.acquire());
+						}
+					} catch (final InterruptedException e) {
+						// Nothing to do
+					} finally {
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+
+		final long startTime = System.nanoTime();
+		start.countDown();
+		done.await();
+
+		final double nanosPerCycle = (double) (System.nanoTime() - startTime) / cyclesPerRun;
+		final PoolStatisticsSnapshot snapshot = pool.snapshot();
+
+		System.out.println(String.format("%-28s %8.1f ns/cycle, p99 %10d ns, max %10d ns", name, nanosPerCycle,
+				snapshot.getAcquireTime().getPercentile(0.99), snapshot.getAcquireTime().getMax()));
+	}
+
+} // End PoolBenchmark
@@ -0,0 +1,537 @@
+/*
+ * Copyright 2006-2016 Edward Smith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package root.pool;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the {@link PoolConcurrent} class.
+ *
+ * @author Edward Smith
+ * @version 0.5
+ * @since 0.5
+ */
+public final class PoolConcurrentTest extends TestCase {
+
+	/**
+	 * Creates numbered objects and records every object it destroys. Validation runs <code>onValidate</code> first, if set, and then reports
+	 * <code>valid</code>.
+	 */
+	private static final class Factory implements PoolObjectFactory<Integer> {
+
+		private final AtomicInteger numCreated = new AtomicInteger();
+		private final CopyOnWriteArrayList<Integer> destroyed = new CopyOnWriteArrayList<>();
+		private volatile boolean valid = true;
+		private volatile RuntimeException createFailure;
+		private volatile Runnable onValidate;
+
+		@Override
+		public Integer create() {
+			if (this.createFailure != null) {
+				throw this.createFailure;
+			}
+
+			return this.numCreated.incrementAndGet();
+		}
+
+		@Override
+		public void destroy(final Integer i) {
+			this.destroyed.add(i);
+		}
+
+		@Override
+		public String getObjectClassName() {
+			return "Integer";
+		}
+
+		@Override
+		public boolean validate(final Integer i) {
+			final Runnable onValidate = this.onValidate;
+
+			if (onValidate != null) {
+				this.onValidate = null;
+				onValidate.run();
+			}
+
+			return this.valid;
+		}
+	}
+
+	private Factory factory;
+
+	public PoolConcurrentTest() {
+		super("PoolConcurrent");
+	}
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		this.factory = new Factory();
+	}
+
+	@Test
+	public void testActiveEstimate() throws InterruptedException {
+		final PoolConcurrent<Integer> pool = new PoolConcurrent<>(3, this.factory);
+		final Integer first = pool.acquire();
+		final Integer second = pool.acquire();
+		assertEquals(2, pool.getActiveEstimate());
+
+		// Without other threads the estimate matches the count taken under the lock, whether the objects are queued or parked in a slot
+		pool.abandon(first);
+		assertEquals(1, pool.getActiveEstimate());
+		pool.abandon(second);
+		assertEquals(0, pool.getActiveEstimate());
+		assertEquals(pool.getActiveCount(), pool.getActiveEstimate());
+
+		pool.close();
+	}
+
+	@Test
+	public void testAsyncAlternatesWithBlockedThreads() throws Exception {
+		final PoolConcurrent<Integer> pool = new PoolConcurrent<>(1, this.factory);
+		final Integer i = pool.acquire();
+		final AtomicReference<Integer> blockedResult = new AtomicReference<>();
+		final Thread blocked = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					blockedResult.set(pool.acquire());
+				} catch (final InterruptedException e) {
+					// Nothing to do
+				}
+			}
+		});
+
+		blocked.start();
+		awaitWaiting(pool, 1);
+
+		final Future<Integer> first = pool.acquireAsync();
+		final Future<Integer> second = pool.acquireAsync();
+		assertEquals(3, pool.getWaitingCount());
+
+		// The first returned object goes to the wait queue, the next one to the blocked thread even though an acquisition is still queued
+		pool.abandon(i);
+		assertSame(i, first.get());
+
+		pool.abandon(i);
+		blocked.join(5000);
+		assertSame(i, blockedResult.get());
+		assertFalse(second.isDone());
+
+		pool.abandon(i);
+		assertSame(i, second.get());
+		assertEquals(0, pool.getWaitingCount());
+	}
+
+	@Test
+	public void testAsyncFailure() throws Exception {
+		final PoolConcurrent<Integer> pool = new PoolConcurrent<>(1, this.factory);
+		final IllegalStateException failure = new IllegalStateException("Cannot create");
+
+		this.factory.createFailure = failure;
+
+		final Future<Integer> future = pool.acquireAsync();
+
+		// Every call reports the same failure
+		for (int attempt = 0; attempt < 2; attempt++) {
+			try {
+				future.get();
+				fail("Expected java.util.concurrent.ExecutionException was not thrown");
+			} catch (final ExecutionException e) {
+				assertSame(failure, e.getCause());
+			}
+		}
+
+		assertTrue(future.isDone());
+		assertFalse(future.isCancelled());
+
+		// The room reserved for the object is given back
+		this.factory.createFailure = null;
+		assertEquals(0, pool.getActiveCount());
+		assertEquals(Integer.valueOf(1), pool.acquireAsync().get());
+	}
+
+	@Test
+	public void testAsyncListener() throws Exception {
+		final PoolConcurrent<Integer> pool = new PoolConcurrent<>(1, this.factory);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		final Integer i = pool.acquire();
+		final CopyOnWriteArrayList<Object> outcomes = new CopyOnWriteArrayList<>();
+		final CountDownLatch called = new CountDownLatch(1);
+		final PoolAcquireListener<Integer> listener = new PoolAcquireListener<Integer>() {
+			@Override
+			public void onAcquire(final Integer t) {
+				outcomes.add(t);
+				called.countDown();
+			}
+
+			@Override
+			public void onFailure(final Throwable cause) {
+				outcomes.add(cause);
+				called.countDown();
+			}
+		};
+
+		try {
+			// The acquisition waits without a thread until the object is returned, and is then completed on the executor
+			final Future<Integer> first = pool.acquireAsync(executor, listener);
+			assertEquals(1, pool.getWaitingCount());
+			assertTrue(outcomes.isEmpty());
+
+			pool.abandon(i);
+			assertTrue(called.await(5, TimeUnit.SECONDS));
+			assertEquals(1, outcomes.size());
+			assertSame(i, outcomes.get(0));
+			assertTrue(first.isDone());
+
+			// A cancelled acquisition is skipped, so the object goes back to the pool and the listener is not called again
+			final Future<Integer> second = pool.acquireAsync(executor, listener);
+			assertTrue(second.cancel(false));
+			pool.abandon(i);
+			assertEquals(1, pool.getIdleCount());
+			assertEquals(1, outcomes.size());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testAsyncTimeout() throws Exception {
+		final PoolConcurrent<Integer> pool = new PoolConcurrent<>(1, this.factory);
+		final Integer i = pool.acquire();
+		final Future<Integer> future = pool.acquireAsync();
+
+		try {
+			future.get(10, TimeUnit.MILLISECONDS);
+			fail("Expected java.util.concurrent.TimeoutException was not thrown");
+		} catch (final TimeoutException e) {
+		}
+
+		// A timed get() leaves the acquisition waiting, while get() gives up after maxWait
+		assertFalse(future.isDone());
+		assertEquals(1, pool.getWaitingCount());
+
+		pool.setMaxWait(10);
+
+		try {
+			future.get();
+			fail("Expected java.util.concurrent.ExecutionException was not thrown");
+		} catch (final ExecutionException e) {
+			assertTrue(e.getCause() instanceof NoSuchElementException);
+		}
+
+		assertTrue(future.isCancelled());
+		assertEquals(0, pool.getWaitingCount());
+
+		// The object returned afterwards goes back to the pool instead of the cancelled acquisition
+		pool.abandon(i);
+		assertEquals(1, pool.getIdleCount());
+	}
+
+	@Test
+	public void testFairHandsOffInWaitingOrder() throws InterruptedException {
+		final PoolConcurrent<Integer> pool = new PoolConcurrent<>(1, this.factory, true);
+		final Integer i = pool.acquire();
+		final CopyOnWriteArrayList<Integer> order = new CopyOnWriteArrayList<>();
+		final Thread[] waiters = new Thread[4];
+
+		// Each waiter starts waiting only after the previous one, then records its turn and returns the object
+		for (int w = 0; w < waiters.length; w++) {
+			final int waiterNum = w;
+
+			waiters[w] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						final Integer t = pool.acquire();
+						order.add(waiterNum);
+						pool.abandon(t);
+					} catch (final InterruptedException e) {
+						// Nothing to do
+					}
+				}
+			});
+			waiters[w].start();
+			awaitWaiting(pool, w + 1);
+		}
+
+		pool.abandon(i);
+
+		for (final Thread waiter : waiters) {
+			waiter.join(5000);
+		}
+
+		assertEquals(new CopyOnWriteArrayList<>(new Integer[] { 0, 1, 2, 3 }), order);
+		assertEquals(1, this.factory.numCreated.get());
+		assertEquals(0, pool.getWaitingCount());
+	}
+
+	@Test
+	public void testFairSkipsTimedOutWaiter() throws InterruptedException {
+		final PoolConcurrent<Integer> pool = new PoolConcurrent<>(1, this.factory, true);
+		final Integer i = pool.acquire();
+		final AtomicReference<Throwable> timedOutResult = new AtomicReference<>();
+		final AtomicReference<Integer> waiterResult = new AtomicReference<>();
+
+		pool.setMaxWait(100);
+
+		final Thread timedOut = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					pool.acquire();
+				} catch (final Throwable e) {
+					timedOutResult.set(e);
+				}
+			}
+		});
+
+		timedOut.start();
+		awaitWaiting(pool, 1);
+		pool.setMaxWait(60000);
+
+		final Thread waiter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					waiterResult.set(pool.acquire());
+				} catch (final InterruptedException e) {
+					// Nothing to do
+				}
+			}
+		});
+
+		waiter.start();
+		awaitWaiting(pool, 2);
+
+		// The longest waiting thread gives up at its deadline and leaves the wait queue, so the object goes to the next one
+		timedOut.join(5000);
+		assertTrue(timedOutResult.get() instanceof NoSuchElementException);
+		assertEquals(1, pool.getWaitingCount());
+
+		pool.abandon(i);
+		waiter.join(5000);
+		assertSame(i, waiterResult.get());
+		assertEquals(0, pool.getWaitingCount());
+	}
+
+	@Test
+	public void testIdleObjectsExpireWithoutMaintenance() throws InterruptedException {
+		final PoolConcurrent<Integer> pool = new PoolConcurrent<>(2, this.factory);
+		final Integer first = pool.acquire();
+		final Integer second = pool.acquire();
+
+		// The first object goes to the queue and the second one to the slot of this thread, and both outlive maxIdleTime
+		pool.setMaxIdleTime(50);
+		pool.abandon(first);
+		pool.abandon(second);
+		Thread.sleep(100);
+
+		// Both are destroyed when acquired instead of being handed out, so a new object is created in their place
+		assertEquals(Integer.valueOf(3), pool.acquire());
+		assertEquals(2, this.factory.destroyed.size());
+		assertTrue(this.factory.destroyed.contains(first));
+		assertTrue(this.factory.destroyed.contains(second));
+		assertEquals(1, pool.getActiveCount());
+	}
+
+	@Test
+	public void testMaintainKeepsIdleOrder() throws InterruptedException {
+		final PoolConcurrent<Integer> pool = new PoolConcurrent<>(2, this.factory);
+		final Integer first = pool.acquire();
+		final Integer second = pool.acquire();
+
+		pool.setMaxIdleTime(200);
+		pool.abandon(first);
+		Thread.sleep(120);
+
+		// The second object is returned while the maintenance validates the first one, which has been idle longer
+		this.factory.onValidate = new Runnable() {
+			@Override
+			public void run() {
+				pool.abandon(second);
+			}
+		};
+
+		pool.maintain();
+		assertEquals(2, pool.getIdleCount());
+		assertTrue(this.factory.destroyed.isEmpty());
+
+		// Only the first object has been idle for longer than maxIdleTime by now, and it must still be found at the head of the queue
+		Thread.sleep(120);
+		pool.maintain();
+		assertEquals(1, pool.getIdleCount());
+		assertEquals(1, this.factory.destroyed.size());
+		assertEquals(first, this.factory.destroyed.get(0));
+		assertSame(second, pool.acquire());
+	}
+
+	@Test
+	public void testMaintenanceStillValidatesOnAcquire() throws InterruptedException {
+		final PoolConcurrent<Integer> pool = new PoolConcurrent<>(2, this.factory);
+
+		// Let the first maintenance run pass so that only acquire() validates from here on
+		pool.startMaintenance(60000);
+		Thread.sleep(100);
+
+		final Integer i = pool.acquire();
+
+		// An object that breaks while in use is destroyed when it is acquired again instead of being handed out until the next maintenance run
+		pool.abandon(i);
+		this.factory.valid = false;
+
+		try {
+			final Integer next = pool.acquire();
+			assertFalse(i.equals(next));
+			assertEquals(1, this.factory.destroyed.size());
+			assertEquals(i, this.factory.destroyed.get(0));
+			pool.abandon(next);
+		} finally {
+			this.factory.valid = true;
+			pool.close();
+		}
+	}
+
+	@Test
+	public void testSequentialThreadsShareOneObject() throws InterruptedException {
+		final PoolConcurrent<Integer> pool = new PoolConcurrent<>(4, this.factory);
+
+		// Threads that use the pool one after another take the object the previous thread returned instead of creating their own
+		for (int t = 0; t < 8; t++) {
+			final Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int n = 0; n < 3; n++) {
+							pool.abandon(pool.acquire());
+						}
+					} catch (final InterruptedException e) {
+						// Nothing to do
+					}
+				}
+			});
+
+			thread.start();
+			thread.join(5000);
+		}
+
+		assertEquals(1, this.factory.numCreated.get());
+		assertEquals(1, pool.getIdleCount());
+	}
+
+	@Test
+	public void testSlotObjectIsReused() throws InterruptedException {
+		final PoolConcurrent<Integer> pool = new PoolConcurrent<>(4, this.factory);
+		final Integer first = pool.acquire();
+		final Integer second = pool.acquire();
+
+		// The first object goes to the empty queue, the second one is parked in the slot of this thread and acquired first
+		pool.abandon(first);
+		pool.abandon(second);
+		assertEquals(2, pool.getIdleCount());
+		assertSame(second, pool.acquire());
+		pool.abandon(second);
+
+		// Another thread takes both the queued and the parked object rather than creating a third one, in either order since threads can share a slot
+		final AtomicReference<Integer> firstResult = new AtomicReference<>();
+		final AtomicReference<Integer> secondResult = new AtomicReference<>();
+		final Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					firstResult.set(pool.acquire());
+					secondResult.set(pool.acquire());
+				} catch (final InterruptedException e) {
+					// Nothing to do
+				}
+			}
+		});
+
+		thread.start();
+		thread.join(5000);
+		assertEquals(first + second, firstResult.get() + secondResult.get());
+		assertFalse(firstResult.get().equals(secondResult.get()));
+		assertEquals(2, this.factory.numCreated.get());
+		assertEquals(0, pool.getIdleCount());
+	}
+
+	@Test
+	public void testSnapshotIsUnaffectedByLaterAcquires() throws InterruptedException {
+		final PoolConcurrent<Integer> pool = new PoolConcurrent<>(4, this.factory);
+		pool.setStatistics(new PoolStatistics());
+		pool.abandon(pool.acquire());
+
+		final PoolStatisticsSnapshot snapshot = pool.snapshot();
+		assertEquals(1, snapshot.getAcquireTime().getCount());
+		assertEquals(1, snapshot.getCreateTime().getCount());
+
+		// The snapshot copied the histograms, so acquisitions after it was taken only show up in the next snapshot
+		pool.abandon(pool.acquire());
+		pool.abandon(pool.acquire());
+		assertEquals(1, snapshot.getAcquireTime().getCount());
+		assertEquals(3, pool.snapshot().getAcquireTime().getCount());
+		assertEquals(1, pool.snapshot().getCreateTime().getCount());
+	}
+
+	@Test
+	public void testTryAcquireNeverWaits() throws InterruptedException {
+		final PoolConcurrent<Integer> pool = new PoolConcurrent<>(1, this.factory);
+		final Integer first = pool.tryAcquire();
+		assertNotNull(first);
+
+		// The pool is full and its only object is in use, so the caller gets nothing instead of waiting
+		assertNull(pool.tryAcquire());
+		assertEquals(0, pool.getWaitingCount());
+
+		pool.abandon(first);
+		assertSame(first, pool.tryAcquire());
+		pool.abandon(first);
+
+		// An invalid idle object is replaced with a new one
+		this.factory.valid = false;
+		final Integer second = pool.tryAcquire();
+		this.factory.valid = true;
+		assertNotNull(second);
+		assertFalse(first.equals(second));
+		assertEquals(2, this.factory.numCreated.get());
+		pool.abandon(second);
+		pool.close();
+	}
+
+	private static void awaitWaiting(final Pool<Integer> pool, final int numWaiting) throws InterruptedException {
+		for (int i = 0; i < 500 && pool.getWaitingCount() < numWaiting; i++) {
+			Thread.sleep(10);
+		}
+
+		assertEquals(numWaiting, pool.getWaitingCount());
+	}
+
+} // End PoolConcurrentTest